@@ -0,0 +1,90 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.ICalculateurImpot;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TraceCalcul;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark du chemin complet de l'adaptateur : six setters puis calculImpotSurRevenuNet,
+ * sans trace puis avec le mode trace activé. Les appels alternent entre deux foyers qui diffèrent
+ * par chacun des paramètres, pour que chaque calcul refasse toutes les étapes au lieu de rendre
+ * le résultat précédent. Le chemin incrémental, où un seul paramètre change, est mesuré à part.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BenchmarkAdaptateur {
+
+    @Param({"SOUS_DECOTE", "TRANCHES_MOYENNES", "CEHR_950000", "CEHR_1500000"})
+    private TrancheRevenus tranche;
+
+    private final AdaptateurSimulateur adaptateur = new AdaptateurSimulateur();
+    private final AdaptateurSimulateur adaptateurTrace = new AdaptateurSimulateur();
+    private final AdaptateurSimulateur adaptateurIncremental = new AdaptateurSimulateur();
+    private long nbAppels;
+
+    @Setup
+    public void preparer() {
+        adaptateurTrace.activerTrace(new TraceCalcul(1024));
+        int total = tranche.getRevenuFoyer();
+        adaptateurIncremental.setRevenusNetDeclarant1(total / 2);
+        adaptateurIncremental.setRevenusNetDeclarant2(total - total / 2);
+        adaptateurIncremental.setSituationFamiliale(SituationFamiliale.MARIE);
+        adaptateurIncremental.setNbEnfantsACharge(2);
+        adaptateurIncremental.setNbEnfantsSituationHandicap(0);
+        adaptateurIncremental.setParentIsole(false);
+        adaptateurIncremental.calculImpotSurRevenuNet();
+    }
+
+    @Benchmark
+    public int setterEtCalcul() {
+        return calculer(adaptateur);
+    }
+
+    @Benchmark
+    public int setterEtCalculAvecTrace() {
+        return calculer(adaptateurTrace);
+    }
+
+    /**
+     * Seul le revenu du premier déclarant change d'un appel à l'autre : abattement, revenu fiscal de
+     * référence et impôts sont refaits, les parts sont reprises.
+     */
+    @Benchmark
+    public int modificationRevenuEtCalcul() {
+        int total = tranche.getRevenuFoyer();
+        adaptateurIncremental.setRevenusNetDeclarant1(total / 2 + (int) (nbAppels++ & 1));
+        adaptateurIncremental.calculImpotSurRevenuNet();
+        return adaptateurIncremental.getImpotSurRevenuNet();
+    }
+
+    private int calculer(ICalculateurImpot adaptateur) {
+        int total = tranche.getRevenuFoyer();
+        boolean second = (nbAppels++ & 1) == 1;
+        adaptateur.setRevenusNetDeclarant1(total / 2 + (second ? 1 : 0));
+        adaptateur.setRevenusNetDeclarant2(total - total / 2);
+        adaptateur.setSituationFamiliale(second ? SituationFamiliale.PACSE : SituationFamiliale.MARIE);
+        adaptateur.setNbEnfantsACharge(second ? 3 : 2);
+        adaptateur.setNbEnfantsSituationHandicap(second ? 1 : 0);
+        adaptateur.setParentIsole(false);
+        adaptateur.calculImpotSurRevenuNet();
+        return adaptateur.getImpotSurRevenuNet();
+    }
+}
@@ -0,0 +1,59 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateurReusine.ColonnesFoyers;
+import com.kerware.simulateurReusine.NoyauColonnes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark des noyaux par colonnes, scalaire et vectoriel, sur une population générée.
+ * Les scores sont exprimés par foyer.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class BenchmarkColonnes {
+
+    static final int NB_FOYERS = 1_000_000;
+
+    private ColonnesFoyers foyers;
+    private NoyauColonnes noyauScalaire;
+    private NoyauColonnes noyauVectoriel;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        foyers = JeuxDeFoyers.genererColonnes(NB_FOYERS, 2024L);
+        noyauScalaire = NoyauColonnes.scalaire(Bareme.BAREME_2024);
+        noyauVectoriel = NoyauColonnes.pour(Bareme.BAREME_2024);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_FOYERS)
+    public int[] calculerScalaire() {
+        noyauScalaire.calculer(foyers);
+        return foyers.getImpotNet();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_FOYERS)
+    public int[] calculerVectoriel() {
+        noyauVectoriel.calculer(foyers);
+        return foyers.getImpotNet();
+    }
+}
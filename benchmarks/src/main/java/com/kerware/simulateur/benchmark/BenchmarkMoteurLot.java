@@ -0,0 +1,61 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.lot.MoteurLot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark du moteur de lot sur un fichier CSV généré en mémoire.
+ * Les scores sont exprimés par foyer ; le paramètre nbThreads permet de vérifier le passage à l'échelle.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkMoteurLot {
+
+    static final int NB_FOYERS = 100_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int nbThreads;
+
+    private String csv;
+    private MoteurLot moteur;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        csv = JeuxDeFoyers.genererCsv(NB_FOYERS, 2024L);
+        moteur = new MoteurLot(new Simulateur(), nbThreads, MoteurLot.TAILLE_BLOC_DEFAUT);
+    }
+
+    @TearDown(Level.Trial)
+    public void terminer() {
+        moteur.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NB_FOYERS)
+    public long traiterLot() throws IOException {
+        return moteur.traiter(new StringReader(csv), Writer.nullWriter());
+    }
+}
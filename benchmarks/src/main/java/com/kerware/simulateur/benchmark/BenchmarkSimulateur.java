@@ -0,0 +1,96 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.CacheImposition;
+import com.kerware.simulateur.InstrumentationPipeline;
+import com.kerware.simulateur.PolitiqueEviction;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateurReusine.SimulateurCentimes;
+import com.kerware.simulateurReusine.SimulateurReusine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link Simulateur}, de {@link SimulateurReusine} et de {@link SimulateurCentimes}
+ * pour chaque situation familiale et chaque tranche de revenus.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BenchmarkSimulateur {
+
+    @Param({"CELIBATAIRE", "PACSE", "MARIE", "DIVORCE", "VEUF"})
+    private SituationFamiliale situation;
+
+    @Param({"SOUS_DECOTE", "TRANCHES_MOYENNES", "CEHR_950000", "CEHR_1500000"})
+    private TrancheRevenus tranche;
+
+    private final Simulateur simulateur = new Simulateur();
+    private final Simulateur simulateurCache =
+            new Simulateur(new CacheImposition(4096, PolitiqueEviction.LRU));
+    private final Simulateur simulateurInstrumente =
+            new Simulateur(new RegistreBaremes(), null, new InstrumentationPipeline());
+    private final SimulateurReusine simulateurReusine = new SimulateurReusine();
+    private final SimulateurCentimes simulateurCentimes = new SimulateurCentimes();
+    private int revenu1;
+    private int revenu2;
+
+    @Setup
+    public void preparer() {
+        boolean couple = situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+        int total = tranche.getRevenuFoyer();
+        revenu1 = couple ? total / 2 : total;
+        revenu2 = total - revenu1;
+    }
+
+    @Benchmark
+    public int calculImpot() {
+        return simulateur.calculImpot(revenu1, revenu2, situation, 1, 0, false);
+    }
+
+    @Benchmark
+    public ResultatImpot calculer() {
+        return simulateur.calculer(revenu1, revenu2, situation, 1, 0, false);
+    }
+
+    @Benchmark
+    public ResultatImpot calculerAvecCache() {
+        return simulateurCache.calculer(revenu1, revenu2, situation, 1, 0, false);
+    }
+
+    @Benchmark
+    public ResultatImpot calculerInstrumente() {
+        return simulateurInstrumente.calculer(revenu1, revenu2, situation, 1, 0, false);
+    }
+
+    @Benchmark
+    public ResultatImpot calculerReusine() {
+        return simulateurReusine.calculer(revenu1, revenu2, situation, 1, 0, false);
+    }
+
+    @Benchmark
+    public int calculImpotCentimes() {
+        return simulateurCentimes.calculImpot(revenu1, revenu2, situation, 1, 0, false);
+    }
+
+    @Benchmark
+    public ResultatImpot calculerCentimes() {
+        return simulateurCentimes.calculer(revenu1, revenu2, situation, 1, 0, false);
+    }
+}
@@ -0,0 +1,64 @@
+package com.kerware.simulateur.benchmark;
+
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateurReusine.ColonnesFoyers;
+
+import java.util.SplittableRandom;
+
+/**
+ * Génération reproductible de foyers valides pour les benchmarks.
+ */
+final class JeuxDeFoyers {
+
+    private static final int[] REVENUS_TYPES = {0, 12000, 20000, 35000, 65000, 95000, 200000, 950000, 1500000};
+
+    private JeuxDeFoyers() {
+    }
+
+    /**
+     * @param nbFoyers Nombre de foyers à générer
+     * @param graine Graine du générateur pseudo-aléatoire
+     * @return Contenu CSV au format de datasImposition.csv, en-tête compris
+     */
+    static String genererCsv(int nbFoyers, long graine) {
+        SplittableRandom aleatoire = new SplittableRandom(graine);
+        SituationFamiliale[] situations = SituationFamiliale.values();
+        StringBuilder csv = new StringBuilder(nbFoyers * 40);
+        csv.append("revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n");
+        for (int i = 0; i < nbFoyers; i++) {
+            SituationFamiliale situation = situations[aleatoire.nextInt(situations.length)];
+            boolean couple = situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+            int revenu1 = REVENUS_TYPES[aleatoire.nextInt(REVENUS_TYPES.length)] + aleatoire.nextInt(1000);
+            int revenu2 = couple ? REVENUS_TYPES[aleatoire.nextInt(REVENUS_TYPES.length)] : 0;
+            int nbEnfants = aleatoire.nextInt(8);
+            int nbEnfantsHandicap = aleatoire.nextInt(nbEnfants + 1);
+            boolean parentIsole = !couple && nbEnfants > 0 && aleatoire.nextBoolean();
+            csv.append(revenu1).append(',').append(revenu2).append(',').append(situation).append(',')
+                    .append(nbEnfants).append(',').append(nbEnfantsHandicap).append(',').append(parentIsole)
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    /**
+     * @param nbFoyers Nombre de foyers à générer
+     * @param graine Graine du générateur pseudo-aléatoire
+     * @return Population rangée par colonnes, tirée comme {@link #genererCsv(int, long)}
+     */
+    static ColonnesFoyers genererColonnes(int nbFoyers, long graine) {
+        SplittableRandom aleatoire = new SplittableRandom(graine);
+        SituationFamiliale[] situations = SituationFamiliale.values();
+        ColonnesFoyers foyers = new ColonnesFoyers(nbFoyers);
+        for (int i = 0; i < nbFoyers; i++) {
+            SituationFamiliale situation = situations[aleatoire.nextInt(situations.length)];
+            boolean couple = situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+            int revenu1 = REVENUS_TYPES[aleatoire.nextInt(REVENUS_TYPES.length)] + aleatoire.nextInt(1000);
+            int revenu2 = couple ? REVENUS_TYPES[aleatoire.nextInt(REVENUS_TYPES.length)] : 0;
+            int nbEnfants = aleatoire.nextInt(8);
+            int nbEnfantsHandicap = aleatoire.nextInt(nbEnfants + 1);
+            boolean parentIsole = !couple && nbEnfants > 0 && aleatoire.nextBoolean();
+            foyers.ajouter(revenu1, revenu2, situation, nbEnfants, nbEnfantsHandicap, parentIsole);
+        }
+        return foyers;
+    }
+}
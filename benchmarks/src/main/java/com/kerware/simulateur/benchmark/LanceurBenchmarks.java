@@ -0,0 +1,29 @@
+package com.kerware.simulateur.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Point d'entrée du jar de benchmarks.
+ * Accepte les options habituelles de JMH (filtre de benchmarks, -f, -wi, -i...) et active
+ * systématiquement le profileur GC pour mesurer le taux d'allocation.
+ */
+public final class LanceurBenchmarks {
+
+    private LanceurBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+        Options options = new OptionsBuilder()
+                .parent(ligneDeCommande)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
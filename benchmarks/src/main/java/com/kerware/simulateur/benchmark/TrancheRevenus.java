@@ -0,0 +1,25 @@
+package com.kerware.simulateur.benchmark;
+
+/**
+ * Niveaux de revenu net du foyer utilisés par les benchmarks.
+ */
+public enum TrancheRevenus {
+    /** Impôt dans la zone de décote (EXG_IMPOT_06). */
+    SOUS_DECOTE(20000),
+    /** Tranches intermédiaires du barème (EXG_IMPOT_04). */
+    TRANCHES_MOYENNES(65000),
+    /** Contribution exceptionnelle, comme la ligne 950000 de datasImposition.csv (EXG_IMPOT_07). */
+    CEHR_950000(950000),
+    /** Contribution exceptionnelle, comme la ligne 1500000 de datasImposition.csv (EXG_IMPOT_07). */
+    CEHR_1500000(1500000);
+
+    private final int revenuFoyer;
+
+    TrancheRevenus(int revenuFoyer) {
+        this.revenuFoyer = revenuFoyer;
+    }
+
+    public int getRevenuFoyer() {
+        return revenuFoyer;
+    }
+}
@@ -1,8 +1,38 @@
 package com.kerware.simulateur;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Calculateur à saisie progressive : chaque modification d'un paramètre n'invalide que les étapes qui en
+ * dépendent, et le calcul suivant ne refait que celles-ci.
+ * <p>
+ * Dépendances : revenus → abattement et revenu fiscal de référence ; situation familiale → abattement
+ * et parts ; enfants et parent isolé → parts du foyer ; revenu fiscal de référence et parts des déclarants
+ * → contribution exceptionnelle et impôt des déclarants ; revenu fiscal de référence et parts du foyer →
+ * impôt du foyer ; impôts bruts et parts → plafonnement ; impôt avant décote → décote. Une étape recalculée
+ * dont la valeur ne change pas n'invalide pas les suivantes. La vérification des paramètres porte sur
+ * l'ensemble de la saisie et précède toujours le calcul ; le résultat est identique à un calcul complet.
+ */
 public class AdaptateurSimulateur implements ICalculateurImpot {
 
-    private Simulateur simulateur = new Simulateur();
+    private final Simulateur simulateur;
+    private ResultatImpot resultat = new ResultatImpot(0, 0, 0, 0, 0, 0, 0);
+
+    // Valeurs des étapes du dernier calcul, et étapes à refaire au prochain
+    private final EnumSet<EtapeCalcul> invalides = EnumSet.allOf(EtapeCalcul.class);
+    private final EnumSet<EtapeCalcul> recalculees = EnumSet.noneOf(EtapeCalcul.class);
+    private Bareme bareme;
+    private double abattement;
+    private double rFRef;
+    private double nbPtsDecl;
+    private double nbPts;
+    private double contribExceptionnelle;
+    private double impotBrutDecl;
+    private double impotBrutFoyer;
+    private double impotAvantDecote;
+    private double decote;
 
     private int revenusNetDecl1 = 0;
     private int revenusNetDecl2 = 0;
@@ -10,15 +40,28 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
     private int nbEnfantsACharge;
     private int nbEnfantsSituationHandicap;
     private boolean parentIsole;
+    private TraceCalcul trace;
+
+    public AdaptateurSimulateur() {
+        this(new Simulateur());
+    }
 
+    /**
+     * @param simulateur Simulateur sans état, éventuellement partagé avec d'autres adaptateurs
+     */
+    public AdaptateurSimulateur(Simulateur simulateur) {
+        this.simulateur = simulateur;
+    }
 
     @Override
     public void setRevenusNetDeclarant1(int rn) {
         if (rn < 0) {
             throw new IllegalArgumentException("Le revenu net du déclarant 1 ne peut pas être négatif.");
         }
+        if (rn != revenusNetDecl1) {
+            invalides.add(EtapeCalcul.ABATTEMENT);
+        }
         this.revenusNetDecl1 = rn;
-        System.out.println("Revenu net déclarant 1 mis à jour : " + rn);
     }
 
     @Override
@@ -26,8 +69,10 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
         if (rn < 0) {
             throw new IllegalArgumentException("Le revenu net du déclarant 2 ne peut pas être négatif.");
         }
+        if (rn != revenusNetDecl2) {
+            invalides.add(EtapeCalcul.ABATTEMENT);
+        }
         this.revenusNetDecl2 = rn;
-        System.out.println("Revenu net déclarant 2 mis à jour : " + rn);
     }
 
     @Override
@@ -35,8 +80,12 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
         if (sf == null) {
             throw new IllegalArgumentException("La situation familiale ne peut pas être null.");
         }
+        if (sf != situationFamiliale) {
+            invalides.add(EtapeCalcul.ABATTEMENT);
+            invalides.add(EtapeCalcul.PARTS_DECLARANTS);
+            invalides.add(EtapeCalcul.PARTS_FOYER);
+        }
         this.situationFamiliale = sf;
-        System.out.println("Situation familiale mise à jour : " + sf);
     }
 
     @Override
@@ -46,8 +95,10 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
         } else if (nbe > 7) {
             throw new IllegalArgumentException("Le nombre d'enfants à charge ne peut pas dépasser 7.");
         }
+        if (nbe != nbEnfantsACharge) {
+            invalides.add(EtapeCalcul.PARTS_FOYER);
+        }
         this.nbEnfantsACharge = nbe;
-        System.out.println("Nombre d'enfants à charge mis à jour : " + nbe);
     }
 
     @Override
@@ -57,8 +108,10 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
         } else if (nbesh > 7) {
             throw new IllegalArgumentException("Le nombre d'enfants en situation de handicap ne peut pas dépasser 7.");
         }
+        if (nbesh != nbEnfantsSituationHandicap) {
+            invalides.add(EtapeCalcul.PARTS_FOYER);
+        }
         this.nbEnfantsSituationHandicap = nbesh;
-        System.out.println("Nombre d'enfants en situation de handicap mis à jour : " + nbesh);
     }
 
     @Override
@@ -66,28 +119,167 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
         if (pi && (situationFamiliale == SituationFamiliale.MARIE || situationFamiliale == SituationFamiliale.PACSE)) {
             throw new IllegalArgumentException("Un parent isolé ne peut pas être en situation de couple.");
         }
+        if (pi != parentIsole) {
+            invalides.add(EtapeCalcul.PARTS_FOYER);
+        }
         this.parentIsole = pi;
-        System.out.println("Statut de parent isolé mis à jour : " + pi);
     }
 
+    /**
+     * Contrôle sans exception des paramètres saisis, avant {@link #calculImpotSurRevenuNet()}.
+     * @return {@link MotifRejet#CODE_VALIDE} si le calcul peut aboutir, code du motif de rejet sinon
+     */
+    public int verifierParametres() {
+        return simulateur.verifier(revenusNetDecl1, revenusNetDecl2, situationFamiliale, nbEnfantsACharge,
+                nbEnfantsSituationHandicap, parentIsole);
+    }
+
+    /**
+     * Calcule l'impôt de la saisie courante. Sans trace ni instrumentation, seules les étapes invalidées
+     * depuis le calcul précédent sont refaites ; sinon le calcul est complet, pour que chaque étape soit
+     * tracée ou mesurée.
+     */
     @Override
     public void calculImpotSurRevenuNet() {
-        System.out.println("Calcul de l'impôt avec les paramètres :");
-        System.out.println("Revenu déclarant 1 : " + revenusNetDecl1);
-        System.out.println("Revenu déclarant 2 : " + revenusNetDecl2);
-        System.out.println("Situation familiale : " + situationFamiliale);
-        System.out.println("Nombre d'enfants à charge : " + nbEnfantsACharge);
-        System.out.println("Nombre d'enfants en situation de handicap : " + nbEnfantsSituationHandicap);
-        System.out.println("Parent isolé : " + parentIsole);
-
+        Bareme courant = simulateur.getRegistre().getBaremeCourant();
+        if (courant != bareme) {
+            invalides.addAll(EnumSet.allOf(EtapeCalcul.class));
+            bareme = courant;
+        }
+        recalculees.clear();
         try {
-            simulateur.calculImpot(revenusNetDecl1, revenusNetDecl2, situationFamiliale, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole);
-            System.out.println("Calcul de l'impôt réussi.");
+            if (trace != null || simulateur.getInstrumentation() != null) {
+                resultat = simulateur.calculer(courant, revenusNetDecl1, revenusNetDecl2, situationFamiliale, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole, trace);
+                // Les valeurs intermédiaires ne sont pas conservées par le calcul complet
+                invalides.addAll(EnumSet.allOf(EtapeCalcul.class));
+                recalculees.addAll(invalides);
+            } else {
+                Simulateur.verifierParametres(revenusNetDecl1, revenusNetDecl2, situationFamiliale, nbEnfantsACharge,
+                        nbEnfantsSituationHandicap, parentIsole);
+                recalculer();
+            }
         } catch (IllegalArgumentException e) {
+            if (trace != null) {
+                trace.erreur(e.getMessage());
+            }
             throw new IllegalArgumentException("Erreur dans les paramètres d'entrée : " + e.getMessage());
         }
     }
 
+    /**
+     * Refait les étapes invalidées dans l'ordre du calcul complet, avec les mêmes opérations, et
+     * invalide les suivantes lorsqu'une valeur change. Au premier calcul toutes les étapes sont invalides.
+     */
+    private void recalculer() {
+        if (recalculer(EtapeCalcul.ABATTEMENT)) {
+            abattement = Simulateur.calculAbattement(bareme, situationFamiliale, revenusNetDecl1, revenusNetDecl2);
+            recalculees.add(EtapeCalcul.REVENU_FISCAL_REFERENCE);
+            double nouveau = Math.max(0, revenusNetDecl1 + revenusNetDecl2 - abattement);
+            if (change(rFRef, nouveau)) {
+                rFRef = nouveau;
+                invalider(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE, EtapeCalcul.IMPOT_BRUT_DECLARANTS,
+                        EtapeCalcul.IMPOT_BRUT_FOYER);
+            }
+        }
+        if (recalculer(EtapeCalcul.PARTS_DECLARANTS)) {
+            double nouveau = ReglesImpot.calculPartsDeclarants(situationFamiliale);
+            if (change(nbPtsDecl, nouveau)) {
+                nbPtsDecl = nouveau;
+                invalider(EtapeCalcul.PARTS_FOYER, EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE,
+                        EtapeCalcul.IMPOT_BRUT_DECLARANTS, EtapeCalcul.IMPOT_AVANT_DECOTE, EtapeCalcul.DECOTE);
+            }
+        }
+        if (recalculer(EtapeCalcul.PARTS_FOYER)) {
+            double nouveau = ReglesImpot.calculParts(situationFamiliale, nbPtsDecl, nbEnfantsACharge,
+                    nbEnfantsSituationHandicap, parentIsole);
+            if (change(nbPts, nouveau)) {
+                nbPts = nouveau;
+                invalider(EtapeCalcul.IMPOT_BRUT_FOYER, EtapeCalcul.IMPOT_AVANT_DECOTE);
+            }
+        }
+        if (recalculer(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE)) {
+            contribExceptionnelle = Simulateur.calculContributionExceptionnelle(bareme, rFRef, nbPtsDecl);
+        }
+        if (recalculer(EtapeCalcul.IMPOT_BRUT_DECLARANTS)) {
+            double nouveau = Simulateur.calculImpotParTranche(bareme, rFRef / nbPtsDecl, nbPtsDecl);
+            if (change(impotBrutDecl, nouveau)) {
+                impotBrutDecl = nouveau;
+                invalider(EtapeCalcul.IMPOT_AVANT_DECOTE);
+            }
+        }
+        if (recalculer(EtapeCalcul.IMPOT_BRUT_FOYER)) {
+            double nouveau = Simulateur.calculImpotParTranche(bareme, rFRef / nbPts, nbPts);
+            if (change(impotBrutFoyer, nouveau)) {
+                impotBrutFoyer = nouveau;
+                invalider(EtapeCalcul.IMPOT_AVANT_DECOTE);
+            }
+        }
+        if (recalculer(EtapeCalcul.IMPOT_AVANT_DECOTE)) {
+            double nouveau = Simulateur.appliquerPlafondBaisseImpot(bareme, impotBrutDecl, impotBrutFoyer, nbPts,
+                    nbPtsDecl);
+            if (change(impotAvantDecote, nouveau)) {
+                impotAvantDecote = nouveau;
+                invalider(EtapeCalcul.DECOTE);
+            }
+        }
+        if (recalculer(EtapeCalcul.DECOTE)) {
+            decote = Simulateur.calculDecote(bareme, impotAvantDecote, nbPtsDecl);
+        }
+        if (!recalculees.isEmpty()) {
+            resultat = new ResultatImpot(rFRef, abattement, nbPts, nbPtsDecl, impotAvantDecote, decote,
+                    contribExceptionnelle);
+            recalculees.add(EtapeCalcul.IMPOT_NET);
+        }
+        invalides.clear();
+    }
+
+    private boolean recalculer(EtapeCalcul etape) {
+        if (!invalides.contains(etape)) {
+            return false;
+        }
+        recalculees.add(etape);
+        return true;
+    }
+
+    private static boolean change(double ancien, double nouveau) {
+        return Double.compare(ancien, nouveau) != 0;
+    }
+
+    private void invalider(EtapeCalcul... etapes) {
+        Collections.addAll(invalides, etapes);
+    }
+
+    /**
+     * @return Étapes refaites par le dernier calcul, {@link EtapeCalcul#IMPOT_NET} compris si le résultat
+     * a été reconstruit ; vide si aucun paramètre n'a changé
+     */
+    public Set<EtapeCalcul> getEtapesRecalculees() {
+        return Collections.unmodifiableSet(recalculees);
+    }
+
+    /**
+     * Active le mode trace : chaque calcul enregistre ses paramètres et la valeur de chaque étape.
+     * Sans trace, le calcul n'effectue aucune entrée-sortie et n'alloue rien pour le diagnostic.
+     * @param trace Trace à alimenter, ou null pour désactiver le mode trace
+     */
+    public void activerTrace(TraceCalcul trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * @return Trace active, ou null si le mode trace est désactivé
+     */
+    public TraceCalcul getTrace() {
+        return trace;
+    }
+
+    /**
+     * @return Résultat immuable du dernier calcul ayant abouti
+     */
+    public ResultatImpot getResultat() {
+        return resultat;
+    }
+
     @Override
     public int getRevenuNetDeclatant1() {
         return revenusNetDecl1;
@@ -100,36 +292,36 @@ public class AdaptateurSimulateur implements ICalculateurImpot {
 
     @Override
     public double getContribExceptionnelle() {
-        return simulateur.getContribExceptionnelle();
+        return resultat.getContribExceptionnelle();
     }
 
     @Override
     public int getRevenuFiscalReference() {
-        return (int)simulateur.getRevenuReference();
+        return (int)resultat.getRevenuFiscalReference();
     }
 
     @Override
     public int getAbattement() {
-        return (int)simulateur.getAbattement();
+        return (int)resultat.getAbattement();
     }
 
     @Override
     public double getNbPartsFoyerFiscal() {
-        return simulateur.getNbParts();
+        return resultat.getNbParts();
     }
 
     @Override
     public int getImpotAvantDecote() {
-        return (int)simulateur.getImpotAvantDecote();
+        return (int)resultat.getImpotAvantDecote();
     }
 
     @Override
     public int getDecote() {
-        return (int)simulateur.getDecote();
+        return (int)resultat.getDecote();
     }
 
     @Override
     public int getImpotSurRevenuNet() {
-        return (int)simulateur.getImpotNet();
+        return (int)resultat.getImpotNet();
     }
 }
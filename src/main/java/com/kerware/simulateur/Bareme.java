@@ -0,0 +1,347 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Barème d'une année d'imposition : tranches et taux (EXG_IMPOT_04), abattement (EXG_IMPOT_02),
+ * plafond du quotient familial (EXG_IMPOT_05), décote (EXG_IMPOT_06) et CEHR (EXG_IMPOT_07).
+ * <p>
+ * Un barème est immuable. Il se lit depuis un fichier de propriétés dont chaque clé est préfixée
+ * par l'année d'imposition, ce qui permet de décrire plusieurs années dans un même fichier :
+ * <pre>
+ * 2024.tranches = 0, 11294, 28797, 82341, 177106
+ * 2024.taux = 0, 0.11, 0.30, 0.41, 0.45
+ * 2024.tranchesCehr = 0, 250000, 500000, 1000000
+ * 2024.tauxCehrCelibataire = 0, 0.03, 0.04, 0.04
+ * 2024.tauxCehrCouple = 0, 0, 0.03, 0.04
+ * 2024.tauxAbattement = 0.10
+ * 2024.abattementMin = 495
+ * 2024.abattementMax = 14171
+ * 2024.plafondDemiPart = 1759
+ * 2024.seuilDecoteSeul = 1929
+ * 2024.seuilDecoteCouple = 3191
+ * 2024.decoteMaxSeul = 873
+ * 2024.decoteMaxCouple = 1444
+ * 2024.tauxDecote = 0.4525
+ * </pre>
+ * La borne supérieure de la dernière tranche est implicite.
+ */
+public final class Bareme {
+
+    private static final String DEFINITION_2024 = """
+            2024.tranches = 0, 11294, 28797, 82341, 177106
+            2024.taux = 0.0, 0.11, 0.30, 0.41, 0.45
+            2024.tranchesCehr = 0, 250000, 500000, 1000000
+            2024.tauxCehrCelibataire = 0.0, 0.03, 0.04, 0.04
+            2024.tauxCehrCouple = 0.0, 0.0, 0.03, 0.04
+            2024.tauxAbattement = 0.10
+            2024.abattementMin = 495
+            2024.abattementMax = 14171
+            2024.plafondDemiPart = 1759
+            2024.seuilDecoteSeul = 1929
+            2024.seuilDecoteCouple = 3191
+            2024.decoteMaxSeul = 873
+            2024.decoteMaxCouple = 1444
+            2024.tauxDecote = 0.4525
+            """;
+
+    private static final AtomicInteger GENERATIONS = new AtomicInteger();
+
+    /** Barème 2024 sur les revenus 2023, intégré au simulateur. */
+    public static final Bareme BAREME_2024 = lireDefinition(DEFINITION_2024).get(0);
+
+    private final int annee;
+    private final int identifiant;
+
+    // Tranches d'impôt
+    final int[] tranches;
+    final double[] taux;
+
+    // Tranches et taux de CEHR
+    final int[] tranchesCehr;
+    final double[] tauxCehrCelib;
+    final double[] tauxCehrCouple;
+
+    // Abattement
+    final double tauxAbattement;
+    final int abattementMin;
+    final int abattementMax;
+
+    // Plafond baisse d’impôt
+    final double plafondDemiPart;
+
+    // Décote
+    final double seuilDecoteSeul;
+    final double seuilDecoteCouple;
+    final double decoteMaxSeul;
+    final double decoteMaxCouple;
+    final double tauxDecote;
+
+    // Montants cumulés au seuil de chaque tranche, précalculés une seule fois.
+    // Le cumul suit l'ordre d'addition de la somme tranche par tranche : les résultats sont identiques.
+    final double[] impotCumule;
+    final double[] cehrCumuleCelib;
+    final double[] cehrCumuleCouple;
+
+    private Bareme(int annee, Properties proprietes) {
+        this.annee = annee;
+        this.identifiant = GENERATIONS.incrementAndGet();
+        String prefixe = annee + ".";
+        this.tranches = lireTranches(proprietes, prefixe + "tranches");
+        this.taux = lireTaux(proprietes, prefixe + "taux", tranches.length - 1);
+        this.tranchesCehr = lireTranches(proprietes, prefixe + "tranchesCehr");
+        this.tauxCehrCelib = lireTaux(proprietes, prefixe + "tauxCehrCelibataire", tranchesCehr.length - 1);
+        this.tauxCehrCouple = lireTaux(proprietes, prefixe + "tauxCehrCouple", tranchesCehr.length - 1);
+        this.tauxAbattement = lireReel(proprietes, prefixe + "tauxAbattement");
+        this.abattementMin = (int) lireReel(proprietes, prefixe + "abattementMin");
+        this.abattementMax = (int) lireReel(proprietes, prefixe + "abattementMax");
+        this.plafondDemiPart = lireReel(proprietes, prefixe + "plafondDemiPart");
+        this.seuilDecoteSeul = lireReel(proprietes, prefixe + "seuilDecoteSeul");
+        this.seuilDecoteCouple = lireReel(proprietes, prefixe + "seuilDecoteCouple");
+        this.decoteMaxSeul = lireReel(proprietes, prefixe + "decoteMaxSeul");
+        this.decoteMaxCouple = lireReel(proprietes, prefixe + "decoteMaxCouple");
+        this.tauxDecote = lireReel(proprietes, prefixe + "tauxDecote");
+        if (abattementMin > abattementMax) {
+            throw new IllegalArgumentException("Barème " + annee + " : abattementMin supérieur à abattementMax");
+        }
+        this.impotCumule = ReglesImpot.cumulerTranches(tranches, taux);
+        this.cehrCumuleCelib = ReglesImpot.cumulerTranches(tranchesCehr, tauxCehrCelib);
+        this.cehrCumuleCouple = ReglesImpot.cumulerTranches(tranchesCehr, tauxCehrCouple);
+    }
+
+    /**
+     * Barème de l'année suivante, revalorisé d'un taux d'indexation.
+     */
+    private Bareme(Bareme source, double coefficient) {
+        this.annee = source.annee + 1;
+        this.identifiant = GENERATIONS.incrementAndGet();
+        this.tranches = new int[source.tranches.length];
+        for (int i = 0; i < tranches.length - 1; i++) {
+            tranches[i] = (int) Math.round(source.tranches[i] * coefficient);
+            if (i > 0 && tranches[i] <= tranches[i - 1]) {
+                throw new IllegalArgumentException("Barème " + annee + " : les seuils indexés ne sont plus "
+                        + "strictement croissants");
+            }
+        }
+        tranches[tranches.length - 1] = Integer.MAX_VALUE;
+        this.taux = source.taux;
+        this.tranchesCehr = source.tranchesCehr;
+        this.tauxCehrCelib = source.tauxCehrCelib;
+        this.tauxCehrCouple = source.tauxCehrCouple;
+        this.tauxAbattement = source.tauxAbattement;
+        this.abattementMin = (int) Math.round(source.abattementMin * coefficient);
+        this.abattementMax = (int) Math.round(source.abattementMax * coefficient);
+        this.plafondDemiPart = Math.round(source.plafondDemiPart * coefficient);
+        this.seuilDecoteSeul = Math.round(source.seuilDecoteSeul * coefficient);
+        this.seuilDecoteCouple = Math.round(source.seuilDecoteCouple * coefficient);
+        this.decoteMaxSeul = Math.round(source.decoteMaxSeul * coefficient);
+        this.decoteMaxCouple = Math.round(source.decoteMaxCouple * coefficient);
+        this.tauxDecote = source.tauxDecote;
+        this.impotCumule = ReglesImpot.cumulerTranches(tranches, taux);
+        this.cehrCumuleCelib = source.cehrCumuleCelib;
+        this.cehrCumuleCouple = source.cehrCumuleCouple;
+    }
+
+    /**
+     * Barème de l'année d'imposition suivante, obtenu en revalorisant les montants de ce barème :
+     * seuils des tranches, abattements minimal et maximal, plafond de la demi-part, seuils et montants
+     * maximaux de la décote, chacun arrondi à l'euro. Les taux et les seuils de CEHR, qui ne sont pas
+     * indexés, sont repris tels quels.
+     * @param tauxIndexation Taux de revalorisation, par exemple 0.048 pour 4,8 %
+     * @return Nouveau barème, d'identifiant distinct
+     * @throws IllegalArgumentException si le taux est inférieur ou égal à -1, ou si les seuils indexés
+     * ne sont plus strictement croissants
+     */
+    public Bareme indexer(double tauxIndexation) {
+        if (!(tauxIndexation > -1)) {
+            throw new IllegalArgumentException("Taux d'indexation invalide : " + tauxIndexation);
+        }
+        return new Bareme(this, 1 + tauxIndexation);
+    }
+
+    /**
+     * Lit tous les barèmes décrits dans un fichier.
+     * @param fichier Fichier de propriétés au format décrit dans la documentation de la classe
+     * @return Barèmes lus, par année croissante
+     * @throws IOException en cas d'erreur de lecture
+     * @throws IllegalArgumentException si un barème est incomplet ou incohérent
+     */
+    public static List<Bareme> charger(Path fichier) throws IOException {
+        try (Reader lecteur = Files.newBufferedReader(fichier, StandardCharsets.UTF_8)) {
+            return lire(lecteur);
+        }
+    }
+
+    /**
+     * Lit tous les barèmes décrits dans un flux.
+     * @param lecteur Flux au format décrit dans la documentation de la classe
+     * @return Barèmes lus, par année croissante
+     * @throws IOException en cas d'erreur de lecture
+     * @throws IllegalArgumentException si un barème est incomplet ou incohérent
+     */
+    public static List<Bareme> lire(Reader lecteur) throws IOException {
+        Properties proprietes = new Properties();
+        proprietes.load(lecteur);
+        TreeSet<Integer> annees = new TreeSet<>();
+        for (String cle : proprietes.stringPropertyNames()) {
+            int point = cle.indexOf('.');
+            if (point <= 0) {
+                throw new IllegalArgumentException("Clé de barème sans année : " + cle);
+            }
+            try {
+                annees.add(Integer.parseInt(cle.substring(0, point)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Clé de barème sans année : " + cle, e);
+            }
+        }
+        List<Bareme> baremes = new ArrayList<>(annees.size());
+        for (int annee : annees) {
+            baremes.add(new Bareme(annee, proprietes));
+        }
+        return baremes;
+    }
+
+    private static List<Bareme> lireDefinition(String definition) {
+        try {
+            return lire(new StringReader(definition));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Tranches lues dans l'ordre croissant strict, complétées par la borne implicite Integer.MAX_VALUE.
+     */
+    private static int[] lireTranches(Properties proprietes, String cle) {
+        String[] valeurs = lireValeurs(proprietes, cle);
+        int[] tranches = new int[valeurs.length + 1];
+        for (int i = 0; i < valeurs.length; i++) {
+            tranches[i] = Integer.parseInt(valeurs[i]);
+            if (i > 0 && tranches[i] <= tranches[i - 1]) {
+                throw new IllegalArgumentException(cle + " : les seuils doivent être strictement croissants");
+            }
+        }
+        if (tranches[0] != 0) {
+            throw new IllegalArgumentException(cle + " : la première tranche doit commencer à 0");
+        }
+        tranches[valeurs.length] = Integer.MAX_VALUE;
+        return tranches;
+    }
+
+    private static double[] lireTaux(Properties proprietes, String cle, int nbTranches) {
+        String[] valeurs = lireValeurs(proprietes, cle);
+        if (valeurs.length != nbTranches) {
+            throw new IllegalArgumentException(cle + " : " + nbTranches + " taux attendus, " + valeurs.length + " lus");
+        }
+        double[] taux = new double[valeurs.length];
+        for (int i = 0; i < valeurs.length; i++) {
+            taux[i] = Double.parseDouble(valeurs[i]);
+        }
+        return taux;
+    }
+
+    private static double lireReel(Properties proprietes, String cle) {
+        return Double.parseDouble(lireValeurs(proprietes, cle)[0]);
+    }
+
+    private static String[] lireValeurs(Properties proprietes, String cle) {
+        String valeur = proprietes.getProperty(cle);
+        if (valeur == null || valeur.isBlank()) {
+            throw new IllegalArgumentException("Paramètre de barème manquant : " + cle);
+        }
+        String[] valeurs = valeur.split(",");
+        for (int i = 0; i < valeurs.length; i++) {
+            valeurs[i] = valeurs[i].trim();
+        }
+        return valeurs;
+    }
+
+    /**
+     * @return Année d'imposition
+     */
+    public int getAnnee() { return annee; }
+
+    /**
+     * @return Année des revenus imposés selon ce barème
+     */
+    public int getAnneeRevenus() { return annee - 1; }
+
+    /**
+     * @return Numéro unique du barème dans la JVM, distinct pour deux chargements d'une même année
+     */
+    public int getIdentifiant() { return identifiant; }
+
+    public int[] getTranches() { return tranches.clone(); }
+    public double[] getTaux() { return taux.clone(); }
+    public int[] getTranchesCehr() { return tranchesCehr.clone(); }
+    public double[] getTauxCehrCelibataire() { return tauxCehrCelib.clone(); }
+    public double[] getTauxCehrCouple() { return tauxCehrCouple.clone(); }
+    public double getTauxAbattement() { return tauxAbattement; }
+    public int getAbattementMin() { return abattementMin; }
+    public int getAbattementMax() { return abattementMax; }
+    public double getPlafondDemiPart() { return plafondDemiPart; }
+    public double getSeuilDecoteSeul() { return seuilDecoteSeul; }
+    public double getSeuilDecoteCouple() { return seuilDecoteCouple; }
+    public double getDecoteMaxSeul() { return decoteMaxSeul; }
+    public double getDecoteMaxCouple() { return decoteMaxCouple; }
+    public double getTauxDecote() { return tauxDecote; }
+
+    /**
+     * @return Définition de ce barème au format décrit dans la documentation de la classe ; relue par
+     * {@link #lire(Reader)}, elle donne un barème aux montants et aux résultats identiques
+     */
+    public String definition() {
+        String prefixe = annee + ".";
+        StringBuilder texte = new StringBuilder();
+        ecrireTranches(texte, prefixe + "tranches", tranches);
+        ecrireTaux(texte, prefixe + "taux", taux);
+        ecrireTranches(texte, prefixe + "tranchesCehr", tranchesCehr);
+        ecrireTaux(texte, prefixe + "tauxCehrCelibataire", tauxCehrCelib);
+        ecrireTaux(texte, prefixe + "tauxCehrCouple", tauxCehrCouple);
+        texte.append(prefixe).append("tauxAbattement = ").append(tauxAbattement).append('\n');
+        texte.append(prefixe).append("abattementMin = ").append(abattementMin).append('\n');
+        texte.append(prefixe).append("abattementMax = ").append(abattementMax).append('\n');
+        texte.append(prefixe).append("plafondDemiPart = ").append(plafondDemiPart).append('\n');
+        texte.append(prefixe).append("seuilDecoteSeul = ").append(seuilDecoteSeul).append('\n');
+        texte.append(prefixe).append("seuilDecoteCouple = ").append(seuilDecoteCouple).append('\n');
+        texte.append(prefixe).append("decoteMaxSeul = ").append(decoteMaxSeul).append('\n');
+        texte.append(prefixe).append("decoteMaxCouple = ").append(decoteMaxCouple).append('\n');
+        texte.append(prefixe).append("tauxDecote = ").append(tauxDecote).append('\n');
+        return texte.toString();
+    }
+
+    /**
+     * Seuils sans la borne implicite Integer.MAX_VALUE, ajoutée à la lecture.
+     */
+    private static void ecrireTranches(StringBuilder texte, String cle, int[] seuils) {
+        texte.append(cle).append(" = ");
+        for (int i = 0; i < seuils.length - 1; i++) {
+            texte.append(i > 0 ? ", " : "").append(seuils[i]);
+        }
+        texte.append('\n');
+    }
+
+    private static void ecrireTaux(StringBuilder texte, String cle, double[] taux) {
+        texte.append(cle).append(" = ");
+        for (int i = 0; i < taux.length; i++) {
+            texte.append(i > 0 ? ", " : "").append(taux[i]);
+        }
+        texte.append('\n');
+    }
+
+    @Override
+    public String toString() {
+        return "Bareme{annee=" + annee + ", identifiant=" + identifiant + '}';
+    }
+}
@@ -0,0 +1,175 @@
+package com.kerware.simulateur;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache borné et concurrent des montants d'imposition, indexé par le triplet
+ * (revenu fiscal de référence, nombre de parts, nombre de parts des déclarants) et par le barème appliqué.
+ * <p>
+ * Les entrées sont réparties en segments verrouillés indépendamment pour limiter la contention.
+ * Les compteurs de succès, d'échecs et d'évictions permettent d'ajuster la capacité au trafic réel.
+ */
+public final class CacheImposition {
+
+    private static final int NB_SEGMENTS = 16;
+    private static final int BITS_PARTS = 7;
+    private static final int BITS_REVENU = 32;
+    private static final int DEMI_PARTS_MAX = 63;
+    private static final long REVENU_MAX = 1L << BITS_REVENU;
+    private static final int IDENTIFIANT_MAX = (1 << (Long.SIZE - 1 - BITS_REVENU - BITS_PARTS)) - 1;
+
+    private final Segment[] segments = new Segment[NB_SEGMENTS];
+    private final int capacite;
+    private final PolitiqueEviction politique;
+    private final LongAdder succes = new LongAdder();
+    private final LongAdder echecs = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param capacite Nombre maximal d'entrées conservées
+     * @param politique Politique de remplacement lorsque le cache est plein
+     */
+    public CacheImposition(int capacite, PolitiqueEviction politique) {
+        if (capacite < NB_SEGMENTS) {
+            throw new IllegalArgumentException("La capacité du cache doit être au moins " + NB_SEGMENTS);
+        }
+        this.capacite = capacite;
+        this.politique = politique;
+        int capaciteSegment = (capacite + NB_SEGMENTS - 1) / NB_SEGMENTS;
+        for (int i = 0; i < NB_SEGMENTS; i++) {
+            segments[i] = new Segment(capaciteSegment, politique == PolitiqueEviction.LRU);
+        }
+    }
+
+    /**
+     * @return Montants mémorisés pour ce triplet, ou null s'ils sont absents
+     */
+    Imposition obtenir(Bareme bareme, double rFRef, double nbPts, double nbPtsDecl) {
+        long cle = cle(bareme, rFRef, nbPts, nbPtsDecl);
+        Imposition imposition = null;
+        if (cle >= 0) {
+            Segment segment = segment(cle);
+            synchronized (segment) {
+                imposition = segment.get(cle);
+            }
+        }
+        if (imposition == null) {
+            echecs.increment();
+        } else {
+            succes.increment();
+        }
+        return imposition;
+    }
+
+    void memoriser(Bareme bareme, double rFRef, double nbPts, double nbPtsDecl, Imposition imposition) {
+        long cle = cle(bareme, rFRef, nbPts, nbPtsDecl);
+        if (cle < 0) {
+            return;
+        }
+        Segment segment = segment(cle);
+        synchronized (segment) {
+            segment.put(cle, imposition);
+        }
+    }
+
+    /**
+     * Le revenu fiscal de référence est entier et les parts sont des multiples de 0.5 :
+     * le triplet tient dans un long avec l'identifiant du barème, si bien qu'un barème rechargé ne relit
+     * jamais les montants de son prédécesseur. Un triplet hors de ce domaine n'est pas mis en cache.
+     */
+    private static long cle(Bareme bareme, double rFRef, double nbPts, double nbPtsDecl) {
+        double demiParts = nbPts * 2;
+        int identifiant = bareme.getIdentifiant();
+        if (rFRef != Math.rint(rFRef) || rFRef >= REVENU_MAX
+                || demiParts != Math.rint(demiParts) || demiParts > DEMI_PARTS_MAX
+                || identifiant > IDENTIFIANT_MAX) {
+            return -1;
+        }
+        return ((long) identifiant << (BITS_REVENU + BITS_PARTS)) | ((long) rFRef << BITS_PARTS)
+                | ((long) demiParts << 1) | (nbPtsDecl == 1 ? 0 : 1);
+    }
+
+    private Segment segment(long cle) {
+        long h = cle * 0x9E3779B97F4A7C15L;
+        return segments[(int) (h >>> (Long.SIZE - 4)) & (NB_SEGMENTS - 1)];
+    }
+
+    public int getCapacite() { return capacite; }
+    public PolitiqueEviction getPolitique() { return politique; }
+    public long getNbSucces() { return succes.sum(); }
+    public long getNbEchecs() { return echecs.sum(); }
+    public long getNbEvictions() { return evictions.sum(); }
+
+    /**
+     * @return Nombre d'entrées actuellement en cache
+     */
+    public int getTaille() {
+        int taille = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                taille += segment.size();
+            }
+        }
+        return taille;
+    }
+
+    /**
+     * @return Proportion de lectures ayant trouvé une entrée, entre 0 et 1
+     */
+    public double getTauxSucces() {
+        long nbSucces = succes.sum();
+        long total = nbSucces + echecs.sum();
+        return total == 0 ? 0 : (double) nbSucces / total;
+    }
+
+    /**
+     * Remet à zéro les compteurs sans vider le cache.
+     */
+    public void reinitialiserCompteurs() {
+        succes.reset();
+        echecs.reset();
+        evictions.reset();
+    }
+
+    /**
+     * Vide le cache sans remettre les compteurs à zéro.
+     */
+    public void vider() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheImposition{capacite=" + capacite + ", politique=" + politique
+                + ", succes=" + getNbSucces() + ", echecs=" + getNbEchecs()
+                + ", evictions=" + getNbEvictions() + '}';
+    }
+
+    private final class Segment extends LinkedHashMap<Long, Imposition> {
+
+        private static final long serialVersionUID = 1L;
+        private static final float FACTEUR_CHARGE = 0.75f;
+
+        private final int capaciteSegment;
+
+        Segment(int capaciteSegment, boolean ordreAcces) {
+            super((int) (capaciteSegment / FACTEUR_CHARGE) + 1, FACTEUR_CHARGE, ordreAcces);
+            this.capaciteSegment = capaciteSegment;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Imposition> plusAncienne) {
+            if (size() > capaciteSegment) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.kerware.simulateur;
+
+/**
+ * Comparaison de l'impôt net sous un barème de référence et sous une variante, en un seul calcul par foyer.
+ * <p>
+ * Le contrôle des paramètres et les parts (EXG_IMPOT_03) ne dépendent pas du barème : ils sont calculés
+ * une fois. L'abattement (EXG_IMPOT_02) et le revenu fiscal de référence le sont aussi lorsque les deux
+ * barèmes ont les mêmes paramètres d'abattement. Seules les étapes EXG_IMPOT_04 à EXG_IMPOT_07 sont
+ * évaluées pour chaque barème. Les montants sont identiques à ceux de {@link Simulateur} pour chaque barème.
+ * Le comparateur est sans état et peut être partagé entre plusieurs threads.
+ */
+public final class ComparateurReforme {
+
+    private final Bareme reference;
+    private final Bareme variante;
+    private final boolean abattementCommun;
+
+    /**
+     * @param reference Barème en vigueur
+     * @param variante Barème modifié par la réforme étudiée
+     */
+    public ComparateurReforme(Bareme reference, Bareme variante) {
+        this.reference = reference;
+        this.variante = variante;
+        this.abattementCommun = reference.tauxAbattement == variante.tauxAbattement
+                && reference.abattementMin == variante.abattementMin
+                && reference.abattementMax == variante.abattementMax;
+    }
+
+    public Bareme getReference() { return reference; }
+    public Bareme getVariante() { return variante; }
+
+    /**
+     * @return Impôts nets du foyer selon les deux barèmes
+     * @throws IllegalArgumentException si les paramètres sont invalides
+     */
+    public EcartImpot comparer(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                               int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        Simulateur.verifierParametres(revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+
+        // EXIGENCE : EXG_IMPOT_03, commune aux deux barèmes
+        double nbPtsDecl = ReglesImpot.calculPartsDeclarants(sitFam);
+        double nbPts = ReglesImpot.calculParts(sitFam, nbPtsDecl, nbEnfants, nbEnfantsHandicapes, parentIsol);
+
+        // EXIGENCE : EXG_IMPOT_02, commune si les paramètres d'abattement sont les mêmes
+        double rFRefReference = revenuFiscalReference(reference, revNetDecl1, revNetDecl2, sitFam);
+        double rFRefVariante = abattementCommun ? rFRefReference
+                : revenuFiscalReference(variante, revNetDecl1, revNetDecl2, sitFam);
+
+        return new EcartImpot(impotNet(reference, rFRefReference, nbPts, nbPtsDecl),
+                impotNet(variante, rFRefVariante, nbPts, nbPtsDecl));
+    }
+
+    private static double revenuFiscalReference(Bareme bareme, int revNetDecl1, int revNetDecl2,
+                                                SituationFamiliale sitFam) {
+        double abt = Simulateur.calculAbattement(bareme, sitFam, revNetDecl1, revNetDecl2);
+        return Math.max(0, revNetDecl1 + revNetDecl2 - abt);
+    }
+
+    /**
+     * EXIGENCES : EXG_IMPOT_04 à EXG_IMPOT_07, puis arrondi de l'impôt net comme {@link ResultatImpot}.
+     */
+    private static int impotNet(Bareme bareme, double rFRef, double nbPts, double nbPtsDecl) {
+        Imposition imposition = Simulateur.calculerImposition(bareme, rFRef, nbPts, nbPtsDecl, null, null);
+        return ResultatImpot.calculImpotNetArrondi(imposition.getImpotAvantDecote(), imposition.getDecote(),
+                imposition.getContribExceptionnelle());
+    }
+}
@@ -0,0 +1,308 @@
+package com.kerware.simulateur;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Impôt net d'un foyer en fonction du revenu net du déclarant 1, décrit comme une fonction
+ * linéaire par morceaux : points de rupture et pente (taux marginal) de chaque segment.
+ * <p>
+ * Les points de rupture proviennent des bornes de l'abattement (EXG_IMPOT_02), des seuils des
+ * tranches pour les parts des déclarants et pour celles du foyer (EXG_IMPOT_04), du point où le
+ * plafonnement du quotient familial s'enclenche (EXG_IMPOT_05), des bornes de la décote, dont le
+ * point où elle s'annule lorsqu'il précède son seuil d'application (EXG_IMPOT_06), et des seuils
+ * de la CEHR (EXG_IMPOT_07). Ils sont calculés analytiquement, sans balayer les revenus.
+ * <p>
+ * La courbe décrit le barème sans les arrondis intermédiaires à l'euro (EXG_IMPOT_01) :
+ * une valeur lue sur la courbe s'écarte de {@link Simulateur#calculImpot} de quelques euros au plus.
+ */
+public final class CourbeImpot {
+
+    private static final double EPSILON = 1e-6;
+    private static final double TIERS = 1.0 / 3;
+
+    private final double[] debuts;
+    private final double[] impotsDebut;
+    private final double[] pentes;
+    private final double revenuMax;
+
+    private CourbeImpot(double[] debuts, double[] impotsDebut, double[] pentes, double revenuMax) {
+        this.debuts = debuts;
+        this.impotsDebut = impotsDebut;
+        this.pentes = pentes;
+        this.revenuMax = revenuMax;
+    }
+
+    /**
+     * Construit la courbe d'un foyer sur tout le domaine des revenus du déclarant 1.
+     * @param bareme Barème appliqué
+     * @param revNetDecl2 Revenu net du déclarant 2, fixé
+     * @param sitFam Situation familiale
+     * @param nbEnfants Nombre d'enfants
+     * @param nbEnfantsHandicapes Nombre d'enfants handicapés
+     * @param parentIsol True si parent isolé
+     * @return Courbe de l'impôt net
+     * @throws IllegalArgumentException si le foyer est invalide
+     */
+    public static CourbeImpot pour(Bareme bareme, int revNetDecl2, SituationFamiliale sitFam,
+                                   int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        Simulateur.verifierParametres(0, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        double nbPtsDecl = ReglesImpot.calculPartsDeclarants(sitFam);
+        double nbPts = ReglesImpot.calculParts(sitFam, nbPtsDecl, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        boolean couple = sitFam == SituationFamiliale.MARIE || sitFam == SituationFamiliale.PACSE;
+        double abt2 = couple ? Simulateur.abattementDeclarant(bareme, revNetDecl2) : 0;
+        Foyer foyer = new Foyer(bareme, nbPts, nbPtsDecl, revNetDecl2 - abt2);
+        return foyer.construire(Integer.MAX_VALUE - (double) revNetDecl2);
+    }
+
+    /**
+     * @param revenu Revenu net du déclarant 1
+     * @return Impôt net sans arrondi
+     */
+    public double impot(double revenu) {
+        int i = segment(revenu);
+        return impotsDebut[i] + pentes[i] * (revenu - debuts[i]);
+    }
+
+    /**
+     * @param revenu Revenu net du déclarant 1
+     * @return Impôt net arrondi à l'euro le plus proche
+     */
+    public long impotArrondi(double revenu) {
+        return Math.round(impot(revenu));
+    }
+
+    /**
+     * @param revenu Revenu net du déclarant 1
+     * @return Taux marginal : impôt supplémentaire par euro de revenu supplémentaire
+     */
+    public double tauxMarginal(double revenu) {
+        return pentes[segment(revenu)];
+    }
+
+    /**
+     * Impôt net à intervalle régulier, en un seul parcours des segments.
+     * @param revenuMin Premier revenu
+     * @param revenuMaxi Dernier revenu inclus
+     * @param pas Écart entre deux revenus
+     * @return Impôt net sans arrondi pour chaque revenu
+     */
+    public double[] echantillonner(int revenuMin, int revenuMaxi, int pas) {
+        if (pas <= 0 || revenuMaxi < revenuMin) {
+            throw new IllegalArgumentException("Intervalle d'échantillonnage invalide");
+        }
+        double[] impots = new double[(int) (((long) revenuMaxi - revenuMin) / pas + 1)];
+        int i = segment(revenuMin);
+        for (int k = 0; k < impots.length; k++) {
+            double revenu = revenuMin + (double) k * pas;
+            while (i + 1 < debuts.length && debuts[i + 1] <= revenu) {
+                i++;
+            }
+            impots[k] = impotsDebut[i] + pentes[i] * (revenu - debuts[i]);
+        }
+        return impots;
+    }
+
+    public int getNbSegments() { return debuts.length; }
+    public double getRevenuMax() { return revenuMax; }
+
+    /**
+     * @return Revenus du déclarant 1 où commence chaque segment, le premier étant 0
+     */
+    public double[] getPointsRupture() { return debuts.clone(); }
+
+    /**
+     * @return Pente de chaque segment
+     */
+    public double[] getPentes() { return pentes.clone(); }
+
+    /**
+     * @return Impôt au début de chaque segment
+     */
+    public double[] getImpotsDebut() { return impotsDebut.clone(); }
+
+    private int segment(double revenu) {
+        if (revenu < 0 || revenu > revenuMax) {
+            throw new IllegalArgumentException("Revenu hors du domaine de la courbe : " + revenu);
+        }
+        int i = Arrays.binarySearch(debuts, revenu);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Foyer fixé, évalué sans arrondis intermédiaires en fonction du revenu fiscal de référence R
+     * ou du revenu du déclarant 1 x.
+     */
+    private static final class Foyer {
+
+        private final Bareme bareme;
+        private final double nbPts;
+        private final double nbPtsDecl;
+        private final double constante;
+        private final double xMin;
+        private final double xMax;
+
+        Foyer(Bareme bareme, double nbPts, double nbPtsDecl, double constante) {
+            this.bareme = bareme;
+            this.nbPts = nbPts;
+            this.nbPtsDecl = nbPtsDecl;
+            this.constante = constante;
+            this.xMin = bareme.abattementMin / bareme.tauxAbattement;
+            this.xMax = bareme.abattementMax / bareme.tauxAbattement;
+        }
+
+        CourbeImpot construire(double revenuMax) {
+            double[] ruptures = rupturesRevenuFiscal();
+            double[] points = new double[ruptures.length + 4];
+            int n = 0;
+            points[n++] = 0;
+            points[n++] = xMin;
+            points[n++] = xMax;
+            points[n++] = revenuDeclarant(0);
+            for (double r : ruptures) {
+                points[n++] = revenuDeclarant(r);
+            }
+            Arrays.sort(points, 0, n);
+
+            double[] debuts = new double[n];
+            double[] impots = new double[n];
+            double[] pentes = new double[n];
+            int nbSegments = 0;
+            for (int k = 0; k < n; k++) {
+                double debut = points[k];
+                double fin = k + 1 < n ? Math.min(points[k + 1], revenuMax) : revenuMax;
+                if (debut < 0 || debut >= revenuMax || fin - debut < EPSILON) {
+                    continue;
+                }
+                double x1 = debut + (fin - debut) * TIERS;
+                double x2 = debut + 2 * (fin - debut) * TIERS;
+                double pente = (impotNet(x2) - impotNet(x1)) / (x2 - x1);
+                double impot = impotNet(x1) - pente * (x1 - debut);
+                boolean prolonge = nbSegments > 0 && Math.abs(pente - pentes[nbSegments - 1]) < EPSILON
+                        && Math.abs(impot - (impots[nbSegments - 1]
+                        + pentes[nbSegments - 1] * (debut - debuts[nbSegments - 1]))) < EPSILON;
+                if (!prolonge) {
+                    debuts[nbSegments] = debut;
+                    impots[nbSegments] = impot;
+                    pentes[nbSegments] = pente;
+                    nbSegments++;
+                }
+            }
+            return new CourbeImpot(Arrays.copyOf(debuts, nbSegments), Arrays.copyOf(impots, nbSegments),
+                    Arrays.copyOf(pentes, nbSegments), revenuMax);
+        }
+
+        /**
+         * Ruptures exprimées en revenu fiscal de référence : seuils des tranches et de la CEHR,
+         * puis enclenchement du plafonnement et bornes de la décote (seuil, décote égale à l'impôt,
+         * décote annulée), obtenus par interpolation exacte sur chaque intervalle où les montants
+         * sont linéaires.
+         */
+        private double[] rupturesRevenuFiscal() {
+            int[] tranches = bareme.tranches;
+            int[] tranchesCehr = bareme.tranchesCehr;
+            double[] seuils = new double[2 * tranches.length + tranchesCehr.length];
+            int n = 0;
+            seuils[n++] = 0;
+            for (int i = 1; i < tranches.length - 1; i++) {
+                seuils[n++] = tranches[i] * nbPtsDecl;
+                seuils[n++] = tranches[i] * nbPts;
+            }
+            for (int i = 1; i < tranchesCehr.length - 1; i++) {
+                seuils[n++] = tranchesCehr[i];
+            }
+            double[] lineaires = trier(seuils, n);
+            double[] avecPlafond = ajouterRacines(lineaires, this::depassementPlafond, 0);
+            double seuil = nbPtsDecl == 1 ? bareme.seuilDecoteSeul : bareme.seuilDecoteCouple;
+            double max = nbPtsDecl == 1 ? bareme.decoteMaxSeul : bareme.decoteMaxCouple;
+            double[] avecSeuil = ajouterRacines(avecPlafond, this::impotAvantDecote, seuil);
+            double[] avecDecoteTotale = ajouterRacines(avecSeuil, this::impotAvantDecote,
+                    max / (1 + bareme.tauxDecote));
+            // Selon le barème, la décote peut s'annuler avant son seuil : decoteMax - impôt × taux = 0
+            return ajouterRacines(avecDecoteTotale, this::impotAvantDecote, max / bareme.tauxDecote);
+        }
+
+        /**
+         * Ajoute les points où une fonction linéaire entre deux ruptures consécutives atteint une valeur.
+         */
+        private static double[] ajouterRacines(double[] ruptures, DoubleUnaryOperator f,
+                                               double valeur) {
+            double[] resultat = Arrays.copyOf(ruptures, 2 * ruptures.length);
+            int n = ruptures.length;
+            double dernier = ruptures[ruptures.length - 1];
+            for (int i = 0; i < ruptures.length; i++) {
+                double a = ruptures[i];
+                double b = i + 1 < ruptures.length ? ruptures[i + 1] : 2 * dernier + 1;
+                double fa = f.applyAsDouble(a) - valeur;
+                double fb = f.applyAsDouble(b) - valeur;
+                if ((fa < 0 && fb > 0) || (fa > 0 && fb < 0)) {
+                    resultat[n++] = a - fa * (b - a) / (fb - fa);
+                }
+            }
+            return trier(resultat, n);
+        }
+
+        private static double[] trier(double[] valeurs, int n) {
+            double[] tries = Arrays.copyOf(valeurs, n);
+            Arrays.sort(tries);
+            return tries;
+        }
+
+        private double depassementPlafond(double r) {
+            double plafond = (nbPts - nbPtsDecl) / 0.5 * bareme.plafondDemiPart;
+            return impotBrut(r, nbPtsDecl) - impotBrut(r, nbPts) - plafond;
+        }
+
+        private double impotBrut(double r, double parts) {
+            return parts * progressif(r / parts, bareme.tranches, bareme.taux);
+        }
+
+        private double impotAvantDecote(double r) {
+            double impotDecl = impotBrut(r, nbPtsDecl);
+            double impotFoyer = impotBrut(r, nbPts);
+            double plafond = (nbPts - nbPtsDecl) / 0.5 * bareme.plafondDemiPart;
+            return impotDecl - impotFoyer > plafond ? impotDecl - plafond : impotFoyer;
+        }
+
+        private double impotNet(double x) {
+            double r = revenuFiscal(x);
+            double avant = impotAvantDecote(r);
+            double decote = 0;
+            if (nbPtsDecl == 1 && avant < bareme.seuilDecoteSeul) {
+                decote = bareme.decoteMaxSeul - avant * bareme.tauxDecote;
+            } else if (nbPtsDecl == 2 && avant < bareme.seuilDecoteCouple) {
+                decote = bareme.decoteMaxCouple - avant * bareme.tauxDecote;
+            }
+            decote = Math.max(0, Math.min(decote, avant));
+            double[] tauxCehr = nbPtsDecl == 1 ? bareme.tauxCehrCelib : bareme.tauxCehrCouple;
+            return avant - decote + progressif(r, bareme.tranchesCehr, tauxCehr);
+        }
+
+        private static double progressif(double assiette, int[] tranches, double[] taux) {
+            double montant = 0;
+            for (int i = 0; i < taux.length && assiette > tranches[i]; i++) {
+                montant += (Math.min(assiette, tranches[i + 1]) - tranches[i]) * taux[i];
+            }
+            return montant;
+        }
+
+        private double revenuFiscal(double x) {
+            double abattement = Math.max(bareme.abattementMin, Math.min(bareme.abattementMax,
+                    x * bareme.tauxAbattement));
+            return Math.max(0, x - abattement + constante);
+        }
+
+        /**
+         * Inverse de {@link #revenuFiscal} sur la partie croissante : revenu du déclarant 1 donnant r.
+         */
+        private double revenuDeclarant(double r) {
+            if (r <= xMin - bareme.abattementMin + constante) {
+                return r + bareme.abattementMin - constante;
+            }
+            if (r <= xMax - bareme.abattementMax + constante) {
+                return (r - constante) / (1 - bareme.tauxAbattement);
+            }
+            return r + bareme.abattementMax - constante;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.kerware.simulateur;
+
+/**
+ * Impôt net d'un foyer selon un barème de référence et selon une variante, calculés par {@link ComparateurReforme}.
+ */
+public final class EcartImpot {
+
+    private final int impotReference;
+    private final int impotVariante;
+
+    public EcartImpot(int impotReference, int impotVariante) {
+        this.impotReference = impotReference;
+        this.impotVariante = impotVariante;
+    }
+
+    public int getImpotReference() { return impotReference; }
+    public int getImpotVariante() { return impotVariante; }
+
+    /**
+     * @return Impôt de la variante moins impôt de référence : négatif pour un foyer gagnant à la réforme
+     */
+    public int getEcart() {
+        return impotVariante - impotReference;
+    }
+
+    @Override
+    public String toString() {
+        return "EcartImpot{impotReference=" + impotReference + ", impotVariante=" + impotVariante + '}';
+    }
+}
@@ -0,0 +1,27 @@
+package com.kerware.simulateur;
+
+/**
+ * Valeurs intermédiaires produites par les étapes du calcul de l'impôt, avec l'exigence associée.
+ */
+public enum EtapeCalcul {
+    ABATTEMENT("EXG_IMPOT_02"),
+    REVENU_FISCAL_REFERENCE("EXG_IMPOT_02"),
+    PARTS_DECLARANTS("EXG_IMPOT_03"),
+    PARTS_FOYER("EXG_IMPOT_03"),
+    CONTRIBUTION_EXCEPTIONNELLE("EXG_IMPOT_07"),
+    IMPOT_BRUT_DECLARANTS("EXG_IMPOT_04"),
+    IMPOT_BRUT_FOYER("EXG_IMPOT_04"),
+    IMPOT_AVANT_DECOTE("EXG_IMPOT_05"),
+    DECOTE("EXG_IMPOT_06"),
+    IMPOT_NET("EXG_IMPOT_01");
+
+    private final String exigence;
+
+    EtapeCalcul(String exigence) {
+        this.exigence = exigence;
+    }
+
+    public String getExigence() {
+        return exigence;
+    }
+}
@@ -0,0 +1,24 @@
+package com.kerware.simulateur;
+
+/**
+ * Étapes successives du calcul de l'impôt mesurées par {@link InstrumentationPipeline}, avec l'exigence associée.
+ */
+public enum EtapePipeline {
+    VERIFICATION_PARAMETRES("-"),
+    ABATTEMENT("EXG_IMPOT_02"),
+    PARTS("EXG_IMPOT_03"),
+    CONTRIBUTION_EXCEPTIONNELLE("EXG_IMPOT_07"),
+    IMPOT_PAR_TRANCHE("EXG_IMPOT_04"),
+    PLAFOND_BAISSE_IMPOT("EXG_IMPOT_05"),
+    DECOTE("EXG_IMPOT_06");
+
+    private final String exigence;
+
+    EtapePipeline(String exigence) {
+        this.exigence = exigence;
+    }
+
+    public String getExigence() {
+        return exigence;
+    }
+}
@@ -0,0 +1,98 @@
+package com.kerware.simulateur;
+
+/**
+ * Événement d'une {@link Trajectoire} : changement de la composition ou des revenus du foyer, appliqué
+ * au début d'une année de revenus, avant le calcul de cette année.
+ */
+public final class EvenementFoyer {
+
+    /**
+     * Nature d'un événement.
+     */
+    public enum Nature {
+        /** Les revenus des déclarants sont remplacés ; la croissance reprend à partir d'eux. */
+        REVENUS,
+        /** Un enfant rejoint le foyer. */
+        NAISSANCE,
+        /** Un enfant quitte le foyer. */
+        DEPART_ENFANT,
+        /** Mariage, PACS, divorce ou veuvage : la situation familiale change. */
+        SITUATION
+    }
+
+    private final Nature nature;
+    private final int anneeRevenus;
+    private final int revenuNet1;
+    private final int revenuNet2;
+    private final boolean handicap;
+    private final SituationFamiliale situationFamiliale;
+    private final boolean parentIsole;
+
+    private EvenementFoyer(Nature nature, int anneeRevenus, int revenuNet1, int revenuNet2, boolean handicap,
+                           SituationFamiliale situationFamiliale, boolean parentIsole) {
+        this.nature = nature;
+        this.anneeRevenus = anneeRevenus;
+        this.revenuNet1 = revenuNet1;
+        this.revenuNet2 = revenuNet2;
+        this.handicap = handicap;
+        this.situationFamiliale = situationFamiliale;
+        this.parentIsole = parentIsole;
+    }
+
+    /**
+     * @param anneeRevenus Première année de revenus concernée
+     * @param revenuNet1 Nouveau revenu net du déclarant 1
+     * @param revenuNet2 Nouveau revenu net du déclarant 2
+     */
+    public static EvenementFoyer revenus(int anneeRevenus, int revenuNet1, int revenuNet2) {
+        return new EvenementFoyer(Nature.REVENUS, anneeRevenus, revenuNet1, revenuNet2, false, null, false);
+    }
+
+    /**
+     * @param anneeRevenus Première année de revenus où l'enfant est à charge
+     * @param handicap True si l'enfant est handicapé
+     */
+    public static EvenementFoyer naissance(int anneeRevenus, boolean handicap) {
+        return new EvenementFoyer(Nature.NAISSANCE, anneeRevenus, 0, 0, handicap, null, false);
+    }
+
+    /**
+     * @param anneeRevenus Première année de revenus où l'enfant n'est plus à charge
+     * @param handicap True si l'enfant est handicapé
+     */
+    public static EvenementFoyer departEnfant(int anneeRevenus, boolean handicap) {
+        return new EvenementFoyer(Nature.DEPART_ENFANT, anneeRevenus, 0, 0, handicap, null, false);
+    }
+
+    /**
+     * @param anneeRevenus Première année de revenus dans la nouvelle situation
+     * @param situationFamiliale Nouvelle situation familiale
+     * @param revenuNet2 Revenu net du déclarant 2, 0 pour une personne seule
+     * @param parentIsole True si parent isolé dans la nouvelle situation
+     */
+    public static EvenementFoyer situation(int anneeRevenus, SituationFamiliale situationFamiliale, int revenuNet2,
+                                           boolean parentIsole) {
+        return new EvenementFoyer(Nature.SITUATION, anneeRevenus, 0, revenuNet2, false, situationFamiliale,
+                parentIsole);
+    }
+
+    public Nature getNature() { return nature; }
+    public int getAnneeRevenus() { return anneeRevenus; }
+    public int getRevenuNet1() { return revenuNet1; }
+    public int getRevenuNet2() { return revenuNet2; }
+    public boolean isHandicap() { return handicap; }
+    public SituationFamiliale getSituationFamiliale() { return situationFamiliale; }
+    public boolean isParentIsole() { return parentIsole; }
+
+    /**
+     * @return True si l'événement change les parts du foyer, false s'il ne touche que les revenus
+     */
+    boolean changeProfil() {
+        return nature != Nature.REVENUS;
+    }
+
+    @Override
+    public String toString() {
+        return "EvenementFoyer{" + nature + ", anneeRevenus=" + anneeRevenus + '}';
+    }
+}
@@ -0,0 +1,124 @@
+package com.kerware.simulateur;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de latences sans verrou, à précision relative bornée.
+ * <p>
+ * Chaque puissance de deux de nanosecondes est découpée en {@value #SOUS_INTERVALLES} intervalles
+ * égaux : un quantile est restitué à 1/{@value #SOUS_INTERVALLES} près de sa valeur exacte,
+ * quelle que soit l'échelle. Chaque intervalle est un {@link LongAdder} : les threads qui enregistrent
+ * en même temps se répartissent entre ses cellules au lieu de se disputer un même compteur, et les
+ * cellules ne sont fusionnées qu'à la lecture.
+ */
+public final class HistogrammeLatences {
+
+    private static final int BITS_SOUS_INTERVALLES = 3;
+    private static final int SOUS_INTERVALLES = 1 << BITS_SOUS_INTERVALLES;
+    private static final int NB_PUISSANCES = Long.SIZE - BITS_SOUS_INTERVALLES;
+    private static final double NANOS_PAR_MICRO = 1000.0;
+
+    private final LongAdder[] compteurs = new LongAdder[(NB_PUISSANCES + 1) * SOUS_INTERVALLES];
+
+    public HistogrammeLatences() {
+        for (int i = 0; i < compteurs.length; i++) {
+            compteurs[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos Durée mesurée, en nanosecondes
+     */
+    public void enregistrer(long nanos) {
+        compteurs[indice(Math.max(0, nanos))].increment();
+    }
+
+    /**
+     * @return Nombre de mesures enregistrées
+     */
+    public long getNbMesures() {
+        long total = 0;
+        for (LongAdder compteur : compteurs) {
+            total += compteur.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @param q Quantile entre 0 et 1, par exemple 0.99
+     * @return Borne supérieure de l'intervalle contenant ce quantile, en nanosecondes, 0 sans mesure
+     */
+    public long quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile hors de [0, 1] : " + q);
+        }
+        long[] instantane = new long[compteurs.length];
+        long total = 0;
+        for (int i = 0; i < instantane.length; i++) {
+            instantane[i] = compteurs[i].sum();
+            total += instantane[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(q * total));
+        long cumul = 0;
+        for (int i = 0; i < instantane.length; i++) {
+            cumul += instantane[i];
+            if (cumul >= rang) {
+                return borneSuperieure(i);
+            }
+        }
+        return borneSuperieure(instantane.length - 1);
+    }
+
+    /**
+     * Remet l'histogramme à zéro. Les mesures concurrentes peuvent être conservées ou perdues.
+     */
+    public void vider() {
+        for (LongAdder compteur : compteurs) {
+            compteur.reset();
+        }
+    }
+
+    /**
+     * Écrit le nombre de mesures et les quantiles usuels, en microsecondes.
+     * @param sortie Tampon de sortie
+     * @param nom Préfixe des lignes
+     */
+    public void ecrire(StringBuilder sortie, String nom) {
+        sortie.append(nom).append(".nombre ").append(getNbMesures()).append('\n');
+        ecrireQuantile(sortie, nom, "p50", 0.50);
+        ecrireQuantile(sortie, nom, "p90", 0.90);
+        ecrireQuantile(sortie, nom, "p99", 0.99);
+        ecrireQuantile(sortie, nom, "max", 1.0);
+    }
+
+    private void ecrireQuantile(StringBuilder sortie, String nom, String libelle, double q) {
+        sortie.append(nom).append('.').append(libelle).append("_us ")
+                .append(quantile(q) / NANOS_PAR_MICRO).append('\n');
+    }
+
+    /**
+     * Les valeurs inférieures à {@value #SOUS_INTERVALLES} ont chacune leur intervalle ; au-delà,
+     * l'intervalle est donné par la puissance de deux et les bits qui la suivent.
+     */
+    static int indice(long valeur) {
+        if (valeur < SOUS_INTERVALLES) {
+            return (int) valeur;
+        }
+        int puissance = Long.SIZE - 1 - Long.numberOfLeadingZeros(valeur);
+        int decalage = puissance - BITS_SOUS_INTERVALLES;
+        int sousIntervalle = (int) (valeur >>> decalage) & (SOUS_INTERVALLES - 1);
+        return (decalage + 1) * SOUS_INTERVALLES + sousIntervalle;
+    }
+
+    static long borneSuperieure(int indice) {
+        if (indice < SOUS_INTERVALLES) {
+            return indice;
+        }
+        int decalage = indice / SOUS_INTERVALLES - 1;
+        long debut = ((long) (SOUS_INTERVALLES + indice % SOUS_INTERVALLES)) << decalage;
+        return debut + (1L << decalage) - 1;
+    }
+}
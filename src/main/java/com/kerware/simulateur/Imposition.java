@@ -0,0 +1,22 @@
+package com.kerware.simulateur;
+
+/**
+ * Montants issus des étapes qui ne dépendent que du revenu fiscal de référence et des parts :
+ * tranches (EXG_IMPOT_04), plafonnement (EXG_IMPOT_05), décote (EXG_IMPOT_06) et CEHR (EXG_IMPOT_07).
+ */
+public final class Imposition {
+
+    private final double impotAvantDecote;
+    private final double decote;
+    private final double contribExceptionnelle;
+
+    public Imposition(double impotAvantDecote, double decote, double contribExceptionnelle) {
+        this.impotAvantDecote = impotAvantDecote;
+        this.decote = decote;
+        this.contribExceptionnelle = contribExceptionnelle;
+    }
+
+    public double getImpotAvantDecote() { return impotAvantDecote; }
+    public double getDecote() { return decote; }
+    public double getContribExceptionnelle() { return contribExceptionnelle; }
+}
@@ -0,0 +1,188 @@
+package com.kerware.simulateur;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures du calcul étape par étape : nombre d'appels, durée cumulée et histogramme de latence
+ * de chaque étape, nombre de rejets par motif.
+ * <p>
+ * L'instrumentation est optionnelle : un {@link Simulateur} construit sans elle ne lit pas l'horloge
+ * et n'exécute aucune instruction supplémentaire hormis un test de nullité par étape.
+ * Les compteurs sont des {@link LongAdder}, répartis entre threads pour éviter la contention.
+ * <p>
+ * Les étapes EXG_IMPOT_04 à EXG_IMPOT_07 ne sont mesurées que lorsque l'imposition est réellement
+ * calculée : un montant servi par le cache est compté à part, par {@link #getNbImpositionsEnCache()}.
+ * Pour chacune de ces étapes, le nombre d'appels augmenté de ce compteur égale celui de l'étape
+ * {@link EtapePipeline#PARTS}.
+ * Les mesures sont exposées par {@link #getEtapes()} et, une fois {@link #enregistrerMBean(String)}
+ * appelée, par JMX.
+ */
+public final class InstrumentationPipeline implements InstrumentationPipelineMXBean {
+
+    private static final double NANOS_PAR_SECONDE = 1e9;
+    private static final double P50 = 0.50;
+    private static final double P90 = 0.90;
+    private static final double P99 = 0.99;
+
+    private final EtapePipeline[] etapes = EtapePipeline.values();
+    private final LongAdder[] nbAppels = new LongAdder[etapes.length];
+    private final LongAdder[] durees = new LongAdder[etapes.length];
+    private final HistogrammeLatences[] latences = new HistogrammeLatences[etapes.length];
+    private final MotifRejet[] motifs = MotifRejet.values();
+    private final LongAdder[] rejets = new LongAdder[motifs.length];
+    private final LongAdder impositionsEnCache = new LongAdder();
+    private volatile long debutMesures = System.nanoTime();
+
+    public InstrumentationPipeline() {
+        for (int i = 0; i < etapes.length; i++) {
+            nbAppels[i] = new LongAdder();
+            durees[i] = new LongAdder();
+            latences[i] = new HistogrammeLatences();
+        }
+        for (int i = 0; i < motifs.length; i++) {
+            rejets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Enregistre la durée d'une étape commencée à {@code debut}.
+     * @return Instant de fin de l'étape, qui sert de début à la suivante
+     */
+    long mesurer(EtapePipeline etape, long debut) {
+        long fin = System.nanoTime();
+        int i = etape.ordinal();
+        nbAppels[i].increment();
+        durees[i].add(fin - debut);
+        latences[i].enregistrer(fin - debut);
+        return fin;
+    }
+
+    void rejeter(MotifRejet motif) {
+        rejets[motif.ordinal()].increment();
+    }
+
+    /**
+     * Enregistre une imposition servie par le cache, dont les étapes EXG_IMPOT_04 à EXG_IMPOT_07 n'ont pas été exécutées.
+     */
+    void servirDepuisCache() {
+        impositionsEnCache.increment();
+    }
+
+    /**
+     * @param etape Étape mesurée
+     * @return Instantané des mesures de l'étape
+     */
+    public StatistiqueEtape getInstantane(EtapePipeline etape) {
+        int i = etape.ordinal();
+        HistogrammeLatences histogramme = latences[i];
+        return new StatistiqueEtape(etape.name(), etape.getExigence(), nbAppels[i].sum(), durees[i].sum(),
+                histogramme.quantile(P50), histogramme.quantile(P90), histogramme.quantile(P99),
+                histogramme.quantile(1.0));
+    }
+
+    /**
+     * @param motif Motif de rejet
+     * @return Nombre de calculs refusés pour ce motif
+     */
+    public long getNbRejets(MotifRejet motif) {
+        return rejets[motif.ordinal()].sum();
+    }
+
+    @Override
+    public long getNbCalculs() {
+        return nbAppels[EtapePipeline.VERIFICATION_PARAMETRES.ordinal()].sum();
+    }
+
+    @Override
+    public long getNbRejets() {
+        long total = 0;
+        for (LongAdder rejet : rejets) {
+            total += rejet.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getNbImpositionsEnCache() {
+        return impositionsEnCache.sum();
+    }
+
+    @Override
+    public double getDebitParSeconde() {
+        double secondes = (System.nanoTime() - debutMesures) / NANOS_PAR_SECONDE;
+        return secondes > 0 ? getNbCalculs() / secondes : 0;
+    }
+
+    @Override
+    public List<StatistiqueEtape> getEtapes() {
+        List<StatistiqueEtape> statistiques = new ArrayList<>(etapes.length);
+        for (EtapePipeline etape : etapes) {
+            statistiques.add(getInstantane(etape));
+        }
+        return statistiques;
+    }
+
+    @Override
+    public Map<String, Long> getRejetsParMotif() {
+        Map<String, Long> parMotif = new LinkedHashMap<>();
+        for (MotifRejet motif : motifs) {
+            parMotif.put(motif.name(), getNbRejets(motif));
+        }
+        return parMotif;
+    }
+
+    /**
+     * @return Nombre d'appels de chaque étape
+     */
+    public Map<EtapePipeline, Long> getNbAppelsParEtape() {
+        Map<EtapePipeline, Long> parEtape = new EnumMap<>(EtapePipeline.class);
+        for (EtapePipeline etape : etapes) {
+            parEtape.put(etape, nbAppels[etape.ordinal()].sum());
+        }
+        return parEtape;
+    }
+
+    @Override
+    public void reinitialiser() {
+        for (int i = 0; i < etapes.length; i++) {
+            nbAppels[i].reset();
+            durees[i].reset();
+            latences[i].vider();
+        }
+        for (LongAdder rejet : rejets) {
+            rejet.reset();
+        }
+        impositionsEnCache.reset();
+        debutMesures = System.nanoTime();
+    }
+
+    /**
+     * Publie l'instrumentation sur le serveur JMX de la plateforme.
+     * @param nom Valeur de la clé {@code name} du nom d'objet, pour distinguer plusieurs simulateurs
+     * @return Nom d'objet enregistré
+     * @throws IllegalStateException si le nom est déjà pris ou invalide
+     */
+    public ObjectName enregistrerMBean(String nom) {
+        MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName nomObjet = new ObjectName("com.kerware.simulateur:type=InstrumentationPipeline,name="
+                    + ObjectName.quote(nom));
+            serveur.registerMBean(this, nomObjet);
+            return nomObjet;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException("Instrumentation déjà publiée sous le nom " + nom, e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Publication JMX impossible : " + e.getMessage(), e);
+        }
+    }
+}
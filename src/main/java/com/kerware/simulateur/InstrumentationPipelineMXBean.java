@@ -0,0 +1,45 @@
+package com.kerware.simulateur;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interface JMX de {@link InstrumentationPipeline}.
+ */
+public interface InstrumentationPipelineMXBean {
+
+    /**
+     * @return Nombre de calculs ayant passé la vérification des paramètres
+     */
+    long getNbCalculs();
+
+    /**
+     * @return Nombre de calculs refusés à la vérification des paramètres
+     */
+    long getNbRejets();
+
+    /**
+     * @return Nombre d'impositions servies par le cache, sans passer par les étapes EXG_IMPOT_04 à EXG_IMPOT_07
+     */
+    long getNbImpositionsEnCache();
+
+    /**
+     * @return Nombre de calculs par seconde depuis la dernière réinitialisation
+     */
+    double getDebitParSeconde();
+
+    /**
+     * @return Mesures de chaque étape, dans l'ordre du calcul
+     */
+    List<StatistiqueEtape> getEtapes();
+
+    /**
+     * @return Nombre de rejets par motif
+     */
+    Map<String, Long> getRejetsParMotif();
+
+    /**
+     * Remet toutes les mesures à zéro.
+     */
+    void reinitialiser();
+}
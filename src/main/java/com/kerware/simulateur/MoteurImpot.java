@@ -0,0 +1,30 @@
+package com.kerware.simulateur;
+
+/**
+ * Moteur de calcul de l'impôt d'un foyer, sans état : une instance peut être partagée entre threads.
+ */
+public interface MoteurImpot {
+
+    /**
+     * @param revNetDecl1 Revenu net du déclarant 1
+     * @param revNetDecl2 Revenu net du déclarant 2
+     * @param sitFam Situation familiale
+     * @param nbEnfants Nombre d'enfants
+     * @param nbEnfantsHandicapes Nombre d'enfants handicapés
+     * @param parentIsol True si parent isolé
+     * @return Résultat immuable du calcul, valeurs intermédiaires comprises
+     * @throws IllegalArgumentException si les paramètres sont invalides
+     */
+    ResultatImpot calculer(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                           int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol);
+
+    /**
+     * @return Impôt net arrondi à l'euro le plus proche (EXG_IMPOT_01)
+     * @throws IllegalArgumentException si les paramètres sont invalides
+     */
+    default int calculImpot(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                            int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        return calculer(revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol)
+                .getImpotNetArrondi();
+    }
+}
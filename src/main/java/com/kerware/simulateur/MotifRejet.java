@@ -0,0 +1,93 @@
+package com.kerware.simulateur;
+
+/**
+ * Raisons pour lesquelles les paramètres d'entrée d'un calcul sont refusés.
+ * <p>
+ * Chaque motif a un code entier strictement positif ; {@link #CODE_VALIDE} désigne des paramètres acceptés.
+ * Les traitements par lot contrôlent les foyers par {@link #code} et consignent les rejets sans
+ * construire d'exception ; le calcul unitaire continue de lever {@link IllegalArgumentException}.
+ */
+public enum MotifRejet {
+    REVENUS_NEGATIFS("Revenus négatifs interdits"),
+    SITUATION_MANQUANTE("Situation familiale manquante"),
+    NOMBRE_ENFANTS("Nombre d'enfants invalide"),
+    ENFANTS_HANDICAPES("Enfants handicapés incohérents"),
+    PARENT_ISOLE_EN_COUPLE("Parent isolé incompatible avec couple"),
+    REVENU_DECLARANT_2("Revenu déclarant 2 invalide"),
+    FORMAT_INVALIDE("Ligne mal formée");
+
+    /** Code de paramètres acceptés. */
+    public static final int CODE_VALIDE = 0;
+
+    private static final int NB_ENFANTS_MAX = 7;
+    private static final MotifRejet[] MOTIFS = values();
+
+    private final String message;
+
+    MotifRejet(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return Code du motif, de 1 au nombre de motifs
+     */
+    public int getCode() {
+        return ordinal() + 1;
+    }
+
+    /**
+     * @param code Code renvoyé par {@link #code} ou {@link #getCode()}
+     * @return Motif correspondant, ou null pour {@link #CODE_VALIDE}
+     * @throws IllegalArgumentException si le code est inconnu
+     */
+    public static MotifRejet depuisCode(int code) {
+        if (code == CODE_VALIDE) {
+            return null;
+        }
+        if (code < 1 || code > MOTIFS.length) {
+            throw new IllegalArgumentException("Code de rejet inconnu : " + code);
+        }
+        return MOTIFS[code - 1];
+    }
+
+    /**
+     * Contrôle des paramètres d'entrée sans exception.
+     * @return Code du premier motif de rejet rencontré, ou {@link #CODE_VALIDE}
+     */
+    public static int code(int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH, boolean iso) {
+        MotifRejet motif = verifier(rev1, rev2, sf, enfants, enfH, iso);
+        return motif == null ? CODE_VALIDE : motif.getCode();
+    }
+
+    /**
+     * Contrôle des paramètres d'entrée, dans l'ordre où les règles sont vérifiées.
+     * @return Premier motif de rejet rencontré, ou null si les paramètres sont valides
+     */
+    public static MotifRejet verifier(int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH,
+                                      boolean iso) {
+        if (rev1 < 0 || rev2 < 0) {
+            return REVENUS_NEGATIFS;
+        }
+        if (sf == null) {
+            return SITUATION_MANQUANTE;
+        }
+        if (enfants < 0 || enfants > NB_ENFANTS_MAX) {
+            return NOMBRE_ENFANTS;
+        }
+        if (enfH < 0 || enfH > enfants) {
+            return ENFANTS_HANDICAPES;
+        }
+        boolean couple = sf == SituationFamiliale.MARIE || sf == SituationFamiliale.PACSE;
+        if (iso && couple) {
+            return PARENT_ISOLE_EN_COUPLE;
+        }
+        if (!couple && rev2 > 0) {
+            return REVENU_DECLARANT_2;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.kerware.simulateur;
+
+/**
+ * Politique de remplacement des entrées d'un {@link CacheImposition} plein.
+ */
+public enum PolitiqueEviction {
+    /** L'entrée la moins récemment lue est remplacée. */
+    LRU,
+    /** L'entrée la plus anciennement ajoutée est remplacée, les lectures ne modifient pas l'ordre. */
+    TAILLE_BORNEE
+}
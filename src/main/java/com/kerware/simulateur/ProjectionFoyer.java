@@ -0,0 +1,74 @@
+package com.kerware.simulateur;
+
+/**
+ * Résultat de la projection d'une {@link Trajectoire} : situation du foyer et résultat du calcul pour chaque
+ * année de revenus, de la première à la dernière de l'horizon du {@link SimulateurTrajectoire}.
+ */
+public final class ProjectionFoyer {
+
+    private final int premiereAnneeRevenus;
+    private final int[] revenusNet1;
+    private final int[] revenusNet2;
+    private final SituationFamiliale[] situations;
+    private final int[] nbEnfants;
+    private final int[] nbEnfantsHandicap;
+    private final boolean[] parentsIsoles;
+    private final ResultatImpot[] resultats;
+
+    ProjectionFoyer(int premiereAnneeRevenus, int nbAnnees) {
+        this.premiereAnneeRevenus = premiereAnneeRevenus;
+        this.revenusNet1 = new int[nbAnnees];
+        this.revenusNet2 = new int[nbAnnees];
+        this.situations = new SituationFamiliale[nbAnnees];
+        this.nbEnfants = new int[nbAnnees];
+        this.nbEnfantsHandicap = new int[nbAnnees];
+        this.parentsIsoles = new boolean[nbAnnees];
+        this.resultats = new ResultatImpot[nbAnnees];
+    }
+
+    void enregistrer(int annee, int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH, boolean iso,
+                     ResultatImpot resultat) {
+        revenusNet1[annee] = rev1;
+        revenusNet2[annee] = rev2;
+        situations[annee] = sf;
+        nbEnfants[annee] = enfants;
+        nbEnfantsHandicap[annee] = enfH;
+        parentsIsoles[annee] = iso;
+        resultats[annee] = resultat;
+    }
+
+    /**
+     * @return Nombre d'années projetées
+     */
+    public int getNbAnnees() { return resultats.length; }
+
+    /**
+     * @param annee Rang de l'année, de 0 à {@link #getNbAnnees()} - 1
+     * @return Année de perception des revenus
+     */
+    public int getAnneeRevenus(int annee) { return premiereAnneeRevenus + annee; }
+
+    public int getRevenuNet1(int annee) { return revenusNet1[annee]; }
+    public int getRevenuNet2(int annee) { return revenusNet2[annee]; }
+    public SituationFamiliale getSituationFamiliale(int annee) { return situations[annee]; }
+    public int getNbEnfants(int annee) { return nbEnfants[annee]; }
+    public int getNbEnfantsHandicap(int annee) { return nbEnfantsHandicap[annee]; }
+    public boolean isParentIsole(int annee) { return parentsIsoles[annee]; }
+    public ResultatImpot getResultat(int annee) { return resultats[annee]; }
+
+    /**
+     * @return Impôt net arrondi de l'année (EXG_IMPOT_01)
+     */
+    public int getImpotNet(int annee) { return resultats[annee].getImpotNetArrondi(); }
+
+    /**
+     * @return Somme des impôts nets arrondis de toutes les années
+     */
+    public long getImpotTotal() {
+        long total = 0;
+        for (ResultatImpot resultat : resultats) {
+            total += resultat.getImpotNetArrondi();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,112 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ensemble des barèmes disponibles, indexés par année d'imposition.
+ * <p>
+ * Le registre référence une table immuable remplacée d'un seul coup lors d'un rechargement :
+ * un calcul en cours conserve le barème qu'il a obtenu, et la lecture ne prend aucun verrou.
+ */
+public final class RegistreBaremes {
+
+    private volatile Table table;
+
+    /**
+     * Registre contenant uniquement le barème intégré {@link Bareme#BAREME_2024}.
+     */
+    public RegistreBaremes() {
+        this(List.of(Bareme.BAREME_2024));
+    }
+
+    /**
+     * @param baremes Barèmes initiaux, au moins un
+     */
+    public RegistreBaremes(Collection<Bareme> baremes) {
+        this.table = new Table(baremes);
+    }
+
+    /**
+     * @param annee Année d'imposition
+     * @return Barème de cette année
+     * @throws IllegalArgumentException si aucun barème n'est défini pour cette année
+     */
+    public Bareme pourAnnee(int annee) {
+        Bareme bareme = table.baremes.get(annee);
+        if (bareme == null) {
+            throw new IllegalArgumentException("Aucun barème pour l'année d'imposition " + annee);
+        }
+        return bareme;
+    }
+
+    /**
+     * @param anneeRevenus Année de perception des revenus
+     * @return Barème applicable à ces revenus, c'est-à-dire celui de l'année suivante
+     * @throws IllegalArgumentException si aucun barème n'est défini pour ces revenus
+     */
+    public Bareme pourRevenus(int anneeRevenus) {
+        return pourAnnee(anneeRevenus + 1);
+    }
+
+    /**
+     * @return Barème de l'année d'imposition la plus récente
+     */
+    public Bareme getBaremeCourant() {
+        return table.courant;
+    }
+
+    /**
+     * @return Barèmes disponibles, par année croissante
+     */
+    public Collection<Bareme> getBaremes() {
+        return table.baremes.values();
+    }
+
+    /**
+     * Remplace atomiquement tous les barèmes par ceux du fichier. Le fichier est entièrement lu et
+     * validé avant le remplacement : en cas d'erreur, les barèmes précédents restent en place.
+     * @param fichier Fichier de barèmes au format décrit dans {@link Bareme}
+     * @throws IOException en cas d'erreur de lecture
+     * @throws IllegalArgumentException si le fichier est incomplet ou incohérent
+     */
+    public void recharger(Path fichier) throws IOException {
+        remplacer(Bareme.charger(fichier));
+    }
+
+    /**
+     * Remplace atomiquement tous les barèmes.
+     * @param baremes Nouveaux barèmes, au moins un
+     */
+    public void remplacer(Collection<Bareme> baremes) {
+        this.table = new Table(baremes);
+    }
+
+    /**
+     * Instantané immuable des barèmes.
+     */
+    private static final class Table {
+
+        private final Map<Integer, Bareme> baremes;
+        private final Bareme courant;
+
+        Table(Collection<Bareme> liste) {
+            if (liste.isEmpty()) {
+                throw new IllegalArgumentException("Le registre doit contenir au moins un barème");
+            }
+            TreeMap<Integer, Bareme> parAnnee = new TreeMap<>();
+            for (Bareme bareme : liste) {
+                if (parAnnee.put(bareme.getAnnee(), bareme) != null) {
+                    throw new IllegalArgumentException("Barème en double pour l'année " + bareme.getAnnee());
+                }
+            }
+            this.courant = parAnnee.lastEntry().getValue();
+            this.baremes = Collections.unmodifiableMap(parAnnee);
+        }
+    }
+}
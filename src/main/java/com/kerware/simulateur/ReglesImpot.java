@@ -0,0 +1,87 @@
+package com.kerware.simulateur;
+
+/**
+ * Règles de calcul indépendantes de la représentation du foyer : nombre de parts et barème progressif.
+ * Partagées par {@link Simulateur} et les moteurs réusinés, qui doivent produire les mêmes montants.
+ */
+public final class ReglesImpot {
+
+    private ReglesImpot() {
+    }
+
+    /**
+     * @return Nombre de parts des seuls déclarants (EXG_IMPOT_03)
+     */
+    public static double calculPartsDeclarants(SituationFamiliale sf) {
+        return switch (sf) {
+            case MARIE, PACSE -> 2.0;
+            default -> 1.0;
+        };
+    }
+
+    /**
+     * @return Nombre de parts du foyer fiscal (EXG_IMPOT_03)
+     */
+    public static double calculParts(SituationFamiliale sf, double nbPtsDecl, int nbEnf, int nbEnfH,
+                                     boolean parIso) {
+        double nbPts = nbPtsDecl;
+        if (nbEnf <= 2) {
+            nbPts += nbEnf * 0.5;
+        } else {
+            nbPts += 1 + (nbEnf - 2);
+        }
+
+        if (parIso && nbEnf > 0) nbPts += 0.5;
+        if (sf == SituationFamiliale.VEUF && nbEnf > 0) nbPts += 1;
+        nbPts += nbEnfH * 0.5;
+        return nbPts;
+    }
+
+    /**
+     * @return Pour chaque tranche i, le montant dû sur les tranches 0 à i - 1 entièrement remplies
+     */
+    public static double[] cumulerTranches(int[] tranches, double[] taux) {
+        double[] cumul = new double[taux.length];
+        double montant = 0;
+        for (int i = 0; i < taux.length - 1; i++) {
+            cumul[i] = montant;
+            double base = (double) tranches[i + 1] - tranches[i];
+            montant += base * taux[i];
+        }
+        cumul[taux.length - 1] = montant;
+        return cumul;
+    }
+
+    /**
+     * Montant progressif dû sur une assiette : cumul au seuil de sa tranche plus la part dans la tranche.
+     * @param cumul Cumuls produits par {@link #cumulerTranches(int[], double[])}
+     */
+    public static double montantParTranche(double assiette, int[] tranches, double[] taux, double[] cumul) {
+        int i = indiceTranche(assiette, tranches);
+        if (i < 0) {
+            return 0;
+        }
+        return cumul[i] + (assiette - tranches[i]) * taux[i];
+    }
+
+    /**
+     * Recherche dichotomique de la tranche d'une assiette.
+     * @return Plus grand indice i tel que tranches[i] < assiette, ou -1 si l'assiette est nulle
+     */
+    public static int indiceTranche(double assiette, int[] tranches) {
+        if (!(assiette > tranches[0])) {
+            return -1;
+        }
+        int bas = 0;
+        int haut = tranches.length - 2;
+        while (bas < haut) {
+            int milieu = (bas + haut + 1) >>> 1;
+            if (assiette > tranches[milieu]) {
+                bas = milieu;
+            } else {
+                haut = milieu - 1;
+            }
+        }
+        return bas;
+    }
+}
@@ -0,0 +1,86 @@
+package com.kerware.simulateur;
+
+/**
+ * Résultat immuable d'un calcul d'impôt.
+ * Regroupe les valeurs intermédiaires produites par les exigences EXG_IMPOT_02 à EXG_IMPOT_07,
+ * ce qui permet de partager une même instance de {@link Simulateur} entre plusieurs threads.
+ */
+public final class ResultatImpot {
+
+    private final double revenuFiscalReference;
+    private final double abattement;
+    private final double nbParts;
+    private final double nbPartsDeclarants;
+    private final double impotAvantDecote;
+    private final double decote;
+    private final double contribExceptionnelle;
+    private final double impotNet;
+
+    /**
+     * @param revenuFiscalReference Revenu fiscal de référence
+     * @param abattement Abattement appliqué (EXG_IMPOT_02)
+     * @param nbParts Nombre de parts du foyer fiscal (EXG_IMPOT_03)
+     * @param nbPartsDeclarants Nombre de parts des seuls déclarants
+     * @param impotAvantDecote Impôt après plafonnement, avant décote (EXG_IMPOT_04 et 05)
+     * @param decote Décote accordée (EXG_IMPOT_06)
+     * @param contribExceptionnelle Contribution exceptionnelle sur les hauts revenus (EXG_IMPOT_07)
+     */
+    public ResultatImpot(double revenuFiscalReference, double abattement, double nbParts,
+                         double nbPartsDeclarants, double impotAvantDecote, double decote,
+                         double contribExceptionnelle) {
+        this.revenuFiscalReference = revenuFiscalReference;
+        this.abattement = abattement;
+        this.nbParts = nbParts;
+        this.nbPartsDeclarants = nbPartsDeclarants;
+        this.impotAvantDecote = impotAvantDecote;
+        this.decote = decote;
+        this.contribExceptionnelle = contribExceptionnelle;
+        this.impotNet = calculImpotNet(impotAvantDecote, decote, contribExceptionnelle);
+    }
+
+    /**
+     * Impôt net avant arrondi, dans l'ordre d'opérations de tous les moteurs : les calculs qui ne
+     * construisent pas de résultat obtiennent ainsi le même montant.
+     */
+    public static double calculImpotNet(double impotAvantDecote, double decote, double contribExceptionnelle) {
+        double impot = impotAvantDecote;
+        impot -= decote;
+        impot += contribExceptionnelle;
+        return impot;
+    }
+
+    /**
+     * @return Impôt net arrondi à l'euro le plus proche (EXG_IMPOT_01), sans construire de résultat
+     */
+    public static int calculImpotNetArrondi(double impotAvantDecote, double decote, double contribExceptionnelle) {
+        return (int) Math.round(calculImpotNet(impotAvantDecote, decote, contribExceptionnelle));
+    }
+
+    public double getRevenuFiscalReference() { return revenuFiscalReference; }
+    public double getAbattement() { return abattement; }
+    public double getNbParts() { return nbParts; }
+    public double getNbPartsDeclarants() { return nbPartsDeclarants; }
+    public double getImpotAvantDecote() { return impotAvantDecote; }
+    public double getDecote() { return decote; }
+    public double getContribExceptionnelle() { return contribExceptionnelle; }
+    public double getImpotNet() { return impotNet; }
+
+    /**
+     * @return Impôt net arrondi à l'euro le plus proche (EXG_IMPOT_01)
+     */
+    public int getImpotNetArrondi() {
+        return (int) Math.round(impotNet);
+    }
+
+    @Override
+    public String toString() {
+        return "ResultatImpot{revenuFiscalReference=" + revenuFiscalReference
+                + ", abattement=" + abattement
+                + ", nbParts=" + nbParts
+                + ", nbPartsDeclarants=" + nbPartsDeclarants
+                + ", impotAvantDecote=" + impotAvantDecote
+                + ", decote=" + decote
+                + ", contribExceptionnelle=" + contribExceptionnelle
+                + ", impotNet=" + impotNet + '}';
+    }
+}
@@ -3,54 +3,60 @@ package com.kerware.simulateur;
 /**
  * Simulateur d’impôts 2024 basé sur les revenus 2023.
  * Version refactorée avec lisibilité, modularité et traçabilité des exigences.
+ * Les paramètres de calcul proviennent d'un {@link Bareme} choisi par année de revenus ;
+ * par défaut, le barème 2024 intégré.
+ * Le simulateur est sans état : une instance peut être partagée entre plusieurs threads.
  */
-public class Simulateur {
+public class Simulateur implements MoteurImpot {
 
-    // ==== CONSTANTES ====
-
-    // Tranches d'impôt
-    private static final int[] TRANCHES = {0, 11294, 28797, 82341, 177106, Integer.MAX_VALUE};
-    private static final double[] TAUX = {0.0, 0.11, 0.30, 0.41, 0.45};
+    // ==== ATTRIBUTS ====
 
-    // Tranches et taux de CEHR
-    private static final int[] TRANCHES_CEHR = {0, 250000, 500000, 1000000, Integer.MAX_VALUE};
-    private static final double[] TAUX_CEHR_CELIB = {0.0, 0.03, 0.04, 0.04};
-    private static final double[] TAUX_CEHR_COUPLE = {0.0, 0.0, 0.03, 0.04};
+    private final RegistreBaremes registre;
+    private final CacheImposition cache;
+    private final InstrumentationPipeline instrumentation;
 
-    // Abattement
-    private static final double TAUX_ABATTEMENT = 0.10;
-    private static final int ABATTEMENT_MIN = 495;
-    private static final int ABATTEMENT_MAX = 14171;
+    /**
+     * Simulateur utilisant le barème intégré {@link Bareme#BAREME_2024}, sans cache.
+     */
+    public Simulateur() {
+        this(new RegistreBaremes(), null);
+    }
 
-    // Plafond baisse d’impôt
-    private static final double PLAFOND_DEMI_PART = 1759;
+    /**
+     * @param cache Cache des montants d'imposition partagé par tous les calculs, ou null pour ne pas en utiliser
+     */
+    public Simulateur(CacheImposition cache) {
+        this(new RegistreBaremes(), cache);
+    }
 
-    // Décote
-    private static final double SEUIL_DECOTE_SEUL = 1929;
-    private static final double SEUIL_DECOTE_COUPLE = 3191;
-    private static final double DECOTE_MAX_SEUL = 873;
-    private static final double DECOTE_MAX_COUPLE = 1444;
-    private static final double TAUX_DECOTE = 0.4525;
+    /**
+     * @param registre Barèmes disponibles, éventuellement rechargés pendant l'utilisation du simulateur
+     * @param cache Cache des montants d'imposition partagé par tous les calculs, ou null pour ne pas en utiliser
+     */
+    public Simulateur(RegistreBaremes registre, CacheImposition cache) {
+        this(registre, cache, null);
+    }
 
-    // ==== ATTRIBUTS ====
+    /**
+     * @param registre Barèmes disponibles, éventuellement rechargés pendant l'utilisation du simulateur
+     * @param cache Cache des montants d'imposition partagé par tous les calculs, ou null pour ne pas en utiliser
+     * @param instrumentation Mesures des étapes du calcul, ou null pour ne rien mesurer
+     */
+    public Simulateur(RegistreBaremes registre, CacheImposition cache, InstrumentationPipeline instrumentation) {
+        this.registre = registre;
+        this.cache = cache;
+        this.instrumentation = instrumentation;
+    }
 
-    private int rNetDecl1, rNetDecl2, nbEnf, nbEnfH;
-    private boolean parIso;
-    private double rFRef, abt, nbPts, nbPtsDecl;
-    private double decote, mImpDecl, mImp, mImpAvantDecote;
-    private double contribExceptionnelle;
+    public RegistreBaremes getRegistre() {
+        return registre;
+    }
 
-    // ==== GETTERS POUR TESTS ====
+    public InstrumentationPipeline getInstrumentation() {
+        return instrumentation;
+    }
 
-    public double getRevenuReference() { return rFRef; }
-    public double getDecote() { return decote; }
-    public double getAbattement() { return abt; }
-    public double getNbParts() { return nbPts; }
-    public double getImpotAvantDecote() { return mImpAvantDecote; }
-    public double getImpotNet() { return mImp; }
-    public int getRevenuNetDeclarant1() { return rNetDecl1; }
-    public int getRevenuNetDeclarant2() { return rNetDecl2; }
-    public double getContribExceptionnelle() { return contribExceptionnelle; }
+    // ==== CALCUL ====
 
     /**
      * Méthode principale de calcul de l’impôt.
@@ -62,123 +68,242 @@ public class Simulateur {
      * @param parentIsol True si parent isolé
      * @return Impôt net à payer
      */
+    @Override
     public int calculImpot(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
                            int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        return calculer(revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol)
+                .getImpotNetArrondi();
+    }
 
-        verifierParametres(revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+    /**
+     * Calcule l’impôt sans modifier l’état du simulateur : une même instance peut être
+     * utilisée simultanément par plusieurs threads.
+     * @param revNetDecl1 Revenu net du déclarant 1
+     * @param revNetDecl2 Revenu net du déclarant 2
+     * @param sitFam Situation familiale
+     * @param nbEnfants Nombre d'enfants
+     * @param nbEnfantsHandicapes Nombre d'enfants handicapés
+     * @param parentIsol True si parent isolé
+     * @return Résultat immuable du calcul, valeurs intermédiaires comprises
+     */
+    @Override
+    public ResultatImpot calculer(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                                  int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        return calculer(registre.getBaremeCourant(), revNetDecl1, revNetDecl2, sitFam,
+                nbEnfants, nbEnfantsHandicapes, parentIsol, null);
+    }
+
+    /**
+     * Calcule l’impôt selon le barème applicable à une année de revenus.
+     * @param anneeRevenus Année de perception des revenus
+     * @param revNetDecl1 Revenu net du déclarant 1
+     * @param revNetDecl2 Revenu net du déclarant 2
+     * @param sitFam Situation familiale
+     * @param nbEnfants Nombre d'enfants
+     * @param nbEnfantsHandicapes Nombre d'enfants handicapés
+     * @param parentIsol True si parent isolé
+     * @return Résultat immuable du calcul, valeurs intermédiaires comprises
+     * @throws IllegalArgumentException si aucun barème n'est défini pour cette année de revenus
+     */
+    public ResultatImpot calculer(int anneeRevenus, int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                                  int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        return calculer(registre.pourRevenus(anneeRevenus), revNetDecl1, revNetDecl2, sitFam,
+                nbEnfants, nbEnfantsHandicapes, parentIsol, null);
+    }
+
+    /**
+     * Courbe de l’impôt net en fonction du revenu du déclarant 1, selon le barème courant.
+     * @param revNetDecl2 Revenu net du déclarant 2, fixé
+     * @param sitFam Situation familiale
+     * @param nbEnfants Nombre d'enfants
+     * @param nbEnfantsHandicapes Nombre d'enfants handicapés
+     * @param parentIsol True si parent isolé
+     * @return Courbe linéaire par morceaux de l'impôt net
+     * @throws IllegalArgumentException si le foyer est invalide
+     */
+    public CourbeImpot courbe(int revNetDecl2, SituationFamiliale sitFam, int nbEnfants,
+                              int nbEnfantsHandicapes, boolean parentIsol) {
+        return CourbeImpot.pour(registre.getBaremeCourant(), revNetDecl2, sitFam,
+                nbEnfants, nbEnfantsHandicapes, parentIsol);
+    }
 
-        // Initialisation
-        this.rNetDecl1 = revNetDecl1;
-        this.rNetDecl2 = revNetDecl2;
-        this.nbEnf = nbEnfants;
-        this.nbEnfH = nbEnfantsHandicapes;
-        this.parIso = parentIsol;
+    /**
+     * Calcul de l’impôt selon un barème, avec enregistrement optionnel des paramètres et de chaque étape.
+     * @param bareme Barème appliqué
+     * @param trace Trace à alimenter, ou null pour ne rien enregistrer
+     */
+    ResultatImpot calculer(Bareme bareme, int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                           int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol, TraceCalcul trace) {
+        if (trace != null) {
+            trace.debut(revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        }
+        InstrumentationPipeline instr = instrumentation;
+        long chrono = instr != null ? System.nanoTime() : 0L;
+        MotifRejet motif = MotifRejet.verifier(revNetDecl1, revNetDecl2, sitFam, nbEnfants,
+                nbEnfantsHandicapes, parentIsol);
+        if (motif != null) {
+            if (instr != null) {
+                instr.rejeter(motif);
+            }
+            throw new IllegalArgumentException(motif.getMessage());
+        }
+        if (instr != null) {
+            chrono = instr.mesurer(EtapePipeline.VERIFICATION_PARAMETRES, chrono);
+        }
 
         // EXIGENCE : EXG_IMPOT_02
-        calculAbattement(sitFam);
+        double abt = calculAbattement(bareme, sitFam, revNetDecl1, revNetDecl2);
 
-        rFRef = Math.max(0, rNetDecl1 + rNetDecl2 - abt);
+        double rFRef = Math.max(0, revNetDecl1 + revNetDecl2 - abt);
+        if (instr != null) {
+            chrono = instr.mesurer(EtapePipeline.ABATTEMENT, chrono);
+        }
 
         // EXIGENCE : EXG_IMPOT_03
-        calculParts(sitFam);
+        double nbPtsDecl = ReglesImpot.calculPartsDeclarants(sitFam);
+        double nbPts = ReglesImpot.calculParts(sitFam, nbPtsDecl, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        if (instr != null) {
+            instr.mesurer(EtapePipeline.PARTS, chrono);
+        }
+
+        // EXIGENCES : EXG_IMPOT_04 à EXG_IMPOT_07, qui ne dépendent que de rFRef et des parts
+        Imposition imposition = null;
+        if (cache != null && trace == null) {
+            imposition = cache.obtenir(bareme, rFRef, nbPts, nbPtsDecl);
+            if (imposition != null && instr != null) {
+                instr.servirDepuisCache();
+            }
+        }
+        if (imposition == null) {
+            imposition = calculerImposition(bareme, rFRef, nbPts, nbPtsDecl, trace, instr);
+            if (cache != null) {
+                cache.memoriser(bareme, rFRef, nbPts, nbPtsDecl, imposition);
+            }
+        }
+
+        ResultatImpot resultat = new ResultatImpot(rFRef, abt, nbPts, nbPtsDecl, imposition.getImpotAvantDecote(),
+                imposition.getDecote(), imposition.getContribExceptionnelle());
+        if (trace != null) {
+            trace.etape(EtapeCalcul.ABATTEMENT, abt);
+            trace.etape(EtapeCalcul.REVENU_FISCAL_REFERENCE, rFRef);
+            trace.etape(EtapeCalcul.PARTS_DECLARANTS, nbPtsDecl);
+            trace.etape(EtapeCalcul.PARTS_FOYER, nbPts);
+            trace.etape(EtapeCalcul.IMPOT_NET, resultat.getImpotNet());
+        }
+        return resultat;
+    }
+
+    /**
+     * @param trace Trace à alimenter, ou null
+     * @param instr Mesures des étapes, ou null
+     */
+    static Imposition calculerImposition(Bareme bareme, double rFRef, double nbPts, double nbPtsDecl,
+                                         TraceCalcul trace, InstrumentationPipeline instr) {
+        long chrono = instr != null ? System.nanoTime() : 0L;
 
         // EXIGENCE : EXG_IMPOT_07
-        calculContributionExceptionnelle();
+        double contribExceptionnelle = calculContributionExceptionnelle(bareme, rFRef, nbPtsDecl);
+        if (instr != null) {
+            chrono = instr.mesurer(EtapePipeline.CONTRIBUTION_EXCEPTIONNELLE, chrono);
+        }
 
         // EXIGENCE : EXG_IMPOT_04
-        double impotBrutDecl = calculImpotParTranche(rFRef / nbPtsDecl, nbPtsDecl);
-        double impotBrutFoyer = calculImpotParTranche(rFRef / nbPts, nbPts);
+        double impotBrutDecl = calculImpotParTranche(bareme, rFRef / nbPtsDecl, nbPtsDecl);
+        double impotBrutFoyer = calculImpotParTranche(bareme, rFRef / nbPts, nbPts);
+        if (instr != null) {
+            chrono = instr.mesurer(EtapePipeline.IMPOT_PAR_TRANCHE, chrono);
+        }
 
         // EXIGENCE : EXG_IMPOT_05
-        mImpAvantDecote = appliquerPlafondBaisseImpot(impotBrutDecl, impotBrutFoyer);
-        mImp = mImpAvantDecote;
+        double mImpAvantDecote = appliquerPlafondBaisseImpot(bareme, impotBrutDecl, impotBrutFoyer, nbPts, nbPtsDecl);
+        if (instr != null) {
+            chrono = instr.mesurer(EtapePipeline.PLAFOND_BAISSE_IMPOT, chrono);
+        }
 
         // EXIGENCE : EXG_IMPOT_06
-        appliquerDecote();
+        double decote = calculDecote(bareme, mImpAvantDecote, nbPtsDecl);
+        if (instr != null) {
+            instr.mesurer(EtapePipeline.DECOTE, chrono);
+        }
 
-        mImp += contribExceptionnelle;
+        if (trace != null) {
+            trace.etape(EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE, contribExceptionnelle);
+            trace.etape(EtapeCalcul.IMPOT_BRUT_DECLARANTS, impotBrutDecl);
+            trace.etape(EtapeCalcul.IMPOT_BRUT_FOYER, impotBrutFoyer);
+            trace.etape(EtapeCalcul.IMPOT_AVANT_DECOTE, mImpAvantDecote);
+            trace.etape(EtapeCalcul.DECOTE, decote);
+        }
+        return new Imposition(mImpAvantDecote, decote, contribExceptionnelle);
+    }
 
-        return (int) Math.round(mImp);
+    /**
+     * Contrôle des paramètres d'entrée sans exception, pour les traitements par lot.
+     * Les rejets sont comptés par l'instrumentation éventuelle, comme ceux de {@link #calculer}.
+     * @return {@link MotifRejet#CODE_VALIDE} si les paramètres sont acceptés, code du motif de rejet sinon
+     */
+    public int verifier(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                        int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        MotifRejet motif = MotifRejet.verifier(revNetDecl1, revNetDecl2, sitFam, nbEnfants,
+                nbEnfantsHandicapes, parentIsol);
+        if (motif == null) {
+            return MotifRejet.CODE_VALIDE;
+        }
+        InstrumentationPipeline instr = instrumentation;
+        if (instr != null) {
+            instr.rejeter(motif);
+        }
+        return motif.getCode();
     }
 
-    private void verifierParametres(int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH, boolean iso) {
-        if (rev1 < 0 || rev2 < 0) throw new IllegalArgumentException("Revenus négatifs interdits");
-        if (sf == null) throw new IllegalArgumentException("Situation familiale manquante");
-        if (enfants < 0 || enfants > 7) throw new IllegalArgumentException("Nombre d'enfants invalide");
-        if (enfH < 0 || enfH > enfants) throw new IllegalArgumentException("Enfants handicapés incohérents");
-        if (iso && (sf == SituationFamiliale.MARIE || sf == SituationFamiliale.PACSE))
-            throw new IllegalArgumentException("Parent isolé incompatible avec couple");
-        if ((sf == SituationFamiliale.CELIBATAIRE || sf == SituationFamiliale.DIVORCE || sf == SituationFamiliale.VEUF) && rev2 > 0)
-            throw new IllegalArgumentException("Revenu déclarant 2 invalide");
+    static void verifierParametres(int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH, boolean iso) {
+        MotifRejet motif = MotifRejet.verifier(rev1, rev2, sf, enfants, enfH, iso);
+        if (motif != null) {
+            throw new IllegalArgumentException(motif.getMessage());
+        }
     }
 
-    private void calculAbattement(SituationFamiliale sf) {
-        long abt1 = Math.max(ABATTEMENT_MIN, Math.min(ABATTEMENT_MAX, Math.round(rNetDecl1 * TAUX_ABATTEMENT)));
+    static double calculAbattement(Bareme bareme, SituationFamiliale sf, int rNetDecl1, int rNetDecl2) {
+        long abt1 = abattementDeclarant(bareme, rNetDecl1);
         long abt2 = 0;
         if (sf == SituationFamiliale.MARIE || sf == SituationFamiliale.PACSE) {
-            abt2 = Math.max(ABATTEMENT_MIN, Math.min(ABATTEMENT_MAX, Math.round(rNetDecl2 * TAUX_ABATTEMENT)));
+            abt2 = abattementDeclarant(bareme, rNetDecl2);
         }
-        abt = abt1 + abt2;
+        return abt1 + abt2;
     }
 
-    private void calculParts(SituationFamiliale sf) {
-        nbPtsDecl = switch (sf) {
-            case MARIE, PACSE -> 2.0;
-            default -> 1.0;
-        };
-
-        nbPts = nbPtsDecl;
-        if (nbEnf <= 2) {
-            nbPts += nbEnf * 0.5;
-        } else {
-            nbPts += 1 + (nbEnf - 2);
-        }
-
-        if (parIso && nbEnf > 0) nbPts += 0.5;
-        if (sf == SituationFamiliale.VEUF && nbEnf > 0) nbPts += 1;
-        nbPts += nbEnfH * 0.5;
+    static long abattementDeclarant(Bareme bareme, int rNetDecl) {
+        return Math.max(bareme.abattementMin, Math.min(bareme.abattementMax,
+                Math.round(rNetDecl * bareme.tauxAbattement)));
     }
 
-    private void calculContributionExceptionnelle() {
-        contribExceptionnelle = 0;
-        double[] taux = nbPtsDecl == 1 ? TAUX_CEHR_CELIB : TAUX_CEHR_COUPLE;
-        for (int i = 0; i < TRANCHES_CEHR.length - 1; i++) {
-            if (rFRef > TRANCHES_CEHR[i]) {
-                double base = Math.min(rFRef, TRANCHES_CEHR[i + 1]) - TRANCHES_CEHR[i];
-                contribExceptionnelle += base * taux[i];
-            }
-        }
-        contribExceptionnelle = Math.round(contribExceptionnelle);
+    static double calculContributionExceptionnelle(Bareme bareme, double rFRef, double nbPtsDecl) {
+        double[] taux = nbPtsDecl == 1 ? bareme.tauxCehrCelib : bareme.tauxCehrCouple;
+        double[] cumul = nbPtsDecl == 1 ? bareme.cehrCumuleCelib : bareme.cehrCumuleCouple;
+        return Math.round(ReglesImpot.montantParTranche(rFRef, bareme.tranchesCehr, taux, cumul));
     }
 
-    private double calculImpotParTranche(double revenuParPart, double parts) {
-        double impot = 0;
-        for (int i = 0; i < TRANCHES.length - 1; i++) {
-            if (revenuParPart > TRANCHES[i]) {
-                double base = Math.min(revenuParPart, TRANCHES[i + 1]) - TRANCHES[i];
-                impot += base * TAUX[i];
-            }
-        }
+    static double calculImpotParTranche(Bareme bareme, double revenuParPart, double parts) {
+        double impot = ReglesImpot.montantParTranche(revenuParPart, bareme.tranches, bareme.taux, bareme.impotCumule);
         return Math.round(impot * parts);
     }
 
-    private double appliquerPlafondBaisseImpot(double impotDecl, double impotFoyer) {
+    static double appliquerPlafondBaisseImpot(Bareme bareme, double impotDecl, double impotFoyer, double nbPts,
+                                              double nbPtsDecl) {
         double baisse = impotDecl - impotFoyer;
         double ecartParts = nbPts - nbPtsDecl;
-        double plafond = (ecartParts / 0.5) * PLAFOND_DEMI_PART;
+        double plafond = (ecartParts / 0.5) * bareme.plafondDemiPart;
 
         return baisse > plafond ? impotDecl - plafond : impotFoyer;
     }
 
-    private void appliquerDecote() {
-        decote = 0;
-        if (nbPtsDecl == 1 && mImp < SEUIL_DECOTE_SEUL) {
-            decote = DECOTE_MAX_SEUL - (mImp * TAUX_DECOTE);
-        } else if (nbPtsDecl == 2 && mImp < SEUIL_DECOTE_COUPLE) {
-            decote = DECOTE_MAX_COUPLE - (mImp * TAUX_DECOTE);
+    static double calculDecote(Bareme bareme, double mImp, double nbPtsDecl) {
+        double decote = 0;
+        if (nbPtsDecl == 1 && mImp < bareme.seuilDecoteSeul) {
+            decote = bareme.decoteMaxSeul - (mImp * bareme.tauxDecote);
+        } else if (nbPtsDecl == 2 && mImp < bareme.seuilDecoteCouple) {
+            decote = bareme.decoteMaxCouple - (mImp * bareme.tauxDecote);
         }
 
-        decote = Math.round(Math.max(0, Math.min(decote, mImp)));
-        mImp -= decote;
+        return Math.round(Math.max(0, Math.min(decote, mImp)));
     }
 }
@@ -0,0 +1,187 @@
+package com.kerware.simulateur;
+
+/**
+ * Projection de foyers sur plusieurs années de revenus, sous des barèmes indexés sur l'inflation.
+ * <p>
+ * Les barèmes de toutes les années de l'horizon sont construits une seule fois, à la création du
+ * simulateur, et partagés par toutes les trajectoires projetées. D'une année à l'autre, seules les étapes
+ * dont les entrées ont changé sont recalculées : le contrôle des paramètres et les parts (EXG_IMPOT_03)
+ * ne le sont qu'après un événement qui modifie le foyer, l'abattement (EXG_IMPOT_02) qu'après un
+ * changement de revenus, de situation ou de barème, et une année identique à la précédente reprend
+ * son résultat. Les montants sont identiques à ceux de {@link Simulateur} sous le barème de chaque année.
+ * Le simulateur est sans état et peut être partagé entre plusieurs threads.
+ */
+public final class SimulateurTrajectoire {
+
+    private final Bareme[] baremes;
+    private final int premiereAnneeRevenus;
+    private final double tauxIndexation;
+
+    /**
+     * @param bareme Barème de la première année ; les suivants en sont déduits par {@link Bareme#indexer}
+     * @param tauxIndexation Taux d'indexation annuel des barèmes, par exemple 0.02 pour 2 %
+     * @param nbAnnees Nombre d'années de revenus projetées, au moins 1
+     * @throws IllegalArgumentException si le nombre d'années ou le taux est invalide
+     */
+    public SimulateurTrajectoire(Bareme bareme, double tauxIndexation, int nbAnnees) {
+        if (nbAnnees < 1) {
+            throw new IllegalArgumentException("Nombre d'années invalide : " + nbAnnees);
+        }
+        this.baremes = new Bareme[nbAnnees];
+        this.premiereAnneeRevenus = bareme.getAnneeRevenus();
+        this.tauxIndexation = tauxIndexation;
+        baremes[0] = bareme;
+        for (int i = 1; i < nbAnnees; i++) {
+            // Sans indexation, un même barème sert toutes les années : l'abattement n'est pas recalculé
+            baremes[i] = tauxIndexation == 0 ? bareme : baremes[i - 1].indexer(tauxIndexation);
+        }
+    }
+
+    public int getPremiereAnneeRevenus() { return premiereAnneeRevenus; }
+    public int getNbAnnees() { return baremes.length; }
+    public double getTauxIndexation() { return tauxIndexation; }
+
+    /**
+     * @param annee Rang de l'année, de 0 à {@link #getNbAnnees()} - 1
+     * @return Barème appliqué aux revenus de cette année
+     */
+    public Bareme getBareme(int annee) {
+        return baremes[annee];
+    }
+
+    /**
+     * Projette une trajectoire sur toutes les années de l'horizon.
+     * @param trajectoire Trajectoire du foyer
+     * @return Situation et résultat de chaque année
+     * @throws IllegalArgumentException si le foyer est invalide une des années
+     */
+    public ProjectionFoyer projeter(Trajectoire trajectoire) {
+        ProjectionFoyer projection = new ProjectionFoyer(premiereAnneeRevenus, baremes.length);
+        parcourir(trajectoire, projection, null);
+        return projection;
+    }
+
+    /**
+     * Projette une trajectoire sans conserver les résultats intermédiaires, pour les tirages de Monte-Carlo :
+     * seul l'impôt net arrondi de chaque année est écrit.
+     * @param trajectoire Trajectoire du foyer
+     * @param impotsNets Tableau d'au moins {@link #getNbAnnees()} éléments, rempli à partir de l'indice 0
+     * @return Somme des impôts nets de toutes les années
+     * @throws IllegalArgumentException si le foyer est invalide une des années
+     */
+    public long impotsNets(Trajectoire trajectoire, int[] impotsNets) {
+        if (impotsNets.length < baremes.length) {
+            throw new IllegalArgumentException("Tableau trop court : " + impotsNets.length + " < " + baremes.length);
+        }
+        return parcourir(trajectoire, null, impotsNets);
+    }
+
+    /**
+     * @param projection Projection à remplir, ou null
+     * @param impotsNets Impôts nets à remplir, ou null
+     * @return Somme des impôts nets arrondis
+     */
+    private long parcourir(Trajectoire trajectoire, ProjectionFoyer projection, int[] impotsNets) {
+        int rev1 = trajectoire.getRevenuNet1();
+        int rev2 = trajectoire.getRevenuNet2();
+        SituationFamiliale sf = trajectoire.getSituationFamiliale();
+        int enfants = trajectoire.getNbEnfants();
+        int enfH = trajectoire.getNbEnfantsHandicap();
+        boolean iso = trajectoire.isParentIsole();
+        double croissance = 1 + trajectoire.getCroissanceRevenus();
+        EvenementFoyer[] evenements = trajectoire.evenements();
+        int prochain = 0;
+
+        double nbPtsDecl = 0;
+        double nbPts = 0;
+        double abt = 0;
+        double rFRef = 0;
+        ResultatImpot resultat = null;
+        int impot = 0;
+        long total = 0;
+        for (int i = 0; i < baremes.length; i++) {
+            int anneeRevenus = premiereAnneeRevenus + i;
+            boolean profilChange = i == 0;
+            boolean assietteChange = i == 0 || baremes[i] != baremes[i - 1];
+            if (i > 0 && croissance != 1) {
+                int nouveau1 = revaloriser(rev1, croissance);
+                int nouveau2 = revaloriser(rev2, croissance);
+                assietteChange |= nouveau1 != rev1 || nouveau2 != rev2;
+                rev1 = nouveau1;
+                rev2 = nouveau2;
+            }
+            for (; prochain < evenements.length && evenements[prochain].getAnneeRevenus() <= anneeRevenus;
+                 prochain++) {
+                EvenementFoyer evenement = evenements[prochain];
+                switch (evenement.getNature()) {
+                    case REVENUS -> {
+                        rev1 = evenement.getRevenuNet1();
+                        rev2 = evenement.getRevenuNet2();
+                    }
+                    case NAISSANCE -> {
+                        enfants++;
+                        enfH += evenement.isHandicap() ? 1 : 0;
+                    }
+                    case DEPART_ENFANT -> {
+                        enfants--;
+                        enfH -= evenement.isHandicap() ? 1 : 0;
+                    }
+                    case SITUATION -> {
+                        sf = evenement.getSituationFamiliale();
+                        rev2 = evenement.getRevenuNet2();
+                        iso = evenement.isParentIsole();
+                        assietteChange = true;
+                    }
+                }
+                profilChange |= evenement.changeProfil();
+                assietteChange |= evenement.getNature() == EvenementFoyer.Nature.REVENUS;
+            }
+
+            if (profilChange || assietteChange) {
+                MotifRejet motif = MotifRejet.verifier(rev1, rev2, sf, enfants, enfH, iso);
+                if (motif != null) {
+                    throw new IllegalArgumentException("Revenus " + anneeRevenus + " : " + motif.getMessage());
+                }
+            }
+            if (profilChange) {
+                // EXIGENCE : EXG_IMPOT_03
+                nbPtsDecl = ReglesImpot.calculPartsDeclarants(sf);
+                nbPts = ReglesImpot.calculParts(sf, nbPtsDecl, enfants, enfH, iso);
+            }
+            if (assietteChange) {
+                // EXIGENCE : EXG_IMPOT_02
+                abt = Simulateur.calculAbattement(baremes[i], sf, rev1, rev2);
+                rFRef = Math.max(0, rev1 + rev2 - abt);
+            }
+            if (profilChange || assietteChange) {
+                // EXIGENCES : EXG_IMPOT_04 à EXG_IMPOT_07
+                Imposition imposition = Simulateur.calculerImposition(baremes[i], rFRef, nbPts, nbPtsDecl,
+                        null, null);
+                if (projection != null) {
+                    resultat = new ResultatImpot(rFRef, abt, nbPts, nbPtsDecl, imposition.getImpotAvantDecote(),
+                            imposition.getDecote(), imposition.getContribExceptionnelle());
+                    impot = resultat.getImpotNetArrondi();
+                } else {
+                    impot = ResultatImpot.calculImpotNetArrondi(imposition.getImpotAvantDecote(),
+                            imposition.getDecote(), imposition.getContribExceptionnelle());
+                }
+            }
+
+            if (projection != null) {
+                projection.enregistrer(i, rev1, rev2, sf, enfants, enfH, iso, resultat);
+            }
+            if (impotsNets != null) {
+                impotsNets[i] = impot;
+            }
+            total += impot;
+        }
+        return total;
+    }
+
+    /**
+     * @return Revenu revalorisé arrondi à l'euro, borné au plus grand revenu représentable
+     */
+    private static int revaloriser(int revenu, double croissance) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, Math.round(revenu * croissance)));
+    }
+}
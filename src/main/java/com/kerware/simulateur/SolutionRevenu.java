@@ -0,0 +1,39 @@
+package com.kerware.simulateur;
+
+/**
+ * Résultat d'une recherche de {@link SolveurRevenu}.
+ */
+public final class SolutionRevenu {
+
+    private final int revenuNetDeclarant1;
+    private final ResultatImpot resultat;
+    private final int nbEvaluations;
+
+    public SolutionRevenu(int revenuNetDeclarant1, ResultatImpot resultat, int nbEvaluations) {
+        this.revenuNetDeclarant1 = revenuNetDeclarant1;
+        this.resultat = resultat;
+        this.nbEvaluations = nbEvaluations;
+    }
+
+    /**
+     * @return Plus petit revenu net du déclarant 1 atteignant l'impôt cible
+     */
+    public int getRevenuNetDeclarant1() { return revenuNetDeclarant1; }
+
+    /**
+     * @return Calcul complet de l'impôt pour ce revenu
+     */
+    public ResultatImpot getResultat() { return resultat; }
+
+    /**
+     * @return Nombre d'appels au simulateur effectués par la recherche
+     */
+    public int getNbEvaluations() { return nbEvaluations; }
+
+    @Override
+    public String toString() {
+        return "SolutionRevenu{revenuNetDeclarant1=" + revenuNetDeclarant1
+                + ", impotNet=" + resultat.getImpotNetArrondi()
+                + ", nbEvaluations=" + nbEvaluations + '}';
+    }
+}
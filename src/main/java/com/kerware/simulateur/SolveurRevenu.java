@@ -0,0 +1,123 @@
+package com.kerware.simulateur;
+
+/**
+ * Recherche du revenu nécessaire pour atteindre un impôt net donné.
+ * <p>
+ * Pour un foyer fixé, l'impôt net est une fonction croissante et linéaire par morceaux du revenu
+ * du déclarant 1 : les morceaux sont délimités par les bornes de l'abattement, les tranches,
+ * le plafonnement du quotient familial, la décote et la CEHR. La recherche interpole donc
+ * linéairement entre deux revenus encadrant la cible (méthode de la fausse position, variante
+ * Illinois) et bascule sur la dichotomie lorsque l'interpolation progresse mal, par exemple
+ * autour du saut de la décote. Quelques évaluations suffisent là où un balayage en demande des milliers.
+ */
+public final class SolveurRevenu {
+
+    private static final int REVENU_INITIAL = 20000;
+    private static final double DEMI_EURO = 0.5;
+
+    private final Simulateur simulateur;
+
+    public SolveurRevenu(Simulateur simulateur) {
+        this.simulateur = simulateur;
+    }
+
+    /**
+     * Plus petit revenu net du déclarant 1 dont l'impôt net arrondi (EXG_IMPOT_01) atteint la cible.
+     * Si l'impôt est déjà atteint sans revenu, notamment pour une cible nulle, la solution est 0.
+     * @param impotCible Impôt net visé
+     * @param revNetDecl2 Revenu net du déclarant 2, fixé
+     * @param sitFam Situation familiale
+     * @param nbEnfants Nombre d'enfants
+     * @param nbEnfantsHandicapes Nombre d'enfants handicapés
+     * @param parentIsol True si parent isolé
+     * @return Revenu trouvé et calcul correspondant
+     * @throws IllegalArgumentException si le foyer est invalide ou si la cible n'est pas atteignable
+     */
+    public SolutionRevenu revenuPourImpot(int impotCible, int revNetDecl2, SituationFamiliale sitFam,
+                                         int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        Recherche recherche = new Recherche(revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+
+        int bas = 0;
+        ResultatImpot resultatBas = recherche.evaluer(bas);
+        if (resultatBas.getImpotNetArrondi() >= impotCible) {
+            return new SolutionRevenu(bas, resultatBas, recherche.nbEvaluations);
+        }
+
+        // Encadrement : le revenu haut est doublé tant que l'impôt reste sous la cible
+        int revenuMax = Integer.MAX_VALUE - revNetDecl2;
+        int haut = Math.min(revenuMax, REVENU_INITIAL);
+        ResultatImpot resultatHaut = recherche.evaluer(haut);
+        while (resultatHaut.getImpotNetArrondi() < impotCible) {
+            if (haut == revenuMax) {
+                throw new IllegalArgumentException("Impôt de " + impotCible + " inatteignable pour ce foyer");
+            }
+            bas = haut;
+            resultatBas = resultatHaut;
+            haut = (int) Math.min(revenuMax, 2L * haut);
+            resultatHaut = recherche.evaluer(haut);
+        }
+
+        // Fausse position sur l'impôt non arrondi : la cible arrondie est atteinte dès cible - 0.5
+        double cible = impotCible - DEMI_EURO;
+        double impotBas = resultatBas.getImpotNet() - cible;
+        double impotHaut = resultatHaut.getImpotNet() - cible;
+        int coteRetenu = 0;
+        boolean dichotomie = false;
+        while (haut - bas > 1) {
+            long largeur = (long) haut - bas;
+            int x = (int) (bas + largeur / 2);
+            if (!dichotomie) {
+                x = (int) Math.ceil(bas - impotBas * largeur / (impotHaut - impotBas));
+                x = Math.max(bas + 1, Math.min(haut - 1, x));
+            }
+            ResultatImpot resultat = recherche.evaluer(x);
+            double impot = resultat.getImpotNet() - cible;
+            if (resultat.getImpotNetArrondi() >= impotCible) {
+                haut = x;
+                resultatHaut = resultat;
+                impotHaut = impot;
+                // Illinois : l'extrémité conservée deux fois de suite voit son poids divisé par deux
+                impotBas = coteRetenu == -1 ? impotBas / 2 : impotBas;
+                coteRetenu = -1;
+            } else {
+                bas = x;
+                impotBas = impot;
+                impotHaut = coteRetenu == 1 ? impotHaut / 2 : impotHaut;
+                coteRetenu = 1;
+            }
+            // Si l'intervalle n'a pas été divisé par deux, le pas suivant est une dichotomie
+            dichotomie = !dichotomie && (long) haut - bas > largeur / 2;
+        }
+        return new SolutionRevenu(haut, resultatHaut, recherche.nbEvaluations);
+    }
+
+    /**
+     * Foyer fixé dont seul le revenu du déclarant 1 varie, avec le décompte des évaluations.
+     */
+    private final class Recherche {
+
+        private final int revNetDecl2;
+        private final SituationFamiliale sitFam;
+        private final int nbEnfants;
+        private final int nbEnfantsHandicapes;
+        private final boolean parentIsol;
+        private final Bareme bareme;
+        private int nbEvaluations;
+
+        Recherche(int revNetDecl2, SituationFamiliale sitFam, int nbEnfants, int nbEnfantsHandicapes,
+                  boolean parentIsol) {
+            this.revNetDecl2 = revNetDecl2;
+            this.sitFam = sitFam;
+            this.nbEnfants = nbEnfants;
+            this.nbEnfantsHandicapes = nbEnfantsHandicapes;
+            this.parentIsol = parentIsol;
+            this.bareme = simulateur.getRegistre().getBaremeCourant();
+        }
+
+        ResultatImpot evaluer(int revNetDecl1) {
+            nbEvaluations++;
+            return simulateur.calculer(bareme, revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes,
+                    parentIsol, null);
+        }
+    }
+}
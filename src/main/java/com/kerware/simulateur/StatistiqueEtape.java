@@ -0,0 +1,53 @@
+package com.kerware.simulateur;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Instantané immuable des mesures d'une étape du calcul. Les durées sont en nanosecondes.
+ */
+public final class StatistiqueEtape {
+
+    private final String etape;
+    private final String exigence;
+    private final long nbAppels;
+    private final long dureeTotale;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    @ConstructorProperties({"etape", "exigence", "nbAppels", "dureeTotale", "p50", "p90", "p99", "max"})
+    public StatistiqueEtape(String etape, String exigence, long nbAppels, long dureeTotale,
+                            long p50, long p90, long p99, long max) {
+        this.etape = etape;
+        this.exigence = exigence;
+        this.nbAppels = nbAppels;
+        this.dureeTotale = dureeTotale;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    public String getEtape() { return etape; }
+    public String getExigence() { return exigence; }
+    public long getNbAppels() { return nbAppels; }
+    public long getDureeTotale() { return dureeTotale; }
+    public long getP50() { return p50; }
+    public long getP90() { return p90; }
+    public long getP99() { return p99; }
+    public long getMax() { return max; }
+
+    /**
+     * @return Durée moyenne d'un appel, 0 sans appel
+     */
+    public double getDureeMoyenne() {
+        return nbAppels == 0 ? 0 : (double) dureeTotale / nbAppels;
+    }
+
+    @Override
+    public String toString() {
+        return etape + "{nbAppels=" + nbAppels + ", moyenne=" + getDureeMoyenne() + "ns, p50=" + p50
+                + "ns, p90=" + p90 + "ns, p99=" + p99 + "ns, max=" + max + "ns}";
+    }
+}
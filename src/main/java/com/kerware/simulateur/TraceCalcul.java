@@ -0,0 +1,174 @@
+package com.kerware.simulateur;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Trace structurée des derniers calculs d'impôt, conservée dans un tampon circulaire préalloué.
+ * <p>
+ * Chaque enregistrement contient les six paramètres d'entrée et la valeur produite par chaque
+ * {@link EtapeCalcul}. L'enregistrement n'alloue aucun objet : les valeurs sont écrites dans des
+ * tableaux de primitives dimensionnés à la construction, les plus anciennes étant écrasées.
+ * Une trace n'est pas thread-safe : elle est destinée à un seul adaptateur ou à un seul thread.
+ */
+public final class TraceCalcul {
+
+    private static final EtapeCalcul[] ETAPES = EtapeCalcul.values();
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+    private static final int NB_ENTREES = 6;
+    private static final int AUCUNE_SITUATION = -1;
+
+    private final int capacite;
+    private final long[] entrees;
+    private final double[] etapes;
+    private final String[] erreurs;
+    private final Appendable sortieSurErreur;
+
+    private long nbCalculs;
+    private int courant = -1;
+
+    /**
+     * @param capacite Nombre de calculs conservés
+     */
+    public TraceCalcul(int capacite) {
+        this(capacite, null);
+    }
+
+    /**
+     * @param capacite Nombre de calculs conservés
+     * @param sortieSurErreur Destination où la trace est écrite lorsqu'un calcul échoue, ou null
+     */
+    public TraceCalcul(int capacite, Appendable sortieSurErreur) {
+        if (capacite < 1) {
+            throw new IllegalArgumentException("La capacité de la trace doit être positive");
+        }
+        this.capacite = capacite;
+        this.entrees = new long[capacite * NB_ENTREES];
+        this.etapes = new double[capacite * ETAPES.length];
+        this.erreurs = new String[capacite];
+        this.sortieSurErreur = sortieSurErreur;
+    }
+
+    /**
+     * Ouvre un nouvel enregistrement pour les paramètres d'un calcul.
+     */
+    void debut(int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH, boolean iso) {
+        courant = (int) (nbCalculs % capacite);
+        nbCalculs++;
+        int base = courant * NB_ENTREES;
+        entrees[base] = rev1;
+        entrees[base + 1] = rev2;
+        entrees[base + 2] = sf == null ? AUCUNE_SITUATION : sf.ordinal();
+        entrees[base + 3] = enfants;
+        entrees[base + 4] = enfH;
+        entrees[base + 5] = iso ? 1 : 0;
+        Arrays.fill(etapes, courant * ETAPES.length, (courant + 1) * ETAPES.length, Double.NaN);
+        erreurs[courant] = null;
+    }
+
+    /**
+     * Enregistre la valeur produite par une étape du calcul en cours.
+     */
+    void etape(EtapeCalcul etape, double valeur) {
+        etapes[courant * ETAPES.length + etape.ordinal()] = valeur;
+    }
+
+    /**
+     * Marque le calcul en cours comme rejeté et écrit la trace vers la sortie d'erreur si elle est définie.
+     * @param message Motif du rejet
+     */
+    void erreur(String message) {
+        if (courant < 0) {
+            return;
+        }
+        erreurs[courant] = message;
+        if (sortieSurErreur != null) {
+            try {
+                ecrire(sortieSurErreur);
+            } catch (IOException e) {
+                // La trace est un outil de diagnostic : son échec ne doit pas masquer l'erreur de calcul
+            }
+        }
+    }
+
+    /**
+     * @return Nombre total de calculs enregistrés depuis la création ou le dernier {@link #vider()}
+     */
+    public long getNbCalculs() {
+        return nbCalculs;
+    }
+
+    /**
+     * @return Nombre de calculs actuellement conservés dans le tampon
+     */
+    public int getNbEnregistrements() {
+        return (int) Math.min(nbCalculs, capacite);
+    }
+
+    /**
+     * @param rang Rang de l'enregistrement, 0 étant le plus ancien conservé
+     * @param etape Étape recherchée
+     * @return Valeur de l'étape, ou NaN si le calcul s'est arrêté avant cette étape
+     */
+    public double getValeur(int rang, EtapeCalcul etape) {
+        return etapes[position(rang) * ETAPES.length + etape.ordinal()];
+    }
+
+    /**
+     * @param rang Rang de l'enregistrement, 0 étant le plus ancien conservé
+     * @return Motif du rejet, ou null si le calcul a abouti
+     */
+    public String getErreur(int rang) {
+        return erreurs[position(rang)];
+    }
+
+    /**
+     * Vide la trace sans libérer le tampon.
+     */
+    public void vider() {
+        nbCalculs = 0;
+        courant = -1;
+    }
+
+    /**
+     * Écrit les enregistrements conservés, du plus ancien au plus récent, à raison d'une ligne par calcul.
+     * @param sortie Destination de la trace
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void ecrire(Appendable sortie) throws IOException {
+        int nb = getNbEnregistrements();
+        for (int rang = 0; rang < nb; rang++) {
+            int position = position(rang);
+            int base = position * NB_ENTREES;
+            sortie.append("#").append(Long.toString(nbCalculs - nb + rang + 1))
+                    .append(" revenuNetDeclarant1=").append(Long.toString(entrees[base]))
+                    .append(" revenuNetDeclarant2=").append(Long.toString(entrees[base + 1]))
+                    .append(" situationFamiliale=").append(nomSituation(entrees[base + 2]))
+                    .append(" nbEnfants=").append(Long.toString(entrees[base + 3]))
+                    .append(" nbEnfantsHandicap=").append(Long.toString(entrees[base + 4]))
+                    .append(" parentIsole=").append(Boolean.toString(entrees[base + 5] == 1));
+            for (EtapeCalcul etape : ETAPES) {
+                double valeur = etapes[position * ETAPES.length + etape.ordinal()];
+                if (!Double.isNaN(valeur)) {
+                    sortie.append(' ').append(etape.name()).append('=').append(Double.toString(valeur));
+                }
+            }
+            if (erreurs[position] != null) {
+                sortie.append(" ERREUR=").append(erreurs[position]);
+            }
+            sortie.append(System.lineSeparator());
+        }
+    }
+
+    private int position(int rang) {
+        int nb = getNbEnregistrements();
+        if (rang < 0 || rang >= nb) {
+            throw new IndexOutOfBoundsException("Rang " + rang + " hors de la trace (" + nb + " enregistrements)");
+        }
+        return (int) ((nbCalculs - nb + rang) % capacite);
+    }
+
+    private static String nomSituation(long ordinal) {
+        return ordinal == AUCUNE_SITUATION ? "null" : SITUATIONS[(int) ordinal].name();
+    }
+}
@@ -0,0 +1,72 @@
+package com.kerware.simulateur;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Évolution d'un foyer sur plusieurs années de revenus : foyer de la première année, croissance annuelle
+ * des revenus et événements datés. Une trajectoire est immuable et ne dépend d'aucun barème : elle est
+ * projetée par un {@link SimulateurTrajectoire}.
+ * <p>
+ * Chaque année, les revenus de l'année précédente sont revalorisés de la croissance et arrondis à l'euro,
+ * puis les événements de l'année sont appliqués dans l'ordre où ils ont été donnés.
+ */
+public final class Trajectoire {
+
+    private final int revenuNet1;
+    private final int revenuNet2;
+    private final SituationFamiliale situationFamiliale;
+    private final int nbEnfants;
+    private final int nbEnfantsHandicap;
+    private final boolean parentIsole;
+    private final double croissanceRevenus;
+    private final EvenementFoyer[] evenements;
+
+    /**
+     * @param revenuNet1 Revenu net du déclarant 1 la première année
+     * @param revenuNet2 Revenu net du déclarant 2 la première année
+     * @param situationFamiliale Situation familiale la première année
+     * @param nbEnfants Nombre d'enfants la première année
+     * @param nbEnfantsHandicap Nombre d'enfants handicapés la première année
+     * @param parentIsole True si parent isolé la première année
+     * @param croissanceRevenus Croissance annuelle des revenus, par exemple 0.02 pour 2 %
+     * @param evenements Événements, dans un ordre quelconque d'une année à l'autre
+     */
+    public Trajectoire(int revenuNet1, int revenuNet2, SituationFamiliale situationFamiliale, int nbEnfants,
+                       int nbEnfantsHandicap, boolean parentIsole, double croissanceRevenus,
+                       List<EvenementFoyer> evenements) {
+        this.revenuNet1 = revenuNet1;
+        this.revenuNet2 = revenuNet2;
+        this.situationFamiliale = situationFamiliale;
+        this.nbEnfants = nbEnfants;
+        this.nbEnfantsHandicap = nbEnfantsHandicap;
+        this.parentIsole = parentIsole;
+        this.croissanceRevenus = croissanceRevenus;
+        this.evenements = evenements.toArray(new EvenementFoyer[0]);
+        // Tri stable : les événements d'une même année gardent leur ordre
+        Arrays.sort(this.evenements, Comparator.comparingInt(EvenementFoyer::getAnneeRevenus));
+    }
+
+    public int getRevenuNet1() { return revenuNet1; }
+    public int getRevenuNet2() { return revenuNet2; }
+    public SituationFamiliale getSituationFamiliale() { return situationFamiliale; }
+    public int getNbEnfants() { return nbEnfants; }
+    public int getNbEnfantsHandicap() { return nbEnfantsHandicap; }
+    public boolean isParentIsole() { return parentIsole; }
+    public double getCroissanceRevenus() { return croissanceRevenus; }
+
+    /**
+     * @return Événements par année de revenus croissante
+     */
+    public List<EvenementFoyer> getEvenements() {
+        return List.of(evenements);
+    }
+
+    /**
+     * Événements triés, sans copie, pour le parcours de la projection.
+     */
+    EvenementFoyer[] evenements() {
+        return evenements;
+    }
+}
@@ -0,0 +1,265 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.Collector;
+
+/**
+ * Agrégats d'une population de foyers, alimentés au fil du calcul sans conserver les résultats.
+ * <p>
+ * Totaux d'impôt net, de décote et de contribution exceptionnelle, nombre de foyers et revenu fiscal
+ * de référence par tranche marginale, et quantiles de l'impôt net par situation familiale
+ * ({@link EsquisseQuantiles}). Chaque thread alimente son propre accumulateur, sans verrou ; les
+ * accumulateurs sont fusionnés en fin de traitement.
+ */
+public final class AccumulateurPopulation {
+
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    private final Bareme bareme;
+    private final int[] tranches;
+
+    private final long[] nbFoyers = new long[SITUATIONS.length];
+    private final long[] impotNet = new long[SITUATIONS.length];
+    private final EsquisseQuantiles[] esquisses = new EsquisseQuantiles[SITUATIONS.length];
+    private long decote;
+    private long nbFoyersDecote;
+    private long contribExceptionnelle;
+    private long nbFoyersCehr;
+    private final long[] nbFoyersParTranche;
+    private final long[] revenuParTranche;
+
+    /**
+     * @param bareme Barème des calculs, dont les tranches définissent la tranche marginale
+     */
+    public AccumulateurPopulation(Bareme bareme) {
+        this.bareme = bareme;
+        this.tranches = bareme.getTranches();
+        this.nbFoyersParTranche = new long[tranches.length];
+        this.revenuParTranche = new long[tranches.length];
+        for (int i = 0; i < esquisses.length; i++) {
+            esquisses[i] = new EsquisseQuantiles();
+        }
+    }
+
+    /**
+     * Ajoute le résultat d'un foyer.
+     * @param sitFam Situation familiale du foyer
+     * @param resultat Résultat du calcul
+     */
+    public void ajouter(SituationFamiliale sitFam, ResultatImpot resultat) {
+        int sf = sitFam.ordinal();
+        int impot = resultat.getImpotNetArrondi();
+        nbFoyers[sf]++;
+        impotNet[sf] += impot;
+        esquisses[sf].ajouter(impot);
+        if (resultat.getDecote() > 0) {
+            decote += (long) resultat.getDecote();
+            nbFoyersDecote++;
+        }
+        if (resultat.getContribExceptionnelle() > 0) {
+            contribExceptionnelle += (long) resultat.getContribExceptionnelle();
+            nbFoyersCehr++;
+        }
+        int tranche = trancheMarginale(resultat.getRevenuFiscalReference() / resultat.getNbParts());
+        nbFoyersParTranche[tranche]++;
+        revenuParTranche[tranche] += (long) resultat.getRevenuFiscalReference();
+    }
+
+    /**
+     * Tranche du quotient familial, comme dans le calcul de l'impôt par tranche ; un quotient nul relève de la première.
+     */
+    private int trancheMarginale(double quotient) {
+        int tranche = 0;
+        while (tranche + 1 < tranches.length && quotient > tranches[tranche + 1]) {
+            tranche++;
+        }
+        return tranche;
+    }
+
+    /**
+     * Ajoute les agrégats d'un autre accumulateur à celui-ci.
+     * @return Cet accumulateur
+     * @throws IllegalArgumentException si les deux accumulateurs ne portent pas sur le même barème
+     */
+    public AccumulateurPopulation fusionner(AccumulateurPopulation autre) {
+        if (autre.bareme != bareme) {
+            throw new IllegalArgumentException("Accumulateurs de barèmes différents");
+        }
+        for (int sf = 0; sf < SITUATIONS.length; sf++) {
+            nbFoyers[sf] += autre.nbFoyers[sf];
+            impotNet[sf] += autre.impotNet[sf];
+            esquisses[sf].fusionner(autre.esquisses[sf]);
+        }
+        decote += autre.decote;
+        nbFoyersDecote += autre.nbFoyersDecote;
+        contribExceptionnelle += autre.contribExceptionnelle;
+        nbFoyersCehr += autre.nbFoyersCehr;
+        for (int t = 0; t < tranches.length; t++) {
+            nbFoyersParTranche[t] += autre.nbFoyersParTranche[t];
+            revenuParTranche[t] += autre.revenuParTranche[t];
+        }
+        return this;
+    }
+
+    /**
+     * Collecteur qui calcule chaque foyer avec le barème courant du simulateur. En flux parallèle,
+     * chaque fil d'exécution remplit son accumulateur, fusionné avec les autres à la fin.
+     * @param simulateur Simulateur des calculs
+     * @return Collecteur de foyers vers leurs agrégats
+     * @throws IllegalArgumentException à la collecte, si un foyer est invalide
+     */
+    public static Collector<FoyerFiscal, AccumulateurPopulation, AccumulateurPopulation> collecteur(
+            Simulateur simulateur) {
+        Bareme bareme = simulateur.getRegistre().getBaremeCourant();
+        return Collector.of(() -> new AccumulateurPopulation(bareme),
+                (accumulateur, foyer) -> accumulateur.ajouter(foyer.getSituationFamiliale(),
+                        simulateur.calculer(foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                                foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                                foyer.isParentIsole())),
+                AccumulateurPopulation::fusionner,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Écrit les agrégats, précédés des bornes des tranches qui les répartissent, pour un point de reprise.
+     */
+    void ecrire(DataOutput sortie) throws IOException {
+        sortie.writeInt(tranches.length);
+        for (int borne : tranches) {
+            sortie.writeInt(borne);
+        }
+        for (int sf = 0; sf < SITUATIONS.length; sf++) {
+            sortie.writeLong(nbFoyers[sf]);
+            sortie.writeLong(impotNet[sf]);
+            esquisses[sf].ecrire(sortie);
+        }
+        sortie.writeLong(decote);
+        sortie.writeLong(nbFoyersDecote);
+        sortie.writeLong(contribExceptionnelle);
+        sortie.writeLong(nbFoyersCehr);
+        for (int t = 0; t < tranches.length; t++) {
+            sortie.writeLong(nbFoyersParTranche[t]);
+            sortie.writeLong(revenuParTranche[t]);
+        }
+    }
+
+    /**
+     * Relit des agrégats écrits par {@link #ecrire(DataOutput)}.
+     * @param bareme Barème de la suite du calcul
+     * @throws IOException si les agrégats ne portent pas sur les mêmes tranches que ce barème
+     */
+    static AccumulateurPopulation lire(DataInput entree, Bareme bareme) throws IOException {
+        AccumulateurPopulation lu = new AccumulateurPopulation(bareme);
+        int nbTranches = entree.readInt();
+        if (nbTranches != lu.tranches.length) {
+            throw new IOException("Agrégats d'un barème différent : " + nbTranches + " bornes de tranches au lieu de "
+                    + lu.tranches.length);
+        }
+        int[] bornes = new int[nbTranches];
+        for (int t = 0; t < nbTranches; t++) {
+            bornes[t] = entree.readInt();
+        }
+        if (!Arrays.equals(bornes, lu.tranches)) {
+            throw new IOException("Agrégats d'un barème différent : tranches " + Arrays.toString(bornes)
+                    + " au lieu de " + Arrays.toString(lu.tranches));
+        }
+        for (int sf = 0; sf < SITUATIONS.length; sf++) {
+            lu.nbFoyers[sf] = entree.readLong();
+            lu.impotNet[sf] = entree.readLong();
+            lu.esquisses[sf].lire(entree);
+        }
+        lu.decote = entree.readLong();
+        lu.nbFoyersDecote = entree.readLong();
+        lu.contribExceptionnelle = entree.readLong();
+        lu.nbFoyersCehr = entree.readLong();
+        for (int t = 0; t < lu.tranches.length; t++) {
+            lu.nbFoyersParTranche[t] = entree.readLong();
+            lu.revenuParTranche[t] = entree.readLong();
+        }
+        return lu;
+    }
+
+    public Bareme getBareme() { return bareme; }
+
+    public long getNbFoyers() {
+        long total = 0;
+        for (long nb : nbFoyers) {
+            total += nb;
+        }
+        return total;
+    }
+
+    public long getNbFoyers(SituationFamiliale sitFam) { return nbFoyers[sitFam.ordinal()]; }
+
+    /**
+     * @return Somme des impôts nets arrondis
+     */
+    public long getImpotNetTotal() {
+        long total = 0;
+        for (long impot : impotNet) {
+            total += impot;
+        }
+        return total;
+    }
+
+    public long getImpotNetTotal(SituationFamiliale sitFam) { return impotNet[sitFam.ordinal()]; }
+    public long getDecoteTotale() { return decote; }
+    public long getNbFoyersDecote() { return nbFoyersDecote; }
+    public long getContribExceptionnelleTotale() { return contribExceptionnelle; }
+    public long getNbFoyersCehr() { return nbFoyersCehr; }
+
+    /**
+     * @return Nombre de tranches du barème
+     */
+    public int getNbTranches() { return tranches.length; }
+
+    /**
+     * @param tranche Indice de la tranche marginale, de 0 à {@link #getNbTranches()} - 1
+     */
+    public long getNbFoyersParTranche(int tranche) { return nbFoyersParTranche[tranche]; }
+
+    /**
+     * @param tranche Indice de la tranche marginale, de 0 à {@link #getNbTranches()} - 1
+     * @return Somme des revenus fiscaux de référence des foyers de la tranche
+     */
+    public long getRevenuParTranche(int tranche) { return revenuParTranche[tranche]; }
+
+    /**
+     * @return Esquisse des impôts nets des foyers de cette situation familiale
+     */
+    public EsquisseQuantiles getEsquisse(SituationFamiliale sitFam) { return esquisses[sitFam.ordinal()]; }
+
+    /**
+     * Écrit les agrégats, une valeur par ligne au format {@code nom valeur}.
+     * @param sortie Tampon de sortie
+     */
+    public void ecrire(StringBuilder sortie) {
+        sortie.append("foyers ").append(getNbFoyers()).append('\n');
+        sortie.append("impotNet ").append(getImpotNetTotal()).append('\n');
+        sortie.append("decote ").append(decote).append(" (").append(nbFoyersDecote).append(" foyers)\n");
+        sortie.append("contribExceptionnelle ").append(contribExceptionnelle)
+                .append(" (").append(nbFoyersCehr).append(" foyers)\n");
+        for (int t = 0; t < tranches.length; t++) {
+            sortie.append("tranche.").append(t).append(".foyers ").append(nbFoyersParTranche[t]).append('\n');
+            sortie.append("tranche.").append(t).append(".revenu ").append(revenuParTranche[t]).append('\n');
+        }
+        for (SituationFamiliale sitFam : SITUATIONS) {
+            sortie.append(sitFam).append(".foyers ").append(getNbFoyers(sitFam)).append('\n');
+            sortie.append(sitFam).append(".impotNet ").append(getImpotNetTotal(sitFam)).append('\n');
+            double[] deciles = getEsquisse(sitFam).deciles();
+            sortie.append(sitFam).append(".deciles");
+            for (double decile : deciles) {
+                sortie.append(' ').append(decile);
+            }
+            sortie.append('\n');
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.ComparateurReforme;
+import com.kerware.simulateur.EcartImpot;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.util.stream.Collector;
+
+/**
+ * Gagnants et perdants d'une réforme sur une population, alimentés au fil d'une comparaison par
+ * {@link ComparateurReforme}. Comme {@link AccumulateurPopulation}, un bilan n'est pas partagé entre
+ * threads : chaque thread alimente le sien et les bilans sont fusionnés en fin de traitement.
+ */
+public final class BilanReforme {
+
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    private long nbFoyers;
+    private long impotReference;
+    private long impotVariante;
+    private long gains;
+    private long pertes;
+    private int ecartMin;
+    private int ecartMax;
+    private final long[] nbGagnants = new long[SITUATIONS.length];
+    private final long[] nbPerdants = new long[SITUATIONS.length];
+    private final EsquisseQuantiles esquisseGains = new EsquisseQuantiles();
+    private final EsquisseQuantiles esquissePertes = new EsquisseQuantiles();
+
+    /**
+     * @param sitFam Situation familiale du foyer
+     * @param ecart Impôts du foyer selon les deux barèmes
+     */
+    public void ajouter(SituationFamiliale sitFam, EcartImpot ecart) {
+        int delta = ecart.getEcart();
+        if (nbFoyers == 0) {
+            ecartMin = delta;
+            ecartMax = delta;
+        }
+        nbFoyers++;
+        impotReference += ecart.getImpotReference();
+        impotVariante += ecart.getImpotVariante();
+        ecartMin = Math.min(ecartMin, delta);
+        ecartMax = Math.max(ecartMax, delta);
+        if (delta < 0) {
+            nbGagnants[sitFam.ordinal()]++;
+            gains -= delta;
+            esquisseGains.ajouter(-delta);
+        } else if (delta > 0) {
+            nbPerdants[sitFam.ordinal()]++;
+            pertes += delta;
+            esquissePertes.ajouter(delta);
+        }
+    }
+
+    /**
+     * Ajoute un autre bilan à celui-ci.
+     * @return Ce bilan
+     */
+    public BilanReforme fusionner(BilanReforme autre) {
+        if (autre.nbFoyers == 0) {
+            return this;
+        }
+        ecartMin = nbFoyers == 0 ? autre.ecartMin : Math.min(ecartMin, autre.ecartMin);
+        ecartMax = nbFoyers == 0 ? autre.ecartMax : Math.max(ecartMax, autre.ecartMax);
+        nbFoyers += autre.nbFoyers;
+        impotReference += autre.impotReference;
+        impotVariante += autre.impotVariante;
+        gains += autre.gains;
+        pertes += autre.pertes;
+        for (int sf = 0; sf < SITUATIONS.length; sf++) {
+            nbGagnants[sf] += autre.nbGagnants[sf];
+            nbPerdants[sf] += autre.nbPerdants[sf];
+        }
+        esquisseGains.fusionner(autre.esquisseGains);
+        esquissePertes.fusionner(autre.esquissePertes);
+        return this;
+    }
+
+    /**
+     * Collecteur qui compare chaque foyer sous les deux barèmes.
+     * @throws IllegalArgumentException à la collecte, si un foyer est invalide
+     */
+    public static Collector<FoyerFiscal, BilanReforme, BilanReforme> collecteur(ComparateurReforme comparateur) {
+        return Collector.of(BilanReforme::new,
+                (bilan, foyer) -> bilan.ajouter(foyer.getSituationFamiliale(), comparer(comparateur, foyer)),
+                BilanReforme::fusionner,
+                Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    static EcartImpot comparer(ComparateurReforme comparateur, FoyerFiscal foyer) {
+        return comparateur.comparer(foyer.getRevenuNet1(), foyer.getRevenuNet2(), foyer.getSituationFamiliale(),
+                foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(), foyer.isParentIsole());
+    }
+
+    public long getNbFoyers() { return nbFoyers; }
+    public long getImpotReferenceTotal() { return impotReference; }
+    public long getImpotVarianteTotal() { return impotVariante; }
+
+    /**
+     * @return Variation du produit de l'impôt, positive si la réforme rapporte davantage
+     */
+    public long getVariationTotale() { return impotVariante - impotReference; }
+
+    public long getGainsTotaux() { return gains; }
+    public long getPertesTotales() { return pertes; }
+    public int getEcartMin() { return ecartMin; }
+    public int getEcartMax() { return ecartMax; }
+
+    public long getNbGagnants() {
+        long total = 0;
+        for (long nb : nbGagnants) {
+            total += nb;
+        }
+        return total;
+    }
+
+    public long getNbPerdants() {
+        long total = 0;
+        for (long nb : nbPerdants) {
+            total += nb;
+        }
+        return total;
+    }
+
+    public long getNbInchanges() { return nbFoyers - getNbGagnants() - getNbPerdants(); }
+    public long getNbGagnants(SituationFamiliale sitFam) { return nbGagnants[sitFam.ordinal()]; }
+    public long getNbPerdants(SituationFamiliale sitFam) { return nbPerdants[sitFam.ordinal()]; }
+
+    /**
+     * @return Esquisse des baisses d'impôt des foyers gagnants, en valeur absolue
+     */
+    public EsquisseQuantiles getEsquisseGains() { return esquisseGains; }
+
+    /**
+     * @return Esquisse des hausses d'impôt des foyers perdants
+     */
+    public EsquisseQuantiles getEsquissePertes() { return esquissePertes; }
+
+    /**
+     * Écrit le bilan, une valeur par ligne au format {@code nom valeur}.
+     * @param sortie Tampon de sortie
+     */
+    public void ecrire(StringBuilder sortie) {
+        sortie.append("foyers ").append(nbFoyers).append('\n');
+        sortie.append("impotReference ").append(impotReference).append('\n');
+        sortie.append("impotVariante ").append(impotVariante).append('\n');
+        sortie.append("gagnants ").append(getNbGagnants()).append(" (gains ").append(gains).append(")\n");
+        sortie.append("perdants ").append(getNbPerdants()).append(" (pertes ").append(pertes).append(")\n");
+        sortie.append("inchanges ").append(getNbInchanges()).append('\n');
+        sortie.append("ecart.min ").append(ecartMin).append('\n');
+        sortie.append("ecart.max ").append(ecartMax).append('\n');
+        sortie.append("gain.median ").append(esquisseGains.quantile(0.5)).append('\n');
+        sortie.append("perte.mediane ").append(esquissePertes.quantile(0.5)).append('\n');
+        for (SituationFamiliale sitFam : SITUATIONS) {
+            sortie.append(sitFam).append(".gagnants ").append(getNbGagnants(sitFam)).append('\n');
+            sortie.append(sitFam).append(".perdants ").append(getNbPerdants(sitFam)).append('\n');
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.Bareme;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Calcul réparti d'un fichier de foyers entre plusieurs processus {@link TravailleurLot}, sur la machine
+ * locale ou sur d'autres machines joignables en TCP.
+ * <p>
+ * Le fichier est lu en flux et découpé en lots de lignes, envoyés aux travailleurs à mesure qu'ils se
+ * libèrent, un lot à la fois par travailleur. Les résultats sont écrits dans l'ordre du fichier, les rejets
+ * reportés dans le rapport et les agrégats des lots fusionnés. Si un travailleur meurt ou ne répond pas dans
+ * le délai, sa connexion est abandonnée et son lot est confié à un autre travailleur ; le calcul échoue
+ * seulement si tous les travailleurs sont perdus. Le nombre de lots lus et non écrits est borné, la mémoire
+ * du coordinateur ne dépend donc pas de la taille du fichier.
+ * <p>
+ * La définition du barème est envoyée à chaque travailleur à la connexion : les travailleurs calculent avec
+ * le barème du coordinateur, quel que soit celui de leur propre simulateur.
+ */
+public final class CoordinateurLot {
+
+    /** Nombre de lignes par lot par défaut. */
+    public static final int LIGNES_PAR_LOT_DEFAUT = 50_000;
+
+    /** Délai de réponse d'un travailleur par défaut, en millisecondes. */
+    public static final int DELAI_REPONSE_DEFAUT = 60_000;
+
+    private static final int LOTS_EN_ATTENTE_PAR_TRAVAILLEUR = 2;
+
+    private final List<InetSocketAddress> travailleurs;
+    private final Bareme bareme;
+    private final byte[] definition;
+    private final int lignesParLot;
+    private final int delaiReponse;
+
+    /**
+     * @param travailleurs Adresses des travailleurs
+     * @param bareme Barème envoyé aux travailleurs, celui des agrégats fusionnés
+     */
+    public CoordinateurLot(List<InetSocketAddress> travailleurs, Bareme bareme) {
+        this(travailleurs, bareme, LIGNES_PAR_LOT_DEFAUT, DELAI_REPONSE_DEFAUT);
+    }
+
+    /**
+     * @param travailleurs Adresses des travailleurs
+     * @param bareme Barème envoyé aux travailleurs, celui des agrégats fusionnés
+     * @param lignesParLot Nombre de lignes envoyées à un travailleur à la fois
+     * @param delaiReponse Délai de réponse au-delà duquel un travailleur est abandonné, en millisecondes
+     */
+    public CoordinateurLot(List<InetSocketAddress> travailleurs, Bareme bareme, int lignesParLot, int delaiReponse) {
+        if (travailleurs.isEmpty() || lignesParLot < 1 || delaiReponse < 1) {
+            throw new IllegalArgumentException("Il faut au moins un travailleur, et un lot et un délai positifs");
+        }
+        this.travailleurs = List.copyOf(travailleurs);
+        this.bareme = bareme;
+        this.definition = bareme.definition().getBytes(StandardCharsets.UTF_8);
+        this.lignesParLot = lignesParLot;
+        this.delaiReponse = delaiReponse;
+    }
+
+    /**
+     * Calcule un fichier de foyers au format de datasImposition.csv.
+     * @param entree Fichier des foyers ; la ligne d'en-tête éventuelle est ignorée
+     * @param sortie Fichier de résultats, au format {@link MoteurLot#ENTETE_SORTIE}
+     * @param rapport Rapport des lignes rejetées
+     * @return Agrégats de la population
+     * @throws IOException en cas d'erreur de lecture ou d'écriture, ou si tous les travailleurs sont perdus
+     */
+    public AccumulateurPopulation traiter(Path entree, Path sortie, RapportRejets rapport) throws IOException {
+        try (InputStream lecture = Files.newInputStream(entree);
+             OutputStream ecriture = new BufferedOutputStream(Files.newOutputStream(sortie), 1 << 16)) {
+            ecriture.write((MoteurLot.ENTETE_SORTIE + '\n').getBytes(StandardCharsets.UTF_8));
+            Execution execution = new Execution(new LecteurLignes(lecture, 0), ecriture, rapport);
+            List<Thread> pilotes = new ArrayList<>();
+            for (InetSocketAddress adresse : travailleurs) {
+                Thread pilote = new Thread(() -> execution.piloter(adresse), "coordinateur-" + adresse);
+                pilote.start();
+                pilotes.add(pilote);
+            }
+            for (Thread pilote : pilotes) {
+                try {
+                    pilote.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Calcul réparti interrompu", e);
+                }
+            }
+            return execution.terminer();
+        }
+    }
+
+    /**
+     * Lots de lignes envoyés à un travailleur.
+     */
+    private static final class Lot {
+        final int id;
+        final long premiereLigne;
+        final byte[] lignes;
+
+        Lot(int id, long premiereLigne, byte[] lignes) {
+            this.id = id;
+            this.premiereLigne = premiereLigne;
+            this.lignes = lignes;
+        }
+    }
+
+    /**
+     * Réponse d'un travailleur à un lot.
+     */
+    private static final class Reponse {
+        final long[] lignesRejetees;
+        final byte[] codes;
+        final byte[] resultats;
+        final AccumulateurPopulation accumulateur;
+
+        Reponse(long[] lignesRejetees, byte[] codes, byte[] resultats, AccumulateurPopulation accumulateur) {
+            this.lignesRejetees = lignesRejetees;
+            this.codes = codes;
+            this.resultats = resultats;
+            this.accumulateur = accumulateur;
+        }
+    }
+
+    /**
+     * État d'un calcul : lecture des lots, lots à réattribuer, réponses en attente d'écriture.
+     * Les méthodes sont appelées par les threads pilotes, un par travailleur.
+     */
+    private final class Execution {
+
+        private final LecteurLignes lecteur;
+        private final OutputStream ecriture;
+        private final RapportRejets rapport;
+        private final AccumulateurPopulation total = new AccumulateurPopulation(bareme);
+        private final Deque<Lot> aReattribuer = new ArrayDeque<>();
+        private final Map<Integer, Reponse> enAttente = new HashMap<>();
+        private long numeroLigne;
+        private int nbLus;
+        private int nbEcrits;
+        private boolean finEntree;
+        private IOException erreur;
+
+        Execution(LecteurLignes lecteur, OutputStream ecriture, RapportRejets rapport) {
+            this.lecteur = lecteur;
+            this.ecriture = ecriture;
+            this.rapport = rapport;
+        }
+
+        /**
+         * Envoie des lots à un travailleur jusqu'à la fin du fichier ou la perte du travailleur.
+         */
+        void piloter(InetSocketAddress adresse) {
+            Lot lot = null;
+            try (Socket connexion = new Socket()) {
+                connexion.connect(adresse, delaiReponse);
+                connexion.setSoTimeout(delaiReponse);
+                DataOutputStream envoi = new DataOutputStream(new BufferedOutputStream(connexion.getOutputStream()));
+                DataInputStream reception = new DataInputStream(new BufferedInputStream(connexion.getInputStream()));
+                envoi.writeInt(TravailleurLot.BAREME);
+                envoi.writeInt(definition.length);
+                envoi.write(definition);
+                while ((lot = prendre()) != null) {
+                    envoi.writeInt(TravailleurLot.LOT);
+                    envoi.writeInt(lot.id);
+                    envoi.writeLong(lot.premiereLigne);
+                    envoi.writeInt(lot.lignes.length);
+                    envoi.write(lot.lignes);
+                    envoi.flush();
+                    if (reception.readInt() != lot.id) {
+                        throw new IOException("Réponse d'un autre lot");
+                    }
+                    Reponse reponse = lire(reception);
+                    rendre(lot, reponse);
+                    lot = null;
+                }
+                envoi.writeInt(TravailleurLot.FIN);
+                envoi.flush();
+            } catch (IOException e) {
+                // Travailleur perdu : son lot est confié à un autre
+            } finally {
+                abandonner(lot);
+            }
+        }
+
+        private Reponse lire(DataInputStream reception) throws IOException {
+            int nbRejets = reception.readInt();
+            if (nbRejets < 0 || nbRejets > lignesParLot) {
+                throw new IOException("Nombre de rejets invalide : " + nbRejets);
+            }
+            long[] lignesRejetees = new long[nbRejets];
+            byte[] codes = new byte[nbRejets];
+            for (int i = 0; i < nbRejets; i++) {
+                lignesRejetees[i] = reception.readLong();
+                codes[i] = reception.readByte();
+            }
+            byte[] resultats = TravailleurLot.lireOctets(reception);
+            return new Reponse(lignesRejetees, codes, resultats, AccumulateurPopulation.lire(reception, bareme));
+        }
+
+        /**
+         * @return Lot à réattribuer en priorité, sinon lot suivant du fichier ; null quand tout est écrit
+         */
+        synchronized Lot prendre() throws IOException {
+            while (true) {
+                if (erreur != null) {
+                    return null;
+                }
+                if (!aReattribuer.isEmpty()) {
+                    return aReattribuer.poll();
+                }
+                if (finEntree && nbEcrits == nbLus) {
+                    return null;
+                }
+                if (!finEntree && enAttente.size() < LOTS_EN_ATTENTE_PAR_TRAVAILLEUR * travailleurs.size()) {
+                    Lot lot = lireLot();
+                    if (lot != null) {
+                        return lot;
+                    }
+                    continue;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Calcul réparti interrompu", e);
+                }
+            }
+        }
+
+        private Lot lireLot() {
+            ByteArrayOutputStream lignes = new ByteArrayOutputStream();
+            long premiereLigne = numeroLigne + 1;
+            int nbLignes = 0;
+            try {
+                String ligne;
+                while (nbLignes < lignesParLot && (ligne = lecteur.lireLigne()) != null) {
+                    numeroLigne++;
+                    if (numeroLigne == 1 && MoteurLot.estEntete(ligne)) {
+                        premiereLigne = 2;
+                        continue;
+                    }
+                    lignes.write(ligne.getBytes(StandardCharsets.UTF_8));
+                    lignes.write('\n');
+                    nbLignes++;
+                }
+            } catch (IOException e) {
+                echouer(e);
+                return null;
+            }
+            if (nbLignes < lignesParLot) {
+                finEntree = true;
+                notifyAll();
+            }
+            if (nbLignes == 0) {
+                return null;
+            }
+            return new Lot(nbLus++, premiereLigne, lignes.toByteArray());
+        }
+
+        /**
+         * Range la réponse d'un lot et écrit les réponses devenues consécutives.
+         */
+        synchronized void rendre(Lot lot, Reponse reponse) {
+            enAttente.put(lot.id, reponse);
+            try {
+                Reponse suivante;
+                while ((suivante = enAttente.remove(nbEcrits)) != null) {
+                    ecriture.write(suivante.resultats);
+                    for (int i = 0; i < suivante.codes.length; i++) {
+                        rapport.rejeter(suivante.lignesRejetees[i], suivante.codes[i]);
+                    }
+                    total.fusionner(suivante.accumulateur);
+                    nbEcrits++;
+                }
+            } catch (IOException e) {
+                echouer(e);
+            }
+            notifyAll();
+        }
+
+        /**
+         * Fin d'un pilote : son lot éventuel est remis en tête des lots à attribuer.
+         */
+        synchronized void abandonner(Lot lot) {
+            if (lot != null) {
+                aReattribuer.addFirst(lot);
+            }
+            notifyAll();
+        }
+
+        private void echouer(IOException e) {
+            if (erreur == null) {
+                erreur = e;
+            }
+            notifyAll();
+        }
+
+        synchronized AccumulateurPopulation terminer() throws IOException {
+            if (erreur != null) {
+                throw erreur;
+            }
+            if (!finEntree || nbEcrits != nbLus) {
+                throw new IOException("Tous les travailleurs ont été perdus : " + (nbLus - nbEcrits)
+                        + " lots non calculés");
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Lance des processus travailleurs sur la machine locale, avec le même chemin de classes que cette JVM.
+     * Les processus sont à arrêter par l'appelant.
+     * @param nombre Nombre de processus
+     * @param processus Liste complétée par les processus lancés
+     * @return Adresses des travailleurs lancés
+     * @throws IOException si un processus ne peut pas être lancé ou n'annonce pas son port
+     */
+    public static List<InetSocketAddress> lancerTravailleurs(int nombre, List<Process> processus) throws IOException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<InetSocketAddress> adresses = new ArrayList<>();
+        for (int i = 0; i < nombre; i++) {
+            Process travailleur = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    TravailleurLot.class.getName(), "0").redirectError(ProcessBuilder.Redirect.INHERIT).start();
+            processus.add(travailleur);
+            BufferedReader annonce = new BufferedReader(new InputStreamReader(travailleur.getInputStream(),
+                    StandardCharsets.UTF_8));
+            String ligne = annonce.readLine();
+            if (ligne == null || !ligne.startsWith("PORT ")) {
+                throw new IOException("Le travailleur n'a pas annoncé son port : " + ligne);
+            }
+            adresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(ligne.substring("PORT ".length()))));
+        }
+        return adresses;
+    }
+}
@@ -0,0 +1,132 @@
+package com.kerware.simulateur.lot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Esquisse de quantiles à mémoire bornée pour des montants entiers positifs, fusionnable.
+ * <p>
+ * Même découpage que {@link com.kerware.simulateur.HistogrammeLatences} : chaque puissance de deux
+ * est partagée en {@value #SOUS_INTERVALLES} intervalles égaux, et un quantile est restitué par le
+ * milieu de son intervalle, à 1/{@value #DEUX_SOUS_INTERVALLES} près en valeur relative. Les montants
+ * inférieurs à {@value #SOUS_INTERVALLES} sont exacts. La taille ne dépend pas du nombre de valeurs,
+ * et deux esquisses se fusionnent par somme des compteurs. Une esquisse n'est pas partagée entre threads.
+ */
+public final class EsquisseQuantiles {
+
+    private static final int BITS_SOUS_INTERVALLES = 6;
+    private static final int SOUS_INTERVALLES = 1 << BITS_SOUS_INTERVALLES;
+    private static final int DEUX_SOUS_INTERVALLES = 2 * SOUS_INTERVALLES;
+    private static final int NB_PUISSANCES = Integer.SIZE - 1 - BITS_SOUS_INTERVALLES;
+
+    private final long[] compteurs = new long[(NB_PUISSANCES + 1) * SOUS_INTERVALLES];
+    private long nombre;
+
+    /**
+     * @param montant Montant à ajouter ; un montant négatif est compté comme nul
+     */
+    public void ajouter(int montant) {
+        compteurs[indice(Math.max(0, montant))]++;
+        nombre++;
+    }
+
+    /**
+     * Ajoute les valeurs d'une autre esquisse à celle-ci.
+     */
+    public void fusionner(EsquisseQuantiles autre) {
+        for (int i = 0; i < compteurs.length; i++) {
+            compteurs[i] += autre.compteurs[i];
+        }
+        nombre += autre.nombre;
+    }
+
+    public long getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @param q Quantile entre 0 et 1, par exemple 0.9 pour le neuvième décile
+     * @return Estimation du quantile, 0 sans valeur
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile hors de [0, 1] : " + q);
+        }
+        if (nombre == 0) {
+            return 0;
+        }
+        long rang = Math.max(1, (long) Math.ceil(q * nombre));
+        long cumul = 0;
+        for (int i = 0; i < compteurs.length; i++) {
+            cumul += compteurs[i];
+            if (cumul >= rang) {
+                return milieu(i);
+            }
+        }
+        return milieu(compteurs.length - 1);
+    }
+
+    /**
+     * @return Les neuf déciles, du premier au neuvième
+     */
+    public double[] deciles() {
+        double[] deciles = new double[9];
+        for (int d = 1; d <= deciles.length; d++) {
+            deciles[d - 1] = quantile(d / 10.0);
+        }
+        return deciles;
+    }
+
+    /**
+     * Écrit les compteurs non nuls, pour un point de reprise.
+     */
+    void ecrire(DataOutput sortie) throws IOException {
+        int nonNuls = 0;
+        for (long compteur : compteurs) {
+            nonNuls += compteur != 0 ? 1 : 0;
+        }
+        sortie.writeInt(nonNuls);
+        for (int i = 0; i < compteurs.length; i++) {
+            if (compteurs[i] != 0) {
+                sortie.writeShort(i);
+                sortie.writeLong(compteurs[i]);
+            }
+        }
+    }
+
+    /**
+     * Ajoute à cette esquisse les compteurs écrits par {@link #ecrire(DataOutput)}.
+     */
+    void lire(DataInput entree) throws IOException {
+        int nonNuls = entree.readInt();
+        for (int n = 0; n < nonNuls; n++) {
+            int i = entree.readUnsignedShort();
+            if (i >= compteurs.length) {
+                throw new IOException("Esquisse de quantiles invalide");
+            }
+            long compteur = entree.readLong();
+            compteurs[i] += compteur;
+            nombre += compteur;
+        }
+    }
+
+    static int indice(int valeur) {
+        if (valeur < SOUS_INTERVALLES) {
+            return valeur;
+        }
+        int puissance = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(valeur);
+        int decalage = puissance - BITS_SOUS_INTERVALLES;
+        int sousIntervalle = (valeur >>> decalage) & (SOUS_INTERVALLES - 1);
+        return (decalage + 1) * SOUS_INTERVALLES + sousIntervalle;
+    }
+
+    static double milieu(int indice) {
+        if (indice < SOUS_INTERVALLES) {
+            return indice;
+        }
+        int decalage = indice / SOUS_INTERVALLES - 1;
+        long debut = ((long) (SOUS_INTERVALLES + indice % SOUS_INTERVALLES)) << decalage;
+        return debut + ((1L << decalage) - 1) / 2.0;
+    }
+}
@@ -0,0 +1,142 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateurReusine.ColonnesFoyers;
+import com.kerware.simulateurReusine.NoyauColonnes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calcule tous les points d'une {@link GrilleScenarios} et range les résultats dans un {@link FichierGrille}.
+ * <p>
+ * Les points sont partagés récursivement en deux jusqu'à des zones d'au plus {@value #POINTS_PAR_ZONE}
+ * points, réparties entre les threads par vol de tâches. Chaque zone est générée dans des colonnes
+ * ({@link ColonnesFoyers}), calculée par un {@link NoyauColonnes} et écrite directement à sa place dans
+ * chaque colonne du fichier. Les tampons sont réutilisés d'une zone à l'autre : la mémoire occupée
+ * dépend du nombre de threads, pas de la taille de la grille.
+ */
+public final class ExplorateurGrille {
+
+    static final int POINTS_PAR_ZONE = 1 << 16;
+
+    private final NoyauColonnes noyau;
+    private final ForkJoinPool pool;
+    private final Queue<Tampons> tampons = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Explorateur sur le pool commun, avec le noyau le plus rapide disponible.
+     * @param bareme Barème appliqué
+     */
+    public ExplorateurGrille(Bareme bareme) {
+        this(NoyauColonnes.pour(bareme), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param noyau Noyau de calcul, partagé entre les threads
+     * @param pool Pool d'exécution des zones
+     */
+    public ExplorateurGrille(NoyauColonnes noyau, ForkJoinPool pool) {
+        this.noyau = noyau;
+        this.pool = pool;
+    }
+
+    /**
+     * Calcule la grille et écrit le fichier de résultats.
+     * @param grille Grille de scénarios
+     * @param fichier Fichier créé ou remplacé
+     * @return Nombre de points calculés
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public long explorer(GrilleScenarios grille, Path fichier) throws IOException {
+        try (FichierGrille sortie = FichierGrille.creer(fichier, grille)) {
+            pool.invoke(new Zone(noyau, tampons, grille, sortie, 0, grille.getNbPoints()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return grille.getNbPoints();
+    }
+
+    /**
+     * Tranche de points {@code [debut, fin[}, partagée en deux tant qu'elle dépasse {@value #POINTS_PAR_ZONE} points.
+     */
+    private static final class Zone extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final NoyauColonnes noyau;
+        private final Queue<Tampons> tampons;
+        private final GrilleScenarios grille;
+        private final FichierGrille sortie;
+        private final long debut;
+        private final long fin;
+
+        Zone(NoyauColonnes noyau, Queue<Tampons> tampons, GrilleScenarios grille, FichierGrille sortie,
+             long debut, long fin) {
+            this.noyau = noyau;
+            this.tampons = tampons;
+            this.grille = grille;
+            this.sortie = sortie;
+            this.debut = debut;
+            this.fin = fin;
+        }
+
+        @Override
+        protected void compute() {
+            if (fin - debut <= POINTS_PAR_ZONE) {
+                calculer();
+                return;
+            }
+            long milieu = debut + (fin - debut) / 2;
+            invokeAll(new Zone(noyau, tampons, grille, sortie, debut, milieu),
+                    new Zone(noyau, tampons, grille, sortie, milieu, fin));
+        }
+
+        private void calculer() {
+            Tampons t = tampons.poll();
+            if (t == null) {
+                t = new Tampons();
+            }
+            int nombre = (int) (fin - debut);
+            ColonnesFoyers foyers = t.foyers;
+            grille.remplir(debut, foyers.getRevenus1(), foyers.getRevenus2(), foyers.getProfils(), nombre);
+            foyers.setTaille(nombre);
+            noyau.calculer(foyers);
+            try {
+                ecrire(0, foyers.getRevenuFiscalReference(), t.octets, nombre);
+                ecrire(1, foyers.getImpotAvantDecote(), t.octets, nombre);
+                ecrire(2, foyers.getDecote(), t.octets, nombre);
+                ecrire(3, foyers.getContribExceptionnelle(), t.octets, nombre);
+                t.octets.clear().asIntBuffer().put(foyers.getImpotNet(), 0, nombre);
+                sortie.ecrire(4, debut, t.octets.limit(4 * nombre));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            tampons.add(t);
+        }
+
+        private void ecrire(int colonne, double[] montants, ByteBuffer octets, int nombre) throws IOException {
+            octets.clear();
+            for (int i = 0; i < nombre; i++) {
+                // Montants entiers : tous les montants intermédiaires du simulateur sont arrondis
+                octets.putInt(4 * i, (int) montants[i]);
+            }
+            sortie.ecrire(colonne, debut, octets.limit(4 * nombre));
+        }
+    }
+
+    /**
+     * Colonnes d'une zone et tampon d'écriture, repris par une zone suivante une fois la zone écrite.
+     */
+    private static final class Tampons {
+        final ColonnesFoyers foyers = new ColonnesFoyers(POINTS_PAR_ZONE);
+        final ByteBuffer octets = ByteBuffer.allocateDirect(4 * POINTS_PAR_ZONE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
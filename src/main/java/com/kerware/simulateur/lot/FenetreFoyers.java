@@ -0,0 +1,142 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Zone projetée d'un {@link FichierFoyers}, lue et écrite champ par champ à l'indice du foyer,
+ * sans objet intermédiaire. Une fenêtre n'est pas partagée entre threads ; des fenêtres disjointes
+ * d'un même fichier peuvent être traitées en parallèle.
+ */
+public final class FenetreFoyers {
+
+    static final int REVENU_NET_2 = 4;
+    static final int PROFIL = 8;
+    static final int ETAT = 10;
+    static final int DEMI_PARTS = 11;
+    static final int ABATTEMENT = 12;
+    static final int REVENU_FISCAL_REFERENCE = 16;
+    static final int IMPOT_AVANT_DECOTE = 24;
+    static final int DECOTE = 28;
+    static final int CONTRIB_EXCEPTIONNELLE = 32;
+    static final int IMPOT_NET = 36;
+
+    private static final int DECALAGE_SITUATION = 7;
+    private static final int DECALAGE_ENFANTS = 4;
+    private static final SituationFamiliale[] SITUATIONS = SituationFamiliale.values();
+
+    private final ByteBuffer zone;
+    private final long premier;
+    private final int nbFoyers;
+
+    FenetreFoyers(ByteBuffer zone, long premier, int nbFoyers) {
+        this.zone = zone;
+        this.premier = premier;
+        this.nbFoyers = nbFoyers;
+    }
+
+    static short coderProfil(SituationFamiliale sitFam, int nbEnfants, int nbEnfantsHandicap, boolean parentIsole) {
+        return (short) (sitFam.ordinal() << DECALAGE_SITUATION | nbEnfants << DECALAGE_ENFANTS
+                | nbEnfantsHandicap << 1 | (parentIsole ? 1 : 0));
+    }
+
+    /**
+     * @return Indice dans le fichier du premier foyer de la fenêtre
+     */
+    public long getPremier() { return premier; }
+    public int getNbFoyers() { return nbFoyers; }
+
+    // Accès par indice dans la fenêtre, de 0 à getNbFoyers() - 1
+
+    private int debut(int i) {
+        return i * FichierFoyers.TAILLE_ENREGISTREMENT;
+    }
+
+    public int getRevenuNet1(int i) { return zone.getInt(debut(i)); }
+    public int getRevenuNet2(int i) { return zone.getInt(debut(i) + REVENU_NET_2); }
+    public short getProfil(int i) { return zone.getShort(debut(i) + PROFIL); }
+    public SituationFamiliale getSituationFamiliale(int i) { return SITUATIONS[getProfil(i) >> DECALAGE_SITUATION]; }
+    public int getNbEnfants(int i) { return getProfil(i) >> DECALAGE_ENFANTS & 7; }
+    public int getNbEnfantsHandicap(int i) { return getProfil(i) >> 1 & 7; }
+    public boolean isParentIsole(int i) { return (getProfil(i) & 1) != 0; }
+    public byte getEtat(int i) { return zone.get(debut(i) + ETAT); }
+    public double getNbParts(int i) { return zone.get(debut(i) + DEMI_PARTS) / 2.0; }
+    public int getAbattement(int i) { return zone.getInt(debut(i) + ABATTEMENT); }
+    public long getRevenuFiscalReference(int i) { return zone.getLong(debut(i) + REVENU_FISCAL_REFERENCE); }
+    public int getImpotAvantDecote(int i) { return zone.getInt(debut(i) + IMPOT_AVANT_DECOTE); }
+    public int getDecote(int i) { return zone.getInt(debut(i) + DECOTE); }
+    public int getContribExceptionnelle(int i) { return zone.getInt(debut(i) + CONTRIB_EXCEPTIONNELLE); }
+    public int getImpotNet(int i) { return zone.getInt(debut(i) + IMPOT_NET); }
+
+    /**
+     * Renseigne les colonnes de résultat d'un foyer et le marque calculé.
+     * @throws IllegalArgumentException si un montant n'est pas un nombre entier d'euros
+     */
+    public void ecrireResultat(int i, ResultatImpot resultat) {
+        int d = debut(i);
+        zone.put(d + DEMI_PARTS, (byte) (resultat.getNbParts() * 2));
+        zone.putInt(d + ABATTEMENT, entier(resultat.getAbattement()));
+        zone.putLong(d + REVENU_FISCAL_REFERENCE, (long) resultat.getRevenuFiscalReference());
+        zone.putInt(d + IMPOT_AVANT_DECOTE, entier(resultat.getImpotAvantDecote()));
+        zone.putInt(d + DECOTE, entier(resultat.getDecote()));
+        zone.putInt(d + CONTRIB_EXCEPTIONNELLE, entier(resultat.getContribExceptionnelle()));
+        zone.putInt(d + IMPOT_NET, resultat.getImpotNetArrondi());
+        zone.put(d + ETAT, FichierFoyers.ETAT_CALCULE);
+    }
+
+    /**
+     * Marque un foyer refusé par le contrôle des paramètres ; ses colonnes de résultat sont remises à zéro.
+     */
+    public void ecrireRejet(int i) {
+        int d = debut(i);
+        zone.put(d + DEMI_PARTS, (byte) 0);
+        for (int champ = ABATTEMENT; champ < FichierFoyers.TAILLE_ENREGISTREMENT; champ += Integer.BYTES) {
+            zone.putInt(d + champ, 0);
+        }
+        zone.put(d + ETAT, FichierFoyers.ETAT_REJETE);
+    }
+
+    private static int entier(double montant) {
+        int entier = (int) montant;
+        if (entier != montant) {
+            throw new IllegalArgumentException("Montant non entier : " + montant);
+        }
+        return entier;
+    }
+
+    /**
+     * Écrit un foyer au format CSV de {@link MoteurLot#ENTETE_SORTIE}, sans fin de ligne.
+     * Les colonnes de résultat restent vides si le foyer n'est pas calculé.
+     */
+    void ecrireCsv(int i, StringBuilder sortie) {
+        sortie.append(getRevenuNet1(i)).append(',')
+                .append(getRevenuNet2(i)).append(',')
+                .append(getSituationFamiliale(i)).append(',')
+                .append(getNbEnfants(i)).append(',')
+                .append(getNbEnfantsHandicap(i)).append(',')
+                .append(isParentIsole(i));
+        if (getEtat(i) != FichierFoyers.ETAT_CALCULE) {
+            sortie.append(",,,,,,,");
+            return;
+        }
+        sortie.append(',').append(getRevenuFiscalReference(i))
+                .append(',').append(getAbattement(i))
+                .append(',').append(getNbParts(i))
+                .append(',').append(getImpotAvantDecote(i))
+                .append(',').append(getDecote(i))
+                .append(',').append(getContribExceptionnelle(i))
+                .append(',').append(getImpotNet(i));
+    }
+
+    /**
+     * Force l'écriture sur disque des modifications de la fenêtre.
+     */
+    public void forcer() {
+        if (zone instanceof MappedByteBuffer projection && !projection.isReadOnly()) {
+            projection.force();
+        }
+    }
+}
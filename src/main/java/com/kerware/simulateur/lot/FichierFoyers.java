@@ -0,0 +1,262 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.MotifRejet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Fichier binaire de foyers à enregistrements de taille fixe, lu et écrit par projection mémoire.
+ * <p>
+ * Le fichier commence par un en-tête de {@value #TAILLE_ENTETE} octets (signature, version, taille
+ * d'enregistrement, nombre d'enregistrements), suivi d'un enregistrement de
+ * {@value #TAILLE_ENREGISTREMENT} octets par foyer, en petit-boutiste :
+ * <pre>
+ *  0 int   revenuNet1               16 long revenuFiscalReference
+ *  4 int   revenuNet2               24 int  impotAvantDecote
+ *  8 short profil                   28 int  decote
+ * 10 byte  état                     32 int  contribExceptionnelle
+ * 11 byte  nombre de demi-parts     36 int  impotNet
+ * 12 int   abattement
+ * </pre>
+ * Les montants sont des euros entiers : tous les montants intermédiaires du simulateur sont arrondis.
+ * Le profil est codé comme dans {@code ColonnesFoyers} : {@code situation << 7 | enfants << 4
+ * | handicapés << 1 | isolé}. Les enregistrements étant de taille fixe, un fichier se découpe en
+ * zones disjointes ({@link #fenetre(long, int)}, {@link #fenetreOctets(long, long)}) traitées en parallèle
+ * sans coordination.
+ */
+public final class FichierFoyers implements AutoCloseable {
+
+    public static final int TAILLE_ENTETE = 16;
+    public static final int TAILLE_ENREGISTREMENT = 40;
+
+    /** Enregistrement dont seules les colonnes d'entrée sont renseignées. */
+    public static final byte ETAT_A_CALCULER = 0;
+    /** Enregistrement dont les colonnes de résultat sont renseignées. */
+    public static final byte ETAT_CALCULE = 1;
+    /** Enregistrement refusé par le contrôle des paramètres d'entrée. */
+    public static final byte ETAT_REJETE = 2;
+
+    static final int SIGNATURE = 0x494D5042; // "IMPB"
+    static final short VERSION = 1;
+
+    private static final int FOYERS_PAR_ECRITURE = 8192;
+
+    private final FileChannel canal;
+    private final long nbFoyers;
+    private final boolean ecriture;
+
+    private FichierFoyers(FileChannel canal, boolean ecriture) throws IOException {
+        this.canal = canal;
+        this.ecriture = ecriture;
+        ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE).order(ByteOrder.LITTLE_ENDIAN);
+        int lus;
+        do {
+            lus = canal.read(entete, entete.position());
+        } while (lus >= 0 && entete.hasRemaining());
+        if (entete.hasRemaining() || entete.getInt(0) != SIGNATURE) {
+            throw new IOException("Fichier de foyers binaire invalide");
+        }
+        if (entete.getShort(4) != VERSION || entete.getShort(6) != TAILLE_ENREGISTREMENT) {
+            throw new IOException("Version de fichier de foyers non prise en charge : " + entete.getShort(4));
+        }
+        this.nbFoyers = entete.getLong(8);
+        if (canal.size() < TAILLE_ENTETE + nbFoyers * TAILLE_ENREGISTREMENT) {
+            throw new IOException("Fichier de foyers tronqué : " + nbFoyers + " enregistrements annoncés");
+        }
+    }
+
+    /**
+     * Ouvre un fichier existant.
+     * @param fichier Chemin du fichier
+     * @param ecriture Vrai pour pouvoir écrire les colonnes de résultat
+     * @return Fichier ouvert, à fermer
+     * @throws IOException si le fichier est illisible ou n'est pas un fichier de foyers
+     */
+    public static FichierFoyers ouvrir(Path fichier, boolean ecriture) throws IOException {
+        FileChannel canal = ecriture
+                ? FileChannel.open(fichier, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(fichier, StandardOpenOption.READ);
+        try {
+            return new FichierFoyers(canal, ecriture);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public long getNbFoyers() {
+        return nbFoyers;
+    }
+
+    /**
+     * Projette en mémoire une zone d'enregistrements consécutifs.
+     * @param premier Indice du premier foyer
+     * @param nombre Nombre de foyers, au plus {@code Integer.MAX_VALUE / TAILLE_ENREGISTREMENT}
+     * @return Fenêtre sur la zone ; les écritures vont directement dans le fichier
+     * @throws IOException si la projection échoue
+     */
+    public FenetreFoyers fenetre(long premier, int nombre) throws IOException {
+        if (premier < 0 || nombre < 0 || premier + nombre > nbFoyers
+                || nombre > Integer.MAX_VALUE / TAILLE_ENREGISTREMENT) {
+            throw new IllegalArgumentException("Zone hors du fichier : " + premier + " + " + nombre);
+        }
+        ByteBuffer zone = canal.map(ecriture ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                position(premier), (long) nombre * TAILLE_ENREGISTREMENT);
+        return new FenetreFoyers(zone.order(ByteOrder.LITTLE_ENDIAN), premier, nombre);
+    }
+
+    /**
+     * Fenêtre des foyers dont l'enregistrement commence dans l'intervalle d'octets {@code [debut, fin[}.
+     * Des intervalles contigus, découpés sans tenir compte des enregistrements, donnent des fenêtres
+     * disjointes qui couvrent tout le fichier.
+     * @throws IOException si la projection échoue
+     */
+    public FenetreFoyers fenetreOctets(long debut, long fin) throws IOException {
+        long premier = Math.min(nbFoyers, premierFoyerApres(debut));
+        long dernier = Math.min(nbFoyers, premierFoyerApres(fin));
+        return fenetre(premier, (int) Math.max(0, dernier - premier));
+    }
+
+    private static long premierFoyerApres(long octet) {
+        long relatif = Math.max(0, octet - TAILLE_ENTETE);
+        return (relatif + TAILLE_ENREGISTREMENT - 1) / TAILLE_ENREGISTREMENT;
+    }
+
+    static long position(long foyer) {
+        return TAILLE_ENTETE + foyer * TAILLE_ENREGISTREMENT;
+    }
+
+    /**
+     * Convertit un fichier CSV au format de datasImposition.csv en fichier binaire de foyers à calculer.
+     * @param csv Fichier CSV d'entrée ; la ligne d'en-tête et les lignes vides sont ignorées
+     * @param binaire Fichier binaire créé ou remplacé
+     * @return Nombre de foyers écrits
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     * @throws IllegalArgumentException si une ligne est invalide, avec son numéro
+     */
+    public static long depuisCsv(Path csv, Path binaire) throws IOException {
+        return depuisCsv(csv, binaire, null);
+    }
+
+    /**
+     * Variante de {@link #depuisCsv(Path, Path)} qui omet les lignes invalides et les consigne dans un rapport,
+     * sans construire d'exception.
+     * @param rapport Rapport des lignes rejetées, ou null pour lever une exception à la première ligne invalide
+     * @return Nombre de foyers écrits, lignes rejetées exclues
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static long depuisCsv(Path csv, Path binaire, RapportRejets rapport) throws IOException {
+        try (BufferedReader lecteur = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             FileChannel canal = FileChannel.open(binaire, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer tampon = ByteBuffer.allocateDirect(FOYERS_PAR_ECRITURE * TAILLE_ENREGISTREMENT)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            canal.position(TAILLE_ENTETE);
+            long nbFoyers = 0;
+            long numeroLigne = 0;
+            String ligne;
+            while ((ligne = lecteur.readLine()) != null) {
+                numeroLigne++;
+                if (ligne.isBlank() || numeroLigne == 1 && MoteurLot.estEntete(ligne)) {
+                    continue;
+                }
+                FoyerFiscal foyer = rapport == null ? lireFoyer(ligne, numeroLigne) : FoyerFiscal.lireCsv(ligne);
+                int code = foyer == null ? MotifRejet.FORMAT_INVALIDE.getCode() : MotifRejet.code(foyer.getRevenuNet1(),
+                        foyer.getRevenuNet2(), foyer.getSituationFamiliale(), foyer.getNbEnfants(),
+                        foyer.getNbEnfantsHandicap(), foyer.isParentIsole());
+                if (code != MotifRejet.CODE_VALIDE) {
+                    rapport.rejeter(numeroLigne, code);
+                    continue;
+                }
+                int debut = tampon.position();
+                tampon.putInt(debut, foyer.getRevenuNet1());
+                tampon.putInt(debut + FenetreFoyers.REVENU_NET_2, foyer.getRevenuNet2());
+                tampon.putShort(debut + FenetreFoyers.PROFIL, FenetreFoyers.coderProfil(foyer.getSituationFamiliale(),
+                        foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(), foyer.isParentIsole()));
+                tampon.position(debut + TAILLE_ENREGISTREMENT);
+                nbFoyers++;
+                if (!tampon.hasRemaining()) {
+                    ecrireTout(canal, tampon);
+                }
+            }
+            ecrireTout(canal, tampon);
+            ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(SIGNATURE).putShort(VERSION).putShort((short) TAILLE_ENREGISTREMENT).putLong(nbFoyers)
+                    .flip();
+            while (entete.hasRemaining()) {
+                canal.write(entete, entete.position());
+            }
+            return nbFoyers;
+        }
+    }
+
+    private static FoyerFiscal lireFoyer(String ligne, long numeroLigne) {
+        try {
+            FoyerFiscal foyer = FoyerFiscal.depuisCsv(ligne);
+            MotifRejet motif = MotifRejet.verifier(foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole());
+            if (motif != null) {
+                throw new IllegalArgumentException(motif.getMessage());
+            }
+            return foyer;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ligne " + numeroLigne + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Réinitialise le tampon : les octets réservés et les colonnes de résultat valent zéro.
+     */
+    private static void ecrireTout(FileChannel canal, ByteBuffer tampon) throws IOException {
+        tampon.flip();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon);
+        }
+        tampon.clear();
+        for (int i = 0; i < tampon.capacity(); i += Long.BYTES) {
+            tampon.putLong(i, 0L);
+        }
+    }
+
+    /**
+     * Écrit le contenu d'un fichier binaire au format CSV de {@link MoteurLot#ENTETE_SORTIE}.
+     * Les colonnes de résultat d'un foyer non calculé ou rejeté restent vides.
+     * @param binaire Fichier binaire de foyers
+     * @param csv Fichier CSV créé ou remplacé
+     * @return Nombre de foyers écrits
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static long versCsv(Path binaire, Path csv) throws IOException {
+        try (FichierFoyers fichier = ouvrir(binaire, false);
+             BufferedWriter ecrivain = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            ecrivain.write(MoteurLot.ENTETE_SORTIE);
+            ecrivain.write('\n');
+            StringBuilder ligne = new StringBuilder(128);
+            int parFenetre = MoteurLot.FOYERS_PAR_FENETRE;
+            for (long premier = 0; premier < fichier.nbFoyers; premier += parFenetre) {
+                FenetreFoyers fenetre = fichier.fenetre(premier, (int) Math.min(parFenetre, fichier.nbFoyers - premier));
+                for (int i = 0; i < fenetre.getNbFoyers(); i++) {
+                    ligne.setLength(0);
+                    fenetre.ecrireCsv(i, ligne);
+                    ecrivain.append(ligne).append('\n');
+                }
+            }
+            return fichier.nbFoyers;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
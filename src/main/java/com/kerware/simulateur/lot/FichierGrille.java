@@ -0,0 +1,171 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.EtapeCalcul;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fichier en colonnes des résultats d'une {@link GrilleScenarios}, écrit par {@link ExplorateurGrille}.
+ * <p>
+ * L'en-tête (signature, version, nombre de colonnes, nombre de points, puis les deux grilles de revenus)
+ * suffit à reconstruire la grille : les entrées de chaque point n'occupent donc aucune place. Il est
+ * suivi d'une colonne d'entiers de 4 octets, en petit-boutiste, par valeur de {@link #COLONNES}, chacune
+ * d'un entier par point dans l'ordre de la grille. Chaque colonne se relit seule, par zones.
+ */
+public final class FichierGrille implements AutoCloseable {
+
+    /** Colonnes du fichier, dans l'ordre où elles sont rangées ; les montants sont des euros entiers. */
+    public static final EtapeCalcul[] COLONNES = {
+        EtapeCalcul.REVENU_FISCAL_REFERENCE,
+        EtapeCalcul.IMPOT_AVANT_DECOTE,
+        EtapeCalcul.DECOTE,
+        EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE,
+        EtapeCalcul.IMPOT_NET
+    };
+
+    static final int SIGNATURE = 0x494D5047; // "IMPG"
+    static final short VERSION = 1;
+    private static final int TAILLE_ENTETE_FIXE = 24;
+
+    private final FileChannel canal;
+    private final GrilleScenarios grille;
+    private final long debutColonnes;
+
+    private FichierGrille(FileChannel canal, GrilleScenarios grille) {
+        this.canal = canal;
+        this.grille = grille;
+        this.debutColonnes = tailleEntete(grille);
+    }
+
+    private static long tailleEntete(GrilleScenarios grille) {
+        long taille = TAILLE_ENTETE_FIXE + 4L * (grille.getRevenus1().length + grille.getRevenus2().length);
+        // Colonnes alignées sur 8 octets
+        return (taille + 7) & ~7L;
+    }
+
+    /**
+     * Crée ou remplace un fichier et y écrit l'en-tête de la grille ; les colonnes restent à écrire.
+     */
+    static FichierGrille creer(Path fichier, GrilleScenarios grille) throws IOException {
+        FileChannel canal = FileChannel.open(fichier, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            int[] revenus1 = grille.getRevenus1();
+            int[] revenus2 = grille.getRevenus2();
+            ByteBuffer entete = ByteBuffer.allocate((int) tailleEntete(grille)).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(SIGNATURE).putShort(VERSION).putShort((short) COLONNES.length)
+                    .putLong(grille.getNbPoints()).putInt(revenus1.length).putInt(revenus2.length);
+            for (int revenu : revenus1) {
+                entete.putInt(revenu);
+            }
+            for (int revenu : revenus2) {
+                entete.putInt(revenu);
+            }
+            ecrireTout(canal, entete.clear(), 0);
+            return new FichierGrille(canal, grille);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Ouvre un fichier en lecture.
+     * @throws IOException si le fichier est illisible, tronqué ou n'est pas un fichier de grille
+     */
+    public static FichierGrille ouvrir(Path fichier) throws IOException {
+        FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ);
+        try {
+            ByteBuffer fixe = lireTout(canal, TAILLE_ENTETE_FIXE, 0);
+            if (fixe.getInt(0) != SIGNATURE) {
+                throw new IOException("Fichier de grille invalide");
+            }
+            if (fixe.getShort(4) != VERSION || fixe.getShort(6) != COLONNES.length) {
+                throw new IOException("Version de fichier de grille non prise en charge : " + fixe.getShort(4));
+            }
+            long nbPoints = fixe.getLong(8);
+            int n1 = fixe.getInt(16);
+            int n2 = fixe.getInt(20);
+            ByteBuffer revenus = lireTout(canal, 4 * (n1 + n2), TAILLE_ENTETE_FIXE);
+            int[] revenus1 = new int[n1];
+            int[] revenus2 = new int[n2];
+            revenus.asIntBuffer().get(revenus1).get(revenus2);
+            GrilleScenarios grille = new GrilleScenarios(revenus1, revenus2);
+            if (grille.getNbPoints() != nbPoints) {
+                throw new IOException("Fichier de grille incohérent : " + nbPoints + " points annoncés");
+            }
+            FichierGrille lu = new FichierGrille(canal, grille);
+            if (canal.size() < lu.position(COLONNES.length, 0)) {
+                throw new IOException("Fichier de grille tronqué");
+            }
+            return lu;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    public GrilleScenarios getGrille() { return grille; }
+    public long getNbPoints() { return grille.getNbPoints(); }
+
+    /**
+     * Lit une zone d'une colonne.
+     * @param colonne Valeur lue, parmi {@link #COLONNES}
+     * @param premier Indice du premier point
+     * @param nombre Nombre de points
+     * @return Valeurs des points de la zone
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public int[] lire(EtapeCalcul colonne, long premier, int nombre) throws IOException {
+        int c = Arrays.asList(COLONNES).indexOf(colonne);
+        if (c < 0) {
+            throw new IllegalArgumentException("Colonne absente du fichier : " + colonne);
+        }
+        if (premier < 0 || nombre < 0 || premier + nombre > getNbPoints()) {
+            throw new IllegalArgumentException("Points hors de la grille : " + premier + " + " + nombre);
+        }
+        int[] valeurs = new int[nombre];
+        lireTout(canal, 4 * nombre, position(c, premier)).asIntBuffer().get(valeurs);
+        return valeurs;
+    }
+
+    /**
+     * Écrit une zone d'une colonne à sa place ; les écritures positionnées peuvent être concurrentes.
+     * @param tampon Valeurs de la zone, de la position à la limite
+     */
+    void ecrire(int colonne, long premier, ByteBuffer tampon) throws IOException {
+        ecrireTout(canal, tampon, position(colonne, premier));
+    }
+
+    private long position(int colonne, long point) {
+        return debutColonnes + 4 * (colonne * getNbPoints() + point);
+    }
+
+    private static ByteBuffer lireTout(FileChannel canal, int taille, long position) throws IOException {
+        ByteBuffer tampon = ByteBuffer.allocate(taille).order(ByteOrder.LITTLE_ENDIAN);
+        while (tampon.hasRemaining()) {
+            if (canal.read(tampon, position + tampon.position()) < 0) {
+                throw new IOException("Fichier de grille tronqué");
+            }
+        }
+        return tampon.flip();
+    }
+
+    private static void ecrireTout(FileChannel canal, ByteBuffer tampon, long position) throws IOException {
+        int debut = tampon.position();
+        while (tampon.hasRemaining()) {
+            canal.write(tampon, position + tampon.position() - debut);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
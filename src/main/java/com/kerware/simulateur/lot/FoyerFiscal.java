@@ -0,0 +1,142 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Données d'entrée d'un foyer fiscal, au format des colonnes de datasImposition.csv :
+ * revenutNet1, revenuNet2, sitFam, nbEnfants, nbEnfantsHandicap, isole.
+ */
+public final class FoyerFiscal {
+
+    /** Nombre de colonnes d'entrée d'une ligne CSV. */
+    public static final int NB_COLONNES = 6;
+
+    private final int revenuNet1;
+    private final int revenuNet2;
+    private final SituationFamiliale situationFamiliale;
+    private final int nbEnfants;
+    private final int nbEnfantsHandicap;
+    private final boolean parentIsole;
+
+    public FoyerFiscal(int revenuNet1, int revenuNet2, SituationFamiliale situationFamiliale,
+                       int nbEnfants, int nbEnfantsHandicap, boolean parentIsole) {
+        this.revenuNet1 = revenuNet1;
+        this.revenuNet2 = revenuNet2;
+        this.situationFamiliale = situationFamiliale;
+        this.nbEnfants = nbEnfants;
+        this.nbEnfantsHandicap = nbEnfantsHandicap;
+        this.parentIsole = parentIsole;
+    }
+
+    /**
+     * Lit un foyer depuis une ligne CSV. Les colonnes au-delà des six premières
+     * (par exemple impotAttendu) sont ignorées.
+     * @param ligne Ligne CSV séparée par des virgules
+     * @return Foyer fiscal correspondant
+     * @throws IllegalArgumentException si la ligne est incomplète ou mal formée
+     */
+    public static FoyerFiscal depuisCsv(String ligne) {
+        String[] colonnes = ligne.split(",", NB_COLONNES + 1);
+        if (colonnes.length < NB_COLONNES) {
+            throw new IllegalArgumentException("Ligne incomplète : " + ligne);
+        }
+        return new FoyerFiscal(
+                Integer.parseInt(colonnes[0].trim()),
+                Integer.parseInt(colonnes[1].trim()),
+                SituationFamiliale.valueOf(colonnes[2].trim()),
+                Integer.parseInt(colonnes[3].trim()),
+                Integer.parseInt(colonnes[4].trim()),
+                Boolean.parseBoolean(colonnes[5].trim()));
+    }
+
+    /**
+     * Lecture sans exception de {@link #depuisCsv(String)}, pour les traitements par lot qui consignent
+     * les lignes rejetées : une ligne invalide ne coûte pas la construction d'une exception.
+     * @param ligne Ligne CSV séparée par des virgules
+     * @return Foyer fiscal correspondant, ou null si la ligne est incomplète ou mal formée
+     */
+    public static FoyerFiscal lireCsv(String ligne) {
+        int[] entiers = new int[NB_COLONNES];
+        SituationFamiliale situation = null;
+        boolean parentIsole = false;
+        int debut = 0;
+        for (int colonne = 0; colonne < NB_COLONNES; colonne++) {
+            int fin = ligne.indexOf(',', debut);
+            if (fin < 0) {
+                if (colonne < NB_COLONNES - 1) {
+                    return null;
+                }
+                fin = ligne.length();
+            }
+            String valeur = ligne.substring(debut, fin).trim();
+            switch (colonne) {
+                case 2 -> situation = lireSituation(valeur);
+                case 5 -> parentIsole = Boolean.parseBoolean(valeur);
+                default -> {
+                    long entier = lireEntier(valeur);
+                    if (entier == Long.MIN_VALUE) {
+                        return null;
+                    }
+                    entiers[colonne] = (int) entier;
+                }
+            }
+            if (colonne == 2 && situation == null) {
+                return null;
+            }
+            debut = fin + 1;
+        }
+        return new FoyerFiscal(entiers[0], entiers[1], situation, entiers[3], entiers[4], parentIsole);
+    }
+
+    private static SituationFamiliale lireSituation(String valeur) {
+        for (SituationFamiliale situation : SituationFamiliale.values()) {
+            if (situation.name().equals(valeur)) {
+                return situation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Équivalent de {@link Integer#parseInt(String)} qui renvoie {@code Long.MIN_VALUE} au lieu de lever une exception.
+     */
+    private static long lireEntier(String valeur) {
+        int i = valeur.startsWith("-") || valeur.startsWith("+") ? 1 : 0;
+        if (i == valeur.length()) {
+            return Long.MIN_VALUE;
+        }
+        long entier = 0;
+        for (; i < valeur.length(); i++) {
+            char c = valeur.charAt(i);
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+            entier = entier * 10 + (c - '0');
+            if (entier > (long) Integer.MAX_VALUE + 1) {
+                return Long.MIN_VALUE;
+            }
+        }
+        entier = valeur.charAt(0) == '-' ? -entier : entier;
+        return entier < Integer.MIN_VALUE || entier > Integer.MAX_VALUE ? Long.MIN_VALUE : entier;
+    }
+
+    /**
+     * Écrit les six colonnes d'entrée du foyer au format CSV, sans fin de ligne.
+     * @param sortie Tampon de sortie
+     */
+    public void ecrireCsv(StringBuilder sortie) {
+        sortie.append(revenuNet1).append(',')
+                .append(revenuNet2).append(',')
+                .append(situationFamiliale).append(',')
+                .append(nbEnfants).append(',')
+                .append(nbEnfantsHandicap).append(',')
+                .append(parentIsole);
+    }
+
+    public int getRevenuNet1() { return revenuNet1; }
+    public int getRevenuNet2() { return revenuNet2; }
+    public SituationFamiliale getSituationFamiliale() { return situationFamiliale; }
+    public int getNbEnfants() { return nbEnfants; }
+    public int getNbEnfantsHandicap() { return nbEnfantsHandicap; }
+    public boolean isParentIsole() { return parentIsole; }
+}
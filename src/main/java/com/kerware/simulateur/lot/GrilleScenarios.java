@@ -0,0 +1,156 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.util.Arrays;
+
+/**
+ * Grille de scénarios : tous les profils de foyer valides croisés avec une grille de revenus.
+ * <p>
+ * Les profils sont toutes les combinaisons de situation familiale, de 0 à 7 enfants, d'enfants
+ * handicapés et de parent isolé acceptées par le contrôle des paramètres : les combinaisons refusées
+ * (plus d'enfants handicapés que d'enfants, parent isolé en couple) sont écartées avant tout calcul.
+ * Pour un couple, chaque revenu du déclarant 1 est croisé avec chaque revenu du déclarant 2 ; pour une
+ * personne seule, le revenu du déclarant 2 est nul. Les points sont numérotés par profil, dans l'ordre
+ * des codes de profil, puis par revenu du déclarant 1 et enfin par revenu du déclarant 2.
+ */
+public final class GrilleScenarios {
+
+    private static final int NB_ENFANTS_MAX = 7;
+
+    private final int[] revenus1;
+    private final int[] revenus2;
+    private final short[] profils;
+    private final SituationFamiliale[] situations;
+    private final boolean[] couples;
+    // Indice du premier point de chaque profil, et nombre total de points en dernière case
+    private final long[] premiers;
+
+    /**
+     * @param revenus1 Revenus nets du déclarant 1
+     * @param revenus2 Revenus nets du déclarant 2, croisés avec les premiers pour les couples seulement
+     * @throws IllegalArgumentException si une grille est vide ou contient un revenu négatif
+     */
+    public GrilleScenarios(int[] revenus1, int[] revenus2) {
+        this.revenus1 = verifierRevenus(revenus1, "déclarant 1");
+        this.revenus2 = verifierRevenus(revenus2, "déclarant 2");
+        short[] codes = new short[SituationFamiliale.values().length << 7];
+        int nbProfils = 0;
+        for (SituationFamiliale sf : SituationFamiliale.values()) {
+            for (int enf = 0; enf <= NB_ENFANTS_MAX; enf++) {
+                for (int enfH = 0; enfH <= NB_ENFANTS_MAX; enfH++) {
+                    for (boolean iso : new boolean[] { false, true }) {
+                        if (MotifRejet.code(0, 0, sf, enf, enfH, iso) == MotifRejet.CODE_VALIDE) {
+                            codes[nbProfils++] = FenetreFoyers.coderProfil(sf, enf, enfH, iso);
+                        }
+                    }
+                }
+            }
+        }
+        this.profils = Arrays.copyOf(codes, nbProfils);
+        this.situations = new SituationFamiliale[nbProfils];
+        this.couples = new boolean[nbProfils];
+        this.premiers = new long[nbProfils + 1];
+        for (int p = 0; p < nbProfils; p++) {
+            situations[p] = SituationFamiliale.values()[profils[p] >> 7];
+            couples[p] = situations[p] == SituationFamiliale.MARIE || situations[p] == SituationFamiliale.PACSE;
+            premiers[p + 1] = premiers[p] + (long) this.revenus1.length * (couples[p] ? this.revenus2.length : 1);
+        }
+    }
+
+    private static int[] verifierRevenus(int[] revenus, String declarant) {
+        if (revenus.length == 0) {
+            throw new IllegalArgumentException("Grille de revenus du " + declarant + " vide");
+        }
+        for (int revenu : revenus) {
+            if (revenu < 0) {
+                throw new IllegalArgumentException("Revenu négatif dans la grille du " + declarant + " : " + revenu);
+            }
+        }
+        return revenus.clone();
+    }
+
+    /**
+     * @param min Premier revenu
+     * @param max Dernier revenu, inclus s'il est atteint
+     * @param pas Écart entre deux revenus consécutifs
+     * @return Revenus de {@code min} à {@code max} par pas de {@code pas}
+     */
+    public static int[] intervalle(int min, int max, int pas) {
+        if (pas <= 0 || min > max) {
+            throw new IllegalArgumentException("Intervalle de revenus invalide : " + min + ".." + max + " pas " + pas);
+        }
+        int[] revenus = new int[(int) (((long) max - min) / pas + 1)];
+        for (int i = 0; i < revenus.length; i++) {
+            revenus[i] = (int) (min + (long) i * pas);
+        }
+        return revenus;
+    }
+
+    public long getNbPoints() { return premiers[profils.length]; }
+    public int getNbProfils() { return profils.length; }
+    public int[] getRevenus1() { return revenus1.clone(); }
+    public int[] getRevenus2() { return revenus2.clone(); }
+
+    /**
+     * Remplit des colonnes d'entrée avec des points consécutifs de la grille.
+     * @param premier Indice du premier point
+     * @param revNetDecl1 Revenus du déclarant 1, à partir de l'indice 0
+     * @param revNetDecl2 Revenus du déclarant 2
+     * @param codesProfil Codes de profil, voir {@link FenetreFoyers}
+     * @param nombre Nombre de points
+     */
+    public void remplir(long premier, int[] revNetDecl1, int[] revNetDecl2, short[] codesProfil, int nombre) {
+        if (premier < 0 || nombre < 0 || premier + nombre > getNbPoints()) {
+            throw new IllegalArgumentException("Points hors de la grille : " + premier + " + " + nombre);
+        }
+        int p = profil(premier);
+        long local = premier - premiers[p];
+        int n2 = couples[p] ? revenus2.length : 1;
+        int i1 = (int) (local / n2);
+        int i2 = (int) (local % n2);
+        for (int i = 0; i < nombre; i++) {
+            if (premier + i == premiers[p + 1]) {
+                p++;
+                n2 = couples[p] ? revenus2.length : 1;
+                i1 = 0;
+                i2 = 0;
+            }
+            revNetDecl1[i] = revenus1[i1];
+            revNetDecl2[i] = couples[p] ? revenus2[i2] : 0;
+            codesProfil[i] = profils[p];
+            if (++i2 == n2) {
+                i2 = 0;
+                i1++;
+            }
+        }
+    }
+
+    /**
+     * @return Indice du profil du point, par recherche dichotomique sur les premiers points
+     */
+    private int profil(long point) {
+        int p = Arrays.binarySearch(premiers, point);
+        if (p < 0) {
+            return -p - 2;
+        }
+        // Plusieurs profils ne peuvent commencer au même point : chacun a au moins un point
+        return p;
+    }
+
+    public int getRevenuNet1(long point) {
+        int p = profil(point);
+        return revenus1[(int) ((point - premiers[p]) / (couples[p] ? revenus2.length : 1))];
+    }
+
+    public int getRevenuNet2(long point) {
+        int p = profil(point);
+        return couples[p] ? revenus2[(int) ((point - premiers[p]) % revenus2.length)] : 0;
+    }
+
+    public SituationFamiliale getSituationFamiliale(long point) { return situations[profil(point)]; }
+    public int getNbEnfants(long point) { return profils[profil(point)] >> 4 & NB_ENFANTS_MAX; }
+    public int getNbEnfantsHandicap(long point) { return profils[profil(point)] >> 1 & NB_ENFANTS_MAX; }
+    public boolean isParentIsole(long point) { return (profils[profil(point)] & 1) != 0; }
+}
@@ -0,0 +1,101 @@
+package com.kerware.simulateur.lot;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lecture ligne à ligne d'un flux de foyers. Sur un flux d'octets UTF-8, le lecteur tient la position
+ * en octets de la fin de la dernière ligne lue : c'est la position à laquelle une reprise rouvre le
+ * fichier, sans relire ce qui précède. Les fins de ligne {@code \n} et {@code \r\n} sont reconnues,
+ * comme par {@link BufferedReader#readLine()}.
+ */
+final class LecteurLignes {
+
+    private static final int TAILLE_TAMPON = 1 << 16;
+
+    private final BufferedReader texte;
+    private final InputStream octets;
+    private final byte[] tampon;
+    private int debut;
+    private int fin;
+    private long position;
+    private byte[] ligne;
+
+    /**
+     * Lecteur sur un flux de caractères, sans position.
+     */
+    LecteurLignes(Reader entree) {
+        this.texte = entree instanceof BufferedReader b ? b : new BufferedReader(entree);
+        this.octets = null;
+        this.tampon = null;
+    }
+
+    /**
+     * @param entree Flux UTF-8, positionné au début d'une ligne
+     * @param position Position de ce début de ligne dans le fichier
+     */
+    LecteurLignes(InputStream entree, long position) {
+        this.texte = null;
+        this.octets = entree;
+        this.tampon = new byte[TAILLE_TAMPON];
+        this.ligne = new byte[256];
+        this.position = position;
+    }
+
+    /**
+     * @return Ligne suivante sans sa fin de ligne, ou null en fin de flux
+     */
+    String lireLigne() throws IOException {
+        if (texte != null) {
+            return texte.readLine();
+        }
+        int longueur = 0;
+        boolean lue = false;
+        while (true) {
+            if (debut == fin) {
+                int lus = octets.read(tampon);
+                if (lus < 0) {
+                    return lue ? decoder(longueur) : null;
+                }
+                debut = 0;
+                fin = lus;
+            }
+            lue = true;
+            int i = debut;
+            while (i < fin && tampon[i] != '\n') {
+                i++;
+            }
+            int morceau = i - debut;
+            if (longueur + morceau > ligne.length) {
+                ligne = Arrays.copyOf(ligne, Math.max(2 * ligne.length, longueur + morceau));
+            }
+            System.arraycopy(tampon, debut, ligne, longueur, morceau);
+            longueur += morceau;
+            position += morceau;
+            debut = i;
+            if (i < fin) {
+                debut++;
+                position++;
+                return decoder(longueur);
+            }
+        }
+    }
+
+    private String decoder(int longueur) {
+        if (longueur > 0 && ligne[longueur - 1] == '\r') {
+            longueur--;
+        }
+        return new String(ligne, 0, longueur, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Position en octets de la fin de la dernière ligne lue, -1 sur un flux de caractères
+     */
+    long getPosition() {
+        return texte != null ? -1 : position;
+    }
+}
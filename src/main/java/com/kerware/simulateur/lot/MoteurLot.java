@@ -0,0 +1,663 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ComparateurReforme;
+import com.kerware.simulateur.EcartImpot;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Moteur de calcul par lot sur des fichiers de foyers au format de datasImposition.csv.
+ * <p>
+ * Le fichier est lu en flux par blocs de lignes ; chaque bloc est calculé sur un thread du pool
+ * avec un {@link Simulateur} partagé, et les résultats sont écrits dans l'ordre d'entrée.
+ * Le nombre de blocs en vol est borné, la mémoire utilisée ne dépend donc pas de la taille du fichier.
+ */
+public class MoteurLot implements AutoCloseable {
+
+    /** Nombre de lignes par bloc par défaut. */
+    public static final int TAILLE_BLOC_DEFAUT = 4096;
+
+    /** Ligne d'en-tête du fichier de résultats. */
+    public static final String ENTETE_SORTIE = "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole,"
+            + "revenuFiscalReference,abattement,nbParts,impotAvantDecote,decote,contribExceptionnelle,impotNet";
+
+    /** Nombre maximal de foyers projetés en mémoire à la fois par une tâche du traitement binaire. */
+    static final int FOYERS_PAR_FENETRE = 1 << 20;
+
+    /** Ligne d'en-tête du fichier de comparaison de deux barèmes. */
+    public static final String ENTETE_COMPARAISON = "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole,"
+            + "ecart";
+
+    /** Durée minimale par défaut entre deux points de reprise, en millisecondes. */
+    public static final long INTERVALLE_REPRISE_DEFAUT = 10_000;
+
+    private static final int BLOCS_EN_VOL_PAR_THREAD = 2;
+
+    private final Simulateur simulateur;
+    private final ExecutorService executeur;
+    private final int nbThreads;
+    private final int tailleBloc;
+
+    public MoteurLot(Simulateur simulateur) {
+        this(simulateur, Runtime.getRuntime().availableProcessors(), TAILLE_BLOC_DEFAUT);
+    }
+
+    /**
+     * @param simulateur Simulateur partagé par tous les threads
+     * @param nbThreads Nombre de threads de calcul
+     * @param tailleBloc Nombre de lignes par bloc
+     */
+    public MoteurLot(Simulateur simulateur, int nbThreads, int tailleBloc) {
+        if (nbThreads < 1 || tailleBloc < 1) {
+            throw new IllegalArgumentException("Le nombre de threads et la taille de bloc doivent être positifs");
+        }
+        this.simulateur = simulateur;
+        this.nbThreads = nbThreads;
+        this.tailleBloc = tailleBloc;
+        this.executeur = Executors.newFixedThreadPool(nbThreads);
+    }
+
+    /**
+     * Calcule l'impôt de chaque foyer du flux d'entrée et écrit une ligne de résultat par foyer.
+     * La ligne d'en-tête éventuelle de l'entrée est ignorée.
+     * @param entree Flux CSV des foyers
+     * @param sortie Flux CSV des résultats, au format {@link #ENTETE_SORTIE}
+     * @return Nombre de foyers traités
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public long traiter(Reader entree, Writer sortie) throws IOException {
+        return traiter(entree, sortie, ENTETE_SORTIE, (lignes, premiere) -> calculerBloc(lignes, premiere, null));
+    }
+
+    /**
+     * Variante de {@link #traiter(Reader, Writer)} pour les imports volumineux où une part des lignes est invalide :
+     * une ligne mal formée ou refusée par le contrôle des paramètres est omise de la sortie et consignée
+     * dans le rapport, sans qu'aucune exception ne soit construite.
+     * @param rapport Rapport alimenté par les lignes rejetées
+     * @return Nombre de foyers lus, lignes rejetées comprises
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public long traiter(Reader entree, Writer sortie, RapportRejets rapport) throws IOException {
+        return traiter(entree, sortie, ENTETE_SORTIE, (lignes, premiere) -> calculerBloc(lignes, premiere, rapport));
+    }
+
+    /**
+     * Version fichier de {@link #traiter(Reader, Writer)}.
+     * @param entree Chemin du fichier des foyers
+     * @param sortie Chemin du fichier de résultats
+     * @return Nombre de foyers traités
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public long traiter(Path entree, Path sortie) throws IOException {
+        try (Reader lecteur = Files.newBufferedReader(entree, StandardCharsets.UTF_8);
+             Writer ecrivain = Files.newBufferedWriter(sortie, StandardCharsets.UTF_8)) {
+            return traiter(lecteur, ecrivain);
+        }
+    }
+
+    /**
+     * Variante de {@link #traiter(Path, Path)} qui peut reprendre après un arrêt brutal de la JVM, avec
+     * un point de reprise au plus tous les {@link #INTERVALLE_REPRISE_DEFAUT} millisecondes.
+     * @see #traiter(Path, Path, Path, long)
+     */
+    public long traiter(Path entree, Path sortie, Path reprise) throws IOException {
+        return traiter(entree, sortie, reprise, INTERVALLE_REPRISE_DEFAUT);
+    }
+
+    /**
+     * Version fichier de {@link #traiter(Reader, Writer)} qui peut reprendre après un arrêt brutal de la JVM.
+     * <p>
+     * À la fin d'un bloc écrit, si l'intervalle est écoulé depuis le point précédent, le fichier de sortie
+     * est forcé sur disque puis un {@link PointReprise} est écrit. Si le fichier de reprise existe au
+     * lancement, la sortie est tronquée à la position enregistrée, ce qui écarte les résultats écrits après
+     * le dernier point, et la lecture reprend à la position enregistrée dans l'entrée, sans relire la partie
+     * déjà traitée : chaque foyer figure une fois et une seule dans la sortie. Le fichier de reprise est
+     * supprimé quand le traitement aboutit.
+     * @param entree Chemin du fichier des foyers, UTF-8, inchangé entre deux reprises
+     * @param sortie Chemin du fichier de résultats
+     * @param reprise Chemin du fichier de reprise
+     * @param intervalle Durée minimale entre deux points de reprise, en millisecondes
+     * @return Nombre de foyers traités depuis le début du fichier, reprises comprises
+     * @throws IOException en cas d'erreur de lecture ou d'écriture, ou si le fichier de reprise est invalide
+     */
+    public long traiter(Path entree, Path sortie, Path reprise, long intervalle) throws IOException {
+        PointReprise depart = PointReprise.lire(reprise, simulateur.getRegistre().getBaremeCourant());
+        if (depart == null) {
+            depart = PointReprise.DEBUT;
+        } else if (depart.getAccumulateur() != null) {
+            throw new IOException("Le point de reprise " + reprise + " est celui d'une agrégation");
+        }
+        try (FileChannel canalEntree = FileChannel.open(entree, StandardOpenOption.READ);
+             FileChannel canalSortie = FileChannel.open(sortie, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            canalEntree.position(depart.getPositionEntree());
+            canalSortie.truncate(depart.getPositionSortie());
+            canalSortie.position(depart.getPositionSortie());
+            OutputStream flux = new BufferedOutputStream(Channels.newOutputStream(canalSortie), 1 << 16);
+            if (depart.getPositionSortie() == 0) {
+                flux.write((ENTETE_SORTIE + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            long nbPrecedents = depart.getNbFoyers();
+            Echeancier echeancier = new Echeancier(intervalle);
+            long nbFoyers = parBlocs(new LecteurLignes(Channels.newInputStream(canalEntree), depart.getPositionEntree()),
+                    depart.getDerniereLigne(), (lignes, premiere) -> calculerBloc(lignes, premiere, null),
+                    (texte, avancement) -> {
+                        flux.write(texte.getBytes(StandardCharsets.UTF_8));
+                        if (echeancier.echu()) {
+                            flux.flush();
+                            canalSortie.force(false);
+                            new PointReprise(avancement.finEntree, avancement.derniereLigne, canalSortie.position(),
+                                    nbPrecedents + avancement.nbFoyers, null).ecrire(reprise);
+                        }
+                    });
+            flux.flush();
+            canalSortie.force(false);
+            Files.deleteIfExists(reprise);
+            return nbPrecedents + nbFoyers;
+        }
+    }
+
+    /**
+     * Version fichier de {@link #agreger(Reader, RapportRejets)} qui peut reprendre après un arrêt brutal de
+     * la JVM : les agrégats partiels sont enregistrés avec chaque point de reprise, au plus tous les
+     * {@code intervalle} millisecondes, et une reprise repart de ces agrégats à la position enregistrée.
+     * Une ligne invalide interrompt le lot. Le fichier de reprise est supprimé quand le traitement aboutit.
+     * @param entree Chemin du fichier des foyers, UTF-8, inchangé entre deux reprises
+     * @param reprise Chemin du fichier de reprise
+     * @param intervalle Durée minimale entre deux points de reprise, en millisecondes
+     * @return Agrégats de toute la population, calculés avec le barème courant
+     * @throws IOException en cas d'erreur de lecture, ou si le fichier de reprise est invalide
+     */
+    public AccumulateurPopulation agreger(Path entree, Path reprise, long intervalle) throws IOException {
+        Bareme bareme = simulateur.getRegistre().getBaremeCourant();
+        PointReprise depart = PointReprise.lire(reprise, bareme);
+        if (depart == null) {
+            depart = new PointReprise(0, 0, -1, 0, new AccumulateurPopulation(bareme));
+        } else if (depart.getAccumulateur() == null) {
+            throw new IOException("Le point de reprise " + reprise + " n'est pas celui d'une agrégation");
+        }
+        AccumulateurPopulation total = depart.getAccumulateur();
+        long nbPrecedents = depart.getNbFoyers();
+        Echeancier echeancier = new Echeancier(intervalle);
+        try (FileChannel canalEntree = FileChannel.open(entree, StandardOpenOption.READ)) {
+            canalEntree.position(depart.getPositionEntree());
+            // Un accumulateur par bloc, fusionné dans l'ordre : le total correspond toujours à la fin d'un bloc
+            parBlocs(new LecteurLignes(Channels.newInputStream(canalEntree), depart.getPositionEntree()),
+                    depart.getDerniereLigne(), (lignes, premiereLigne) -> {
+                        AccumulateurPopulation accumulateur = new AccumulateurPopulation(bareme);
+                        agregerBloc(lignes, premiereLigne, null, accumulateur);
+                        return accumulateur;
+                    }, (accumulateur, avancement) -> {
+                        total.fusionner(accumulateur);
+                        if (echeancier.echu()) {
+                            new PointReprise(avancement.finEntree, avancement.derniereLigne, -1,
+                                    nbPrecedents + avancement.nbFoyers, total).ecrire(reprise);
+                        }
+                    });
+        }
+        Files.deleteIfExists(reprise);
+        return total;
+    }
+
+    /**
+     * Échéance des points de reprise.
+     */
+    private static final class Echeancier {
+        private final long intervalle;
+        private long dernier = System.nanoTime();
+
+        Echeancier(long intervalleMillis) {
+            this.intervalle = intervalleMillis * 1_000_000;
+        }
+
+        /**
+         * @return Vrai si l'intervalle est écoulé depuis la dernière échéance, qui est alors reportée
+         */
+        boolean echu() {
+            long maintenant = System.nanoTime();
+            if (maintenant - dernier < intervalle) {
+                return false;
+            }
+            dernier = maintenant;
+            return true;
+        }
+    }
+
+    /**
+     * Calcule en place les foyers d'un fichier binaire ouvert en écriture. Le fichier est découpé en
+     * zones disjointes calculées par les threads du pool ; un foyer invalide est marqué
+     * {@link FichierFoyers#ETAT_REJETE} sans interrompre le traitement.
+     * @param fichier Fichier binaire de foyers
+     * @return Nombre de foyers calculés, rejets exclus
+     * @throws IOException si une zone ne peut pas être projetée
+     */
+    public long traiter(FichierFoyers fichier) throws IOException {
+        long nbFoyers = fichier.getNbFoyers();
+        int parZone = (int) Math.min(FOYERS_PAR_FENETRE, Math.max(1, (nbFoyers + nbThreads - 1) / nbThreads));
+        List<Future<Long>> zones = new ArrayList<>();
+        for (long premier = 0; premier < nbFoyers; premier += parZone) {
+            long debut = premier;
+            int nombre = (int) Math.min(parZone, nbFoyers - premier);
+            zones.add(executeur.submit(() -> calculerZone(fichier, debut, nombre)));
+        }
+        long nbCalcules = 0;
+        for (Future<Long> zone : zones) {
+            nbCalcules += attendre(zone);
+        }
+        return nbCalcules;
+    }
+
+    private long calculerZone(FichierFoyers fichier, long premier, int nombre) {
+        FenetreFoyers fenetre;
+        try {
+            fenetre = fichier.fenetre(premier, nombre);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long nbCalcules = 0;
+        for (int i = 0; i < nombre; i++) {
+            int revenu1 = fenetre.getRevenuNet1(i);
+            int revenu2 = fenetre.getRevenuNet2(i);
+            SituationFamiliale situation = fenetre.getSituationFamiliale(i);
+            int nbEnfants = fenetre.getNbEnfants(i);
+            int nbEnfantsHandicap = fenetre.getNbEnfantsHandicap(i);
+            boolean parentIsole = fenetre.isParentIsole(i);
+            if (MotifRejet.verifier(revenu1, revenu2, situation, nbEnfants, nbEnfantsHandicap, parentIsole) != null) {
+                fenetre.ecrireRejet(i);
+                continue;
+            }
+            fenetre.ecrireResultat(i, simulateur.calculer(revenu1, revenu2, situation, nbEnfants,
+                    nbEnfantsHandicap, parentIsole));
+            nbCalcules++;
+        }
+        return nbCalcules;
+    }
+
+    long traiter(Reader entree, Writer sortie, String entete, TraitementBloc<String> traitement) throws IOException {
+        sortie.write(entete);
+        sortie.write('\n');
+        long nbFoyers = parBlocs(new LecteurLignes(entree), 0, traitement, (texte, avancement) -> sortie.write(texte));
+        sortie.flush();
+        return nbFoyers;
+    }
+
+    /**
+     * Agrège les résultats des foyers du flux d'entrée sans les écrire ni les conserver.
+     * Chaque thread alimente son propre accumulateur ; les accumulateurs sont fusionnés en fin de lecture.
+     * @param entree Flux CSV des foyers
+     * @param rapport Rapport des lignes rejetées, ou null pour interrompre le lot à la première ligne invalide
+     * @return Agrégats de la population, calculés avec le barème courant
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public AccumulateurPopulation agreger(Reader entree, RapportRejets rapport) throws IOException {
+        Bareme bareme = simulateur.getRegistre().getBaremeCourant();
+        Queue<AccumulateurPopulation> accumulateurs = new ConcurrentLinkedQueue<>();
+        parBlocs(new LecteurLignes(entree), 0, (lignes, premiereLigne) -> {
+            // Un accumulateur par bloc en cours : au plus autant que de threads
+            AccumulateurPopulation accumulateur = accumulateurs.poll();
+            if (accumulateur == null) {
+                accumulateur = new AccumulateurPopulation(bareme);
+            }
+            agregerBloc(lignes, premiereLigne, rapport, accumulateur);
+            accumulateurs.add(accumulateur);
+            return accumulateur;
+        }, (accumulateur, avancement) -> { });
+        AccumulateurPopulation total = new AccumulateurPopulation(bareme);
+        for (AccumulateurPopulation accumulateur : accumulateurs) {
+            total.fusionner(accumulateur);
+        }
+        return total;
+    }
+
+    /**
+     * Compare chaque foyer du flux d'entrée sous deux barèmes, en une seule lecture, et n'écrit que l'écart
+     * d'impôt de chaque foyer au format {@link #ENTETE_COMPARAISON}.
+     * @param entree Flux CSV des foyers
+     * @param sortie Flux CSV des écarts, dans l'ordre d'entrée
+     * @param comparateur Barèmes de référence et variante
+     * @param rapport Rapport des lignes rejetées, ou null pour interrompre le lot à la première ligne invalide
+     * @return Bilan des gagnants et des perdants
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public BilanReforme comparer(Reader entree, Writer sortie, ComparateurReforme comparateur, RapportRejets rapport)
+            throws IOException {
+        Queue<BilanReforme> bilans = new ConcurrentLinkedQueue<>();
+        traiter(entree, sortie, ENTETE_COMPARAISON, (lignes, premiereLigne) -> {
+            BilanReforme bilan = bilans.poll();
+            if (bilan == null) {
+                bilan = new BilanReforme();
+            }
+            String resultat = comparerBloc(lignes, premiereLigne, comparateur, rapport, bilan);
+            bilans.add(bilan);
+            return resultat;
+        });
+        BilanReforme total = new BilanReforme();
+        for (BilanReforme bilan : bilans) {
+            total.fusionner(bilan);
+        }
+        return total;
+    }
+
+    private String comparerBloc(List<String> lignes, long premiereLigne, ComparateurReforme comparateur,
+                                RapportRejets rapport, BilanReforme bilan) {
+        StringBuilder sortie = new StringBuilder(lignes.size() * 48);
+        for (int i = 0; i < lignes.size(); i++) {
+            String ligne = lignes.get(i);
+            if (ligne.isBlank()) {
+                continue;
+            }
+            FoyerFiscal foyer = lireFoyer(simulateur, ligne, premiereLigne + i, rapport);
+            if (foyer != null) {
+                EcartImpot ecart = BilanReforme.comparer(comparateur, foyer);
+                bilan.ajouter(foyer.getSituationFamiliale(), ecart);
+                foyer.ecrireCsv(sortie);
+                sortie.append(',').append(ecart.getEcart()).append('\n');
+            }
+        }
+        return sortie.toString();
+    }
+
+    /**
+     * Agrège les foyers d'un fichier binaire, zone par zone, sans écrire les résultats.
+     * Les foyers invalides sont ignorés.
+     * @param fichier Fichier binaire de foyers
+     * @return Agrégats de la population, calculés avec le barème courant
+     * @throws IOException si une zone ne peut pas être projetée
+     */
+    public AccumulateurPopulation agreger(FichierFoyers fichier) throws IOException {
+        Bareme bareme = simulateur.getRegistre().getBaremeCourant();
+        long nbFoyers = fichier.getNbFoyers();
+        int parZone = (int) Math.min(FOYERS_PAR_FENETRE, Math.max(1, (nbFoyers + nbThreads - 1) / nbThreads));
+        List<Future<AccumulateurPopulation>> zones = new ArrayList<>();
+        for (long premier = 0; premier < nbFoyers; premier += parZone) {
+            long debut = premier;
+            int nombre = (int) Math.min(parZone, nbFoyers - premier);
+            zones.add(executeur.submit(() -> agregerZone(fichier, debut, nombre, new AccumulateurPopulation(bareme))));
+        }
+        AccumulateurPopulation total = new AccumulateurPopulation(bareme);
+        for (Future<AccumulateurPopulation> zone : zones) {
+            total.fusionner(attendre(zone));
+        }
+        return total;
+    }
+
+    private AccumulateurPopulation agregerZone(FichierFoyers fichier, long premier, int nombre,
+                                               AccumulateurPopulation accumulateur) {
+        FenetreFoyers fenetre;
+        try {
+            fenetre = fichier.fenetre(premier, nombre);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        for (int i = 0; i < nombre; i++) {
+            int revenu1 = fenetre.getRevenuNet1(i);
+            int revenu2 = fenetre.getRevenuNet2(i);
+            SituationFamiliale situation = fenetre.getSituationFamiliale(i);
+            int nbEnfants = fenetre.getNbEnfants(i);
+            int nbEnfantsHandicap = fenetre.getNbEnfantsHandicap(i);
+            boolean parentIsole = fenetre.isParentIsole(i);
+            if (MotifRejet.verifier(revenu1, revenu2, situation, nbEnfants, nbEnfantsHandicap, parentIsole) == null) {
+                accumulateur.ajouter(situation, simulateur.calculer(revenu1, revenu2, situation, nbEnfants,
+                        nbEnfantsHandicap, parentIsole));
+            }
+        }
+        return accumulateur;
+    }
+
+    /**
+     * Lit le flux par blocs de lignes, traite chaque bloc sur le pool et remet les résultats au consommateur
+     * dans l'ordre d'entrée, avec l'avancement de la lecture à la fin du bloc. La ligne d'en-tête éventuelle
+     * est ignorée.
+     * @param lignesLues Nombre de lignes déjà traitées avant la position du lecteur, 0 en début de fichier
+     * @return Nombre de foyers lus
+     */
+    private <T> long parBlocs(LecteurLignes lecteur, long lignesLues, TraitementBloc<T> traitement,
+                              ConsommateurBloc<T> consommateur) throws IOException {
+        Deque<BlocEnVol<T>> enVol = new ArrayDeque<>();
+        List<String> bloc = new ArrayList<>(tailleBloc);
+        long numeroLigne = lignesLues;
+        long premiereLigne = lignesLues + 1;
+        long nbFoyers = 0;
+        String ligne;
+        while ((ligne = lecteur.lireLigne()) != null) {
+            numeroLigne++;
+            if (numeroLigne == 1 && estEntete(ligne)) {
+                premiereLigne = 2;
+                continue;
+            }
+            if (!ligne.isBlank()) {
+                nbFoyers++;
+            }
+            bloc.add(ligne);
+            if (bloc.size() == tailleBloc) {
+                enVol.add(soumettre(traitement, bloc, premiereLigne,
+                        new Avancement(lecteur.getPosition(), numeroLigne, nbFoyers)));
+                premiereLigne = numeroLigne + 1;
+                bloc = new ArrayList<>(tailleBloc);
+                while (enVol.size() >= nbThreads * BLOCS_EN_VOL_PAR_THREAD) {
+                    BlocEnVol<T> termine = enVol.poll();
+                    consommateur.accepter(attendre(termine.resultat), termine.avancement);
+                }
+            }
+        }
+        if (!bloc.isEmpty()) {
+            enVol.add(soumettre(traitement, bloc, premiereLigne,
+                    new Avancement(lecteur.getPosition(), numeroLigne, nbFoyers)));
+        }
+        while (!enVol.isEmpty()) {
+            BlocEnVol<T> termine = enVol.poll();
+            consommateur.accepter(attendre(termine.resultat), termine.avancement);
+        }
+        return nbFoyers;
+    }
+
+    @FunctionalInterface
+    private interface ConsommateurBloc<T> {
+        void accepter(T resultat, Avancement avancement) throws IOException;
+    }
+
+    /**
+     * Avancement de la lecture à la fin d'un bloc.
+     */
+    private static final class Avancement {
+        /** Position en octets de la fin du bloc dans l'entrée, -1 sur un flux de caractères. */
+        final long finEntree;
+        final long derniereLigne;
+        /** Nombre de foyers lus depuis le début de la lecture, bloc compris. */
+        final long nbFoyers;
+
+        Avancement(long finEntree, long derniereLigne, long nbFoyers) {
+            this.finEntree = finEntree;
+            this.derniereLigne = derniereLigne;
+            this.nbFoyers = nbFoyers;
+        }
+    }
+
+    private static final class BlocEnVol<T> {
+        final Future<T> resultat;
+        final Avancement avancement;
+
+        BlocEnVol(Future<T> resultat, Avancement avancement) {
+            this.resultat = resultat;
+            this.avancement = avancement;
+        }
+    }
+
+    private <T> BlocEnVol<T> soumettre(TraitementBloc<T> traitement, List<String> bloc, long premiereLigne,
+                                       Avancement avancement) {
+        return new BlocEnVol<>(executeur.submit(() -> traitement.traiter(bloc, premiereLigne)), avancement);
+    }
+
+    /**
+     * @param rapport Rapport des rejets, ou null pour interrompre le lot à la première ligne invalide
+     */
+    private String calculerBloc(List<String> lignes, long premiereLigne, RapportRejets rapport) {
+        StringBuilder sortie = new StringBuilder(lignes.size() * 64);
+        for (int i = 0; i < lignes.size(); i++) {
+            String ligne = lignes.get(i);
+            if (ligne.isBlank()) {
+                continue;
+            }
+            FoyerFiscal foyer = lireFoyer(simulateur, ligne, premiereLigne + i, rapport);
+            if (foyer != null) {
+                foyer.ecrireCsv(sortie);
+                ecrireResultat(sortie, calculer(foyer));
+                sortie.append('\n');
+            }
+        }
+        return sortie.toString();
+    }
+
+    private void agregerBloc(List<String> lignes, long premiereLigne, RapportRejets rapport,
+                             AccumulateurPopulation accumulateur) {
+        for (int i = 0; i < lignes.size(); i++) {
+            String ligne = lignes.get(i);
+            if (ligne.isBlank()) {
+                continue;
+            }
+            FoyerFiscal foyer = lireFoyer(simulateur, ligne, premiereLigne + i, rapport);
+            if (foyer != null) {
+                accumulateur.ajouter(foyer.getSituationFamiliale(), calculer(foyer));
+            }
+        }
+    }
+
+    /**
+     * Lecture et contrôle d'une ligne. Avec un rapport, une ligne invalide y est consignée sans exception.
+     * Partagée avec {@link TravailleurLot}, pour que les lots répartis rejettent les mêmes lignes.
+     * @return Foyer valide, ou null si la ligne est rejetée dans le rapport
+     * @throws IllegalArgumentException sans rapport, si la ligne est invalide, avec son numéro
+     */
+    static FoyerFiscal lireFoyer(Simulateur simulateur, String ligne, long numeroLigne, RapportRejets rapport) {
+        FoyerFiscal foyer;
+        if (rapport == null) {
+            try {
+                foyer = FoyerFiscal.depuisCsv(ligne);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Ligne " + numeroLigne + " : " + e.getMessage(), e);
+            }
+        } else {
+            foyer = FoyerFiscal.lireCsv(ligne);
+            if (foyer == null) {
+                rapport.rejeter(numeroLigne, MotifRejet.FORMAT_INVALIDE.getCode());
+                return null;
+            }
+        }
+        int code = simulateur.verifier(foyer.getRevenuNet1(), foyer.getRevenuNet2(), foyer.getSituationFamiliale(),
+                foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(), foyer.isParentIsole());
+        if (code == MotifRejet.CODE_VALIDE) {
+            return foyer;
+        }
+        if (rapport == null) {
+            throw new IllegalArgumentException("Ligne " + numeroLigne + " : "
+                    + MotifRejet.depuisCode(code).getMessage());
+        }
+        rapport.rejeter(numeroLigne, code);
+        return null;
+    }
+
+    ResultatImpot calculer(FoyerFiscal foyer) {
+        return simulateur.calculer(foyer.getRevenuNet1(), foyer.getRevenuNet2(), foyer.getSituationFamiliale(),
+                foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(), foyer.isParentIsole());
+    }
+
+    /**
+     * Écrit les colonnes de résultat de {@link #ENTETE_SORTIE}, chacune précédée d'une virgule.
+     * @param sortie Tampon de sortie
+     * @param resultat Résultat du calcul
+     */
+    public static void ecrireResultat(StringBuilder sortie, ResultatImpot resultat) {
+        sortie.append(',');
+        ajouterMontant(sortie, resultat.getRevenuFiscalReference());
+        sortie.append(',');
+        ajouterMontant(sortie, resultat.getAbattement());
+        sortie.append(',').append(resultat.getNbParts()).append(',');
+        ajouterMontant(sortie, resultat.getImpotAvantDecote());
+        sortie.append(',');
+        ajouterMontant(sortie, resultat.getDecote());
+        sortie.append(',');
+        ajouterMontant(sortie, resultat.getContribExceptionnelle());
+        sortie.append(',').append(resultat.getImpotNetArrondi());
+    }
+
+    static void ajouterMontant(StringBuilder sortie, double montant) {
+        long entier = (long) montant;
+        if (entier == montant) {
+            sortie.append(entier);
+        } else {
+            sortie.append(montant);
+        }
+    }
+
+    static boolean estEntete(String ligne) {
+        return !ligne.isEmpty() && !Character.isDigit(ligne.charAt(0)) && ligne.charAt(0) != '-';
+    }
+
+    private static <T> T attendre(Future<T> bloc) throws IOException {
+        try {
+            return bloc.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Traitement par lot interrompu", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        executeur.shutdown();
+    }
+
+    /**
+     * Point d'entrée en ligne de commande : {@code MoteurLot <entree.csv> <sortie.csv> [nbThreads]}.
+     * @param args Arguments de la ligne de commande
+     * @throws IOException en cas d'erreur de lecture ou d'écriture
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage : MoteurLot <entree.csv> <sortie.csv> [nbThreads]");
+            System.exit(1);
+        }
+        int nbThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        try (MoteurLot moteur = new MoteurLot(new Simulateur(), nbThreads, TAILLE_BLOC_DEFAUT)) {
+            long debut = System.nanoTime();
+            long nbFoyers = moteur.traiter(Path.of(args[0]), Path.of(args[1]));
+            double secondes = (System.nanoTime() - debut) / 1e9;
+            System.out.printf("%d foyers traités en %.3f s (%.0f foyers/s, %d threads)%n",
+                    nbFoyers, secondes, nbFoyers / secondes, nbThreads);
+        }
+    }
+}
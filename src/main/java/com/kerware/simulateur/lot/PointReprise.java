@@ -0,0 +1,134 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.Bareme;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Point de reprise d'un traitement par lot : position dans le fichier d'entrée et dans le fichier de
+ * sortie à la fin du dernier bloc écrit, nombre de foyers lus et, pour une agrégation, agrégats partiels.
+ * <p>
+ * Un point est écrit dans un fichier temporaire forcé sur disque puis renommé atomiquement : le fichier de
+ * reprise contient toujours un point complet, le précédent ou le nouveau. Une somme de contrôle protège
+ * le contenu. Le fichier de sortie est forcé sur disque avant l'écriture du point, qui ne désigne donc
+ * jamais des résultats perdus.
+ */
+public final class PointReprise {
+
+    static final int SIGNATURE = 0x494D5052; // "IMPR"
+    static final short VERSION = 2;
+
+    /** Point d'un traitement qui n'a encore rien lu. */
+    static final PointReprise DEBUT = new PointReprise(0, 0, 0, 0, null);
+
+    private final long positionEntree;
+    private final long derniereLigne;
+    private final long positionSortie;
+    private final long nbFoyers;
+    private final AccumulateurPopulation accumulateur;
+
+    /**
+     * @param positionEntree Position en octets de la première ligne non traitée
+     * @param derniereLigne Numéro de la dernière ligne traitée
+     * @param positionSortie Taille du fichier de sortie, -1 pour une agrégation
+     * @param nbFoyers Nombre de foyers lus
+     * @param accumulateur Agrégats partiels, ou null pour un traitement qui écrit ses résultats
+     */
+    PointReprise(long positionEntree, long derniereLigne, long positionSortie, long nbFoyers,
+                 AccumulateurPopulation accumulateur) {
+        this.positionEntree = positionEntree;
+        this.derniereLigne = derniereLigne;
+        this.positionSortie = positionSortie;
+        this.nbFoyers = nbFoyers;
+        this.accumulateur = accumulateur;
+    }
+
+    public long getPositionEntree() { return positionEntree; }
+    public long getDerniereLigne() { return derniereLigne; }
+    public long getPositionSortie() { return positionSortie; }
+    public long getNbFoyers() { return nbFoyers; }
+
+    /**
+     * @return Agrégats partiels, ou null pour un traitement qui écrit ses résultats
+     */
+    public AccumulateurPopulation getAccumulateur() { return accumulateur; }
+
+    /**
+     * Lit le point de reprise d'un fichier.
+     * @param fichier Fichier de reprise
+     * @param bareme Barème des agrégats partiels éventuels
+     * @return Point lu, ou null si le fichier n'existe pas
+     * @throws IOException si le fichier est illisible ou altéré
+     */
+    public static PointReprise lire(Path fichier, Bareme bareme) throws IOException {
+        byte[] contenu;
+        try {
+            contenu = Files.readAllBytes(fichier);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (contenu.length < Long.BYTES) {
+            throw new IOException("Point de reprise tronqué : " + fichier);
+        }
+        CRC32 controle = new CRC32();
+        controle.update(contenu, 0, contenu.length - Long.BYTES);
+        if (ByteBuffer.wrap(contenu, contenu.length - Long.BYTES, Long.BYTES).getLong() != controle.getValue()) {
+            throw new IOException("Point de reprise altéré : " + fichier);
+        }
+        DataInputStream entree = new DataInputStream(new ByteArrayInputStream(contenu));
+        if (entree.readInt() != SIGNATURE || entree.readShort() != VERSION) {
+            throw new IOException("Fichier de reprise invalide : " + fichier);
+        }
+        long positionEntree = entree.readLong();
+        long derniereLigne = entree.readLong();
+        long positionSortie = entree.readLong();
+        long nbFoyers = entree.readLong();
+        AccumulateurPopulation accumulateur = entree.readBoolean() ? AccumulateurPopulation.lire(entree, bareme) : null;
+        return new PointReprise(positionEntree, derniereLigne, positionSortie, nbFoyers, accumulateur);
+    }
+
+    /**
+     * Remplace durablement le point de reprise du fichier par celui-ci.
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    void ecrire(Path fichier) throws IOException {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(256);
+        DataOutputStream sortie = new DataOutputStream(octets);
+        sortie.writeInt(SIGNATURE);
+        sortie.writeShort(VERSION);
+        sortie.writeLong(positionEntree);
+        sortie.writeLong(derniereLigne);
+        sortie.writeLong(positionSortie);
+        sortie.writeLong(nbFoyers);
+        sortie.writeBoolean(accumulateur != null);
+        if (accumulateur != null) {
+            accumulateur.ecrire(sortie);
+        }
+        CRC32 controle = new CRC32();
+        controle.update(octets.toByteArray());
+        sortie.writeLong(controle.getValue());
+
+        Path temporaire = fichier.resolveSibling(fichier.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer tampon = ByteBuffer.wrap(octets.toByteArray());
+            while (tampon.hasRemaining()) {
+                canal.write(tampon);
+            }
+            canal.force(true);
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
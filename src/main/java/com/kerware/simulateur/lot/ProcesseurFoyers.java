@@ -0,0 +1,285 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.HistogrammeLatences;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.Simulateur;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calcul d'un flux de foyers sous contrôle de la demande : les foyers reçus d'un {@link Flow.Publisher} sont
+ * contrôlés (règles de {@link MotifRejet}), calculés en parallèle et publiés dans leur ordre d'arrivée sous
+ * forme de {@link ResultatFoyer}, rejets compris.
+ * <p>
+ * Le processeur ne demande à la source que ce qu'il peut garder : au plus {@code capacite} foyers sont en
+ * cours, reçus mais pas encore publiés, et chaque publication libère une demande d'un foyer. La publication
+ * attend lorsque les abonnés ne suivent pas ; le processeur cesse alors de demander et la source est freinée.
+ * La mémoire occupée est ainsi bornée par la capacité et par le tampon de chaque abonné, quel que soit le
+ * débit de la source. La durée entre l'arrivée d'un foyer et la publication de son résultat est donnée
+ * par {@link ResultatFoyer#getLatenceNanos()} et cumulée dans {@link #getLatences()}.
+ * <p>
+ * Une erreur de la source n'est transmise qu'une fois les résultats publiés pris par les abonnés, car
+ * {@link #closeExceptionally(Throwable)} abandonne ceux qui restent dans leurs tampons. Aucun thread
+ * n'attend pour autant : l'état des tampons est revérifié périodiquement, et l'erreur est transmise au
+ * plus tard au bout du délai de transmission, même si un abonné a cessé de demander.
+ */
+public final class ProcesseurFoyers extends SubmissionPublisher<ResultatFoyer>
+        implements Flow.Processor<FoyerFiscal, ResultatFoyer> {
+
+    /** Délai de transmission d'une erreur de la source par défaut, en millisecondes. */
+    public static final int DELAI_ERREUR_DEFAUT = 10_000;
+
+    private static final long INTERVALLE_VERIFICATION_MILLIS = 1;
+
+    private final Simulateur simulateur;
+    private final ExecutorService calcul;
+    private final int capacite;
+    private final int delaiErreur;
+    private final HistogrammeLatences latences = new HistogrammeLatences();
+
+    // Verrou distinct du moniteur du publieur, que SubmissionPublisher utilise pour lui-même
+    private final Object verrou = new Object();
+    // Résultats calculés en attente de publication, rangés par numéro modulo la capacité
+    private final ResultatFoyer[] termines;
+    private Flow.Subscription abonnement;
+    private long nbRecus;
+    private long nbPublies;
+    private boolean enPublication;
+    private boolean sourceTerminee;
+    private boolean terminaisonEngagee;
+    private Throwable erreur;
+
+    /**
+     * @param simulateur Simulateur partagé par les threads de calcul
+     * @param parallelisme Nombre de threads de calcul
+     * @param capacite Nombre maximal de foyers en cours ; c'est aussi la taille du tampon de chaque abonné,
+     * arrondie par {@link SubmissionPublisher} à la puissance de deux supérieure
+     */
+    public ProcesseurFoyers(Simulateur simulateur, int parallelisme, int capacite) {
+        this(simulateur, parallelisme, capacite, DELAI_ERREUR_DEFAUT);
+    }
+
+    /**
+     * @param simulateur Simulateur partagé par les threads de calcul
+     * @param parallelisme Nombre de threads de calcul
+     * @param capacite Nombre maximal de foyers en cours ; c'est aussi la taille du tampon de chaque abonné,
+     * arrondie par {@link SubmissionPublisher} à la puissance de deux supérieure
+     * @param delaiErreur Délai laissé aux abonnés pour prendre les résultats publiés avant la transmission
+     * d'une erreur de la source, en millisecondes
+     */
+    public ProcesseurFoyers(Simulateur simulateur, int parallelisme, int capacite, int delaiErreur) {
+        super(executeurPublication(), capacite);
+        if (parallelisme < 1 || capacite < 1 || delaiErreur < 0) {
+            throw new IllegalArgumentException("Le parallélisme et la capacité doivent être positifs, et le délai "
+                    + "positif ou nul");
+        }
+        this.simulateur = simulateur;
+        this.calcul = Executors.newFixedThreadPool(parallelisme);
+        this.capacite = capacite;
+        this.delaiErreur = delaiErreur;
+        this.termines = new ResultatFoyer[capacite];
+    }
+
+    /**
+     * Même exécuteur que celui d'un {@link SubmissionPublisher} par défaut : le pool commun s'il a plus d'un
+     * thread, un thread par tâche sinon, pour qu'un abonné lent ne bloque pas les autres tâches du pool.
+     */
+    private static Executor executeurPublication() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool()
+                : tache -> new Thread(tache, "processeur-foyers-publication").start();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        synchronized (verrou) {
+            if (abonnement != null) {
+                subscription.cancel();
+                return;
+            }
+            abonnement = subscription;
+        }
+        subscription.request(capacite);
+    }
+
+    @Override
+    public void onNext(FoyerFiscal foyer) {
+        Objects.requireNonNull(foyer);
+        long arrivee = System.nanoTime();
+        long numero;
+        synchronized (verrou) {
+            if (nbRecus - nbPublies >= capacite) {
+                numero = -1;
+            } else {
+                numero = nbRecus++;
+            }
+        }
+        if (numero < 0) {
+            abonnement.cancel();
+            closeExceptionally(new IllegalStateException("Foyer reçu au-delà de la demande"));
+            return;
+        }
+        try {
+            calcul.execute(() -> calculer(numero, foyer, arrivee));
+        } catch (RejectedExecutionException e) {
+            // Processeur fermé : la source n'a plus à produire
+            abonnement.cancel();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        synchronized (verrou) {
+            sourceTerminee = true;
+            erreur = throwable;
+        }
+        terminerSiPossible();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (verrou) {
+            sourceTerminee = true;
+        }
+        terminerSiPossible();
+    }
+
+    /**
+     * @return Nombre de foyers reçus dont le résultat n'est pas encore publié, au plus la capacité
+     */
+    public int getNbEnCours() {
+        synchronized (verrou) {
+            return (int) (nbRecus - nbPublies);
+        }
+    }
+
+    /**
+     * @return Durées entre l'arrivée de chaque foyer et la publication de son résultat
+     */
+    public HistogrammeLatences getLatences() {
+        return latences;
+    }
+
+    private void calculer(long numero, FoyerFiscal foyer, long arrivee) {
+        ResultatFoyer resultat;
+        try {
+            int code = simulateur.verifier(foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole());
+            resultat = code != MotifRejet.CODE_VALIDE
+                    ? new ResultatFoyer(numero, foyer, null, MotifRejet.depuisCode(code), arrivee)
+                    : new ResultatFoyer(numero, foyer, simulateur.calculer(foyer.getRevenuNet1(),
+                    foyer.getRevenuNet2(), foyer.getSituationFamiliale(), foyer.getNbEnfants(),
+                    foyer.getNbEnfantsHandicap(), foyer.isParentIsole()), null, arrivee);
+        } catch (RuntimeException e) {
+            abonnement.cancel();
+            closeExceptionally(e);
+            return;
+        }
+        synchronized (verrou) {
+            termines[(int) (numero % capacite)] = resultat;
+            if (enPublication) {
+                // Le thread qui publie reprendra ce résultat à son tour
+                return;
+            }
+            enPublication = true;
+        }
+        publier();
+    }
+
+    /**
+     * Publie les résultats consécutifs disponibles, un seul thread à la fois. La remise à un abonné dont le
+     * tampon est plein attend : pendant ce temps aucun foyer n'est demandé à la source.
+     */
+    private void publier() {
+        while (true) {
+            ResultatFoyer suivant;
+            synchronized (verrou) {
+                int rang = (int) (nbPublies % capacite);
+                suivant = termines[rang];
+                if (suivant == null) {
+                    enPublication = false;
+                    break;
+                }
+                termines[rang] = null;
+            }
+            long instant = System.nanoTime();
+            suivant.publier(instant);
+            latences.enregistrer(suivant.getLatenceNanos());
+            try {
+                submit(suivant);
+            } catch (IllegalStateException e) {
+                // Processeur fermé par l'utilisateur
+                abonnement.cancel();
+                synchronized (verrou) {
+                    enPublication = false;
+                }
+                return;
+            }
+            synchronized (verrou) {
+                nbPublies++;
+            }
+            abonnement.request(1);
+        }
+        terminerSiPossible();
+    }
+
+    /**
+     * Transmet la fin de la source aux abonnés une fois tous les foyers reçus publiés. Une erreur n'est
+     * transmise qu'une fois les résultats remis aux abonnés, comme la fin normale, ou au bout du délai.
+     */
+    private void terminerSiPossible() {
+        Throwable cause;
+        synchronized (verrou) {
+            if (!sourceTerminee || enPublication || nbPublies != nbRecus || terminaisonEngagee || isClosed()) {
+                return;
+            }
+            terminaisonEngagee = true;
+            cause = erreur;
+        }
+        if (cause != null) {
+            transmettreErreur(cause, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delaiErreur));
+        } else {
+            close();
+        }
+    }
+
+    /**
+     * Transmet l'erreur si les abonnés ont pris tous les résultats ou si l'échéance est passée, sinon
+     * programme une nouvelle vérification, sans bloquer le thread appelant.
+     */
+    private void transmettreErreur(Throwable cause, long echeance) {
+        if (isClosed()) {
+            return;
+        }
+        if (estimateMaximumLag() > 0 && System.nanoTime() - echeance < 0) {
+            CompletableFuture.delayedExecutor(INTERVALLE_VERIFICATION_MILLIS, TimeUnit.MILLISECONDS)
+                    .execute(() -> transmettreErreur(cause, echeance));
+            return;
+        }
+        closeExceptionally(cause);
+    }
+
+    /**
+     * Termine le flux des abonnés après les résultats déjà publiés et arrête les threads de calcul.
+     */
+    @Override
+    public void close() {
+        super.close();
+        calcul.shutdown();
+    }
+
+    @Override
+    public void closeExceptionally(Throwable error) {
+        super.closeExceptionally(error);
+        calcul.shutdown();
+    }
+}
@@ -0,0 +1,169 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.MotifRejet;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Lignes rejetées par un traitement par lot, avec le code du motif de rejet de chacune.
+ * <p>
+ * Les rejets sont comptés par motif ; le détail (numéro de ligne et code) est conservé pour les
+ * {@code capacite} plus petits numéros de ligne seulement, la mémoire reste donc bornée quelle que soit
+ * la taille du lot. Les méthodes sont synchronisées : les blocs calculés en parallèle y reportent
+ * leurs rejets dans le désordre, et le détail restitué, dans l'ordre des lignes, ne dépend pas de cet ordre.
+ */
+public final class RapportRejets {
+
+    /** Nombre de rejets détaillés par défaut. */
+    public static final int CAPACITE_DEFAUT = 100_000;
+
+    private static final MotifRejet[] MOTIFS = MotifRejet.values();
+
+    private final int capacite;
+    private final long[] nbParMotif = new long[MOTIFS.length + 1];
+    // Numéro de ligne dans les bits de poids fort, code dans l'octet de poids faible
+    private long[] cles = new long[16];
+    private int nbDetailles;
+    private boolean trie = true;
+    // Une fois la capacité atteinte, tas max : la plus grande clé conservée est en tête
+    private boolean tas;
+
+    public RapportRejets() {
+        this(CAPACITE_DEFAUT);
+    }
+
+    /**
+     * @param capacite Nombre maximal de rejets dont le détail est conservé
+     */
+    public RapportRejets(int capacite) {
+        if (capacite < 0) {
+            throw new IllegalArgumentException("Capacité négative : " + capacite);
+        }
+        this.capacite = capacite;
+    }
+
+    /**
+     * @param ligne Numéro (à partir de 1) de la ligne rejetée
+     * @param code Code du motif, voir {@link MotifRejet#getCode()}
+     */
+    public synchronized void rejeter(long ligne, int code) {
+        nbParMotif[code]++;
+        long cle = ligne << Byte.SIZE | code;
+        if (nbDetailles < capacite) {
+            if (nbDetailles == cles.length) {
+                cles = Arrays.copyOf(cles, (int) Math.min(capacite, 2L * cles.length));
+            }
+            trie &= nbDetailles == 0 || cles[nbDetailles - 1] < cle;
+            cles[nbDetailles++] = cle;
+            return;
+        }
+        // Cas courant d'un lot rejeté dans l'ordre : la ligne suit toutes celles conservées
+        if (nbDetailles == 0 || (trie && cle > cles[nbDetailles - 1])) {
+            return;
+        }
+        if (!tas) {
+            entasser();
+        }
+        if (cle < cles[0]) {
+            cles[0] = cle;
+            descendre(0);
+        }
+    }
+
+    /**
+     * @return Nombre total de lignes rejetées, détaillées ou non
+     */
+    public synchronized long getNbRejets() {
+        long total = 0;
+        for (long nb : nbParMotif) {
+            total += nb;
+        }
+        return total;
+    }
+
+    public synchronized long getNbRejets(MotifRejet motif) {
+        return nbParMotif[motif.getCode()];
+    }
+
+    /**
+     * @return Nombre de rejets dont le détail est conservé
+     */
+    public synchronized int getNbDetailles() {
+        return nbDetailles;
+    }
+
+    /**
+     * @param i Rang du rejet détaillé, dans l'ordre des lignes
+     * @return Numéro de la ligne rejetée
+     */
+    public synchronized long getLigne(int i) {
+        trier();
+        return cles[i] >>> Byte.SIZE;
+    }
+
+    /**
+     * @param i Rang du rejet détaillé, dans l'ordre des lignes
+     * @return Motif du rejet
+     */
+    public synchronized MotifRejet getMotif(int i) {
+        trier();
+        return MotifRejet.depuisCode((byte) cles[i]);
+    }
+
+    /**
+     * Écrit le détail au format CSV {@code ligne,code,motif}, suivi du nombre de rejets non détaillés s'il y en a.
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public synchronized void ecrire(Writer sortie) throws IOException {
+        trier();
+        sortie.write("ligne,code,motif\n");
+        for (int i = 0; i < nbDetailles; i++) {
+            byte code = (byte) cles[i];
+            sortie.write((cles[i] >>> Byte.SIZE) + "," + code + "," + MotifRejet.depuisCode(code).getMessage()
+                    + '\n');
+        }
+        long nonDetailles = getNbRejets() - nbDetailles;
+        if (nonDetailles > 0) {
+            sortie.write("# " + nonDetailles + " rejets supplémentaires non détaillés\n");
+        }
+        sortie.flush();
+    }
+
+    /**
+     * Les blocs terminent dans le désordre : le détail est trié par numéro de ligne à la première lecture.
+     */
+    private void trier() {
+        if (trie) {
+            return;
+        }
+        Arrays.sort(cles, 0, nbDetailles);
+        trie = true;
+        tas = false;
+    }
+
+    private void entasser() {
+        for (int i = nbDetailles / 2 - 1; i >= 0; i--) {
+            descendre(i);
+        }
+        trie = false;
+        tas = true;
+    }
+
+    private void descendre(int i) {
+        long cle = cles[i];
+        int enfant;
+        while ((enfant = 2 * i + 1) < nbDetailles) {
+            if (enfant + 1 < nbDetailles && cles[enfant + 1] > cles[enfant]) {
+                enfant++;
+            }
+            if (cles[enfant] <= cle) {
+                break;
+            }
+            cles[i] = cles[enfant];
+            i = enfant;
+        }
+        cles[i] = cle;
+    }
+}
@@ -0,0 +1,54 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.ResultatImpot;
+
+/**
+ * Élément publié par {@link ProcesseurFoyers} pour chaque foyer reçu : résultat du calcul ou motif de rejet,
+ * et durée écoulée entre l'arrivée du foyer et la publication du résultat.
+ */
+public final class ResultatFoyer {
+
+    private final long numero;
+    private final FoyerFiscal foyer;
+    private final ResultatImpot resultat;
+    private final MotifRejet motif;
+    private final long arrivee;
+    // Fixée par le thread de publication avant la remise au publieur, qui en assure la visibilité
+    private long latenceNanos;
+
+    ResultatFoyer(long numero, FoyerFiscal foyer, ResultatImpot resultat, MotifRejet motif, long arrivee) {
+        this.numero = numero;
+        this.foyer = foyer;
+        this.resultat = resultat;
+        this.motif = motif;
+        this.arrivee = arrivee;
+    }
+
+    void publier(long instant) {
+        latenceNanos = instant - arrivee;
+    }
+
+    /**
+     * @return Rang du foyer dans le flux d'entrée, à partir de 0
+     */
+    public long getNumero() { return numero; }
+    public FoyerFiscal getFoyer() { return foyer; }
+
+    /**
+     * @return Résultat du calcul, ou null si le foyer est rejeté
+     */
+    public ResultatImpot getResultat() { return resultat; }
+
+    /**
+     * @return Motif de rejet, ou null si le foyer est valide
+     */
+    public MotifRejet getMotifRejet() { return motif; }
+
+    public boolean isRejete() { return motif != null; }
+
+    /**
+     * @return Durée entre la réception du foyer et la publication de ce résultat, en nanosecondes
+     */
+    public long getLatenceNanos() { return latenceNanos; }
+}
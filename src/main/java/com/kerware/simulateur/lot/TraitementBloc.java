@@ -0,0 +1,18 @@
+package com.kerware.simulateur.lot;
+
+import java.util.List;
+
+/**
+ * Traitement d'un bloc de lignes CSV par un thread du moteur de lot.
+ * @param <T> Résultat du bloc
+ */
+@FunctionalInterface
+interface TraitementBloc<T> {
+
+    /**
+     * @param lignes Lignes du bloc, dans l'ordre du fichier d'entrée
+     * @param premiereLigne Numéro (à partir de 1) de la première ligne du bloc dans le fichier
+     * @return Résultat du bloc, par exemple le texte à écrire en sortie
+     */
+    T traiter(List<String> lignes, long premiereLigne);
+}
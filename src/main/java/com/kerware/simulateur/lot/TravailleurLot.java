@@ -0,0 +1,207 @@
+package com.kerware.simulateur.lot;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Travailleur d'un calcul réparti par {@link CoordinateurLot} : processus qui reçoit des lots de lignes
+ * par une connexion TCP, les calcule et renvoie les résultats, les rejets et les agrégats du lot.
+ * <p>
+ * Protocole, en types {@link DataOutputStream} : le coordinateur envoie d'abord {@code int BAREME, int taille,
+ * octets UTF-8 de la définition} ({@link Bareme#definition()}), puis {@code int LOT, int id,
+ * long premiereLigne, int taille, octets UTF-8 des lignes} pour chaque lot, puis {@code int FIN}.
+ * Le travailleur répond à chaque lot par {@code int id, int nbRejets, (long ligne, byte code) × nbRejets,
+ * int taille, octets UTF-8 des lignes de résultat} suivis des agrégats du lot. Les lots d'une connexion
+ * sont calculés avec le barème reçu ; une définition illisible ou une taille de bloc hors de
+ * {@link #TAILLE_MAX} fait fermer la connexion. Chaque connexion est servie par son propre thread ;
+ * le travailleur ne conserve rien d'un lot à l'autre.
+ */
+public final class TravailleurLot implements AutoCloseable {
+
+    static final int FIN = 0;
+    static final int LOT = 1;
+    static final int BAREME = 2;
+
+    /** Taille maximale d'un bloc d'octets du protocole, au-delà de laquelle la connexion est fermée. */
+    static final int TAILLE_MAX = 1 << 28;
+
+    private final Simulateur simulateur;
+    private final ServerSocket serveur;
+    private final Thread accepteur;
+
+    /**
+     * Crée et démarre le travailleur.
+     * @param simulateur Simulateur partagé par les connexions dont le barème reçu a la même définition que
+     * son barème courant ; les autres calculent avec un simulateur propre, sans cache
+     * @param port Port d'écoute ; 0 choisit un port libre
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public TravailleurLot(Simulateur simulateur, int port) throws IOException {
+        this.simulateur = simulateur;
+        this.serveur = new ServerSocket(port);
+        this.accepteur = new Thread(this::accepter, "travailleur-lot-" + serveur.getLocalPort());
+        accepteur.setDaemon(true);
+        accepteur.start();
+    }
+
+    /**
+     * @return Port d'écoute effectif
+     */
+    public int getPort() {
+        return serveur.getLocalPort();
+    }
+
+    /**
+     * @return Adresse de ce travailleur sur la machine locale
+     */
+    public InetSocketAddress getAdresse() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), getPort());
+    }
+
+    private void accepter() {
+        while (!serveur.isClosed()) {
+            try {
+                Socket connexion = serveur.accept();
+                Thread servant = new Thread(() -> servir(connexion), "travailleur-lot-connexion");
+                servant.setDaemon(true);
+                servant.start();
+            } catch (IOException e) {
+                // Serveur fermé
+            }
+        }
+    }
+
+    private void servir(Socket connexion) {
+        try (connexion;
+             DataInputStream entree = new DataInputStream(new BufferedInputStream(connexion.getInputStream()));
+             DataOutputStream sortie = new DataOutputStream(new BufferedOutputStream(connexion.getOutputStream()))) {
+            Simulateur calcul = simulateur;
+            int message;
+            while ((message = entree.readInt()) != FIN) {
+                if (message == BAREME) {
+                    calcul = simulateurPour(new String(lireOctets(entree), StandardCharsets.UTF_8));
+                    continue;
+                }
+                if (message != LOT) {
+                    throw new IOException("Message inconnu : " + message);
+                }
+                int id = entree.readInt();
+                long premiereLigne = entree.readLong();
+                byte[] lignes = lireOctets(entree);
+                sortie.writeInt(id);
+                calculer(calcul, lignes, premiereLigne, sortie);
+                sortie.flush();
+            }
+        } catch (EOFException e) {
+            // Coordinateur parti
+        } catch (IOException | IllegalArgumentException e) {
+            // Connexion rompue ou barème illisible : le coordinateur réattribue le lot
+        }
+    }
+
+    /**
+     * Lit un bloc {@code int taille, octets} du protocole.
+     * @throws IOException si la taille annoncée est négative ou dépasse {@link #TAILLE_MAX}
+     */
+    static byte[] lireOctets(DataInputStream entree) throws IOException {
+        int taille = entree.readInt();
+        if (taille < 0 || taille > TAILLE_MAX) {
+            throw new IOException("Taille de bloc invalide : " + taille);
+        }
+        byte[] octets = new byte[taille];
+        entree.readFully(octets);
+        return octets;
+    }
+
+    /**
+     * @param definition Définition du barème envoyée par le coordinateur
+     * @return Simulateur partagé s'il applique déjà ce barème, sinon simulateur propre à la connexion
+     * @throws IOException si la définition ne décrit pas exactement un barème
+     */
+    private Simulateur simulateurPour(String definition) throws IOException {
+        List<Bareme> baremes = Bareme.lire(new StringReader(definition));
+        if (baremes.size() != 1) {
+            throw new IOException("Définition de " + baremes.size() + " barèmes au lieu d'un");
+        }
+        if (baremes.get(0).definition().equals(simulateur.getRegistre().getBaremeCourant().definition())) {
+            return simulateur;
+        }
+        return new Simulateur(new RegistreBaremes(baremes), null, simulateur.getInstrumentation());
+    }
+
+    /**
+     * Calcule les lignes d'un lot et écrit la réponse, rejets, résultats et agrégats.
+     */
+    private static void calculer(Simulateur simulateur, byte[] lignes, long premiereLigne, DataOutputStream sortie)
+            throws IOException {
+        Bareme bareme = simulateur.getRegistre().getBaremeCourant();
+        AccumulateurPopulation accumulateur = new AccumulateurPopulation(bareme);
+        RapportRejets rapport = new RapportRejets(Integer.MAX_VALUE);
+        StringBuilder resultats = new StringBuilder(lignes.length * 2);
+        LecteurLignes lecteur = new LecteurLignes(new ByteArrayInputStream(lignes), 0);
+        long numeroLigne = premiereLigne;
+        String ligne;
+        for (; (ligne = lecteur.lireLigne()) != null; numeroLigne++) {
+            if (ligne.isBlank()) {
+                continue;
+            }
+            FoyerFiscal foyer = MoteurLot.lireFoyer(simulateur, ligne, numeroLigne, rapport);
+            if (foyer == null) {
+                continue;
+            }
+            ResultatImpot resultat = simulateur.calculer(foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole());
+            accumulateur.ajouter(foyer.getSituationFamiliale(), resultat);
+            foyer.ecrireCsv(resultats);
+            MoteurLot.ecrireResultat(resultats, resultat);
+            resultats.append('\n');
+        }
+        sortie.writeInt(rapport.getNbDetailles());
+        for (int i = 0; i < rapport.getNbDetailles(); i++) {
+            sortie.writeLong(rapport.getLigne(i));
+            sortie.writeByte(rapport.getMotif(i).getCode());
+        }
+        byte[] octets = resultats.toString().getBytes(StandardCharsets.UTF_8);
+        sortie.writeInt(octets.length);
+        sortie.write(octets);
+        accumulateur.ecrire(sortie);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serveur.close();
+    }
+
+    /**
+     * Point d'entrée d'un processus travailleur : {@code TravailleurLot [port]}. Le port d'écoute effectif
+     * est écrit sur la sortie standard, sur une ligne {@code PORT <n>}, puis le processus sert les
+     * connexions jusqu'à son arrêt.
+     * @param args Arguments de la ligne de commande
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        TravailleurLot travailleur = new TravailleurLot(new Simulateur(), port);
+        System.out.println("PORT " + travailleur.getPort());
+        System.out.flush();
+        travailleur.accepteur.join();
+    }
+}
@@ -0,0 +1,269 @@
+package com.kerware.simulateur.serveur;
+
+import com.kerware.simulateur.HistogrammeLatences;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateur.lot.MoteurLot;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Service HTTP embarqué, reposant uniquement sur le JDK (com.sun.net.httpserver).
+ * <ul>
+ *     <li>{@code GET /impot?revenuNet1=...&revenuNet2=...&sitFam=...&nbEnfants=...&nbEnfantsHandicap=...&isole=...} :
+ *     calcul d'un foyer, réponse CSV au format {@link MoteurLot#ENTETE_SORTIE} ;</li>
+ *     <li>{@code POST /lot} : corps CSV de foyers au format de datasImposition.csv, résultats renvoyés
+ *     en flux au fil du calcul par un {@link MoteurLot} partagé ;</li>
+ *     <li>{@code GET /metriques} : nombre de requêtes et quantiles de latence de chaque point d'accès.</li>
+ * </ul>
+ * Chaque requête est traitée sur un thread virtuel lorsque la JVM en dispose (Java 21 et plus),
+ * sinon sur un pool de threads extensible. Le serveur n'écrit rien sur la sortie standard.
+ */
+public final class ServeurImpot implements AutoCloseable {
+
+    private static final int OK = 200;
+    private static final int REQUETE_INVALIDE = 400;
+    private static final int INTROUVABLE = 404;
+    private static final int METHODE_INTERDITE = 405;
+    private static final int PORT_DEFAUT = 8080;
+    private static final String TYPE_CSV = "text/csv; charset=utf-8";
+    private static final String TYPE_TEXTE = "text/plain; charset=utf-8";
+
+    private final Simulateur simulateur;
+    private final MoteurLot moteurLot;
+    private final HttpServer serveur;
+    private final ExecutorService executeur;
+    private final HistogrammeLatences latencesImpot = new HistogrammeLatences();
+    private final HistogrammeLatences latencesLot = new HistogrammeLatences();
+
+    /**
+     * Crée et démarre le serveur.
+     * @param simulateur Simulateur partagé par toutes les requêtes
+     * @param adresse Adresse d'écoute ; le port 0 choisit un port libre
+     * @throws IOException si l'adresse ne peut pas être ouverte
+     */
+    public ServeurImpot(Simulateur simulateur, InetSocketAddress adresse) throws IOException {
+        this.simulateur = simulateur;
+        this.moteurLot = new MoteurLot(simulateur);
+        this.executeur = creerExecuteur();
+        this.serveur = HttpServer.create(adresse, 0);
+        serveur.setExecutor(executeur);
+        serveur.createContext("/impot", mesurer(latencesImpot, this::traiterImpot));
+        serveur.createContext("/lot", mesurer(latencesLot, this::traiterLot));
+        serveur.createContext("/metriques", this::traiterMetriques);
+        serveur.start();
+    }
+
+    /**
+     * @return Port d'écoute effectif
+     */
+    public int getPort() {
+        return serveur.getAddress().getPort();
+    }
+
+    public HistogrammeLatences getLatencesImpot() { return latencesImpot; }
+    public HistogrammeLatences getLatencesLot() { return latencesLot; }
+
+    /**
+     * Threads virtuels si disponibles. Le projet compile en Java 17 : la fabrique est obtenue par réflexion.
+     */
+    private static ExecutorService creerExecuteur() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(tache -> {
+                Thread thread = new Thread(tache, "serveur-impot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Enregistre la latence d'un traitement avant que le client ne reçoive la fin de la réponse : à la
+     * fermeture du corps, qui termine la réponse, ou à défaut avant la fermeture de l'échange. Un client
+     * qui a lu la réponse trouve donc toujours sa mesure dans les métriques.
+     */
+    private static HttpHandler mesurer(HistogrammeLatences latences, HttpHandler traitement) {
+        return echange -> {
+            CorpsMesure corps = new CorpsMesure(echange.getResponseBody(), latences, System.nanoTime());
+            echange.setStreams(null, corps);
+            try (echange) {
+                try {
+                    traitement.handle(echange);
+                } finally {
+                    corps.enregistrer();
+                }
+            }
+        };
+    }
+
+    /**
+     * Corps de réponse qui enregistre la latence, une seule fois, juste avant sa fermeture.
+     */
+    private static final class CorpsMesure extends FilterOutputStream {
+
+        private final HistogrammeLatences latences;
+        private final long debut;
+        private boolean enregistre;
+
+        CorpsMesure(OutputStream corps, HistogrammeLatences latences, long debut) {
+            super(corps);
+            this.latences = latences;
+            this.debut = debut;
+        }
+
+        void enregistrer() {
+            if (!enregistre) {
+                enregistre = true;
+                latences.enregistrer(System.nanoTime() - debut);
+            }
+        }
+
+        @Override
+        public void write(byte[] octets, int debutOctets, int longueur) throws IOException {
+            out.write(octets, debutOctets, longueur);
+        }
+
+        @Override
+        public void close() throws IOException {
+            enregistrer();
+            super.close();
+        }
+    }
+
+    private void traiterImpot(HttpExchange echange) throws IOException {
+        if (!"GET".equals(echange.getRequestMethod())) {
+            repondre(echange, METHODE_INTERDITE, TYPE_TEXTE, "Méthode non autorisée\n");
+            return;
+        }
+        FoyerFiscal foyer;
+        ResultatImpot resultat;
+        try {
+            foyer = lireFoyer(echange.getRequestURI().getRawQuery());
+            resultat = simulateur.calculer(foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole());
+        } catch (IllegalArgumentException e) {
+            repondre(echange, REQUETE_INVALIDE, TYPE_TEXTE, e.getMessage() + '\n');
+            return;
+        }
+        StringBuilder corps = new StringBuilder(MoteurLot.ENTETE_SORTIE.length() + 128);
+        corps.append(MoteurLot.ENTETE_SORTIE).append('\n');
+        foyer.ecrireCsv(corps);
+        MoteurLot.ecrireResultat(corps, resultat);
+        corps.append('\n');
+        repondre(echange, OK, TYPE_CSV, corps.toString());
+    }
+
+    /**
+     * Les résultats sont écrits au fil du calcul : l'état HTTP est envoyé avant la lecture du corps.
+     * Une ligne invalide interrompt donc le flux par une dernière ligne commençant par {@code ERREUR}.
+     */
+    private void traiterLot(HttpExchange echange) throws IOException {
+        if (!"POST".equals(echange.getRequestMethod())) {
+            repondre(echange, METHODE_INTERDITE, TYPE_TEXTE, "Méthode non autorisée\n");
+            return;
+        }
+        echange.getResponseHeaders().set("Content-Type", TYPE_CSV);
+        echange.sendResponseHeaders(OK, 0);
+        try (Reader entree = new InputStreamReader(echange.getRequestBody(), StandardCharsets.UTF_8);
+             Writer sortie = new OutputStreamWriter(echange.getResponseBody(), StandardCharsets.UTF_8)) {
+            try {
+                moteurLot.traiter(entree, sortie);
+            } catch (IllegalArgumentException e) {
+                sortie.write("ERREUR," + e.getMessage() + '\n');
+            }
+        }
+    }
+
+    private void traiterMetriques(HttpExchange echange) throws IOException {
+        try (echange) {
+            if (!"/metriques".equals(echange.getRequestURI().getPath())) {
+                repondre(echange, INTROUVABLE, TYPE_TEXTE, "Introuvable\n");
+                return;
+            }
+            StringBuilder corps = new StringBuilder();
+            latencesImpot.ecrire(corps, "impot");
+            latencesLot.ecrire(corps, "lot");
+            repondre(echange, OK, TYPE_TEXTE, corps.toString());
+        }
+    }
+
+    /**
+     * Foyer décrit par les paramètres de la requête, nommés comme les colonnes de datasImposition.csv.
+     * Seuls revenuNet1 et sitFam sont obligatoires.
+     */
+    static FoyerFiscal lireFoyer(String requete) {
+        int revenuNet1 = -1;
+        int revenuNet2 = 0;
+        SituationFamiliale sitFam = null;
+        int nbEnfants = 0;
+        int nbEnfantsHandicap = 0;
+        boolean isole = false;
+        if (requete != null) {
+            for (String parametre : requete.split("&")) {
+                int egal = parametre.indexOf('=');
+                String nom = egal < 0 ? parametre : parametre.substring(0, egal);
+                String valeur = egal < 0 ? "" : URLDecoder.decode(parametre.substring(egal + 1), StandardCharsets.UTF_8);
+                switch (nom) {
+                    case "revenuNet1" -> revenuNet1 = Integer.parseInt(valeur);
+                    case "revenuNet2" -> revenuNet2 = Integer.parseInt(valeur);
+                    case "sitFam" -> sitFam = SituationFamiliale.valueOf(valeur);
+                    case "nbEnfants" -> nbEnfants = Integer.parseInt(valeur);
+                    case "nbEnfantsHandicap" -> nbEnfantsHandicap = Integer.parseInt(valeur);
+                    case "isole" -> isole = Boolean.parseBoolean(valeur);
+                    default -> throw new IllegalArgumentException("Paramètre inconnu : " + nom);
+                }
+            }
+        }
+        if (revenuNet1 < 0 || sitFam == null) {
+            throw new IllegalArgumentException("Paramètres revenuNet1 et sitFam obligatoires");
+        }
+        return new FoyerFiscal(revenuNet1, revenuNet2, sitFam, nbEnfants, nbEnfantsHandicap, isole);
+    }
+
+    private static void repondre(HttpExchange echange, int statut, String type, String corps) throws IOException {
+        byte[] octets = corps.getBytes(StandardCharsets.UTF_8);
+        echange.getResponseHeaders().set("Content-Type", type);
+        echange.sendResponseHeaders(statut, octets.length);
+        try (OutputStream sortie = echange.getResponseBody()) {
+            sortie.write(octets);
+        }
+    }
+
+    @Override
+    public void close() {
+        serveur.stop(0);
+        moteurLot.close();
+        executeur.shutdown();
+    }
+
+    /**
+     * Point d'entrée en ligne de commande : {@code ServeurImpot [port]}.
+     * @param args Arguments de la ligne de commande
+     * @throws IOException si le port ne peut pas être ouvert
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT_DEFAUT;
+        ServeurImpot serveur = new ServeurImpot(new Simulateur(), new InetSocketAddress(port));
+        Runtime.getRuntime().addShutdownHook(new Thread(serveur::close));
+        System.out.println("Serveur d'impôt à l'écoute sur le port " + serveur.getPort());
+    }
+}
@@ -0,0 +1,105 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Population de foyers rangée par colonnes de types primitifs, avec les colonnes de résultats
+ * remplies par un {@link NoyauColonnes}.
+ * <p>
+ * Le profil d'un foyer (situation familiale, enfants, enfants handicapés, parent isolé) est codé
+ * sur un {@code short} : il y a plus de 256 profils possibles. Les tableaux renvoyés par les
+ * accesseurs sont ceux de l'instance, sans copie, pour que la population puisse être remplie
+ * et relue sans allocation ; seuls les {@link #getTaille()} premiers éléments sont significatifs.
+ */
+public final class ColonnesFoyers {
+
+    private final int[] revenus1;
+    private final int[] revenus2;
+    private final short[] profils;
+    private int taille;
+
+    private final double[] revenuFiscalReference;
+    private final double[] impotAvantDecote;
+    private final double[] decote;
+    private final double[] contribExceptionnelle;
+    private final int[] impotNet;
+
+    /**
+     * @param capacite Nombre maximal de foyers
+     */
+    public ColonnesFoyers(int capacite) {
+        if (capacite < 0) {
+            throw new IllegalArgumentException("Capacité négative : " + capacite);
+        }
+        this.revenus1 = new int[capacite];
+        this.revenus2 = new int[capacite];
+        this.profils = new short[capacite];
+        this.revenuFiscalReference = new double[capacite];
+        this.impotAvantDecote = new double[capacite];
+        this.decote = new double[capacite];
+        this.contribExceptionnelle = new double[capacite];
+        this.impotNet = new int[capacite];
+    }
+
+    /**
+     * Code du profil d'un foyer, à ranger dans {@link #getProfils()}.
+     * @return Code du profil
+     * @throws IllegalArgumentException si la combinaison est invalide
+     */
+    public static short profil(SituationFamiliale sitFam, int nbEnfants, int nbEnfantsHandicapes,
+                               boolean parentIsol) {
+        MotifRejet motif = MotifRejet.verifier(0, 0, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        if (motif != null) {
+            throw new IllegalArgumentException(motif.getMessage());
+        }
+        return (short) TableProfils.indice(sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+    }
+
+    /**
+     * Ajoute un foyer à la suite des précédents.
+     * @throws IllegalArgumentException si les paramètres sont invalides
+     * @throws IllegalStateException si la capacité est atteinte
+     */
+    public void ajouter(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                        int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        if (taille == revenus1.length) {
+            throw new IllegalStateException("Capacité de " + revenus1.length + " foyers atteinte");
+        }
+        MotifRejet motif = MotifRejet.verifier(revNetDecl1, revNetDecl2, sitFam, nbEnfants,
+                nbEnfantsHandicapes, parentIsol);
+        if (motif != null) {
+            throw new IllegalArgumentException(motif.getMessage());
+        }
+        revenus1[taille] = revNetDecl1;
+        revenus2[taille] = revNetDecl2;
+        profils[taille] = (short) TableProfils.indice(sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        taille++;
+    }
+
+    /**
+     * Fixe le nombre de foyers après un remplissage direct des colonnes d'entrée.
+     * @param taille Nombre de foyers, au plus la capacité
+     */
+    public void setTaille(int taille) {
+        if (taille < 0 || taille > revenus1.length) {
+            throw new IllegalArgumentException("Taille hors de [0, " + revenus1.length + "] : " + taille);
+        }
+        this.taille = taille;
+    }
+
+    public int getTaille() { return taille; }
+    public int getCapacite() { return revenus1.length; }
+    public int[] getRevenus1() { return revenus1; }
+    public int[] getRevenus2() { return revenus2; }
+    public short[] getProfils() { return profils; }
+    public double[] getRevenuFiscalReference() { return revenuFiscalReference; }
+    public double[] getImpotAvantDecote() { return impotAvantDecote; }
+    public double[] getDecote() { return decote; }
+    public double[] getContribExceptionnelle() { return contribExceptionnelle; }
+
+    /**
+     * @return Impôt net arrondi de chaque foyer, identique à {@link com.kerware.simulateur.Simulateur#calculImpot}
+     */
+    public int[] getImpotNet() { return impotNet; }
+}
@@ -0,0 +1,52 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.Bareme;
+
+/**
+ * Calcul de l'impôt d'une population rangée en colonnes ({@link ColonnesFoyers}).
+ * <p>
+ * Deux implémentations donnent des résultats identiques à
+ * {@link com.kerware.simulateur.Simulateur#calculImpot}, valeurs intermédiaires comprises :
+ * un noyau scalaire et un noyau qui traite plusieurs foyers par instruction avec l'API Vector
+ * du JDK. Ce dernier n'est disponible que si la JVM est lancée avec
+ * {@code --add-modules jdk.incubator.vector} ; {@link #pour(Bareme)} se replie sinon sur le noyau scalaire.
+ */
+public interface NoyauColonnes {
+
+    /**
+     * Calcule tous les foyers et remplit les colonnes de résultats.
+     * @param foyers Population à calculer
+     * @throws IllegalArgumentException si un foyer est invalide ; aucun résultat n'est alors écrit
+     */
+    void calculer(ColonnesFoyers foyers);
+
+    /**
+     * @return Nom de l'implémentation, pour les journaux et les benchmarks
+     */
+    String getNom();
+
+    /**
+     * @param bareme Barème appliqué
+     * @return Noyau vectoriel si le module jdk.incubator.vector est chargé, noyau scalaire sinon
+     */
+    static NoyauColonnes pour(Bareme bareme) {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Chargement par réflexion : la classe ne peut pas être liée sans le module
+                return (NoyauColonnes) Class.forName("com.kerware.simulateurReusine.NoyauVectoriel")
+                        .getDeclaredConstructor(Bareme.class).newInstance(bareme);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return scalaire(bareme);
+            }
+        }
+        return scalaire(bareme);
+    }
+
+    /**
+     * @param bareme Barème appliqué
+     * @return Noyau scalaire
+     */
+    static NoyauColonnes scalaire(Bareme bareme) {
+        return new NoyauScalaire(bareme);
+    }
+}
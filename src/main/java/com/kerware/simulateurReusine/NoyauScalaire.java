@@ -0,0 +1,73 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ReglesImpot;
+import com.kerware.simulateur.ResultatImpot;
+
+/**
+ * Noyau de calcul par colonnes, un foyer après l'autre. Sert aussi à traiter la fin de
+ * population que le noyau vectoriel ne peut pas remplir d'un vecteur complet.
+ */
+final class NoyauScalaire implements NoyauColonnes {
+
+    private final TableNoyau table;
+
+    NoyauScalaire(Bareme bareme) {
+        this.table = new TableNoyau(bareme);
+    }
+
+    @Override
+    public void calculer(ColonnesFoyers foyers) {
+        table.verifier(foyers);
+        calculer(table, foyers, 0, foyers.getTaille());
+    }
+
+    @Override
+    public String getNom() {
+        return "scalaire";
+    }
+
+    /**
+     * Calcule les foyers de {@code debut} inclus à {@code fin} exclue, supposés valides.
+     */
+    static void calculer(TableNoyau t, ColonnesFoyers foyers, int debut, int fin) {
+        int[] revenus1 = foyers.getRevenus1();
+        int[] revenus2 = foyers.getRevenus2();
+        short[] profils = foyers.getProfils();
+        for (int i = debut; i < fin; i++) {
+            int p = profils[i];
+
+            // EXIGENCE : EXG_IMPOT_02
+            double abt1 = Math.max(t.abattementMin, Math.min(t.abattementMax, Math.round(revenus1[i] * t.tauxAbattement)));
+            double abt2 = Math.max(t.abattementMin, Math.min(t.abattementMax, Math.round(revenus2[i] * t.tauxAbattement)));
+            double abt = abt1 + abt2 * t.couple[p];
+            double rFRef = Math.max(0, revenus1[i] + revenus2[i] - abt);
+
+            // EXIGENCE : EXG_IMPOT_07
+            boolean couple = t.couple[p] != 0;
+            double contrib = Math.round(ReglesImpot.montantParTranche(rFRef, t.tranchesCehrEntieres,
+                    couple ? t.tauxCehrCouple : t.tauxCehrSeul, couple ? t.cehrCumuleCouple : t.cehrCumuleSeul));
+
+            // EXIGENCES : EXG_IMPOT_03 et EXG_IMPOT_04
+            double nbPtsDecl = t.nbPtsDecl[p];
+            double nbPts = t.nbPts[p];
+            double impotDecl = Math.round(ReglesImpot.montantParTranche(rFRef / nbPtsDecl, t.tranchesEntieres,
+                    t.taux, t.impotCumule) * nbPtsDecl);
+            double impotFoyer = Math.round(ReglesImpot.montantParTranche(rFRef / nbPts, t.tranchesEntieres,
+                    t.taux, t.impotCumule) * nbPts);
+
+            // EXIGENCE : EXG_IMPOT_05
+            double mImp = impotDecl - impotFoyer > t.plafond[p] ? impotDecl - t.plafond[p] : impotFoyer;
+
+            // EXIGENCE : EXG_IMPOT_06
+            double decote = mImp < t.seuilDecote[p] ? t.decoteMax[p] - (mImp * t.tauxDecote) : 0;
+            decote = Math.round(Math.max(0, Math.min(decote, mImp)));
+
+            foyers.getRevenuFiscalReference()[i] = rFRef;
+            foyers.getImpotAvantDecote()[i] = mImp;
+            foyers.getDecote()[i] = decote;
+            foyers.getContribExceptionnelle()[i] = contrib;
+            foyers.getImpotNet()[i] = ResultatImpot.calculImpotNetArrondi(mImp, decote, contrib);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.Bareme;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * Noyau de calcul par colonnes sur l'API Vector : chaque voie d'un vecteur porte un foyer.
+ * <p>
+ * Les opérations sont celles du noyau scalaire, dans le même ordre et sans fusion multiplication-addition :
+ * les résultats sont identiques au bit près. Les tests de tranche deviennent des masques, les
+ * constantes du profil sont recopiées par bloc dans des colonnes contiguës, et l'arrondi de
+ * {@link Math#round(double)} est reproduit exactement, les montants arrondis étant positifs.
+ * <p>
+ * Le module {@code jdk.incubator.vector} doit être ajouté au lancement
+ * ({@code --add-modules jdk.incubator.vector}) ; sans lui, {@link NoyauColonnes#pour} retient le noyau scalaire.
+ */
+final class NoyauVectoriel implements NoyauColonnes {
+
+    private static final VectorSpecies<Double> REELS = DoubleVector.SPECIES_PREFERRED;
+    private static final int TAILLE_BLOC = 512;
+    private static final DoubleVector ZERO = DoubleVector.zero(REELS);
+    private static final DoubleVector UN = DoubleVector.broadcast(REELS, 1.0);
+    private static final DoubleVector DEMI = DoubleVector.broadcast(REELS, 0.5);
+    private static final DoubleVector DEUX_PUISSANCE_52 = DoubleVector.broadcast(REELS, 0x1p52);
+
+    private final TableNoyau table;
+
+    NoyauVectoriel(Bareme bareme) {
+        this.table = new TableNoyau(bareme);
+    }
+
+    @Override
+    public String getNom() {
+        return "vectoriel-" + REELS.length() + "x64";
+    }
+
+    @Override
+    public void calculer(ColonnesFoyers foyers) {
+        TableNoyau t = table;
+        t.verifier(foyers);
+        int taille = foyers.getTaille();
+        Bloc b = new Bloc();
+        int fin = REELS.loopBound(taille);
+        for (int debut = 0; debut < fin; debut += TAILLE_BLOC) {
+            int n = Math.min(TAILLE_BLOC, fin - debut);
+            b.preparer(t, foyers, debut, n);
+            calculerRevenuFiscal(t, b, n);
+            calculerCehr(t, b, n);
+            calculerImpotBrut(t, b.nbPtsDecl, b.impotDecl, b, n);
+            calculerImpotBrut(t, b.nbPts, b.impotFoyer, b, n);
+            calculerImpotNet(t, b, n);
+            b.ecrire(foyers, debut, n);
+        }
+        NoyauScalaire.calculer(t, foyers, fin, taille);
+    }
+
+    // Une passe par étape sur tout le bloc : chaque passe reste assez petite pour que le compilateur
+    // garde les vecteurs en registres au lieu de les allouer.
+
+    /**
+     * EXIGENCE : EXG_IMPOT_02
+     */
+    private static void calculerRevenuFiscal(TableNoyau t, Bloc b, int n) {
+        for (int j = 0; j < n; j += REELS.length()) {
+            DoubleVector abt1 = abattement(t, DoubleVector.fromArray(REELS, b.revenus1, j));
+            DoubleVector abt2 = abattement(t, DoubleVector.fromArray(REELS, b.revenus2, j));
+            DoubleVector abt = abt1.add(abt2.mul(DoubleVector.fromArray(REELS, b.couple, j)));
+            DoubleVector.fromArray(REELS, b.sommeRevenus, j).sub(abt).max(ZERO).intoArray(b.revenuFiscalReference, j);
+        }
+    }
+
+    /**
+     * EXIGENCE : EXG_IMPOT_07
+     */
+    private static void calculerCehr(TableNoyau t, Bloc b, int n) {
+        for (int j = 0; j < n; j += REELS.length()) {
+            DoubleVector.fromArray(REELS, b.revenuFiscalReference, j).intoArray(b.assiette, j);
+        }
+        b.initialiserTranche(n);
+        for (int k = 0; k < t.tauxCehrSeul.length; k++) {
+            DoubleVector tauxSeul = DoubleVector.broadcast(REELS, t.tauxCehrSeul[k]);
+            DoubleVector cumulSeul = DoubleVector.broadcast(REELS, t.cehrCumuleSeul[k]);
+            for (int j = 0; j < n; j += REELS.length()) {
+                VectorMask<Double> estCouple = DoubleVector.fromArray(REELS, b.couple, j)
+                        .compare(VectorOperators.GT, ZERO);
+                VectorMask<Double> depasse = DoubleVector.fromArray(REELS, b.assiette, j)
+                        .compare(VectorOperators.GT, t.tranchesCehr[k]);
+                retenirTranche(b, j, depasse, t.tranchesCehr[k],
+                        tauxSeul.blend(t.tauxCehrCouple[k], estCouple),
+                        cumulSeul.blend(t.cehrCumuleCouple[k], estCouple));
+            }
+        }
+        for (int j = 0; j < n; j += REELS.length()) {
+            arrondi(montantTranche(b, j, t.tranchesCehr[0])).intoArray(b.contribExceptionnelle, j);
+        }
+    }
+
+    /**
+     * EXIGENCES : EXG_IMPOT_03 et EXG_IMPOT_04
+     */
+    private static void calculerImpotBrut(TableNoyau t, double[] parts, double[] impot, Bloc b, int n) {
+        for (int j = 0; j < n; j += REELS.length()) {
+            DoubleVector.fromArray(REELS, b.revenuFiscalReference, j)
+                    .div(DoubleVector.fromArray(REELS, parts, j)).intoArray(b.assiette, j);
+        }
+        b.initialiserTranche(n);
+        for (int k = 0; k < t.taux.length; k++) {
+            DoubleVector taux = DoubleVector.broadcast(REELS, t.taux[k]);
+            DoubleVector cumul = DoubleVector.broadcast(REELS, t.impotCumule[k]);
+            for (int j = 0; j < n; j += REELS.length()) {
+                VectorMask<Double> depasse = DoubleVector.fromArray(REELS, b.assiette, j)
+                        .compare(VectorOperators.GT, t.tranches[k]);
+                retenirTranche(b, j, depasse, t.tranches[k], taux, cumul);
+            }
+        }
+        for (int j = 0; j < n; j += REELS.length()) {
+            arrondi(montantTranche(b, j, t.tranches[0]).mul(DoubleVector.fromArray(REELS, parts, j)))
+                    .intoArray(impot, j);
+        }
+    }
+
+    /**
+     * Une tranche dépassée remplace, voie par voie, le seuil, le taux et le cumul retenus.
+     * Les valeurs retenues transitent par le bloc : un vecteur porté d'un tour de boucle au suivant
+     * serait alloué à chaque tour.
+     */
+    private static void retenirTranche(Bloc b, int j, VectorMask<Double> depasse, double seuil,
+                                       DoubleVector taux, DoubleVector cumul) {
+        DoubleVector.fromArray(REELS, b.seuilRetenu, j).blend(seuil, depasse).intoArray(b.seuilRetenu, j);
+        DoubleVector.fromArray(REELS, b.tauxRetenu, j).blend(taux, depasse).intoArray(b.tauxRetenu, j);
+        DoubleVector.fromArray(REELS, b.cumulRetenu, j).blend(cumul, depasse).intoArray(b.cumulRetenu, j);
+    }
+
+    /**
+     * Cumul au seuil de la tranche retenue plus la part dans la tranche, nul si l'assiette ne dépasse pas le premier seuil.
+     */
+    private static DoubleVector montantTranche(Bloc b, int j, double premierSeuil) {
+        DoubleVector assiette = DoubleVector.fromArray(REELS, b.assiette, j);
+        DoubleVector montant = DoubleVector.fromArray(REELS, b.cumulRetenu, j)
+                .add(assiette.sub(DoubleVector.fromArray(REELS, b.seuilRetenu, j))
+                        .mul(DoubleVector.fromArray(REELS, b.tauxRetenu, j)));
+        return ZERO.blend(montant, assiette.compare(VectorOperators.GT, premierSeuil));
+    }
+
+    /**
+     * EXIGENCES : EXG_IMPOT_05, EXG_IMPOT_06 et EXG_IMPOT_01
+     */
+    private static void calculerImpotNet(TableNoyau t, Bloc b, int n) {
+        for (int j = 0; j < n; j += REELS.length()) {
+            DoubleVector impotDecl = DoubleVector.fromArray(REELS, b.impotDecl, j);
+            DoubleVector impotFoyer = DoubleVector.fromArray(REELS, b.impotFoyer, j);
+            DoubleVector plafond = DoubleVector.fromArray(REELS, b.plafond, j);
+            VectorMask<Double> plafonne = impotDecl.sub(impotFoyer).compare(VectorOperators.GT, plafond);
+            DoubleVector mImp = impotFoyer.blend(impotDecl.sub(plafond), plafonne);
+
+            DoubleVector seuil = DoubleVector.fromArray(REELS, b.seuilDecote, j);
+            DoubleVector decoteMax = DoubleVector.fromArray(REELS, b.decoteMax, j);
+            VectorMask<Double> sousSeuil = mImp.compare(VectorOperators.LT, seuil);
+            DoubleVector decote = ZERO.blend(decoteMax.sub(mImp.mul(t.tauxDecote)), sousSeuil);
+            decote = arrondi(decote.min(mImp).max(ZERO));
+
+            mImp.intoArray(b.impotAvantDecote, j);
+            decote.intoArray(b.decote, j);
+            DoubleVector contrib = DoubleVector.fromArray(REELS, b.contribExceptionnelle, j);
+            arrondi(mImp.sub(decote).add(contrib)).intoArray(b.impotNet, j);
+        }
+    }
+
+    private static DoubleVector abattement(TableNoyau t, DoubleVector revenu) {
+        return arrondi(revenu.mul(t.tauxAbattement)).min(t.abattementMax).max(t.abattementMin);
+    }
+
+    /**
+     * {@link Math#round(double)} pour des valeurs positives inférieures à 2^52, sans conversion entière :
+     * l'ajout puis le retrait de 2^52 arrondit à l'entier pair le plus proche, l'écart restant
+     * (exact) indique s'il faut ajouter un pour arrondir les demis vers le haut.
+     */
+    private static DoubleVector arrondi(DoubleVector x) {
+        DoubleVector proche = x.add(DEUX_PUISSANCE_52).sub(DEUX_PUISSANCE_52);
+        return proche.add(ZERO.blend(UN, x.sub(proche).compare(VectorOperators.GE, DEMI)));
+    }
+
+    /**
+     * Colonnes d'un bloc de foyers converties en réels, constantes de profil comprises, pour des
+     * chargements vectoriels contigus ; résultats du bloc avant recopie dans la population.
+     */
+    private static final class Bloc {
+
+        final double[] revenus1 = new double[TAILLE_BLOC];
+        final double[] revenus2 = new double[TAILLE_BLOC];
+        final double[] sommeRevenus = new double[TAILLE_BLOC];
+        final double[] couple = new double[TAILLE_BLOC];
+        final double[] nbPtsDecl = new double[TAILLE_BLOC];
+        final double[] nbPts = new double[TAILLE_BLOC];
+        final double[] plafond = new double[TAILLE_BLOC];
+        final double[] seuilDecote = new double[TAILLE_BLOC];
+        final double[] decoteMax = new double[TAILLE_BLOC];
+        final double[] revenuFiscalReference = new double[TAILLE_BLOC];
+        final double[] impotAvantDecote = new double[TAILLE_BLOC];
+        final double[] decote = new double[TAILLE_BLOC];
+        final double[] contribExceptionnelle = new double[TAILLE_BLOC];
+        final double[] impotNet = new double[TAILLE_BLOC];
+        final double[] impotDecl = new double[TAILLE_BLOC];
+        final double[] impotFoyer = new double[TAILLE_BLOC];
+        final double[] assiette = new double[TAILLE_BLOC];
+        final double[] seuilRetenu = new double[TAILLE_BLOC];
+        final double[] tauxRetenu = new double[TAILLE_BLOC];
+        final double[] cumulRetenu = new double[TAILLE_BLOC];
+
+        void initialiserTranche(int n) {
+            Arrays.fill(seuilRetenu, 0, n, 0);
+            Arrays.fill(tauxRetenu, 0, n, 0);
+            Arrays.fill(cumulRetenu, 0, n, 0);
+        }
+
+        void preparer(TableNoyau t, ColonnesFoyers foyers, int debut, int n) {
+            int[] r1 = foyers.getRevenus1();
+            int[] r2 = foyers.getRevenus2();
+            short[] profils = foyers.getProfils();
+            for (int j = 0; j < n; j++) {
+                int i = debut + j;
+                int p = profils[i];
+                revenus1[j] = r1[i];
+                revenus2[j] = r2[i];
+                // Somme entière, comme dans le simulateur
+                sommeRevenus[j] = r1[i] + r2[i];
+                couple[j] = t.couple[p];
+                nbPtsDecl[j] = t.nbPtsDecl[p];
+                nbPts[j] = t.nbPts[p];
+                plafond[j] = t.plafond[p];
+                seuilDecote[j] = t.seuilDecote[p];
+                decoteMax[j] = t.decoteMax[p];
+            }
+        }
+
+        void ecrire(ColonnesFoyers foyers, int debut, int n) {
+            System.arraycopy(revenuFiscalReference, 0, foyers.getRevenuFiscalReference(), debut, n);
+            System.arraycopy(impotAvantDecote, 0, foyers.getImpotAvantDecote(), debut, n);
+            System.arraycopy(decote, 0, foyers.getDecote(), debut, n);
+            System.arraycopy(contribExceptionnelle, 0, foyers.getContribExceptionnelle(), debut, n);
+            int[] net = foyers.getImpotNet();
+            for (int j = 0; j < n; j++) {
+                net[debut + j] = (int) impotNet[j];
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.kerware.simulateurReusine;
+
+/**
+ * Constantes d'un profil de foyer (situation familiale, enfants, enfants handicapés, parent isolé)
+ * pour un barème donné : parts (EXG_IMPOT_03), plafond du quotient familial (EXG_IMPOT_05),
+ * paramètres de décote (EXG_IMPOT_06) et table de CEHR (EXG_IMPOT_07).
+ */
+final class ProfilFoyer {
+
+    final double nbPtsDecl;
+    final double nbPts;
+    final double plafond;
+    final double seuilDecote;
+    final double decoteMax;
+    final double[] tauxCehr;
+    final double[] cehrCumule;
+    // 0 pour un déclarant seul : le revenu du déclarant 2 n'est alors pas abattu
+    final int abattementDeclarant2;
+
+    ProfilFoyer(double nbPtsDecl, double nbPts, double plafond, double seuilDecote, double decoteMax,
+                double[] tauxCehr, double[] cehrCumule, int abattementDeclarant2) {
+        this.nbPtsDecl = nbPtsDecl;
+        this.nbPts = nbPts;
+        this.plafond = plafond;
+        this.seuilDecote = seuilDecote;
+        this.decoteMax = decoteMax;
+        this.tauxCehr = tauxCehr;
+        this.cehrCumule = cehrCumule;
+        this.abattementDeclarant2 = abattementDeclarant2;
+    }
+}
@@ -0,0 +1,203 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.MoteurImpot;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Simulateur en arithmétique entière : revenus en euros, montants d'impôt en centimes dans des {@code long},
+ * taux en points de base et parts en demi-parts. Aucun calcul intermédiaire n'est fait en virgule flottante :
+ * le résultat ne dépend ni de l'ordre des opérations ni de la plateforme.
+ * <p>
+ * Chaque montant est calculé exactement, sous forme de fraction entière, puis arrondi une seule fois à
+ * l'euro le plus proche, la demi-unité étant arrondie à l'euro supérieur (EXG_IMPOT_01), aux mêmes étapes
+ * que {@link com.kerware.simulateur.Simulateur} : abattement de chaque déclarant, impôt par tranches des
+ * déclarants et du foyer, décote et CEHR. Le barème doit s'exprimer exactement dans ces unités.
+ * <p>
+ * La table suit le barème courant du registre, comme celle de {@link SimulateurReusine}.
+ * Une instance peut être partagée entre plusieurs threads.
+ */
+public final class SimulateurCentimes implements MoteurImpot {
+
+    private static final long CENTIMES = 100;
+
+    private final RegistreBaremes registre;
+    private volatile TableCentimes table;
+
+    /**
+     * Simulateur utilisant le barème intégré {@link com.kerware.simulateur.Bareme#BAREME_2024}.
+     */
+    public SimulateurCentimes() {
+        this(new RegistreBaremes());
+    }
+
+    /**
+     * @param registre Barèmes disponibles ; le barème courant est appliqué
+     * @throws IllegalArgumentException si le barème courant ne s'exprime pas en points de base et en centimes
+     */
+    public SimulateurCentimes(RegistreBaremes registre) {
+        this.registre = registre;
+        this.table = new TableCentimes(registre.getBaremeCourant());
+    }
+
+    @Override
+    public ResultatImpot calculer(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                                  int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        TableCentimes t = tableCourante();
+        int p = profil(t, revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        long abt = abattement(t, p, revNetDecl1, revNetDecl2);
+        long rFRef = Math.max(0, revNetDecl1 + revNetDecl2 - abt);
+        long impot = impotAvantDecote(t, p, rFRef);
+        long decote = decote(t, p, impot);
+        long contribExceptionnelle = contributionExceptionnelle(t, p, rFRef);
+        return new ResultatImpot(rFRef, abt, t.demiParts[p] / 2.0, t.demiPartsDecl[p] / 2.0,
+                (double) impot / CENTIMES, (double) decote / CENTIMES, (double) contribExceptionnelle / CENTIMES);
+    }
+
+    @Override
+    public int calculImpot(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                           int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        return (int) arrondi(calculImpotCentimes(revNetDecl1, revNetDecl2, sitFam, nbEnfants,
+                nbEnfantsHandicapes, parentIsol), CENTIMES);
+    }
+
+    /**
+     * Calcul sans allocation de l'impôt net.
+     * @return Impôt net en centimes, avant l'arrondi final à l'euro
+     * @throws IllegalArgumentException si les paramètres sont invalides
+     */
+    public long calculImpotCentimes(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                                    int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        TableCentimes t = tableCourante();
+        int p = profil(t, revNetDecl1, revNetDecl2, sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        long rFRef = Math.max(0, revNetDecl1 + revNetDecl2 - abattement(t, p, revNetDecl1, revNetDecl2));
+        long impot = impotAvantDecote(t, p, rFRef);
+        return impot - decote(t, p, impot) + contributionExceptionnelle(t, p, rFRef);
+    }
+
+    private TableCentimes tableCourante() {
+        TableCentimes t = table;
+        if (t.bareme != registre.getBaremeCourant()) {
+            t = new TableCentimes(registre.getBaremeCourant());
+            table = t;
+        }
+        return t;
+    }
+
+    /**
+     * @return Code du profil du foyer
+     * @throws IllegalArgumentException si les paramètres sont invalides
+     */
+    private static int profil(TableCentimes t, int rev1, int rev2, SituationFamiliale sf, int enfants, int enfH,
+                              boolean iso) {
+        int p = -1;
+        if (sf != null && (enfants & ~TableProfils.NB_ENFANTS_MAX) == 0
+                && (enfH & ~TableProfils.NB_ENFANTS_MAX) == 0) {
+            p = TableProfils.indice(sf, enfants, enfH, iso);
+        }
+        if (p < 0 || t.demiParts[p] == 0 || rev1 < 0 || rev2 < 0 || (t.demiPartsDecl[p] == 2 && rev2 > 0)) {
+            MotifRejet motif = MotifRejet.verifier(rev1, rev2, sf, enfants, enfH, iso);
+            throw new IllegalArgumentException(motif.getMessage());
+        }
+        return p;
+    }
+
+    /**
+     * EXIGENCE : EXG_IMPOT_02, abattement de chaque déclarant arrondi à l'euro puis borné.
+     * @return Abattement en euros
+     */
+    private static long abattement(TableCentimes t, int p, int rev1, int rev2) {
+        long abt = abattementDeclarant(t, rev1);
+        if (t.demiPartsDecl[p] == 4) {
+            abt += abattementDeclarant(t, rev2);
+        }
+        return abt;
+    }
+
+    private static long abattementDeclarant(TableCentimes t, int revenu) {
+        return Math.max(t.abattementMin, Math.min(t.abattementMax,
+                arrondi(revenu * t.tauxAbattement, TableCentimes.POINTS_BASE)));
+    }
+
+    /**
+     * EXIGENCES : EXG_IMPOT_04 et EXG_IMPOT_05.
+     * @return Impôt après plafonnement du quotient familial, avant décote, en centimes
+     */
+    private static long impotAvantDecote(TableCentimes t, int p, long rFRef) {
+        long impotDecl = impotParTranche(t, rFRef, t.demiPartsDecl[p]);
+        long impotFoyer = impotParTranche(t, rFRef, t.demiParts[p]);
+        long plafond = t.plafondCentimes[p];
+        return impotDecl - impotFoyer > plafond ? impotDecl - plafond : impotFoyer;
+    }
+
+    /**
+     * Impôt progressif sur le revenu par part, multiplié par les parts. Avec n demi-parts et un revenu R,
+     * le revenu par part 2R / n est dans la tranche i si seuil(i) × n &lt; 2R, et l'impôt vaut
+     * (cumul(i) × n + (2R - seuil(i) × n) × taux(i)) / 20 000 euros.
+     * @return Impôt arrondi à l'euro, en centimes
+     */
+    private static long impotParTranche(TableCentimes t, long rFRef, int demiParts) {
+        long assiette = 2 * rFRef;
+        int i = indiceTranche(assiette, t.tranches, demiParts);
+        if (i < 0) {
+            return 0;
+        }
+        long montant = t.impotCumule[i] * demiParts + (assiette - t.tranches[i] * demiParts) * t.taux[i];
+        return arrondi(montant, 2 * TableCentimes.POINTS_BASE) * CENTIMES;
+    }
+
+    /**
+     * EXIGENCE : EXG_IMPOT_06, décote bornée à l'impôt et arrondie à l'euro.
+     * @return Décote en centimes
+     */
+    private static long decote(TableCentimes t, int p, long impot) {
+        boolean couple = t.demiPartsDecl[p] == 4;
+        if (impot >= (couple ? t.seuilDecoteCouple : t.seuilDecoteSeul)) {
+            return 0;
+        }
+        // En centimes × points de base
+        long decote = (couple ? t.decoteMaxCouple : t.decoteMaxSeul) * TableCentimes.POINTS_BASE
+                - impot * t.tauxDecote;
+        decote = Math.max(0, Math.min(decote, impot * TableCentimes.POINTS_BASE));
+        return arrondi(decote, CENTIMES * TableCentimes.POINTS_BASE) * CENTIMES;
+    }
+
+    /**
+     * EXIGENCE : EXG_IMPOT_07, CEHR sur le revenu fiscal de référence arrondie à l'euro.
+     * @return Contribution en centimes
+     */
+    private static long contributionExceptionnelle(TableCentimes t, int p, long rFRef) {
+        boolean couple = t.demiPartsDecl[p] == 4;
+        int i = indiceTranche(rFRef, t.tranchesCehr, 1);
+        if (i < 0) {
+            return 0;
+        }
+        long montant = (couple ? t.cehrCumuleCouple : t.cehrCumuleSeul)[i]
+                + (rFRef - t.tranchesCehr[i]) * (couple ? t.tauxCehrCouple : t.tauxCehrSeul)[i];
+        return arrondi(montant, TableCentimes.POINTS_BASE) * CENTIMES;
+    }
+
+    /**
+     * @return Plus grand indice i tel que seuil(i) × facteur &lt; assiette, ou -1 si l'assiette est nulle
+     */
+    private static int indiceTranche(long assiette, long[] tranches, long facteur) {
+        if (assiette <= 0) {
+            return -1;
+        }
+        int i = 0;
+        while (i < tranches.length - 2 && tranches[i + 1] * facteur < assiette) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * EXIGENCE : EXG_IMPOT_01, arrondi d'un montant positif à l'unité la plus proche, demi-unité comprise.
+     * @return numerateur / denominateur arrondi
+     */
+    private static long arrondi(long numerateur, long denominateur) {
+        return Math.floorDiv(numerateur + denominateur / 2, denominateur);
+    }
+}
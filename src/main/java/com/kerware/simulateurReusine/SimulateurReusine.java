@@ -1,4 +1,94 @@
 package com.kerware.simulateurReusine;
 
-public class SimulateurReusine {
+import com.kerware.simulateur.MoteurImpot;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ReglesImpot;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Simulateur réusiné autour d'une table de profils de foyer.
+ * <p>
+ * Les parts, le plafond du quotient familial, les seuils de décote et la table de CEHR ne dépendent
+ * que du profil du foyer : ils sont calculés une fois par barème pour chaque profil possible.
+ * Un calcul se réduit alors à une lecture dans la table suivie des calculs dépendant du revenu,
+ * sans test sur la situation familiale. Les résultats sont identiques à ceux de
+ * {@link com.kerware.simulateur.Simulateur}, valeurs intermédiaires comprises.
+ * <p>
+ * La table suit le barème courant du registre : elle est reconstruite au premier calcul qui suit
+ * un rechargement. Une instance peut être partagée entre plusieurs threads.
+ */
+public final class SimulateurReusine implements MoteurImpot {
+
+    private final RegistreBaremes registre;
+    private volatile TableProfils table;
+
+    /**
+     * Simulateur utilisant le barème intégré {@link com.kerware.simulateur.Bareme#BAREME_2024}.
+     */
+    public SimulateurReusine() {
+        this(new RegistreBaremes());
+    }
+
+    /**
+     * @param registre Barèmes disponibles ; le barème courant est appliqué
+     */
+    public SimulateurReusine(RegistreBaremes registre) {
+        this.registre = registre;
+        this.table = new TableProfils(registre.getBaremeCourant());
+    }
+
+    @Override
+    public ResultatImpot calculer(int revNetDecl1, int revNetDecl2, SituationFamiliale sitFam,
+                                  int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        TableProfils t = tableCourante();
+        ProfilFoyer profil = t.profil(sitFam, nbEnfants, nbEnfantsHandicapes, parentIsol);
+        if (profil == null || revNetDecl1 < 0 || revNetDecl2 < 0
+                || (profil.abattementDeclarant2 == 0 && revNetDecl2 > 0)) {
+            MotifRejet motif = MotifRejet.verifier(revNetDecl1, revNetDecl2, sitFam, nbEnfants,
+                    nbEnfantsHandicapes, parentIsol);
+            throw new IllegalArgumentException(motif.getMessage());
+        }
+
+        // EXIGENCE : EXG_IMPOT_02
+        long abt1 = abattement(t, revNetDecl1);
+        long abt2 = abattement(t, revNetDecl2) * profil.abattementDeclarant2;
+        double abt = abt1 + abt2;
+        double rFRef = Math.max(0, revNetDecl1 + revNetDecl2 - abt);
+
+        // EXIGENCE : EXG_IMPOT_07
+        double contribExceptionnelle = Math.round(ReglesImpot.montantParTranche(rFRef, t.tranchesCehr,
+                profil.tauxCehr, profil.cehrCumule));
+
+        // EXIGENCE : EXG_IMPOT_04
+        double nbPtsDecl = profil.nbPtsDecl;
+        double nbPts = profil.nbPts;
+        double impotDecl = Math.round(ReglesImpot.montantParTranche(rFRef / nbPtsDecl, t.tranches, t.taux,
+                t.impotCumule) * nbPtsDecl);
+        double impotFoyer = Math.round(ReglesImpot.montantParTranche(rFRef / nbPts, t.tranches, t.taux,
+                t.impotCumule) * nbPts);
+
+        // EXIGENCE : EXG_IMPOT_05
+        double mImp = impotDecl - impotFoyer > profil.plafond ? impotDecl - profil.plafond : impotFoyer;
+
+        // EXIGENCE : EXG_IMPOT_06
+        double decote = mImp < profil.seuilDecote ? profil.decoteMax - (mImp * t.tauxDecote) : 0;
+        decote = Math.round(Math.max(0, Math.min(decote, mImp)));
+
+        return new ResultatImpot(rFRef, abt, nbPts, nbPtsDecl, mImp, decote, contribExceptionnelle);
+    }
+
+    private TableProfils tableCourante() {
+        TableProfils t = table;
+        if (t.bareme != registre.getBaremeCourant()) {
+            t = new TableProfils(registre.getBaremeCourant());
+            table = t;
+        }
+        return t;
+    }
+
+    private static long abattement(TableProfils t, int rNetDecl) {
+        return Math.max(t.abattementMin, Math.min(t.abattementMax, Math.round(rNetDecl * t.tauxAbattement)));
+    }
 }
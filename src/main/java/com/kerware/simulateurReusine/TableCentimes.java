@@ -0,0 +1,119 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.Bareme;
+
+/**
+ * Barème et table des profils mis à plat en entiers pour {@link SimulateurCentimes} : parts comptées en
+ * demi-parts, taux en points de base (1 / 10 000), montants en centimes et montants cumulés aux seuils des
+ * tranches en euros × points de base, tous exacts.
+ */
+final class TableCentimes {
+
+    static final long POINTS_BASE = 10_000;
+
+    final Bareme bareme;
+
+    // Demi-parts du foyer et des déclarants par code de profil ; 0 pour un profil invalide
+    final int[] demiParts = new int[TableProfils.TAILLE];
+    final int[] demiPartsDecl = new int[TableProfils.TAILLE];
+    final long[] plafondCentimes = new long[TableProfils.TAILLE];
+
+    final long[] tranches;
+    final long[] taux;
+    final long[] impotCumule;
+    final long[] tranchesCehr;
+    final long[] tauxCehrSeul;
+    final long[] tauxCehrCouple;
+    final long[] cehrCumuleSeul;
+    final long[] cehrCumuleCouple;
+    final long tauxAbattement;
+    final long abattementMin;
+    final long abattementMax;
+    final long seuilDecoteSeul;
+    final long seuilDecoteCouple;
+    final long decoteMaxSeul;
+    final long decoteMaxCouple;
+    final long tauxDecote;
+
+    /**
+     * @throws IllegalArgumentException si un taux n'est pas un nombre entier de points de base ou un montant
+     * un nombre entier de centimes
+     */
+    TableCentimes(Bareme bareme) {
+        this.bareme = bareme;
+        this.tranches = enEntiers(bareme.getTranches());
+        this.taux = enPointsBase(bareme.getTaux(), "taux");
+        this.impotCumule = cumulerTranches(tranches, taux);
+        this.tranchesCehr = enEntiers(bareme.getTranchesCehr());
+        this.tauxCehrSeul = enPointsBase(bareme.getTauxCehrCelibataire(), "tauxCehrCelibataire");
+        this.tauxCehrCouple = enPointsBase(bareme.getTauxCehrCouple(), "tauxCehrCouple");
+        this.cehrCumuleSeul = cumulerTranches(tranchesCehr, tauxCehrSeul);
+        this.cehrCumuleCouple = cumulerTranches(tranchesCehr, tauxCehrCouple);
+        this.tauxAbattement = enPointsBase(bareme.getTauxAbattement(), "tauxAbattement");
+        this.abattementMin = bareme.getAbattementMin();
+        this.abattementMax = bareme.getAbattementMax();
+        this.seuilDecoteSeul = enCentimes(bareme.getSeuilDecoteSeul(), "seuilDecoteSeul");
+        this.seuilDecoteCouple = enCentimes(bareme.getSeuilDecoteCouple(), "seuilDecoteCouple");
+        this.decoteMaxSeul = enCentimes(bareme.getDecoteMaxSeul(), "decoteMaxSeul");
+        this.decoteMaxCouple = enCentimes(bareme.getDecoteMaxCouple(), "decoteMaxCouple");
+        this.tauxDecote = enPointsBase(bareme.getTauxDecote(), "tauxDecote");
+        long plafondDemiPart = enCentimes(bareme.getPlafondDemiPart(), "plafondDemiPart");
+
+        TableProfils table = new TableProfils(bareme);
+        for (int i = 0; i < TableProfils.TAILLE; i++) {
+            ProfilFoyer profil = table.profil(i);
+            if (profil != null) {
+                // Les parts sont des multiples exacts d'une demi-part
+                demiParts[i] = (int) (profil.nbPts * 2);
+                demiPartsDecl[i] = (int) (profil.nbPtsDecl * 2);
+                plafondCentimes[i] = (demiParts[i] - demiPartsDecl[i]) * plafondDemiPart;
+            }
+        }
+    }
+
+    private static long[] enEntiers(int[] valeurs) {
+        long[] entiers = new long[valeurs.length];
+        for (int i = 0; i < valeurs.length; i++) {
+            entiers[i] = valeurs[i];
+        }
+        return entiers;
+    }
+
+    private static long[] enPointsBase(double[] taux, String nom) {
+        long[] points = new long[taux.length];
+        for (int i = 0; i < taux.length; i++) {
+            points[i] = enPointsBase(taux[i], nom);
+        }
+        return points;
+    }
+
+    private static long enPointsBase(double taux, String nom) {
+        return exact(taux, POINTS_BASE, nom + " : " + taux + " n'est pas un nombre entier de points de base");
+    }
+
+    private static long enCentimes(double montant, String nom) {
+        return exact(montant, 100, nom + " : " + montant + " n'est pas un nombre entier de centimes");
+    }
+
+    private static long exact(double valeur, long unite, String erreur) {
+        long entier = Math.round(valeur * unite);
+        if (Math.abs(entier - valeur * unite) > 1e-6) {
+            throw new IllegalArgumentException(erreur);
+        }
+        return entier;
+    }
+
+    /**
+     * Montant cumulé au seuil de chaque tranche, en euros × points de base : exact, sans ordre d'addition.
+     */
+    private static long[] cumulerTranches(long[] tranches, long[] taux) {
+        long[] cumul = new long[taux.length];
+        long montant = 0;
+        for (int i = 0; i < taux.length - 1; i++) {
+            cumul[i] = montant;
+            montant += (tranches[i + 1] - tranches[i]) * taux[i];
+        }
+        cumul[taux.length - 1] = montant;
+        return cumul;
+    }
+}
@@ -0,0 +1,101 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Barème et table des profils mis à plat en tableaux de réels, indexés par code de profil,
+ * pour les noyaux de calcul par colonnes.
+ */
+final class TableNoyau {
+
+    final double[] nbPtsDecl = new double[TableProfils.TAILLE];
+    final double[] nbPts = new double[TableProfils.TAILLE];
+    final double[] plafond = new double[TableProfils.TAILLE];
+    final double[] seuilDecote = new double[TableProfils.TAILLE];
+    final double[] decoteMax = new double[TableProfils.TAILLE];
+    // 1 si le revenu du déclarant 2 est abattu et si la CEHR des couples s'applique, 0 sinon
+    final double[] couple = new double[TableProfils.TAILLE];
+    private final boolean[] valide = new boolean[TableProfils.TAILLE];
+
+    final double[] tranches;
+    final double[] taux;
+    final double[] impotCumule;
+    final double[] tranchesCehr;
+    final double[] tauxCehrSeul;
+    final double[] tauxCehrCouple;
+    final double[] cehrCumuleSeul;
+    final double[] cehrCumuleCouple;
+    // Bornes d'origine, pour le calcul par foyer partagé avec le simulateur
+    final int[] tranchesEntieres;
+    final int[] tranchesCehrEntieres;
+    final double tauxAbattement;
+    final double abattementMin;
+    final double abattementMax;
+    final double tauxDecote;
+
+    TableNoyau(Bareme bareme) {
+        TableProfils table = new TableProfils(bareme);
+        for (int i = 0; i < TableProfils.TAILLE; i++) {
+            ProfilFoyer profil = table.profil(i);
+            if (profil != null) {
+                valide[i] = true;
+                nbPtsDecl[i] = profil.nbPtsDecl;
+                nbPts[i] = profil.nbPts;
+                plafond[i] = profil.plafond;
+                seuilDecote[i] = profil.seuilDecote;
+                decoteMax[i] = profil.decoteMax;
+                couple[i] = profil.abattementDeclarant2;
+            }
+        }
+        ProfilFoyer seul = table.profil(SituationFamiliale.CELIBATAIRE, 0, 0, false);
+        ProfilFoyer deux = table.profil(SituationFamiliale.MARIE, 0, 0, false);
+        this.tranches = enReels(table.tranches);
+        this.taux = table.taux;
+        this.impotCumule = table.impotCumule;
+        this.tranchesCehr = enReels(table.tranchesCehr);
+        this.tauxCehrSeul = seul.tauxCehr;
+        this.tauxCehrCouple = deux.tauxCehr;
+        this.cehrCumuleSeul = seul.cehrCumule;
+        this.cehrCumuleCouple = deux.cehrCumule;
+        this.tranchesEntieres = table.tranches;
+        this.tranchesCehrEntieres = table.tranchesCehr;
+        this.tauxAbattement = table.tauxAbattement;
+        this.abattementMin = table.abattementMin;
+        this.abattementMax = table.abattementMax;
+        this.tauxDecote = table.tauxDecote;
+    }
+
+    /**
+     * Vérifie les colonnes d'entrée avant le calcul, avec le même ordre de contrôle que le simulateur.
+     * @throws IllegalArgumentException au premier foyer invalide
+     */
+    void verifier(ColonnesFoyers foyers) {
+        int[] revenus1 = foyers.getRevenus1();
+        int[] revenus2 = foyers.getRevenus2();
+        short[] profils = foyers.getProfils();
+        for (int i = 0; i < foyers.getTaille(); i++) {
+            int p = profils[i];
+            String erreur = null;
+            if (revenus1[i] < 0 || revenus2[i] < 0) {
+                erreur = MotifRejet.REVENUS_NEGATIFS.getMessage();
+            } else if (p < 0 || p >= TableProfils.TAILLE || !valide[p]) {
+                erreur = "Profil de foyer invalide : " + p;
+            } else if (couple[p] == 0 && revenus2[i] > 0) {
+                erreur = MotifRejet.REVENU_DECLARANT_2.getMessage();
+            }
+            if (erreur != null) {
+                throw new IllegalArgumentException("Foyer " + i + " : " + erreur);
+            }
+        }
+    }
+
+    private static double[] enReels(int[] valeurs) {
+        double[] reels = new double[valeurs.length];
+        for (int i = 0; i < valeurs.length; i++) {
+            reels[i] = valeurs[i];
+        }
+        return reels;
+    }
+}
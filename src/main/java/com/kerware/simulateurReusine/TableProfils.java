@@ -0,0 +1,87 @@
+package com.kerware.simulateurReusine;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ReglesImpot;
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Barème mis à plat et table des profils de foyer, construits une fois par barème.
+ * <p>
+ * L'indice d'un profil est {@code situation << 7 | enfants << 4 | handicapés << 1 | isolé} :
+ * 5 situations × 8 nombres d'enfants × 8 nombres d'enfants handicapés × 2, soit 640 cases.
+ * Les combinaisons invalides (plus d'enfants handicapés que d'enfants, parent isolé en couple) restent nulles.
+ */
+final class TableProfils {
+
+    static final int NB_ENFANTS_MAX = 7;
+    private static final int DECALAGE_SITUATION = 7;
+    private static final int DECALAGE_ENFANTS = 4;
+    static final int TAILLE = SituationFamiliale.values().length << DECALAGE_SITUATION;
+
+    final Bareme bareme;
+    final int[] tranches;
+    final double[] taux;
+    final double[] impotCumule;
+    final int[] tranchesCehr;
+    final double tauxAbattement;
+    final int abattementMin;
+    final int abattementMax;
+    final double tauxDecote;
+    private final ProfilFoyer[] profils = new ProfilFoyer[TAILLE];
+
+    TableProfils(Bareme bareme) {
+        this.bareme = bareme;
+        this.tranches = bareme.getTranches();
+        this.taux = bareme.getTaux();
+        this.impotCumule = ReglesImpot.cumulerTranches(tranches, taux);
+        this.tranchesCehr = bareme.getTranchesCehr();
+        this.tauxAbattement = bareme.getTauxAbattement();
+        this.abattementMin = bareme.getAbattementMin();
+        this.abattementMax = bareme.getAbattementMax();
+        this.tauxDecote = bareme.getTauxDecote();
+        double[] tauxCehrSeul = bareme.getTauxCehrCelibataire();
+        double[] tauxCehrCouple = bareme.getTauxCehrCouple();
+        double[] cehrCumuleSeul = ReglesImpot.cumulerTranches(tranchesCehr, tauxCehrSeul);
+        double[] cehrCumuleCouple = ReglesImpot.cumulerTranches(tranchesCehr, tauxCehrCouple);
+
+        for (SituationFamiliale sf : SituationFamiliale.values()) {
+            boolean couple = sf == SituationFamiliale.MARIE || sf == SituationFamiliale.PACSE;
+            double nbPtsDecl = ReglesImpot.calculPartsDeclarants(sf);
+            for (int enf = 0; enf <= NB_ENFANTS_MAX; enf++) {
+                for (int enfH = 0; enfH <= enf; enfH++) {
+                    for (int iso = 0; iso <= (couple ? 0 : 1); iso++) {
+                        double nbPts = ReglesImpot.calculParts(sf, nbPtsDecl, enf, enfH, iso == 1);
+                        double plafond = ((nbPts - nbPtsDecl) / 0.5) * bareme.getPlafondDemiPart();
+                        profils[indice(sf, enf, enfH, iso == 1)] = new ProfilFoyer(nbPtsDecl, nbPts, plafond,
+                                couple ? bareme.getSeuilDecoteCouple() : bareme.getSeuilDecoteSeul(),
+                                couple ? bareme.getDecoteMaxCouple() : bareme.getDecoteMaxSeul(),
+                                couple ? tauxCehrCouple : tauxCehrSeul,
+                                couple ? cehrCumuleCouple : cehrCumuleSeul,
+                                couple ? 1 : 0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Profil valide correspondant, ou null si la combinaison est invalide ou hors des bornes
+     */
+    ProfilFoyer profil(SituationFamiliale sf, int nbEnfants, int nbEnfantsHandicapes, boolean parentIsol) {
+        if (sf == null || (nbEnfants & ~NB_ENFANTS_MAX) != 0 || (nbEnfantsHandicapes & ~NB_ENFANTS_MAX) != 0) {
+            return null;
+        }
+        return profils[indice(sf, nbEnfants, nbEnfantsHandicapes, parentIsol)];
+    }
+
+    /**
+     * @return Profil d'indice donné, ou null si l'indice ne correspond à aucun profil valide
+     */
+    ProfilFoyer profil(int indice) {
+        return indice >= 0 && indice < TAILLE ? profils[indice] : null;
+    }
+
+    static int indice(SituationFamiliale sf, int enf, int enfH, boolean iso) {
+        return sf.ordinal() << DECALAGE_SITUATION | enf << DECALAGE_ENFANTS | enfH << 1 | (iso ? 1 : 0);
+    }
+}
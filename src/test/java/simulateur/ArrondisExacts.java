@@ -0,0 +1,50 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+
+import java.math.BigDecimal;
+
+/**
+ * Montants du calcul refaits en décimal exact, pour reconnaître les arrondis à l'euro tombant sur un
+ * demi-euro, où le simulateur en centimes et le simulateur en double peuvent légitimement différer d'un euro.
+ */
+final class ArrondisExacts {
+
+    private static final BigDecimal DEMI = new BigDecimal( "0.5" );
+
+    private ArrondisExacts() {
+    }
+
+    /**
+     * Impôt par tranches exact, en décimal : montant dû sur le revenu par part, multiplié par les parts.
+     */
+    static BigDecimal impotExact( Bareme bareme, double rFRef, double parts ) {
+        BigDecimal revenu = BigDecimal.valueOf( rFRef );
+        BigDecimal nbParts = BigDecimal.valueOf( parts );
+        int[] tranches = bareme.getTranches();
+        double[] taux = bareme.getTaux();
+        BigDecimal impot = BigDecimal.ZERO;
+        for ( int i = 0; i < taux.length; i++ ) {
+            BigDecimal bas = BigDecimal.valueOf( tranches[ i ] ).multiply( nbParts );
+            if ( revenu.compareTo( bas ) <= 0 ) {
+                break;
+            }
+            BigDecimal haut = BigDecimal.valueOf( tranches[ i + 1 ] ).multiply( nbParts );
+            impot = impot.add( revenu.min( haut ).subtract( bas ).multiply( BigDecimal.valueOf( taux[ i ] ) ) );
+        }
+        return impot;
+    }
+
+    /**
+     * Décote exacte, en décimal, avant arrondi et avant d'être bornée par l'impôt.
+     */
+    static BigDecimal decoteExacte( Bareme bareme, boolean couple, double impotAvantDecote ) {
+        BigDecimal decoteMax = BigDecimal.valueOf( couple ? bareme.getDecoteMaxCouple() : bareme.getDecoteMaxSeul() );
+        return decoteMax.subtract( BigDecimal.valueOf( impotAvantDecote )
+                .multiply( BigDecimal.valueOf( bareme.getTauxDecote() ) ) );
+    }
+
+    static boolean estDemiEuro( BigDecimal montant ) {
+        return montant.remainder( BigDecimal.ONE ).compareTo( DEMI ) == 0;
+    }
+}
@@ -0,0 +1,45 @@
+package simulateur;
+
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FoyerFiscal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Foyers valides tirés au hasard, revenus répartis sur toutes les échelles, pour comparer les moteurs
+ * entre eux ou les traitements par lot au calcul foyer par foyer.
+ */
+final class FoyersAleatoires {
+
+    private FoyersAleatoires() {
+    }
+
+    /**
+     * @param bitsRevenu Chaque revenu est tiré sous une puissance de deux, elle-même tirée jusqu'à 2^(bitsRevenu - 1)
+     * @param nbEnfantsMax Nombre maximal d'enfants à charge
+     * @return Foyer valide : revenu du déclarant 2 seulement en couple, parent isolé seulement hors couple
+     */
+    static FoyerFiscal tirer( Random aleatoire, int bitsRevenu, int nbEnfantsMax ) {
+        SituationFamiliale situation = SituationFamiliale.values()[ aleatoire.nextInt( 5 ) ];
+        boolean couple = situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+        int revenu1 = aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( bitsRevenu ) ) );
+        int revenu2 = couple ? aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( bitsRevenu ) ) ) : 0;
+        int enfants = aleatoire.nextInt( nbEnfantsMax + 1 );
+        return new FoyerFiscal( revenu1, revenu2, situation, enfants, aleatoire.nextInt( enfants + 1 ),
+                !couple && aleatoire.nextBoolean() );
+    }
+
+    /**
+     * @return {@code nombre} foyers de revenus d'au plus 2^20 et d'au plus quatre enfants
+     */
+    static List<FoyerFiscal> generer( int nombre, long graine ) {
+        Random aleatoire = new Random( graine );
+        List<FoyerFiscal> foyers = new ArrayList<>( nombre );
+        for ( int i = 0; i < nombre; i++ ) {
+            foyers.add( tirer( aleatoire, 21, 4 ) );
+        }
+        return foyers;
+    }
+}
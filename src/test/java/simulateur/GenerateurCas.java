@@ -0,0 +1,254 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de foyers pour le harnais différentiel, concentré là où les moteurs peuvent diverger.
+ * <p>
+ * À la construction, le revenu de chaque profil de foyer valide est balayé avec le simulateur de référence
+ * et chaque changement de régime est localisé à l'euro près par dichotomie : tranche marginale du foyer ou
+ * des déclarants, entrée dans le plafonnement du quotient familial, décote partielle ou totale, tranche de
+ * CEHR, abattement borné au minimum ou au maximum, impôt nul. Ces frontières sont cherchées pour un seul
+ * revenu et, en couple, pour deux revenus égaux.
+ * <p>
+ * Les foyers tirés se répartissent ensuite entre le voisinage immédiat d'une frontière, des revenus
+ * quelconques sur une échelle logarithmique, des valeurs extrêmes jusqu'à {@link Integer#MAX_VALUE} et des
+ * foyers invalides, pour que le contrôle des paramètres soit comparé lui aussi. Le générateur est immuable
+ * après construction et peut être partagé entre plusieurs threads.
+ */
+final class GenerateurCas {
+
+    private static final int REVENU_MAX_BALAYAGE = 3_000_000;
+    private static final double PAS_BALAYAGE = 1.01;
+    private static final int[] REVENUS_EXTREMES = { 0, 1, 2, 1 << 20, 1_000_000_000, 1 << 30,
+            Integer.MAX_VALUE / 2, Integer.MAX_VALUE - 1, Integer.MAX_VALUE };
+    private static final int[] ENFANTS_INVALIDES = { -1, 8, 9, Integer.MAX_VALUE, Integer.MIN_VALUE };
+
+    private final Bareme bareme;
+    private final Simulateur simulateur;
+    private final int[] tranches;
+    private final double[] taux;
+    private final int[] tranchesCehr;
+
+    // Profils valides : situation, enfants, enfants handicapés, parent isolé
+    private final List<SituationFamiliale> situations = new ArrayList<>();
+    private final List<int[]> enfants = new ArrayList<>();
+    private final List<Boolean> isoles = new ArrayList<>();
+
+    // Frontières : profil, revenus égaux entre déclarants ou non, premier revenu total du nouveau régime
+    private final int[] frontieresProfil;
+    private final boolean[] frontieresPartagees;
+    private final int[] frontieresRevenu;
+
+    GenerateurCas( Bareme bareme ) {
+        this.bareme = bareme;
+        this.simulateur = new Simulateur();
+        this.tranches = bareme.getTranches();
+        this.taux = bareme.getTaux();
+        this.tranchesCehr = bareme.getTranchesCehr();
+        for ( SituationFamiliale sf : SituationFamiliale.values() ) {
+            for ( int enf = 0; enf <= 7; enf++ ) {
+                for ( int enfH = 0; enfH <= enf; enfH++ ) {
+                    for ( int iso = 0; iso <= ( MoteursCompares.estCouple( sf ) ? 0 : 1 ); iso++ ) {
+                        situations.add( sf );
+                        enfants.add( new int[] { enf, enfH } );
+                        isoles.add( iso == 1 );
+                    }
+                }
+            }
+        }
+        List<int[]> trouvees = new ArrayList<>();
+        for ( int p = 0; p < situations.size(); p++ ) {
+            balayer( p, false, trouvees );
+            if ( MoteursCompares.estCouple( situations.get( p ) ) ) {
+                balayer( p, true, trouvees );
+            }
+        }
+        frontieresProfil = new int[ trouvees.size() ];
+        frontieresPartagees = new boolean[ trouvees.size() ];
+        frontieresRevenu = new int[ trouvees.size() ];
+        for ( int i = 0; i < trouvees.size(); i++ ) {
+            frontieresProfil[ i ] = trouvees.get( i )[ 0 ];
+            frontieresPartagees[ i ] = trouvees.get( i )[ 1 ] == 1;
+            frontieresRevenu[ i ] = trouvees.get( i )[ 2 ];
+        }
+    }
+
+    /**
+     * @return Nombre de frontières de régime localisées
+     */
+    int getNbFrontieres() {
+        return frontieresRevenu.length;
+    }
+
+    /**
+     * Remplace le contenu du lot par {@code nombre} foyers tirés.
+     */
+    void remplir( LotCas lot, SplittableRandom aleatoire, int nombre ) {
+        lot.taille = 0;
+        for ( int i = 0; i < nombre; i++ ) {
+            int tirage = aleatoire.nextInt( 100 );
+            if ( tirage < 60 ) {
+                tirerPresFrontiere( lot, aleatoire );
+            } else if ( tirage < 85 ) {
+                tirerQuelconque( lot, aleatoire );
+            } else if ( tirage < 90 ) {
+                tirerExtreme( lot, aleatoire );
+            } else {
+                tirerInvalide( lot, aleatoire );
+            }
+        }
+    }
+
+    private void tirerPresFrontiere( LotCas lot, SplittableRandom aleatoire ) {
+        int f = aleatoire.nextInt( frontieresRevenu.length );
+        int p = frontieresProfil[ f ];
+        int ecart;
+        int tirage = aleatoire.nextInt( 10 );
+        if ( tirage < 6 ) {
+            ecart = aleatoire.nextInt( -2, 3 );
+        } else if ( tirage < 9 ) {
+            ecart = aleatoire.nextInt( -64, 65 );
+        } else {
+            ecart = aleatoire.nextInt( -2000, 2001 );
+        }
+        int total = Math.max( 0, frontieresRevenu[ f ] + ecart );
+        int revenu2 = frontieresPartagees[ f ] ? total / 2 : 0;
+        if ( MoteursCompares.estCouple( situations.get( p ) ) && aleatoire.nextInt( 5 ) == 0 ) {
+            // Quelques euros passent d'un déclarant à l'autre
+            revenu2 = Math.max( 0, Math.min( total, revenu2 + aleatoire.nextInt( -3, 4 ) ) );
+        }
+        ajouter( lot, p, total - revenu2, revenu2 );
+    }
+
+    private void tirerQuelconque( LotCas lot, SplittableRandom aleatoire ) {
+        int p = aleatoire.nextInt( situations.size() );
+        int revenu1 = aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( 25 ) ) );
+        int revenu2 = MoteursCompares.estCouple( situations.get( p ) )
+                ? aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( 25 ) ) ) : 0;
+        ajouter( lot, p, revenu1, revenu2 );
+    }
+
+    private void tirerExtreme( LotCas lot, SplittableRandom aleatoire ) {
+        int p = aleatoire.nextInt( situations.size() );
+        int revenu1 = REVENUS_EXTREMES[ aleatoire.nextInt( REVENUS_EXTREMES.length ) ];
+        int revenu2 = MoteursCompares.estCouple( situations.get( p ) )
+                ? REVENUS_EXTREMES[ aleatoire.nextInt( REVENUS_EXTREMES.length ) ] : 0;
+        ajouter( lot, p, revenu1, revenu2 );
+    }
+
+    /**
+     * Foyer valide dont une seule donnée est rendue invalide.
+     */
+    private void tirerInvalide( LotCas lot, SplittableRandom aleatoire ) {
+        tirerQuelconque( lot, aleatoire );
+        int i = lot.taille - 1;
+        switch ( aleatoire.nextInt( 7 ) ) {
+            case 0 -> lot.revenus1[ i ] = aleatoire.nextBoolean() ? Integer.MIN_VALUE : -1 - aleatoire.nextInt( 1000 );
+            case 1 -> lot.revenus2[ i ] = aleatoire.nextBoolean() ? Integer.MIN_VALUE : -1 - aleatoire.nextInt( 1000 );
+            case 2 -> lot.situations[ i ] = null;
+            case 3 -> lot.enfants[ i ] = ENFANTS_INVALIDES[ aleatoire.nextInt( ENFANTS_INVALIDES.length ) ];
+            case 4 -> lot.handicapes[ i ] = aleatoire.nextBoolean() ? -1 : lot.enfants[ i ] + 1;
+            case 5 -> {
+                lot.situations[ i ] = aleatoire.nextBoolean() ? SituationFamiliale.MARIE : SituationFamiliale.PACSE;
+                lot.isoles[ i ] = true;
+            }
+            default -> {
+                if ( MoteursCompares.estCouple( lot.situations[ i ] ) ) {
+                    lot.situations[ i ] = SituationFamiliale.CELIBATAIRE;
+                }
+                lot.revenus2[ i ] = 1 + aleatoire.nextInt( 100000 );
+            }
+        }
+    }
+
+    private void ajouter( LotCas lot, int p, int revenu1, int revenu2 ) {
+        int[] enf = enfants.get( p );
+        lot.ajouter( revenu1, revenu2, situations.get( p ), enf[ 0 ], enf[ 1 ], isoles.get( p ) );
+    }
+
+    /**
+     * Balaye le revenu total du profil par pas géométriques et localise chaque changement de régime.
+     */
+    private void balayer( int p, boolean partage, List<int[]> trouvees ) {
+        int precedent = 0;
+        int regimePrecedent = regime( p, partage, 0 );
+        int total = 1;
+        while ( precedent < REVENU_MAX_BALAYAGE ) {
+            int regimeCourant = regime( p, partage, total );
+            if ( regimeCourant != regimePrecedent ) {
+                // Premier revenu du nouveau régime dans ]precedent, total]
+                int bas = precedent;
+                int haut = total;
+                while ( haut - bas > 1 ) {
+                    int milieu = ( bas + haut ) >>> 1;
+                    if ( regime( p, partage, milieu ) == regimePrecedent ) {
+                        bas = milieu;
+                    } else {
+                        haut = milieu;
+                    }
+                }
+                trouvees.add( new int[] { p, partage ? 1 : 0, haut } );
+            }
+            precedent = total;
+            regimePrecedent = regimeCourant;
+            total = Math.max( total + 1, (int) ( total * PAS_BALAYAGE ) );
+        }
+    }
+
+    /**
+     * @return Code du régime d'imposition du profil pour ce revenu total, d'après le simulateur de référence
+     */
+    private int regime( int p, boolean partage, int total ) {
+        SituationFamiliale sf = situations.get( p );
+        boolean couple = MoteursCompares.estCouple( sf );
+        int revenu2 = partage ? total / 2 : 0;
+        int revenu1 = total - revenu2;
+        int[] enf = enfants.get( p );
+        ResultatImpot r = simulateur.calculer( revenu1, revenu2, sf, enf[ 0 ], enf[ 1 ], isoles.get( p ) );
+        double rFRef = r.getRevenuFiscalReference();
+        double mImp = r.getImpotAvantDecote();
+        double seuilDecote = couple ? bareme.getSeuilDecoteCouple() : bareme.getSeuilDecoteSeul();
+        int decote = mImp >= seuilDecote ? 0 : r.getDecote() == 0 ? 1 : r.getDecote() < mImp ? 2 : 3;
+        boolean plafonne = mImp > Math.round( impotParTranche( rFRef / r.getNbParts() ) * r.getNbParts() );
+        int code = indice( tranches, rFRef / r.getNbParts() );
+        code = code * 8 + indice( tranches, rFRef / r.getNbPartsDeclarants() );
+        code = code * 2 + ( plafonne ? 1 : 0 );
+        code = code * 4 + decote;
+        code = code * 8 + indice( tranchesCehr, rFRef );
+        code = code * 3 + regimeAbattement( revenu1 );
+        code = code * 3 + ( couple ? regimeAbattement( revenu2 ) : 0 );
+        return code * 2 + ( r.getImpotNetArrondi() > 0 ? 1 : 0 );
+    }
+
+    private int regimeAbattement( int revenu ) {
+        double abattement = revenu * bareme.getTauxAbattement();
+        return abattement < bareme.getAbattementMin() ? 0 : abattement > bareme.getAbattementMax() ? 2 : 1;
+    }
+
+    /**
+     * @return Nombre de seuils intérieurs, hors premier et dernier, strictement inférieurs au montant
+     */
+    private static int indice( int[] seuils, double montant ) {
+        int i = 0;
+        while ( i < seuils.length - 2 && seuils[ i + 1 ] < montant ) {
+            i++;
+        }
+        return i;
+    }
+
+    private double impotParTranche( double revenuParPart ) {
+        double impot = 0;
+        for ( int i = 0; i < taux.length && revenuParPart > tranches[ i ]; i++ ) {
+            impot += ( Math.min( revenuParPart, tranches[ i + 1 ] ) - tranches[ i ] ) * taux[ i ];
+        }
+        return impot;
+    }
+}
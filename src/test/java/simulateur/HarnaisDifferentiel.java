@@ -0,0 +1,420 @@
+package simulateur;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.SituationFamiliale;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import static simulateur.MoteurCompare.ABSENT;
+import static simulateur.MoteurCompare.CHAMPS;
+import static simulateur.MoteurCompare.IMPOT_NET;
+import static simulateur.MoteurCompare.REJET_NON_QUALIFIE;
+import static simulateur.MoteurCompare.STATUT;
+import static simulateur.MoteurCompare.TAILLE_EMPREINTE;
+
+/**
+ * Harnais différentiel : des foyers tirés par un {@link GenerateurCas} sont calculés par le simulateur de
+ * référence et par chaque moteur comparé, et toute différence d'empreinte est une divergence.
+ * <p>
+ * Les foyers sont tirés par lots de {@link #TAILLE_LOT}. Le lot {@code n} est tiré avec la graine
+ * {@code graine + n} : une exécution se rejoue à l'identique quel que soit le nombre de threads. Chaque
+ * thread a ses propres instances de moteurs et prend le lot suivant dès qu'il a fini le sien.
+ * <p>
+ * Une divergence est réduite avant d'être signalée : le foyer est d'abord rejoué seul sur des moteurs neufs,
+ * puis avec les foyers qui le précèdent dans son lot si un moteur avec état en dépend, dont on retire alors
+ * tous ceux qui ne sont pas nécessaires. Chaque donnée restante est ensuite simplifiée (revenus vers zéro
+ * ou vers un compte rond, moins d'enfants, pas de parent isolé, première situation) tant que la divergence
+ * persiste. Le reproducteur obtenu est écrit au format de datasImposition.csv.
+ */
+final class HarnaisDifferentiel {
+
+    static final int TAILLE_LOT = 4096;
+
+    private final GenerateurCas generateur;
+    private final Supplier<MoteurCompare> reference;
+    private final List<Supplier<MoteurCompare>> moteurs;
+    private final int nbThreads;
+    private final int nbDivergencesMax;
+
+    /**
+     * @param reference Fabrique du moteur de référence
+     * @param moteurs Fabriques des moteurs comparés, appelées une fois par thread
+     * @param nbDivergencesMax Nombre de divergences après lequel l'exécution s'arrête
+     */
+    HarnaisDifferentiel( GenerateurCas generateur, Supplier<MoteurCompare> reference,
+                         List<Supplier<MoteurCompare>> moteurs, int nbThreads, int nbDivergencesMax ) {
+        this.generateur = generateur;
+        this.reference = reference;
+        this.moteurs = moteurs;
+        this.nbThreads = nbThreads;
+        this.nbDivergencesMax = nbDivergencesMax;
+    }
+
+    /**
+     * Foyers qui reproduisent une divergence, le dernier étant celui dont les empreintes diffèrent.
+     */
+    static final class Divergence {
+
+        private final String moteur;
+        private final long lot;
+        private final List<String> foyers;
+        private final long[] attendue;
+        private final long[] obtenue;
+        private final boolean reproductible;
+
+        Divergence( String moteur, long lot, List<String> foyers, long[] attendue, long[] obtenue,
+                    boolean reproductible ) {
+            this.moteur = moteur;
+            this.lot = lot;
+            this.foyers = foyers;
+            this.attendue = attendue;
+            this.obtenue = obtenue;
+            this.reproductible = reproductible;
+        }
+
+        String getMoteur() { return moteur; }
+        List<String> getFoyers() { return foyers; }
+
+        /**
+         * @return False si la divergence n'a pas pu être rejouée sur des moteurs neufs, même précédée de
+         * son lot : le reproducteur est alors le foyer d'origine, non réduit
+         */
+        boolean isReproductible() { return reproductible; }
+
+        @Override
+        public String toString() {
+            StringBuilder texte = new StringBuilder( moteur ).append( " diverge (lot " ).append( lot )
+                    .append( reproductible ? ")" : ", non reproductible isolément)" );
+            for ( String foyer : foyers ) {
+                texte.append( "\n    " ).append( foyer );
+            }
+            for ( int champ = 0; champ < TAILLE_EMPREINTE; champ++ ) {
+                if ( attendue[ champ ] != obtenue[ champ ] ) {
+                    texte.append( "\n    " ).append( CHAMPS[ champ ] ).append( " : attendu " )
+                            .append( valeur( champ, attendue[ champ ] ) ).append( ", obtenu " )
+                            .append( valeur( champ, obtenue[ champ ] ) );
+                }
+            }
+            return texte.toString();
+        }
+
+        private static String valeur( int champ, long valeur ) {
+            if ( valeur == ABSENT ) {
+                return "absent";
+            }
+            if ( champ == STATUT ) {
+                return valeur == MotifRejet.CODE_VALIDE ? "valide" : valeur == REJET_NON_QUALIFIE ? "rejeté"
+                        : valeur > 0 ? MotifRejet.depuisCode( (int) valeur ).name() : "panne";
+            }
+            return champ == IMPOT_NET ? Long.toString( valeur ) : Double.toString( Double.longBitsToDouble( valeur ) );
+        }
+    }
+
+    /**
+     * Bilan d'une exécution.
+     */
+    static final class Bilan {
+
+        private final long nbCas;
+        private final long dureeNanos;
+        private final List<String> noms;
+        private final long[] ecartsAdmis;
+        private final List<Divergence> divergences;
+
+        Bilan( long nbCas, long dureeNanos, List<String> noms, long[] ecartsAdmis, List<Divergence> divergences ) {
+            this.nbCas = nbCas;
+            this.dureeNanos = dureeNanos;
+            this.noms = noms;
+            this.ecartsAdmis = ecartsAdmis;
+            this.divergences = divergences;
+        }
+
+        long getNbCas() { return nbCas; }
+        List<Divergence> getDivergences() { return divergences; }
+
+        /**
+         * @return Écarts connus acceptés par {@link MoteurCompare#ecartAdmis} pour ce moteur
+         */
+        long getNbEcartsAdmis( String moteur ) {
+            int i = noms.indexOf( moteur );
+            return i < 0 ? 0 : ecartsAdmis[ i ];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder texte = new StringBuilder().append( nbCas ).append( " foyers comparés sur " )
+                    .append( noms.size() ).append( " moteurs en " ).append( dureeNanos / 1_000_000 ).append( " ms" );
+            for ( int m = 0; m < noms.size(); m++ ) {
+                if ( ecartsAdmis[ m ] > 0 ) {
+                    texte.append( "\n  " ).append( noms.get( m ) ).append( " : " ).append( ecartsAdmis[ m ] )
+                            .append( " écarts admis" );
+                }
+            }
+            for ( Divergence divergence : divergences ) {
+                texte.append( "\n" ).append( divergence );
+            }
+            return texte.toString();
+        }
+    }
+
+    /**
+     * @param nbCas Nombre de foyers à comparer
+     * @param graine Graine du premier lot
+     * @return Bilan ; l'exécution s'arrête plus tôt si le nombre maximal de divergences est atteint
+     */
+    Bilan executer( long nbCas, long graine ) throws InterruptedException {
+        long debut = System.nanoTime();
+        AtomicLong prochainLot = new AtomicLong();
+        AtomicLong nbCalcules = new AtomicLong();
+        AtomicLongArray ecartsAdmis = new AtomicLongArray( moteurs.size() );
+        List<Divergence> divergences = Collections.synchronizedList( new ArrayList<>() );
+        List<String> noms = new ArrayList<>();
+        for ( Supplier<MoteurCompare> moteur : moteurs ) {
+            noms.add( moteur.get().getNom() );
+        }
+
+        ExecutorService threads = Executors.newFixedThreadPool( nbThreads );
+        try {
+            List<Future<?>> taches = new ArrayList<>();
+            for ( int t = 0; t < nbThreads; t++ ) {
+                taches.add( threads.submit( () -> comparer( nbCas, graine, prochainLot, nbCalcules, ecartsAdmis,
+                        divergences ) ) );
+            }
+            for ( Future<?> tache : taches ) {
+                tache.get();
+            }
+        } catch ( ExecutionException e ) {
+            throw new IllegalStateException( "Échec du harnais", e.getCause() );
+        } finally {
+            threads.shutdownNow();
+        }
+
+        long[] admis = new long[ moteurs.size() ];
+        for ( int m = 0; m < admis.length; m++ ) {
+            admis[ m ] = ecartsAdmis.get( m );
+        }
+        return new Bilan( nbCalcules.get(), System.nanoTime() - debut, noms, admis, new ArrayList<>( divergences ) );
+    }
+
+    private void comparer( long nbCas, long graine, AtomicLong prochainLot, AtomicLong nbCalcules,
+                           AtomicLongArray ecartsAdmis, List<Divergence> divergences ) {
+        MoteurCompare moteurReference = reference.get();
+        MoteurCompare[] compares = new MoteurCompare[ moteurs.size() ];
+        for ( int m = 0; m < compares.length; m++ ) {
+            compares[ m ] = moteurs.get( m ).get();
+        }
+        LotCas lot = new LotCas( TAILLE_LOT );
+        long[] attendues = new long[ TAILLE_LOT * TAILLE_EMPREINTE ];
+        long[] obtenues = new long[ TAILLE_LOT * TAILLE_EMPREINTE ];
+
+        long numero;
+        while ( ( numero = prochainLot.getAndIncrement() ) * TAILLE_LOT < nbCas
+                && divergences.size() < nbDivergencesMax ) {
+            generateur.remplir( lot, new SplittableRandom( graine + numero ),
+                    (int) Math.min( TAILLE_LOT, nbCas - numero * TAILLE_LOT ) );
+            moteurReference.calculer( lot, attendues );
+            for ( int m = 0; m < compares.length; m++ ) {
+                compares[ m ].calculer( lot, obtenues );
+                for ( int i = 0; i < lot.taille; i++ ) {
+                    int d = i * TAILLE_EMPREINTE;
+                    if ( !differe( attendues, obtenues, d ) ) {
+                        continue;
+                    }
+                    if ( compares[ m ].ecartAdmis( lot, i, attendues, obtenues, d ) ) {
+                        ecartsAdmis.incrementAndGet( m );
+                    } else if ( divergences.size() < nbDivergencesMax ) {
+                        divergences.add( reduire( moteurs.get( m ), numero, lot, i ) );
+                    }
+                }
+            }
+            nbCalcules.addAndGet( lot.taille );
+        }
+    }
+
+    /**
+     * @return True si un champ produit par les deux moteurs diffère ; un rejet non qualifié vaut tout rejet
+     */
+    static boolean differe( long[] attendues, long[] obtenues, int d ) {
+        long statutAttendu = attendues[ d + STATUT ];
+        long statutObtenu = obtenues[ d + STATUT ];
+        if ( statutAttendu != statutObtenu ) {
+            return !( statutAttendu == REJET_NON_QUALIFIE && statutObtenu > 0
+                    || statutObtenu == REJET_NON_QUALIFIE && statutAttendu > 0 );
+        }
+        for ( int champ = 1; champ < TAILLE_EMPREINTE; champ++ ) {
+            long attendue = attendues[ d + champ ];
+            long obtenue = obtenues[ d + champ ];
+            if ( attendue != ABSENT && obtenue != ABSENT && attendue != obtenue ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Réduit la divergence du foyer {@code i} du lot à un reproducteur minimal.
+     */
+    Divergence reduire( Supplier<MoteurCompare> moteur, long numero, LotCas lot, int i ) {
+        List<int[]> foyers = new ArrayList<>();
+        List<SituationFamiliale> situations = new ArrayList<>();
+        ajouter( foyers, situations, lot, i );
+        boolean reproductible = diverge( moteur, foyers, situations, null );
+        if ( !reproductible ) {
+            // Le moteur dépend des foyers calculés avant : on rejoue le début du lot
+            foyers.clear();
+            situations.clear();
+            for ( int j = 0; j <= i; j++ ) {
+                ajouter( foyers, situations, lot, j );
+            }
+            reproductible = diverge( moteur, foyers, situations, null );
+        }
+        if ( !reproductible ) {
+            foyers.subList( 0, i ).clear();
+            situations.subList( 0, i ).clear();
+        } else {
+            retirerInutiles( moteur, foyers, situations );
+            simplifier( moteur, foyers, situations );
+        }
+        long[][] empreintes = new long[ 2 ][];
+        diverge( moteur, foyers, situations, empreintes );
+        List<String> descriptions = new ArrayList<>();
+        LotCas reproducteur = lot( foyers, situations );
+        for ( int j = 0; j < reproducteur.taille; j++ ) {
+            descriptions.add( reproducteur.decrire( j ) );
+        }
+        return new Divergence( moteur.get().getNom(), numero, descriptions, empreintes[ 0 ], empreintes[ 1 ],
+                reproductible );
+    }
+
+    /**
+     * Retire les foyers précédant le dernier dont la divergence ne dépend pas, par blocs de taille décroissante.
+     */
+    private void retirerInutiles( Supplier<MoteurCompare> moteur, List<int[]> foyers,
+                                  List<SituationFamiliale> situations ) {
+        for ( int bloc = Math.max( 1, ( foyers.size() - 1 ) / 2 ); bloc >= 1; bloc /= 2 ) {
+            int debut = 0;
+            while ( debut + bloc < foyers.size() ) {
+                List<int[]> foyersSansBloc = new ArrayList<>( foyers );
+                List<SituationFamiliale> situationsSansBloc = new ArrayList<>( situations );
+                foyersSansBloc.subList( debut, debut + bloc ).clear();
+                situationsSansBloc.subList( debut, debut + bloc ).clear();
+                if ( diverge( moteur, foyersSansBloc, situationsSansBloc, null ) ) {
+                    foyers.subList( debut, debut + bloc ).clear();
+                    situations.subList( debut, debut + bloc ).clear();
+                } else {
+                    debut += bloc;
+                }
+            }
+        }
+    }
+
+    /**
+     * Simplifie une donnée à la fois, en gardant la première simplification qui conserve la divergence,
+     * jusqu'à ce qu'aucune ne la conserve plus.
+     */
+    private void simplifier( Supplier<MoteurCompare> moteur, List<int[]> foyers,
+                             List<SituationFamiliale> situations ) {
+        boolean simplifie = true;
+        while ( simplifie ) {
+            simplifie = false;
+            for ( int j = 0; j < foyers.size(); j++ ) {
+                int[] foyer = foyers.get( j );
+                // Revenus 1 et 2, enfants, enfants handicapés, parent isolé codé 0 ou 1
+                for ( int donnee = 0; donnee < foyer.length; donnee++ ) {
+                    for ( int candidat : candidats( foyer[ donnee ] ) ) {
+                        int ancienne = foyer[ donnee ];
+                        foyer[ donnee ] = candidat;
+                        if ( diverge( moteur, foyers, situations, null ) ) {
+                            simplifie = true;
+                            break;
+                        }
+                        foyer[ donnee ] = ancienne;
+                    }
+                }
+                SituationFamiliale situation = situations.get( j );
+                for ( int s = 0; situation != null && s < situation.ordinal(); s++ ) {
+                    situations.set( j, SituationFamiliale.values()[ s ] );
+                    if ( diverge( moteur, foyers, situations, null ) ) {
+                        simplifie = true;
+                        break;
+                    }
+                    situations.set( j, situation );
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Valeurs plus simples qu'une donnée, de la plus simple à la plus proche
+     */
+    static List<Integer> candidats( int valeur ) {
+        List<Integer> candidats = new ArrayList<>();
+        if ( valeur == 0 ) {
+            return candidats;
+        }
+        candidats.add( 0 );
+        if ( valeur < 0 ) {
+            candidats.add( -1 );
+            candidats.add( valeur / 2 );
+            candidats.add( valeur + 1 );
+        } else {
+            for ( int rond = 1_000_000_000; rond >= 10; rond /= 10 ) {
+                if ( valeur > rond && valeur % rond != 0 ) {
+                    candidats.add( valeur - valeur % rond );
+                }
+            }
+            for ( int ecart = valeur / 2; ecart >= 1; ecart /= 2 ) {
+                candidats.add( valeur - ecart );
+            }
+        }
+        candidats.removeIf( candidat -> candidat == valeur );
+        return candidats;
+    }
+
+    /**
+     * Rejoue les foyers sur des instances neuves du moteur et de la référence.
+     * @param empreintes Si non null, reçoit les empreintes attendue et obtenue du dernier foyer
+     * @return True si le dernier foyer diverge hors écart admis
+     */
+    private boolean diverge( Supplier<MoteurCompare> moteur, List<int[]> foyers,
+                             List<SituationFamiliale> situations, long[][] empreintes ) {
+        LotCas lot = lot( foyers, situations );
+        long[] attendues = new long[ lot.taille * TAILLE_EMPREINTE ];
+        long[] obtenues = new long[ lot.taille * TAILLE_EMPREINTE ];
+        MoteurCompare compare = moteur.get();
+        reference.get().calculer( lot, attendues );
+        compare.calculer( lot, obtenues );
+        int d = ( lot.taille - 1 ) * TAILLE_EMPREINTE;
+        if ( empreintes != null ) {
+            empreintes[ 0 ] = Arrays.copyOfRange( attendues, d, d + TAILLE_EMPREINTE );
+            empreintes[ 1 ] = Arrays.copyOfRange( obtenues, d, d + TAILLE_EMPREINTE );
+        }
+        return differe( attendues, obtenues, d ) && !compare.ecartAdmis( lot, lot.taille - 1, attendues, obtenues, d );
+    }
+
+    private static void ajouter( List<int[]> foyers, List<SituationFamiliale> situations, LotCas lot, int i ) {
+        foyers.add( new int[] { lot.revenus1[ i ], lot.revenus2[ i ], lot.enfants[ i ], lot.handicapes[ i ],
+                lot.isoles[ i ] ? 1 : 0 } );
+        situations.add( lot.situations[ i ] );
+    }
+
+    private static LotCas lot( List<int[]> foyers, List<SituationFamiliale> situations ) {
+        LotCas lot = new LotCas( foyers.size() );
+        for ( int j = 0; j < foyers.size(); j++ ) {
+            int[] foyer = foyers.get( j );
+            lot.ajouter( foyer[ 0 ], foyer[ 1 ], situations.get( j ), foyer[ 2 ], foyer[ 3 ], foyer[ 4 ] != 0 );
+        }
+        return lot;
+    }
+}
@@ -0,0 +1,58 @@
+package simulateur;
+
+import com.kerware.simulateur.SituationFamiliale;
+
+/**
+ * Lot de foyers soumis à tous les moteurs comparés, rangé par colonnes pour être rempli sans allocation.
+ * Les foyers peuvent être invalides : situation absente, revenus négatifs, enfants incohérents.
+ */
+final class LotCas {
+
+    final int[] revenus1;
+    final int[] revenus2;
+    final SituationFamiliale[] situations;
+    final int[] enfants;
+    final int[] handicapes;
+    final boolean[] isoles;
+    int taille;
+
+    LotCas( int capacite ) {
+        revenus1 = new int[ capacite ];
+        revenus2 = new int[ capacite ];
+        situations = new SituationFamiliale[ capacite ];
+        enfants = new int[ capacite ];
+        handicapes = new int[ capacite ];
+        isoles = new boolean[ capacite ];
+    }
+
+    int getCapacite() {
+        return revenus1.length;
+    }
+
+    void ajouter( int revenu1, int revenu2, SituationFamiliale situation, int nbEnfants, int nbHandicapes,
+                  boolean isole ) {
+        revenus1[ taille ] = revenu1;
+        revenus2[ taille ] = revenu2;
+        situations[ taille ] = situation;
+        enfants[ taille ] = nbEnfants;
+        handicapes[ taille ] = nbHandicapes;
+        isoles[ taille ] = isole;
+        taille++;
+    }
+
+    /**
+     * Ajoute le foyer {@code i} d'un autre lot.
+     */
+    void ajouter( LotCas source, int i ) {
+        ajouter( source.revenus1[ i ], source.revenus2[ i ], source.situations[ i ], source.enfants[ i ],
+                source.handicapes[ i ], source.isoles[ i ] );
+    }
+
+    /**
+     * @return Foyer {@code i} au format de datasImposition.csv, sans l'impôt attendu
+     */
+    String decrire( int i ) {
+        return revenus1[ i ] + "," + revenus2[ i ] + "," + situations[ i ] + "," + enfants[ i ] + ","
+                + handicapes[ i ] + "," + isoles[ i ];
+    }
+}
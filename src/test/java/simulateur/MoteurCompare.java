@@ -0,0 +1,123 @@
+package simulateur;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.ResultatImpot;
+
+import java.util.Arrays;
+
+/**
+ * Moteur soumis au harnais différentiel. Chaque foyer d'un lot est réduit à une empreinte de
+ * {@link #TAILLE_EMPREINTE} entiers : statut du contrôle puis montants, codés exactement. Un moteur qui ne
+ * produit pas une valeur intermédiaire la laisse à {@link #ABSENT} et elle n'est pas comparée.
+ * <p>
+ * Une instance n'est utilisée que par un thread : les moteurs avec état, comme l'adaptateur incrémental,
+ * gardent le leur d'un foyer au suivant, comme en production.
+ */
+interface MoteurCompare {
+
+    int STATUT = 0;
+    int REVENU_FISCAL_REFERENCE = 1;
+    int ABATTEMENT = 2;
+    int NB_PARTS = 3;
+    int IMPOT_AVANT_DECOTE = 4;
+    int DECOTE = 5;
+    int CONTRIB_EXCEPTIONNELLE = 6;
+    int IMPOT_NET = 7;
+    int TAILLE_EMPREINTE = 8;
+
+    String[] CHAMPS = { "statut", "revenuFiscalReference", "abattement", "nbParts", "impotAvantDecote",
+            "decote", "contribExceptionnelle", "impotNet" };
+
+    /** Valeur non produite par le moteur. */
+    long ABSENT = Long.MIN_VALUE;
+    /** Statut d'un foyer rejeté sans que le moteur indique la règle enfreinte. */
+    long REJET_NON_QUALIFIE = -1;
+    /** Statut d'un foyer sur lequel le moteur a levé une exception inattendue ou rendu un résultat incohérent. */
+    long PANNE = -2;
+
+    String getNom();
+
+    /**
+     * Calcule les foyers du lot et range l'empreinte du foyer {@code i} à partir de
+     * {@code i * TAILLE_EMPREINTE}. Les rejets sont consignés dans l'empreinte, sans exception.
+     */
+    void calculer( LotCas lot, long[] empreintes );
+
+    /**
+     * Écart connu et accepté par construction entre ce moteur et le simulateur de référence sur le foyer
+     * {@code i}, par exemple un arrondi plus exact.
+     * @param decalage Début des deux empreintes dans leurs tableaux
+     */
+    default boolean ecartAdmis( LotCas lot, int i, long[] reference, long[] obtenu, int decalage ) {
+        return false;
+    }
+
+    /**
+     * @return Codage exact d'un montant, le zéro négatif confondu avec le zéro
+     */
+    static long montant( double valeur ) {
+        return Double.doubleToLongBits( valeur + 0.0 );
+    }
+
+    static void ranger( ResultatImpot resultat, long[] empreintes, int d ) {
+        empreintes[ d + STATUT ] = MotifRejet.CODE_VALIDE;
+        empreintes[ d + REVENU_FISCAL_REFERENCE ] = montant( resultat.getRevenuFiscalReference() );
+        empreintes[ d + ABATTEMENT ] = montant( resultat.getAbattement() );
+        empreintes[ d + NB_PARTS ] = montant( resultat.getNbParts() );
+        empreintes[ d + IMPOT_AVANT_DECOTE ] = montant( resultat.getImpotAvantDecote() );
+        empreintes[ d + DECOTE ] = montant( resultat.getDecote() );
+        empreintes[ d + CONTRIB_EXCEPTIONNELLE ] = montant( resultat.getContribExceptionnelle() );
+        empreintes[ d + IMPOT_NET ] = resultat.getImpotNetArrondi();
+    }
+
+    /**
+     * Consigne un rejet : la règle est retrouvée d'après le message, éventuellement préfixé par le moteur.
+     */
+    static void rejeter( IllegalArgumentException e, long[] empreintes, int d ) {
+        empreintes[ d + STATUT ] = REJET_NON_QUALIFIE;
+        String message = e.getMessage();
+        for ( MotifRejet motif : MotifRejet.values() ) {
+            if ( message != null && message.endsWith( motif.getMessage() ) ) {
+                empreintes[ d + STATUT ] = motif.getCode();
+            }
+        }
+    }
+
+    /**
+     * Moteur qui calcule un foyer à la fois.
+     */
+    abstract class Unitaire implements MoteurCompare {
+
+        private final String nom;
+
+        Unitaire( String nom ) {
+            this.nom = nom;
+        }
+
+        @Override
+        public String getNom() {
+            return nom;
+        }
+
+        /**
+         * Calcule le foyer {@code i} et range son empreinte à partir de {@code d}.
+         * @throws IllegalArgumentException si le foyer est rejeté
+         */
+        abstract void calculer( LotCas lot, int i, long[] empreintes, int d );
+
+        @Override
+        public void calculer( LotCas lot, long[] empreintes ) {
+            for ( int i = 0; i < lot.taille; i++ ) {
+                int d = i * TAILLE_EMPREINTE;
+                Arrays.fill( empreintes, d, d + TAILLE_EMPREINTE, ABSENT );
+                try {
+                    calculer( lot, i, empreintes, d );
+                } catch ( IllegalArgumentException e ) {
+                    rejeter( e, empreintes, d );
+                } catch ( RuntimeException e ) {
+                    empreintes[ d + STATUT ] = PANNE;
+                }
+            }
+        }
+    }
+}
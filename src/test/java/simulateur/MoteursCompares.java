@@ -0,0 +1,252 @@
+package simulateur;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CacheImposition;
+import com.kerware.simulateur.ComparateurReforme;
+import com.kerware.simulateur.EcartImpot;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.PolitiqueEviction;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SimulateurTrajectoire;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.Trajectoire;
+import com.kerware.simulateurReusine.ColonnesFoyers;
+import com.kerware.simulateurReusine.NoyauColonnes;
+import com.kerware.simulateurReusine.SimulateurCentimes;
+import com.kerware.simulateurReusine.SimulateurReusine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Moteurs du projet branchés sur le harnais différentiel, tous sur le barème 2024.
+ */
+final class MoteursCompares {
+
+    private MoteursCompares() {
+    }
+
+    /**
+     * @return Fabrique du simulateur de référence
+     */
+    static Supplier<MoteurCompare> reference() {
+        return () -> new MoteurCompare.Unitaire( "Simulateur" ) {
+            private final Simulateur simulateur = new Simulateur();
+
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                MoteurCompare.ranger( simulateur.calculer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ] ), empreintes, d );
+            }
+        };
+    }
+
+    /**
+     * @return Fabriques de tous les moteurs à comparer au simulateur de référence
+     */
+    static List<Supplier<MoteurCompare>> tous() {
+        return List.of( MoteursCompares::reusine, MoteursCompares::cache, MoteursCompares::adaptateur,
+                MoteursCompares::comparateur, MoteursCompares::trajectoire, MoteursCompares::centimes,
+                () -> colonnes( NoyauColonnes.scalaire( Bareme.BAREME_2024 ) ),
+                () -> colonnes( NoyauColonnes.pour( Bareme.BAREME_2024 ) ) );
+    }
+
+    static MoteurCompare reusine() {
+        SimulateurReusine simulateur = new SimulateurReusine();
+        return new MoteurCompare.Unitaire( "SimulateurReusine" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                MoteurCompare.ranger( simulateur.calculer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ] ), empreintes, d );
+            }
+        };
+    }
+
+    /**
+     * Cache volontairement petit, pour que les évictions soient fréquentes.
+     */
+    static MoteurCompare cache() {
+        Simulateur simulateur = new Simulateur( new CacheImposition( 1024, PolitiqueEviction.LRU ) );
+        return new MoteurCompare.Unitaire( "Simulateur+CacheImposition" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                MoteurCompare.ranger( simulateur.calculer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ] ), empreintes, d );
+            }
+        };
+    }
+
+    /**
+     * Adaptateur incrémental : une seule instance pour tous les foyers, seules les étapes invalidées sont
+     * recalculées. Ses accesseurs tronquent les montants en int et ses mutateurs rejettent sans indiquer
+     * la règle de {@link MotifRejet}.
+     */
+    static MoteurCompare adaptateur() {
+        AdaptateurSimulateur adaptateur = new AdaptateurSimulateur();
+        return new MoteurCompare.Unitaire( "AdaptateurSimulateur" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                try {
+                    adaptateur.setRevenusNetDeclarant1( lot.revenus1[ i ] );
+                    adaptateur.setRevenusNetDeclarant2( lot.revenus2[ i ] );
+                    adaptateur.setSituationFamiliale( lot.situations[ i ] );
+                    adaptateur.setNbEnfantsACharge( lot.enfants[ i ] );
+                    adaptateur.setNbEnfantsSituationHandicap( lot.handicapes[ i ] );
+                    adaptateur.setParentIsole( lot.isoles[ i ] );
+                } catch ( IllegalArgumentException e ) {
+                    empreintes[ d + STATUT ] = REJET_NON_QUALIFIE;
+                    return;
+                }
+                int code = adaptateur.verifierParametres();
+                if ( code != MotifRejet.CODE_VALIDE ) {
+                    empreintes[ d + STATUT ] = code;
+                    return;
+                }
+                adaptateur.calculImpotSurRevenuNet();
+                empreintes[ d + STATUT ] = MotifRejet.CODE_VALIDE;
+                empreintes[ d + REVENU_FISCAL_REFERENCE ] = MoteurCompare.montant( adaptateur.getRevenuFiscalReference() );
+                empreintes[ d + ABATTEMENT ] = MoteurCompare.montant( adaptateur.getAbattement() );
+                empreintes[ d + NB_PARTS ] = MoteurCompare.montant( adaptateur.getNbPartsFoyerFiscal() );
+                empreintes[ d + IMPOT_AVANT_DECOTE ] = MoteurCompare.montant( adaptateur.getImpotAvantDecote() );
+                empreintes[ d + DECOTE ] = MoteurCompare.montant( adaptateur.getDecote() );
+                empreintes[ d + CONTRIB_EXCEPTIONNELLE ] = MoteurCompare.montant( adaptateur.getContribExceptionnelle() );
+                empreintes[ d + IMPOT_NET ] = adaptateur.getImpotSurRevenuNet();
+            }
+        };
+    }
+
+    /**
+     * Comparateur d'un barème à lui-même : les deux impôts nets doivent être celui du simulateur.
+     */
+    static MoteurCompare comparateur() {
+        ComparateurReforme comparateur = new ComparateurReforme( Bareme.BAREME_2024, Bareme.BAREME_2024 );
+        return new MoteurCompare.Unitaire( "ComparateurReforme" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                EcartImpot ecart = comparateur.comparer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ] );
+                empreintes[ d + STATUT ] = ecart.getEcart() == 0 ? MotifRejet.CODE_VALIDE : PANNE;
+                empreintes[ d + IMPOT_NET ] = ecart.getImpotReference();
+            }
+        };
+    }
+
+    /**
+     * Projection d'une seule année, sans indexation ni événement.
+     */
+    static MoteurCompare trajectoire() {
+        SimulateurTrajectoire simulateur = new SimulateurTrajectoire( Bareme.BAREME_2024, 0, 1 );
+        return new MoteurCompare.Unitaire( "SimulateurTrajectoire" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                Trajectoire trajectoire = new Trajectoire( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ], 0, List.of() );
+                MoteurCompare.ranger( simulateur.projeter( trajectoire ).getResultat( 0 ), empreintes, d );
+            }
+        };
+    }
+
+    /**
+     * Simulateur en centimes : il arrondit exactement les demi-euros que le double arrondit parfois par
+     * défaut. Ces écarts d'un euro sont admis après vérification en décimal exact ; tout autre écart compte.
+     */
+    static MoteurCompare centimes() {
+        SimulateurCentimes simulateur = new SimulateurCentimes();
+        Bareme bareme = Bareme.BAREME_2024;
+        return new MoteurCompare.Unitaire( "SimulateurCentimes" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                MoteurCompare.ranger( simulateur.calculer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ] ), empreintes, d );
+            }
+
+            @Override
+            public boolean ecartAdmis( LotCas lot, int i, long[] reference, long[] obtenu, int d ) {
+                if ( reference[ d + STATUT ] != MotifRejet.CODE_VALIDE ) {
+                    return false;
+                }
+                for ( int champ : new int[] { STATUT, REVENU_FISCAL_REFERENCE, ABATTEMENT, NB_PARTS,
+                        CONTRIB_EXCEPTIONNELLE } ) {
+                    if ( reference[ d + champ ] != obtenu[ d + champ ] ) {
+                        return false;
+                    }
+                }
+                double rFRef = Double.longBitsToDouble( reference[ d + REVENU_FISCAL_REFERENCE ] );
+                double avantReference = Double.longBitsToDouble( reference[ d + IMPOT_AVANT_DECOTE ] );
+                double avantObtenu = Double.longBitsToDouble( obtenu[ d + IMPOT_AVANT_DECOTE ] );
+                boolean couple = estCouple( lot.situations[ i ] );
+                if ( avantObtenu == avantReference + 1 ) {
+                    // L'impôt des déclarants ou du foyer tombe exactement sur un demi-euro
+                    double parts = Double.longBitsToDouble( reference[ d + NB_PARTS ] );
+                    return ArrondisExacts.estDemiEuro( ArrondisExacts.impotExact( bareme, rFRef, parts ) )
+                            || ArrondisExacts.estDemiEuro( ArrondisExacts.impotExact( bareme, rFRef, couple ? 2 : 1 ) );
+                }
+                if ( avantObtenu != avantReference
+                        || Double.longBitsToDouble( obtenu[ d + DECOTE ] ) != Double.longBitsToDouble( reference[ d + DECOTE ] ) + 1 ) {
+                    return false;
+                }
+                return ArrondisExacts.estDemiEuro( ArrondisExacts.decoteExacte( bareme, couple, avantReference ) );
+            }
+        };
+    }
+
+    /**
+     * Noyau par colonnes appliqué au lot entier : les foyers invalides sont rejetés à l'ajout, les autres
+     * calculés ensemble. Les colonnes ne portent ni l'abattement ni les parts.
+     */
+    static MoteurCompare colonnes( NoyauColonnes noyau ) {
+        return new MoteurCompare() {
+            private ColonnesFoyers colonnes = new ColonnesFoyers( 0 );
+            private int[] rangs = new int[ 0 ];
+
+            @Override
+            public String getNom() {
+                return "NoyauColonnes." + noyau.getNom();
+            }
+
+            @Override
+            public void calculer( LotCas lot, long[] empreintes ) {
+                if ( colonnes.getCapacite() < lot.taille ) {
+                    colonnes = new ColonnesFoyers( lot.getCapacite() );
+                    rangs = new int[ lot.getCapacite() ];
+                }
+                Arrays.fill( empreintes, 0, lot.taille * TAILLE_EMPREINTE, ABSENT );
+                colonnes.setTaille( 0 );
+                for ( int i = 0; i < lot.taille; i++ ) {
+                    try {
+                        colonnes.ajouter( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ], lot.enfants[ i ],
+                                lot.handicapes[ i ], lot.isoles[ i ] );
+                        rangs[ colonnes.getTaille() - 1 ] = i;
+                    } catch ( IllegalArgumentException e ) {
+                        MoteurCompare.rejeter( e, empreintes, i * TAILLE_EMPREINTE );
+                    }
+                }
+                boolean panne = false;
+                try {
+                    noyau.calculer( colonnes );
+                } catch ( RuntimeException e ) {
+                    panne = true;
+                }
+                for ( int j = 0; j < colonnes.getTaille(); j++ ) {
+                    int d = rangs[ j ] * TAILLE_EMPREINTE;
+                    if ( panne ) {
+                        empreintes[ d + STATUT ] = PANNE;
+                        continue;
+                    }
+                    empreintes[ d + STATUT ] = MotifRejet.CODE_VALIDE;
+                    empreintes[ d + REVENU_FISCAL_REFERENCE ] = MoteurCompare.montant( colonnes.getRevenuFiscalReference()[ j ] );
+                    empreintes[ d + IMPOT_AVANT_DECOTE ] = MoteurCompare.montant( colonnes.getImpotAvantDecote()[ j ] );
+                    empreintes[ d + DECOTE ] = MoteurCompare.montant( colonnes.getDecote()[ j ] );
+                    empreintes[ d + CONTRIB_EXCEPTIONNELLE ] = MoteurCompare.montant( colonnes.getContribExceptionnelle()[ j ] );
+                    empreintes[ d + IMPOT_NET ] = colonnes.getImpotNet()[ j ];
+                }
+            }
+        };
+    }
+
+    static boolean estCouple( SituationFamiliale situation ) {
+        return situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+    }
+}
@@ -0,0 +1,121 @@
+package simulateur;
+
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.AccumulateurPopulation;
+import com.kerware.simulateur.lot.EsquisseQuantiles;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateur.lot.MoteurLot;
+import com.kerware.simulateur.lot.RapportRejets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsAccumulateurPopulation {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+
+    @DisplayName("Les totaux agrégés en flux parallèle sont ceux des résultats individuels")
+    @Test
+    public void testTotaux() {
+
+        // Arrange
+        List<FoyerFiscal> foyers = FoyersAleatoires.generer( 50000, 16 );
+        long impotNet = 0;
+        long decote = 0;
+        long cehr = 0;
+        long impotMaries = 0;
+        for ( FoyerFiscal foyer : foyers ) {
+            ResultatImpot resultat = SIMULATEUR.calculer( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole() );
+            impotNet += resultat.getImpotNetArrondi();
+            decote += (long) resultat.getDecote();
+            cehr += (long) resultat.getContribExceptionnelle();
+            if ( foyer.getSituationFamiliale() == SituationFamiliale.MARIE ) {
+                impotMaries += resultat.getImpotNetArrondi();
+            }
+        }
+
+        // Act
+        AccumulateurPopulation agregats = foyers.parallelStream()
+                .collect( AccumulateurPopulation.collecteur( SIMULATEUR ) );
+
+        // Assert
+        assertEquals( foyers.size(), agregats.getNbFoyers() );
+        assertEquals( impotNet, agregats.getImpotNetTotal() );
+        assertEquals( decote, agregats.getDecoteTotale() );
+        assertEquals( cehr, agregats.getContribExceptionnelleTotale() );
+        assertEquals( impotMaries, agregats.getImpotNetTotal( SituationFamiliale.MARIE ) );
+        long parTranche = 0;
+        for ( int t = 0; t < agregats.getNbTranches(); t++ ) {
+            parTranche += agregats.getNbFoyersParTranche( t );
+        }
+        assertEquals( foyers.size(), parTranche );
+    }
+
+    @DisplayName("L'agrégation du moteur de lot, sur plusieurs threads, égale celle du flux séquentiel")
+    @Test
+    public void testAgregationMoteurLot() throws Exception {
+
+        // Arrange
+        List<FoyerFiscal> foyers = FoyersAleatoires.generer( 20000, 17 );
+        StringBuilder csv = new StringBuilder( "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n" );
+        for ( FoyerFiscal foyer : foyers ) {
+            foyer.ecrireCsv( csv );
+            csv.append( '\n' );
+        }
+        csv.append( "-1,0,CELIBATAIRE,0,0,false\n" );
+        AccumulateurPopulation attendu = foyers.stream().collect( AccumulateurPopulation.collecteur( SIMULATEUR ) );
+        RapportRejets rapport = new RapportRejets();
+
+        // Act
+        AccumulateurPopulation obtenu;
+        try ( MoteurLot moteur = new MoteurLot( SIMULATEUR, 4, 333 ) ) {
+            obtenu = moteur.agreger( new StringReader( csv.toString() ), rapport );
+        }
+
+        // Assert
+        assertEquals( 1, rapport.getNbRejets() );
+        StringBuilder texteAttendu = new StringBuilder();
+        StringBuilder texteObtenu = new StringBuilder();
+        attendu.ecrire( texteAttendu );
+        obtenu.ecrire( texteObtenu );
+        assertEquals( texteAttendu.toString(), texteObtenu.toString() );
+    }
+
+    @DisplayName("Les quantiles de l'esquisse sont à moins de 1 % des quantiles exacts")
+    @Test
+    public void testPrecisionEsquisse() {
+
+        // Arrange
+        Random aleatoire = new Random( 18 );
+        int[] valeurs = new int[ 100000 ];
+        EsquisseQuantiles esquisse = new EsquisseQuantiles();
+        EsquisseQuantiles moitie = new EsquisseQuantiles();
+        for ( int i = 0; i < valeurs.length; i++ ) {
+            valeurs[ i ] = (int) Math.exp( aleatoire.nextDouble() * 16 );
+            ( i % 2 == 0 ? esquisse : moitie ).ajouter( valeurs[ i ] );
+        }
+        Arrays.sort( valeurs );
+
+        // Act
+        esquisse.fusionner( moitie );
+
+        // Assert
+        assertEquals( valeurs.length, esquisse.getNombre() );
+        for ( double q = 0.05; q < 1; q += 0.05 ) {
+            int exact = valeurs[ (int) Math.ceil( q * valeurs.length ) - 1 ];
+            double estime = esquisse.quantile( q );
+            assertTrue( Math.abs( estime - exact ) <= 0.01 * exact, "Quantile " + q + " : " + estime + " / " + exact );
+        }
+    }
+}
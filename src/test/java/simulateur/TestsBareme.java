@@ -0,0 +1,154 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CacheImposition;
+import com.kerware.simulateur.PolitiqueEviction;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsBareme {
+
+    private static List<Bareme> lireBaremes() throws Exception {
+        try ( Reader lecteur = new InputStreamReader(
+                TestsBareme.class.getResourceAsStream( "/baremes.properties" ), StandardCharsets.UTF_8 ) ) {
+            return Bareme.lire( lecteur );
+        }
+    }
+
+    @DisplayName("Le barème 2024 lu depuis un fichier donne les résultats attendus - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testBaremeCharge( int revenuNetDeclarant1, int revenuNetDeclarant2,  String situationFamiliale, int nbEnfantsACharge,
+                                  int nbEnfantsSituationHandicap, boolean parentIsole, int impotAttendu) throws Exception {
+
+        // Arrange
+        Simulateur simulateur = new Simulateur( new RegistreBaremes( lireBaremes() ), null );
+
+        // Act
+        int impot = simulateur.calculer( 2023, revenuNetDeclarant1, revenuNetDeclarant2,
+                SituationFamiliale.valueOf( situationFamiliale ), nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole )
+                .getImpotNetArrondi();
+
+        // Assert
+        assertEquals( impotAttendu, impot );
+    }
+
+    @DisplayName("Deux années de revenus sont calculées côte à côte avec leur propre barème")
+    @Test
+    public void testDeuxAnnees() throws Exception {
+
+        // Arrange
+        RegistreBaremes registre = new RegistreBaremes( lireBaremes() );
+        Simulateur simulateur = new Simulateur( registre, new CacheImposition( 64, PolitiqueEviction.LRU ) );
+
+        // Act
+        double impot2022 = simulateur.calculer( 2022, 35000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ).getImpotNet();
+        double impot2023 = simulateur.calculer( 2023, 35000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ).getImpotNet();
+
+        // Assert
+        assertEquals( 2023, registre.pourRevenus( 2022 ).getAnnee() );
+        assertEquals( 2024, registre.getBaremeCourant().getAnnee() );
+        assertEquals( 2736.0, impot2023 );
+        assertTrue( impot2022 > impot2023 );
+        assertThrows( IllegalArgumentException.class,
+                () -> simulateur.calculer( 2030, 35000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+    }
+
+    @DisplayName("Un rechargement remplace les barèmes d'un coup, et un fichier invalide laisse les précédents en place")
+    @Test
+    public void testRechargement() throws Exception {
+
+        // Arrange
+        RegistreBaremes registre = new RegistreBaremes();
+        Bareme integre = registre.getBaremeCourant();
+        Path fichier = Files.createTempFile( "baremes", ".properties" );
+        Files.copy( TestsBareme.class.getResourceAsStream( "/baremes.properties" ), fichier,
+                StandardCopyOption.REPLACE_EXISTING );
+
+        // Act & Assert
+        registre.recharger( fichier );
+        assertEquals( 2, registre.getBaremes().size() );
+        assertEquals( 2023, registre.pourAnnee( 2023 ).getAnnee() );
+
+        Files.writeString( fichier, "2025.tranches = 0, 12000\n" );
+        Bareme avant = registre.getBaremeCourant();
+        assertThrows( IllegalArgumentException.class, () -> registre.recharger( fichier ) );
+        assertSame( avant, registre.getBaremeCourant() );
+        assertTrue( avant != integre );
+        Files.delete( fichier );
+    }
+
+    @DisplayName("Les tranches d'un barème doivent être croissantes")
+    @Test
+    public void testBaremeIncoherent() {
+        assertThrows( IllegalArgumentException.class,
+                () -> Bareme.lire( new StringReader( "2024.tranches = 0, 20000, 10000\n" ) ) );
+    }
+
+    @DisplayName("L'indexation revalorise les montants à l'euro près et conserve les taux")
+    @Test
+    public void testIndexation() {
+
+        // Arrange
+        Bareme bareme = Bareme.BAREME_2024;
+
+        // Act
+        Bareme indexe = bareme.indexer( 0.048 );
+
+        // Assert
+        assertEquals( 2025, indexe.getAnnee() );
+        assertTrue( indexe.getIdentifiant() != bareme.getIdentifiant() );
+        assertEquals( List.of( 0, 11836, 30179, 86293, 185607, Integer.MAX_VALUE ),
+                List.of( indexe.getTranches()[ 0 ], indexe.getTranches()[ 1 ], indexe.getTranches()[ 2 ],
+                        indexe.getTranches()[ 3 ], indexe.getTranches()[ 4 ], indexe.getTranches()[ 5 ] ) );
+        assertEquals( 519, indexe.getAbattementMin() );
+        assertEquals( 14851, indexe.getAbattementMax() );
+        assertEquals( 1843.0, indexe.getPlafondDemiPart() );
+        assertEquals( 2022.0, indexe.getSeuilDecoteSeul() );
+        assertEquals( 915.0, indexe.getDecoteMaxSeul() );
+        assertEquals( bareme.getTauxDecote(), indexe.getTauxDecote() );
+        assertEquals( List.of( 0, 250000, 500000, 1000000, Integer.MAX_VALUE ), List.of(
+                indexe.getTranchesCehr()[ 0 ], indexe.getTranchesCehr()[ 1 ], indexe.getTranchesCehr()[ 2 ],
+                indexe.getTranchesCehr()[ 3 ], indexe.getTranchesCehr()[ 4 ] ) );
+        assertThrows( IllegalArgumentException.class, () -> bareme.indexer( -1 ) );
+    }
+
+    @DisplayName("La définition d'un barème indexé, relue, donne les mêmes résultats")
+    @Test
+    public void testDefinition() throws Exception {
+
+        // Arrange
+        Bareme indexe = Bareme.BAREME_2024.indexer( 0.048 );
+
+        // Act
+        Bareme relu = Bareme.lire( new StringReader( indexe.definition() ) ).get( 0 );
+
+        // Assert
+        assertEquals( indexe.definition(), relu.definition() );
+        Simulateur attendu = new Simulateur( new RegistreBaremes( List.of( indexe ) ), null );
+        Simulateur obtenu = new Simulateur( new RegistreBaremes( List.of( relu ) ), null );
+        for ( int revenu = 0; revenu < 2_000_000; revenu += 997 ) {
+            assertEquals( attendu.calculImpot( revenu, revenu / 3, SituationFamiliale.MARIE, 2, 1, false ),
+                    obtenu.calculImpot( revenu, revenu / 3, SituationFamiliale.MARIE, 2, 1, false ) );
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package simulateur;
+
+import com.kerware.simulateur.CacheImposition;
+import com.kerware.simulateur.PolitiqueEviction;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCacheImposition {
+
+    private static final Simulateur SIMULATEUR_CACHE =
+            new Simulateur( new CacheImposition( 1024, PolitiqueEviction.LRU ) );
+
+    @DisplayName("Le simulateur avec cache donne les résultats attendus, deux fois de suite - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testCasImposition( int revenuNetDeclarant1, int revenuNetDeclarant2,  String situationFamiliale, int nbEnfantsACharge,
+                                   int nbEnfantsSituationHandicap, boolean parentIsole, int impotAttendu) {
+
+        for ( int passage = 0; passage < 2; passage++ ) {
+            assertEquals( impotAttendu, SIMULATEUR_CACHE.calculImpot( revenuNetDeclarant1, revenuNetDeclarant2,
+                    SituationFamiliale.valueOf( situationFamiliale ), nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole ) );
+        }
+    }
+
+    @DisplayName("Deux foyers de même revenu fiscal de référence et de mêmes parts partagent l'entrée du cache")
+    @Test
+    public void testSuccesEtEchecs() {
+
+        // Arrange
+        CacheImposition cache = new CacheImposition( 64, PolitiqueEviction.LRU );
+        Simulateur simulateur = new Simulateur( cache );
+
+        // Act
+        int impot1 = simulateur.calculImpot( 30000, 35000, SituationFamiliale.MARIE, 2, 0, false );
+        int impot2 = simulateur.calculImpot( 35000, 30000, SituationFamiliale.PACSE, 2, 0, false );
+
+        // Assert
+        assertEquals( impot1, impot2 );
+        assertEquals( 1, cache.getNbEchecs() );
+        assertEquals( 1, cache.getNbSucces() );
+        assertEquals( 0.5, cache.getTauxSucces() );
+    }
+
+    @DisplayName("Le cache reste borné quelle que soit la politique d'éviction")
+    @ParameterizedTest
+    @EnumSource( PolitiqueEviction.class )
+    public void testEviction( PolitiqueEviction politique ) {
+
+        // Arrange
+        CacheImposition cache = new CacheImposition( 32, politique );
+        Simulateur simulateur = new Simulateur( cache );
+        Simulateur simulateurSansCache = new Simulateur();
+
+        // Act & Assert
+        for ( int revenu = 10000; revenu < 11000; revenu++ ) {
+            assertEquals( simulateurSansCache.calculImpot( revenu, 0, SituationFamiliale.CELIBATAIRE, 1, 0, true ),
+                    simulateur.calculImpot( revenu, 0, SituationFamiliale.CELIBATAIRE, 1, 0, true ) );
+        }
+        assertTrue( cache.getTaille() <= 32 );
+        assertEquals( cache.getNbEchecs() - cache.getTaille(), cache.getNbEvictions() );
+    }
+}
@@ -0,0 +1,139 @@
+package simulateur;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.EtapeCalcul;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCalculIncremental {
+
+    private static AdaptateurSimulateur renseigner( Simulateur simulateur, int revenu1, int revenu2,
+                                                    SituationFamiliale situation, int enfants ) {
+        AdaptateurSimulateur adaptateur = new AdaptateurSimulateur( simulateur );
+        adaptateur.setRevenusNetDeclarant1( revenu1 );
+        adaptateur.setRevenusNetDeclarant2( revenu2 );
+        adaptateur.setSituationFamiliale( situation );
+        adaptateur.setNbEnfantsACharge( enfants );
+        adaptateur.setNbEnfantsSituationHandicap( 0 );
+        adaptateur.setParentIsole( false );
+        adaptateur.calculImpotSurRevenuNet();
+        return adaptateur;
+    }
+
+    @DisplayName("Une suite aléatoire de saisies donne à chaque calcul le résultat d'un calcul complet")
+    @Test
+    public void testIdentiqueAuCalculComplet() {
+
+        // Arrange
+        Random aleatoire = new Random( 18 );
+        Simulateur simulateur = new Simulateur();
+        int revenu1 = 30000;
+        int revenu2 = 0;
+        SituationFamiliale situation = SituationFamiliale.CELIBATAIRE;
+        int enfants = 0;
+        int enfantsHandicapes = 0;
+        boolean parentIsole = false;
+        AdaptateurSimulateur adaptateur = renseigner( simulateur, revenu1, revenu2, situation, enfants );
+        int nbCalculs = 0;
+
+        for ( int i = 0; i < 200000; i++ ) {
+            switch ( aleatoire.nextInt( 6 ) ) {
+                case 0 -> revenu1 = aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( 21 ) ) );
+                case 1 -> revenu2 = aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( 21 ) ) );
+                case 2 -> {
+                    situation = SituationFamiliale.values()[ aleatoire.nextInt( 5 ) ];
+                    parentIsole &= situation != SituationFamiliale.MARIE && situation != SituationFamiliale.PACSE;
+                }
+                case 3 -> enfants = aleatoire.nextInt( 8 );
+                case 4 -> enfantsHandicapes = aleatoire.nextInt( 3 );
+                default -> {
+                    boolean couple = situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+                    parentIsole = !couple && aleatoire.nextBoolean();
+                }
+            }
+            adaptateur.setRevenusNetDeclarant1( revenu1 );
+            adaptateur.setRevenusNetDeclarant2( revenu2 );
+            adaptateur.setParentIsole( parentIsole );
+            adaptateur.setSituationFamiliale( situation );
+            adaptateur.setNbEnfantsACharge( enfants );
+            adaptateur.setNbEnfantsSituationHandicap( enfantsHandicapes );
+            if ( adaptateur.verifierParametres() != 0 ) {
+                continue;
+            }
+
+            // Act
+            adaptateur.calculImpotSurRevenuNet();
+
+            // Assert
+            ResultatImpot attendu = simulateur.calculer( revenu1, revenu2, situation, enfants,
+                    enfantsHandicapes, parentIsole );
+            assertEquals( attendu.toString(), adaptateur.getResultat().toString() );
+            nbCalculs++;
+        }
+        assertTrue( nbCalculs > 10000 );
+    }
+
+    @DisplayName("Modifier les enfants handicapés ne refait pas l'abattement")
+    @Test
+    public void testEnfantsSansAbattement() {
+
+        // Arrange
+        AdaptateurSimulateur adaptateur = renseigner( new Simulateur(), 65000, 0, SituationFamiliale.DIVORCE, 2 );
+
+        // Act
+        adaptateur.setNbEnfantsSituationHandicap( 1 );
+        adaptateur.calculImpotSurRevenuNet();
+
+        // Assert
+        assertFalse( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.ABATTEMENT ) );
+        assertTrue( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.PARTS_FOYER ) );
+        assertTrue( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.IMPOT_BRUT_FOYER ) );
+        assertFalse( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.IMPOT_BRUT_DECLARANTS ) );
+        assertFalse( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE ) );
+    }
+
+    @DisplayName("Modifier le revenu du déclarant 2 ne refait pas les parts")
+    @Test
+    public void testRevenuSansParts() {
+
+        // Arrange
+        AdaptateurSimulateur adaptateur = renseigner( new Simulateur(), 40000, 25000, SituationFamiliale.MARIE, 1 );
+
+        // Act
+        adaptateur.setRevenusNetDeclarant2( 26000 );
+        adaptateur.calculImpotSurRevenuNet();
+
+        // Assert
+        assertFalse( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.PARTS_DECLARANTS ) );
+        assertFalse( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.PARTS_FOYER ) );
+        assertTrue( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.ABATTEMENT ) );
+        assertTrue( adaptateur.getEtapesRecalculees().contains( EtapeCalcul.IMPOT_NET ) );
+    }
+
+    @DisplayName("Sans modification, le calcul suivant ne refait aucune étape")
+    @Test
+    public void testSansModification() {
+
+        // Arrange
+        AdaptateurSimulateur adaptateur = renseigner( new Simulateur(), 40000, 0, SituationFamiliale.CELIBATAIRE, 0 );
+        int impot = adaptateur.getImpotSurRevenuNet();
+
+        // Act
+        adaptateur.setRevenusNetDeclarant1( 40000 );
+        adaptateur.calculImpotSurRevenuNet();
+
+        // Assert
+        assertEquals( EnumSet.noneOf( EtapeCalcul.class ), adaptateur.getEtapesRecalculees() );
+        assertEquals( impot, adaptateur.getImpotSurRevenuNet() );
+    }
+}
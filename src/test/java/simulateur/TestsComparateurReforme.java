@@ -0,0 +1,129 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ComparateurReforme;
+import com.kerware.simulateur.EcartImpot;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.BilanReforme;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateur.lot.MoteurLot;
+import com.kerware.simulateur.lot.RapportRejets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsComparateurReforme {
+
+    private static final String VARIANTE_TRANCHES = """
+            2024.tranches = 0, 11500, 29500, 82341, 177106, 400000
+            2024.taux = 0.0, 0.11, 0.30, 0.41, 0.45, 0.49
+            2024.tranchesCehr = 0, 250000, 500000, 1000000
+            2024.tauxCehrCelibataire = 0.0, 0.03, 0.04, 0.04
+            2024.tauxCehrCouple = 0.0, 0.0, 0.03, 0.04
+            2024.tauxAbattement = 0.10
+            2024.abattementMin = 495
+            2024.abattementMax = 14171
+            2024.plafondDemiPart = 1900
+            2024.seuilDecoteSeul = 2000
+            2024.seuilDecoteCouple = 3300
+            2024.decoteMaxSeul = 900
+            2024.decoteMaxCouple = 1490
+            2024.tauxDecote = 0.4525
+            """;
+
+    private static Bareme lireVariante( boolean abattementModifie ) throws Exception {
+        String definition = abattementModifie
+                ? VARIANTE_TRANCHES.replace( "tauxAbattement = 0.10", "tauxAbattement = 0.12" )
+                : VARIANTE_TRANCHES;
+        return Bareme.lire( new StringReader( definition ) ).get( 0 );
+    }
+
+    @DisplayName("Chaque impôt comparé est celui du simulateur sous le barème correspondant")
+    @ParameterizedTest( name = "Abattement modifié : {0}" )
+    @ValueSource( strings = { "false", "true" } )
+    public void testImpotsIdentiques( boolean abattementModifie ) throws Exception {
+
+        // Arrange
+        Bareme variante = lireVariante( abattementModifie );
+        ComparateurReforme comparateur = new ComparateurReforme( Bareme.BAREME_2024, variante );
+        Simulateur simulateurReference = new Simulateur();
+        Simulateur simulateurVariante = new Simulateur( new RegistreBaremes( List.of( variante ) ), null );
+
+        for ( FoyerFiscal foyer : FoyersAleatoires.generer( 100000, 17 ) ) {
+
+            // Act
+            EcartImpot ecart = comparateur.comparer( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole() );
+
+            // Assert
+            assertEquals( simulateurReference.calculImpot( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole() ), ecart.getImpotReference() );
+            assertEquals( simulateurVariante.calculImpot( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole() ), ecart.getImpotVariante() );
+        }
+    }
+
+    @DisplayName("La comparaison par lot écrit l'écart de chaque foyer et le même bilan que le flux séquentiel")
+    @Test
+    public void testComparaisonParLot() throws Exception {
+
+        // Arrange
+        ComparateurReforme comparateur = new ComparateurReforme( Bareme.BAREME_2024, lireVariante( false ) );
+        List<FoyerFiscal> foyers = FoyersAleatoires.generer( 20000, 17 );
+        StringBuilder csv = new StringBuilder();
+        for ( FoyerFiscal foyer : foyers ) {
+            foyer.ecrireCsv( csv );
+            csv.append( '\n' );
+        }
+        csv.append( "1000,500,VEUF,0,0,false\n" );
+        BilanReforme attendu = foyers.stream().collect( BilanReforme.collecteur( comparateur ) );
+        StringWriter sortie = new StringWriter();
+        RapportRejets rapport = new RapportRejets();
+
+        // Act
+        BilanReforme obtenu;
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 4, 500 ) ) {
+            obtenu = moteur.comparer( new StringReader( csv.toString() ), sortie, comparateur, rapport );
+        }
+
+        // Assert
+        assertEquals( 1, rapport.getNbRejets() );
+        String[] lignes = sortie.toString().split( "\n" );
+        assertEquals( MoteurLot.ENTETE_COMPARAISON, lignes[ 0 ] );
+        assertEquals( foyers.size() + 1, lignes.length );
+        long variation = 0;
+        for ( int i = 1; i < lignes.length; i++ ) {
+            variation += Long.parseLong( lignes[ i ].substring( lignes[ i ].lastIndexOf( ',' ) + 1 ) );
+        }
+        assertEquals( attendu.getVariationTotale(), variation );
+        assertEquals( attendu.getGainsTotaux() - attendu.getPertesTotales(), -variation );
+        StringBuilder texteAttendu = new StringBuilder();
+        StringBuilder texteObtenu = new StringBuilder();
+        attendu.ecrire( texteAttendu );
+        obtenu.ecrire( texteObtenu );
+        assertEquals( texteAttendu.toString(), texteObtenu.toString() );
+        assertEquals( foyers.size(), obtenu.getNbGagnants() + obtenu.getNbPerdants() + obtenu.getNbInchanges() );
+    }
+
+    @DisplayName("Un foyer invalide est rejeté avec le message du simulateur")
+    @Test
+    public void testRejet() throws Exception {
+        ComparateurReforme comparateur = new ComparateurReforme( Bareme.BAREME_2024, lireVariante( false ) );
+        IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+                () -> comparateur.comparer( 30000, 0, SituationFamiliale.MARIE, 1, 0, true ) );
+        assertEquals( "Parent isolé incompatible avec couple", e.getMessage() );
+    }
+}
@@ -0,0 +1,178 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.lot.AccumulateurPopulation;
+import com.kerware.simulateur.lot.CoordinateurLot;
+import com.kerware.simulateur.lot.MoteurLot;
+import com.kerware.simulateur.lot.RapportRejets;
+import com.kerware.simulateur.lot.TravailleurLot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsCoordinateurLot {
+
+    @TempDir
+    Path repertoire;
+
+    private Path copierCasImposition( int repetitions ) throws Exception {
+        String contenu;
+        try ( InputStream entree = TestsCoordinateurLot.class.getResourceAsStream( "/datasImposition.csv" ) ) {
+            contenu = new String( entree.readAllBytes(), StandardCharsets.UTF_8 );
+        }
+        String entete = contenu.substring( 0, contenu.indexOf( '\n' ) + 1 );
+        String corps = contenu.substring( entete.length() );
+        StringBuilder csv = new StringBuilder( entete );
+        for ( int i = 0; i < repetitions; i++ ) {
+            csv.append( corps );
+            csv.append( "1000,500,VEUF,0,0,false\n" );
+        }
+        Path fichier = repertoire.resolve( "foyers.csv" );
+        Files.writeString( fichier, csv, StandardCharsets.UTF_8 );
+        return fichier;
+    }
+
+    private static String attendu( Path entree, RapportRejets rapport ) throws Exception {
+        return attendu( entree, rapport, new Simulateur() );
+    }
+
+    private static String attendu( Path entree, RapportRejets rapport, Simulateur simulateur ) throws Exception {
+        StringWriter sortie = new StringWriter();
+        try ( MoteurLot moteur = new MoteurLot( simulateur, 2, 100 ) ) {
+            moteur.traiter( Files.newBufferedReader( entree ), sortie, rapport );
+        }
+        return sortie.toString();
+    }
+
+    /**
+     * Faux travailleur qui accepte une connexion, lit le début du premier lot et coupe la connexion.
+     */
+    private static ServerSocket travailleurDefaillant() throws IOException {
+        ServerSocket serveur = new ServerSocket( 0 );
+        Thread thread = new Thread( () -> {
+            try ( Socket connexion = serveur.accept() ) {
+                new DataInputStream( connexion.getInputStream() ).readInt();
+            } catch ( IOException e ) {
+                // Fermeture du serveur
+            }
+        } );
+        thread.setDaemon( true );
+        thread.start();
+        return serveur;
+    }
+
+    @DisplayName("Le calcul réparti donne la même sortie, les mêmes rejets et les mêmes agrégats que le lot local")
+    @Test
+    public void testRepartition() throws Exception {
+
+        // Arrange
+        Path entree = copierCasImposition( 20 );
+        Path sortie = repertoire.resolve( "resultats.csv" );
+        RapportRejets rapportAttendu = new RapportRejets();
+        String texteAttendu = attendu( entree, rapportAttendu );
+        RapportRejets rapport = new RapportRejets();
+
+        try ( TravailleurLot premier = new TravailleurLot( new Simulateur(), 0 );
+              TravailleurLot second = new TravailleurLot( new Simulateur(), 0 );
+              ServerSocket defaillant = travailleurDefaillant() ) {
+            List<InetSocketAddress> adresses = List.of( premier.getAdresse(),
+                    new InetSocketAddress( InetAddress.getLoopbackAddress(), defaillant.getLocalPort() ),
+                    second.getAdresse() );
+
+            // Act
+            AccumulateurPopulation agregats = new CoordinateurLot( adresses, Bareme.BAREME_2024, 37, 10_000 )
+                    .traiter( entree, sortie, rapport );
+
+            // Assert
+            assertEquals( texteAttendu, Files.readString( sortie, StandardCharsets.UTF_8 ) );
+            assertEquals( 20, rapport.getNbRejets() );
+            for ( int i = 0; i < rapport.getNbDetailles(); i++ ) {
+                assertEquals( rapportAttendu.getLigne( i ), rapport.getLigne( i ) );
+            }
+            assertEquals( texteAttendu.split( "\n" ).length - 1, agregats.getNbFoyers() );
+        }
+    }
+
+    @DisplayName("Des processus travailleurs lancés sur la machine locale calculent le fichier")
+    @Test
+    public void testProcessusLocaux() throws Exception {
+
+        // Arrange
+        Path entree = copierCasImposition( 5 );
+        Path sortie = repertoire.resolve( "resultats.csv" );
+        String texteAttendu = attendu( entree, new RapportRejets() );
+        List<Process> processus = new ArrayList<>();
+
+        try {
+            List<InetSocketAddress> adresses = CoordinateurLot.lancerTravailleurs( 2, processus );
+
+            // Act
+            new CoordinateurLot( adresses, Bareme.BAREME_2024, 50, 30_000 )
+                    .traiter( entree, sortie, new RapportRejets() );
+
+            // Assert
+            assertEquals( texteAttendu, Files.readString( sortie, StandardCharsets.UTF_8 ) );
+        } finally {
+            processus.forEach( Process::destroyForcibly );
+        }
+    }
+
+    @DisplayName("Les travailleurs calculent avec le barème du coordinateur, pas avec le leur")
+    @Test
+    public void testBaremeTransmis() throws Exception {
+
+        // Arrange
+        Bareme indexe = Bareme.BAREME_2024.indexer( 0.05 );
+        Path entree = copierCasImposition( 2 );
+        Path sortie = repertoire.resolve( "resultats.csv" );
+        String texteAttendu = attendu( entree, new RapportRejets(),
+                new Simulateur( new RegistreBaremes( List.of( indexe ) ), null ) );
+
+        try ( TravailleurLot travailleur = new TravailleurLot( new Simulateur(), 0 ) ) {
+
+            // Act
+            AccumulateurPopulation agregats = new CoordinateurLot( List.of( travailleur.getAdresse() ), indexe, 40,
+                    10_000 ).traiter( entree, sortie, new RapportRejets() );
+
+            // Assert
+            assertEquals( texteAttendu, Files.readString( sortie, StandardCharsets.UTF_8 ) );
+            assertEquals( indexe, agregats.getBareme() );
+        }
+    }
+
+    @DisplayName("Le calcul échoue quand tous les travailleurs sont perdus")
+    @Test
+    public void testTousPerdus() throws Exception {
+
+        // Arrange
+        Path entree = copierCasImposition( 1 );
+        try ( ServerSocket defaillant = travailleurDefaillant() ) {
+            CoordinateurLot coordinateur = new CoordinateurLot(
+                    List.of( new InetSocketAddress( InetAddress.getLoopbackAddress(), defaillant.getLocalPort() ) ),
+                    Bareme.BAREME_2024, 10, 5_000 );
+
+            // Act & Assert
+            assertThrows( IOException.class,
+                    () -> coordinateur.traiter( entree, repertoire.resolve( "resultats.csv" ), new RapportRejets() ) );
+        }
+    }
+}
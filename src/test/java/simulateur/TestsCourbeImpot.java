@@ -0,0 +1,106 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.CourbeImpot;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsCourbeImpot {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+
+    public static Stream<Arguments> donneesProfils() {
+        return Stream.of(
+                Arguments.of( 0, "CELIBATAIRE", 0, 0, false ),
+                Arguments.of( 30000, "MARIE", 2, 1, false ),
+                Arguments.of( 0, "DIVORCE", 3, 0, true ),
+                Arguments.of( 0, "PACSE", 0, 0, false ),
+                Arguments.of( 400000, "MARIE", 1, 0, false )
+        );
+    }
+
+    @DisplayName("La courbe reproduit calculImpot aux arrondis intermédiaires près")
+    @ParameterizedTest( name = "Profil revenuNetDeclarant2={0}, situationFamiliale={1}, enfants={2}" )
+    @MethodSource( "donneesProfils" )
+    public void testCourbeProcheDuCalcul( int revenuNetDeclarant2, String situationFamiliale,
+                                          int nbEnfantsACharge, int nbEnfantsSituationHandicap, boolean parentIsole ) {
+
+        // Arrange
+        SituationFamiliale situation = SituationFamiliale.valueOf( situationFamiliale );
+
+        // Act
+        CourbeImpot courbe = SIMULATEUR.courbe( revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole );
+        double[] impots = courbe.echantillonner( 0, 2_000_000, 7 );
+
+        // Assert
+        for ( int k = 0; k < impots.length; k++ ) {
+            int revenu = k * 7;
+            int attendu = SIMULATEUR.calculImpot( revenu, revenuNetDeclarant2, situation,
+                    nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole );
+            assertTrue( Math.abs( impots[k] - attendu ) <= 2, "Écart trop grand pour le revenu " + revenu );
+            assertEquals( impots[k], courbe.impot( revenu ), 1e-6 );
+        }
+    }
+
+    @DisplayName("Les taux marginaux correspondent aux tranches, à la décote et à la CEHR")
+    @Test
+    public void testTauxMarginaux() {
+
+        // Act
+        CourbeImpot courbe = SIMULATEUR.courbe( 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+
+        // Assert
+        assertEquals( 0, courbe.tauxMarginal( 10000 ), 1e-9 );
+        assertEquals( 0.11 * 0.9 * 1.4525, courbe.tauxMarginal( 20000 ), 1e-9 ); // décote
+        assertEquals( 0.30 * 0.9, courbe.tauxMarginal( 50000 ), 1e-9 );
+        assertEquals( 0.41, courbe.tauxMarginal( 150000 ), 1e-9 ); // abattement plafonné
+        assertEquals( 0.45 + 0.03, courbe.tauxMarginal( 300000 ), 1e-9 ); // CEHR
+        assertEquals( 0.45 + 0.04, courbe.tauxMarginal( 2_000_000 ), 1e-9 );
+        assertEquals( 0, courbe.getPointsRupture()[0], 0 );
+    }
+
+    @DisplayName("La décote qui s'annule sous son seuil d'application ajoute un point de rupture")
+    @Test
+    public void testDecoteAnnuleeSousLeSeuil() throws Exception {
+
+        // Arrange : décote nulle dès 600 / 0.4525 = 1326 € d'impôt, seuil d'application à 1929 €
+        Bareme bareme = Bareme.lire( new StringReader( Bareme.BAREME_2024.definition()
+                .replace( "decoteMaxSeul = 873.0", "decoteMaxSeul = 600.0" ) ) ).get( 0 );
+        Simulateur simulateur = new Simulateur( new RegistreBaremes( List.of( bareme ) ), null );
+
+        // Act
+        CourbeImpot courbe = simulateur.courbe( 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+        double[] impots = courbe.echantillonner( 0, 200_000, 7 );
+
+        // Assert
+        for ( int k = 0; k < impots.length; k++ ) {
+            int revenu = k * 7;
+            int attendu = simulateur.calculImpot( revenu, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+            assertTrue( Math.abs( impots[k] - attendu ) <= 2, "Écart trop grand pour le revenu " + revenu );
+        }
+    }
+
+    @DisplayName("Un foyer invalide ou un revenu hors du domaine est rejeté")
+    @Test
+    public void testRejets() {
+        assertThrows( IllegalArgumentException.class,
+                () -> SIMULATEUR.courbe( 1000, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+        CourbeImpot courbe = SIMULATEUR.courbe( 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+        assertThrows( IllegalArgumentException.class, () -> courbe.impot( -1 ) );
+    }
+}
@@ -0,0 +1,103 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.EtapeCalcul;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.ExplorateurGrille;
+import com.kerware.simulateur.lot.FichierGrille;
+import com.kerware.simulateur.lot.GrilleScenarios;
+import com.kerware.simulateurReusine.NoyauColonnes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsExplorateurGrille {
+
+    @TempDir
+    Path repertoire;
+
+    @DisplayName("Les profils refusés par le contrôle des paramètres sont écartés de la grille")
+    @Test
+    public void testProfilsValides() {
+
+        // Arrange
+        int[] revenus1 = GrilleScenarios.intervalle( 0, 100000, 1000 );
+        int[] revenus2 = GrilleScenarios.intervalle( 0, 50000, 5000 );
+
+        // Act
+        GrilleScenarios grille = new GrilleScenarios( revenus1, revenus2 );
+
+        // Assert
+        // 36 couples (enfants, handicapés) par situation ; parent isolé ou non hors couple
+        assertEquals( 3 * 36 * 2 + 2 * 36, grille.getNbProfils() );
+        assertEquals( 3 * 36 * 2 * 101L + 2 * 36 * 101L * 11, grille.getNbPoints() );
+    }
+
+    @DisplayName("Chaque point du fichier en colonnes est le résultat du simulateur")
+    @Test
+    public void testResultatsIdentiques() throws Exception {
+
+        // Arrange
+        GrilleScenarios grille = new GrilleScenarios( GrilleScenarios.intervalle( 0, 250000, 997 ),
+                new int[] { 0, 15000, 48000, 400000 } );
+        Path fichier = repertoire.resolve( "grille.bin" );
+        Simulateur simulateur = new Simulateur();
+        ForkJoinPool pool = new ForkJoinPool( 3 );
+
+        // Act
+        long nbPoints = new ExplorateurGrille( NoyauColonnes.scalaire( Bareme.BAREME_2024 ), pool )
+                .explorer( grille, fichier );
+        pool.shutdown();
+
+        // Assert
+        assertEquals( grille.getNbPoints(), nbPoints );
+        try ( FichierGrille lu = FichierGrille.ouvrir( fichier ) ) {
+            assertEquals( nbPoints, lu.getNbPoints() );
+            int[] rFRef = lu.lire( EtapeCalcul.REVENU_FISCAL_REFERENCE, 0, (int) nbPoints );
+            int[] decote = lu.lire( EtapeCalcul.DECOTE, 0, (int) nbPoints );
+            int[] cehr = lu.lire( EtapeCalcul.CONTRIBUTION_EXCEPTIONNELLE, 0, (int) nbPoints );
+            int[] impotNet = lu.lire( EtapeCalcul.IMPOT_NET, 0, (int) nbPoints );
+            GrilleScenarios relue = lu.getGrille();
+            for ( long p = 0; p < nbPoints; p++ ) {
+                ResultatImpot attendu = simulateur.calculer( relue.getRevenuNet1( p ), relue.getRevenuNet2( p ),
+                        relue.getSituationFamiliale( p ), relue.getNbEnfants( p ), relue.getNbEnfantsHandicap( p ),
+                        relue.isParentIsole( p ) );
+                assertEquals( attendu.getRevenuFiscalReference(), rFRef[ (int) p ] );
+                assertEquals( attendu.getDecote(), decote[ (int) p ] );
+                assertEquals( attendu.getContribExceptionnelle(), cehr[ (int) p ] );
+                assertEquals( attendu.getImpotNetArrondi(), impotNet[ (int) p ] );
+            }
+        }
+    }
+
+    @DisplayName("Le remplissage d'une zone à cheval sur deux profils suit la numérotation des points")
+    @Test
+    public void testRemplissage() {
+
+        // Arrange
+        GrilleScenarios grille = new GrilleScenarios( new int[] { 10000, 20000, 30000 }, new int[] { 0, 5000 } );
+        int[] revenus1 = new int[ 8 ];
+        int[] revenus2 = new int[ 8 ];
+        short[] profils = new short[ 8 ];
+
+        // Act
+        grille.remplir( 0, revenus1, revenus2, profils, 8 );
+
+        // Assert
+        for ( int p = 0; p < 8; p++ ) {
+            assertEquals( grille.getRevenuNet1( p ), revenus1[ p ] );
+            assertEquals( grille.getRevenuNet2( p ), revenus2[ p ] );
+        }
+        assertEquals( SituationFamiliale.CELIBATAIRE, grille.getSituationFamiliale( 0 ) );
+        assertEquals( true, grille.isParentIsole( 3 ) );
+        assertThrows( IllegalArgumentException.class, () -> new GrilleScenarios( new int[] { -1 }, new int[] { 0 } ) );
+    }
+}
@@ -0,0 +1,138 @@
+package simulateur;
+
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FenetreFoyers;
+import com.kerware.simulateur.lot.FichierFoyers;
+import com.kerware.simulateur.lot.MoteurLot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsFichierFoyers {
+
+    @TempDir
+    Path repertoire;
+
+    private Path copierCasImposition() throws Exception {
+        Path csv = repertoire.resolve( "datasImposition.csv" );
+        try ( InputStream entree = TestsFichierFoyers.class.getResourceAsStream( "/datasImposition.csv" ) ) {
+            Files.copy( entree, csv );
+        }
+        return csv;
+    }
+
+    @DisplayName("Le calcul en place d'un fichier binaire donne le même CSV que le traitement par lot")
+    @Test
+    public void testAllerRetourCsv() throws Exception {
+
+        // Arrange
+        Path csv = copierCasImposition();
+        Path binaire = repertoire.resolve( "foyers.bin" );
+        Path sortie = repertoire.resolve( "resultats.csv" );
+        StringWriter attendu = new StringWriter();
+        long nbFoyers;
+
+        // Act
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 3, 7 ) ) {
+            moteur.traiter( Files.newBufferedReader( csv, StandardCharsets.UTF_8 ), attendu );
+            nbFoyers = FichierFoyers.depuisCsv( csv, binaire );
+            try ( FichierFoyers fichier = FichierFoyers.ouvrir( binaire, true ) ) {
+                assertEquals( nbFoyers, moteur.traiter( fichier ) );
+            }
+        }
+        FichierFoyers.versCsv( binaire, sortie );
+
+        // Assert
+        assertEquals( FichierFoyers.TAILLE_ENTETE + nbFoyers * FichierFoyers.TAILLE_ENREGISTREMENT, Files.size( binaire ) );
+        assertEquals( attendu.toString(), Files.readString( sortie, StandardCharsets.UTF_8 ) );
+    }
+
+    @DisplayName("Des intervalles d'octets contigus découpent le fichier en fenêtres disjointes qui le couvrent")
+    @Test
+    public void testDecoupageParOctets() throws Exception {
+
+        // Arrange
+        Path binaire = repertoire.resolve( "foyers.bin" );
+        long nbFoyers = FichierFoyers.depuisCsv( copierCasImposition(), binaire );
+        long taille = Files.size( binaire );
+
+        try ( FichierFoyers fichier = FichierFoyers.ouvrir( binaire, false ) ) {
+            FenetreFoyers complete = fichier.fenetre( 0, (int) nbFoyers );
+            for ( long pas : List.of( 1L, 17L, 100L, 333L, taille ) ) {
+                long suivant = 0;
+                for ( long debut = 0; debut < taille; debut += pas ) {
+
+                    // Act
+                    FenetreFoyers fenetre = fichier.fenetreOctets( debut, Math.min( taille, debut + pas ) );
+
+                    // Assert
+                    if ( fenetre.getNbFoyers() > 0 ) {
+                        assertEquals( suivant, fenetre.getPremier() );
+                    }
+                    for ( int i = 0; i < fenetre.getNbFoyers(); i++ ) {
+                        int j = (int) ( fenetre.getPremier() + i );
+                        assertEquals( complete.getRevenuNet1( j ), fenetre.getRevenuNet1( i ) );
+                        assertEquals( complete.getProfil( j ), fenetre.getProfil( i ) );
+                    }
+                    suivant += fenetre.getNbFoyers();
+                }
+                assertEquals( nbFoyers, suivant );
+            }
+        }
+    }
+
+    @DisplayName("Le profil de foyer est relu tel qu'il a été converti")
+    @Test
+    public void testProfil() throws Exception {
+
+        // Arrange
+        Path csv = repertoire.resolve( "foyers.csv" );
+        Files.writeString( csv, "45000,0,DIVORCE,7,5,true\n30000,20000,PACSE,3,3,false\n" );
+        Path binaire = repertoire.resolve( "foyers.bin" );
+
+        // Act
+        FichierFoyers.depuisCsv( csv, binaire );
+
+        // Assert
+        try ( FichierFoyers fichier = FichierFoyers.ouvrir( binaire, false ) ) {
+            FenetreFoyers fenetre = fichier.fenetre( 0, 2 );
+            assertEquals( SituationFamiliale.DIVORCE, fenetre.getSituationFamiliale( 0 ) );
+            assertEquals( 7, fenetre.getNbEnfants( 0 ) );
+            assertEquals( 5, fenetre.getNbEnfantsHandicap( 0 ) );
+            assertTrue( fenetre.isParentIsole( 0 ) );
+            assertEquals( 20000, fenetre.getRevenuNet2( 1 ) );
+            assertEquals( SituationFamiliale.PACSE, fenetre.getSituationFamiliale( 1 ) );
+            assertEquals( FichierFoyers.ETAT_A_CALCULER, fenetre.getEtat( 1 ) );
+        }
+    }
+
+    @DisplayName("Une ligne CSV invalide est signalée avec son numéro lors de la conversion")
+    @Test
+    public void testLigneInvalide() throws Exception {
+
+        // Arrange
+        Path csv = repertoire.resolve( "foyers.csv" );
+        Files.writeString( csv, "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n"
+                + "30000,0,CELIBATAIRE,0,0,false\n"
+                + "30000,0,CELIBATAIRE,2,3,false\n" );
+
+        // Act
+        IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+                () -> FichierFoyers.depuisCsv( csv, repertoire.resolve( "foyers.bin" ) ) );
+
+        // Assert
+        assertEquals( "Ligne 3 : Enfants handicapés incohérents", e.getMessage() );
+    }
+}
@@ -0,0 +1,145 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsHarnaisDifferentiel {
+
+    private static final int NB_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private static GenerateurCas generateur;
+
+    @BeforeAll
+    public static void localiserFrontieres() {
+        generateur = new GenerateurCas( Bareme.BAREME_2024 );
+    }
+
+    /**
+     * Moteur qui oublie la demi-part du premier enfant handicapé.
+     */
+    private static MoteurCompare moteurDemiPartOubliee() {
+        Simulateur simulateur = new Simulateur();
+        return new MoteurCompare.Unitaire( "DemiPartOubliee" ) {
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                MoteurCompare.ranger( simulateur.calculer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                        lot.enfants[ i ], Math.max( 0, lot.handicapes[ i ] - 1 ), lot.isoles[ i ] ), empreintes, d );
+            }
+        };
+    }
+
+    /**
+     * Moteur qui reprend le résultat précédent tant que la situation familiale ne change pas.
+     */
+    private static MoteurCompare moteurResultatPerime() {
+        Simulateur simulateur = new Simulateur();
+        return new MoteurCompare.Unitaire( "ResultatPerime" ) {
+            private SituationFamiliale situation;
+            private ResultatImpot resultat;
+
+            @Override
+            void calculer( LotCas lot, int i, long[] empreintes, int d ) {
+                if ( resultat == null || lot.situations[ i ] != situation ) {
+                    resultat = simulateur.calculer( lot.revenus1[ i ], lot.revenus2[ i ], lot.situations[ i ],
+                            lot.enfants[ i ], lot.handicapes[ i ], lot.isoles[ i ] );
+                    situation = lot.situations[ i ];
+                }
+                MoteurCompare.ranger( resultat, empreintes, d );
+            }
+        };
+    }
+
+    @DisplayName("Tous les moteurs donnent les mêmes résultats et les mêmes rejets que le simulateur")
+    @Test
+    public void testMoteursEquivalents() throws Exception {
+
+        // Arrange
+        HarnaisDifferentiel harnais = new HarnaisDifferentiel( generateur, MoteursCompares.reference(),
+                MoteursCompares.tous(), NB_THREADS, 5 );
+
+        // Act
+        HarnaisDifferentiel.Bilan bilan = harnais.executer( 20_000, 25 );
+
+        // Assert
+        assertTrue( generateur.getNbFrontieres() > 1000, "Frontières : " + generateur.getNbFrontieres() );
+        assertTrue( bilan.getDivergences().isEmpty(), bilan.toString() );
+        assertEquals( 20_000, bilan.getNbCas() );
+    }
+
+    @DisplayName("Une divergence est réduite au foyer le plus simple qui la reproduit")
+    @Test
+    public void testReduction() throws Exception {
+
+        // Arrange
+        List<Supplier<MoteurCompare>> moteurs = List.of( TestsHarnaisDifferentiel::moteurDemiPartOubliee );
+        HarnaisDifferentiel harnais = new HarnaisDifferentiel( generateur, MoteursCompares.reference(), moteurs,
+                NB_THREADS, 1 );
+
+        // Act
+        HarnaisDifferentiel.Bilan bilan = harnais.executer( 20_000, 25 );
+
+        // Assert
+        assertEquals( 1, bilan.getDivergences().size() );
+        HarnaisDifferentiel.Divergence divergence = bilan.getDivergences().get( 0 );
+        assertEquals( "DemiPartOubliee", divergence.getMoteur() );
+        assertTrue( divergence.isReproductible() );
+        // Le foyer le plus simple est invalide : la référence le rejette, le moteur défectueux le calcule
+        assertEquals( List.of( "0,0,CELIBATAIRE,0,1,false" ), divergence.getFoyers() );
+        assertTrue( divergence.toString().contains( "statut : attendu ENFANTS_HANDICAPES, obtenu valide" ),
+                divergence.toString() );
+    }
+
+    @DisplayName("La divergence d'un moteur avec état est reproduite avec les seuls foyers qui la provoquent")
+    @Test
+    public void testReductionAvecEtat() throws Exception {
+
+        // Arrange
+        List<Supplier<MoteurCompare>> moteurs = List.of( TestsHarnaisDifferentiel::moteurResultatPerime );
+        HarnaisDifferentiel harnais = new HarnaisDifferentiel( generateur, MoteursCompares.reference(), moteurs,
+                1, 1 );
+
+        // Act
+        HarnaisDifferentiel.Bilan bilan = harnais.executer( HarnaisDifferentiel.TAILLE_LOT, 25 );
+
+        // Assert
+        HarnaisDifferentiel.Divergence divergence = bilan.getDivergences().get( 0 );
+        assertTrue( divergence.isReproductible() );
+        // Premier revenu au-delà de l'abattement minimal, après un foyer de même situation
+        assertEquals( List.of( "0,0,CELIBATAIRE,0,0,false", "496,0,CELIBATAIRE,0,0,false" ), divergence.getFoyers() );
+    }
+
+    /**
+     * Campagne complète, lancée par le profil Maven fuzz :
+     * mvn test -Pfuzz [-Dfuzz.nbCas=200000000] [-Dfuzz.graine=2024]
+     */
+    @DisplayName("Campagne différentielle sur tous les moteurs")
+    @Tag( "fuzz" )
+    @Test
+    public void testCampagne() throws Exception {
+
+        // Arrange
+        long nbCas = Long.getLong( "fuzz.nbCas", 200_000_000L );
+        long graine = Long.getLong( "fuzz.graine", 2024L );
+        HarnaisDifferentiel harnais = new HarnaisDifferentiel( generateur, MoteursCompares.reference(),
+                MoteursCompares.tous(), NB_THREADS, 20 );
+
+        // Act
+        HarnaisDifferentiel.Bilan bilan = harnais.executer( nbCas, graine );
+
+        // Assert
+        assertTrue( bilan.getDivergences().isEmpty(), bilan.toString() );
+        assertEquals( nbCas, bilan.getNbCas() );
+    }
+}
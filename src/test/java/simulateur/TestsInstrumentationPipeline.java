@@ -0,0 +1,108 @@
+package simulateur;
+
+import com.kerware.simulateur.CacheImposition;
+import com.kerware.simulateur.EtapePipeline;
+import com.kerware.simulateur.InstrumentationPipeline;
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.PolitiqueEviction;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.StatistiqueEtape;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsInstrumentationPipeline {
+
+    @DisplayName("Chaque étape est comptée une fois par calcul, les rejets le sont par motif")
+    @Test
+    public void testComptage() {
+
+        // Arrange
+        InstrumentationPipeline instrumentation = new InstrumentationPipeline();
+        Simulateur simulateur = new Simulateur( new RegistreBaremes(), null, instrumentation );
+        Simulateur reference = new Simulateur();
+
+        // Act
+        for ( int i = 0; i < 1000; i++ ) {
+            assertEquals( reference.calculImpot( i * 101, 0, SituationFamiliale.CELIBATAIRE, 1, 0, true ),
+                    simulateur.calculImpot( i * 101, 0, SituationFamiliale.CELIBATAIRE, 1, 0, true ) );
+        }
+        assertThrows( IllegalArgumentException.class,
+                () -> simulateur.calculImpot( -1, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+        assertThrows( IllegalArgumentException.class,
+                () -> simulateur.calculImpot( 1000, 0, SituationFamiliale.MARIE, 0, 0, true ) );
+        assertThrows( IllegalArgumentException.class,
+                () -> simulateur.calculImpot( 1000, 0, SituationFamiliale.MARIE, 0, 0, true ) );
+
+        // Assert
+        assertEquals( 1000, instrumentation.getNbCalculs() );
+        for ( EtapePipeline etape : EtapePipeline.values() ) {
+            StatistiqueEtape statistique = instrumentation.getInstantane( etape );
+            assertEquals( 1000, statistique.getNbAppels(), etape.name() );
+            assertTrue( statistique.getP50() <= statistique.getP99() );
+        }
+        assertEquals( 3, instrumentation.getNbRejets() );
+        assertEquals( 1, instrumentation.getNbRejets( MotifRejet.REVENUS_NEGATIFS ) );
+        assertEquals( 2, instrumentation.getNbRejets( MotifRejet.PARENT_ISOLE_EN_COUPLE ) );
+
+        instrumentation.reinitialiser();
+        assertEquals( 0, instrumentation.getNbCalculs() );
+        assertEquals( 0, instrumentation.getNbRejets() );
+    }
+
+    @DisplayName("Les impositions servies par le cache complètent le compte des étapes non exécutées")
+    @Test
+    public void testComptageAvecCache() {
+
+        // Arrange
+        InstrumentationPipeline instrumentation = new InstrumentationPipeline();
+        Simulateur simulateur = new Simulateur( new RegistreBaremes(),
+                new CacheImposition( 64, PolitiqueEviction.LRU ), instrumentation );
+
+        // Act
+        for ( int i = 0; i < 100; i++ ) {
+            simulateur.calculImpot( 30000 + 1000 * ( i % 10 ), 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+        }
+
+        // Assert
+        assertEquals( 90, instrumentation.getNbImpositionsEnCache() );
+        assertEquals( 100, instrumentation.getInstantane( EtapePipeline.PARTS ).getNbAppels() );
+        assertEquals( 10, instrumentation.getInstantane( EtapePipeline.DECOTE ).getNbAppels() );
+        assertEquals( 10, instrumentation.getInstantane( EtapePipeline.CONTRIBUTION_EXCEPTIONNELLE ).getNbAppels() );
+
+        instrumentation.reinitialiser();
+        assertEquals( 0, instrumentation.getNbImpositionsEnCache() );
+    }
+
+    @DisplayName("Les mesures sont lisibles par JMX")
+    @Test
+    public void testMBean() throws Exception {
+
+        // Arrange
+        InstrumentationPipeline instrumentation = new InstrumentationPipeline();
+        Simulateur simulateur = new Simulateur( new RegistreBaremes(), null, instrumentation );
+        ObjectName nom = instrumentation.enregistrerMBean( "testMBean" );
+
+        try {
+            // Act
+            simulateur.calculImpot( 50000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+            Object nbCalculs = ManagementFactory.getPlatformMBeanServer().getAttribute( nom, "NbCalculs" );
+            Object etapes = ManagementFactory.getPlatformMBeanServer().getAttribute( nom, "Etapes" );
+
+            // Assert
+            assertEquals( 1L, nbCalculs );
+            assertEquals( EtapePipeline.values().length, ( (Object[]) etapes ).length );
+            assertThrows( IllegalStateException.class, () -> instrumentation.enregistrerMBean( "testMBean" ) );
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean( nom );
+        }
+    }
+}
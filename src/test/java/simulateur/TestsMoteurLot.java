@@ -0,0 +1,171 @@
+package simulateur;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateur.lot.MoteurLot;
+import com.kerware.simulateur.lot.RapportRejets;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsMoteurLot {
+
+    private static List<String> lireCasImposition() throws Exception {
+        try ( BufferedReader lecteur = new BufferedReader( new InputStreamReader(
+                TestsMoteurLot.class.getResourceAsStream( "/datasImposition.csv" ), StandardCharsets.UTF_8 ) ) ) {
+            return lecteur.lines().filter( l -> !l.isBlank() ).collect( Collectors.toList() );
+        }
+    }
+
+    @DisplayName("Le traitement par lot restitue les résultats dans l'ordre du fichier d'entrée")
+    @Test
+    public void testOrdreEtResultats() throws Exception {
+
+        // Arrange
+        List<String> entree = lireCasImposition();
+        StringBuilder contenu = new StringBuilder( entree.get( 0 ) ).append( '\n' );
+        for ( int repetition = 0; repetition < 50; repetition++ ) {
+            for ( String ligne : entree.subList( 1, entree.size() ) ) {
+                contenu.append( ligne ).append( '\n' );
+            }
+        }
+        StringWriter sortie = new StringWriter();
+
+        // Act
+        long nbFoyers;
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 4, 3 ) ) {
+            nbFoyers = moteur.traiter( new StringReader( contenu.toString() ), sortie );
+        }
+
+        // Assert
+        String[] resultats = sortie.toString().split( "\n" );
+        assertEquals( 50L * ( entree.size() - 1 ), nbFoyers );
+        assertEquals( MoteurLot.ENTETE_SORTIE, resultats[0] );
+        for ( int i = 1; i < resultats.length; i++ ) {
+            String[] attendu = entree.get( 1 + ( i - 1 ) % ( entree.size() - 1 ) ).split( "," );
+            String[] obtenu = resultats[i].split( "," );
+            for ( int colonne = 0; colonne < 6; colonne++ ) {
+                assertEquals( attendu[colonne], obtenu[colonne] );
+            }
+            assertEquals( attendu[6], obtenu[obtenu.length - 1] );
+        }
+    }
+
+    @DisplayName("Une ligne invalide est signalée avec son numéro")
+    @Test
+    public void testLigneInvalide() {
+
+        // Arrange
+        String contenu = "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n"
+                + "30000,0,CELIBATAIRE,0,0,false\n"
+                + "30000,10000,CELIBATAIRE,0,0,false\n";
+
+        // Act & Assert
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 2, 1 ) ) {
+            IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+                    () -> moteur.traiter( new StringReader( contenu ), new StringWriter() ) );
+            assertEquals( true, e.getMessage().startsWith( "Ligne 3" ) );
+        }
+    }
+
+    @DisplayName("Avec un rapport, les lignes invalides sont omises et consignées avec leur motif, dans l'ordre")
+    @Test
+    public void testRapportRejets() throws Exception {
+
+        // Arrange
+        String contenu = "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n"
+                + "30000,0,CELIBATAIRE,0,0,false\n"
+                + "-5,0,CELIBATAIRE,0,0,false\n"
+                + "30000,10000,CELIBATAIRE,0,0,false\n"
+                + "30000,0,MARIE,1,0,true\n"
+                + "30000,0,MARIE,1,2,false\n"
+                + "30000,abc,MARIE,1,0,false\n"
+                + "45000,0,DIVORCE,2,0,true\n";
+        StringWriter sortie = new StringWriter();
+        RapportRejets rapport = new RapportRejets();
+
+        // Act
+        long nbFoyers;
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 3, 1 ) ) {
+            nbFoyers = moteur.traiter( new StringReader( contenu ), sortie, rapport );
+        }
+
+        // Assert
+        assertEquals( 7, nbFoyers );
+        String[] resultats = sortie.toString().split( "\n" );
+        assertEquals( 3, resultats.length );
+        assertEquals( true, resultats[1].startsWith( "30000,0,CELIBATAIRE" ) );
+        assertEquals( true, resultats[2].startsWith( "45000,0,DIVORCE" ) );
+        assertEquals( 5, rapport.getNbRejets() );
+        List<MotifRejet> motifs = List.of( MotifRejet.REVENUS_NEGATIFS, MotifRejet.REVENU_DECLARANT_2,
+                MotifRejet.PARENT_ISOLE_EN_COUPLE, MotifRejet.ENFANTS_HANDICAPES, MotifRejet.FORMAT_INVALIDE );
+        for ( int i = 0; i < motifs.size(); i++ ) {
+            assertEquals( i + 3, rapport.getLigne( i ) );
+            assertEquals( motifs.get( i ), rapport.getMotif( i ) );
+        }
+    }
+
+    @DisplayName("Un rapport plein conserve le détail des plus petits numéros de ligne, quel que soit l'ordre de report")
+    @Test
+    public void testRapportRejetsPlein() {
+
+        // Arrange
+        RapportRejets rapport = new RapportRejets( 3 );
+        long[] lignes = { 40, 7, 12, 3, 25, 9, 2, 18 };
+
+        // Act
+        for ( long ligne : lignes ) {
+            rapport.rejeter( ligne, MotifRejet.REVENUS_NEGATIFS.getCode() );
+        }
+        rapport.getLigne( 0 );
+        rapport.rejeter( 1, MotifRejet.FORMAT_INVALIDE.getCode() );
+        rapport.rejeter( 50, MotifRejet.FORMAT_INVALIDE.getCode() );
+
+        // Assert
+        assertEquals( 10, rapport.getNbRejets() );
+        assertEquals( 3, rapport.getNbDetailles() );
+        assertEquals( 1, rapport.getLigne( 0 ) );
+        assertEquals( MotifRejet.FORMAT_INVALIDE, rapport.getMotif( 0 ) );
+        assertEquals( 2, rapport.getLigne( 1 ) );
+        assertEquals( 3, rapport.getLigne( 2 ) );
+        assertEquals( MotifRejet.REVENUS_NEGATIFS, rapport.getMotif( 2 ) );
+    }
+
+    @DisplayName("La lecture sans exception accepte et refuse les mêmes lignes que la lecture par exception")
+    @ParameterizedTest( name = "Ligne {0}" )
+    @ValueSource( strings = { "30000,0,CELIBATAIRE,0,0,false", " 30000 , 0 , MARIE , 2 , 1 , true ,1234",
+            "-12,+5,VEUF,0,0,TRUE", "2147483647,0,PACSE,0,0,false", "2147483648,0,PACSE,0,0,false",
+            "30000,0,CELIBATAIRE,0,0", "30000,0,celibataire,0,0,false", "30000,,CELIBATAIRE,0,0,false",
+            "30000,0,CELIBATAIRE,1.5,0,false", "-,0,CELIBATAIRE,0,0,false" } )
+    public void testLectureSansException( String ligne ) {
+        FoyerFiscal lu = FoyerFiscal.lireCsv( ligne );
+        FoyerFiscal attendu;
+        try {
+            attendu = FoyerFiscal.depuisCsv( ligne );
+        } catch ( IllegalArgumentException e ) {
+            assertNull( lu );
+            return;
+        }
+        assertNotNull( lu );
+        StringBuilder csvLu = new StringBuilder();
+        StringBuilder csvAttendu = new StringBuilder();
+        lu.ecrireCsv( csvLu );
+        attendu.ecrireCsv( csvAttendu );
+        assertEquals( csvAttendu.toString(), csvLu.toString() );
+    }
+}
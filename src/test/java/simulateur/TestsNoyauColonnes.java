@@ -0,0 +1,99 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateurReusine.ColonnesFoyers;
+import com.kerware.simulateurReusine.NoyauColonnes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsNoyauColonnes {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+    // Nombre de foyers volontairement non multiple de la largeur des vecteurs : la fin passe par le noyau scalaire
+    private static final int NB_FOYERS = 100_003;
+
+    public static Stream<Arguments> noyaux() {
+        return Stream.of( NoyauColonnes.scalaire( Bareme.BAREME_2024 ), NoyauColonnes.pour( Bareme.BAREME_2024 ) )
+                .map( noyau -> Arguments.of( noyau.getNom(), noyau ) );
+    }
+
+    @DisplayName("Les noyaux par colonnes donnent les mêmes valeurs que le simulateur sur des foyers tirés au hasard")
+    @ParameterizedTest( name = "Noyau {0}" )
+    @MethodSource( "noyaux" )
+    public void testFoyersAleatoires( String nom, NoyauColonnes noyau ) {
+
+        // Arrange
+        Random aleatoire = new Random( 13 );
+        ColonnesFoyers foyers = new ColonnesFoyers( NB_FOYERS );
+        ResultatImpot[] attendus = new ResultatImpot[ NB_FOYERS ];
+        for ( int i = 0; i < NB_FOYERS; i++ ) {
+            FoyerFiscal foyer = FoyersAleatoires.tirer( aleatoire, 22, 7 );
+            int revenu1 = foyer.getRevenuNet1();
+            int revenu2 = foyer.getRevenuNet2();
+            SituationFamiliale situation = foyer.getSituationFamiliale();
+            int enfants = foyer.getNbEnfants();
+            int handicapes = foyer.getNbEnfantsHandicap();
+            boolean isole = foyer.isParentIsole();
+            foyers.ajouter( revenu1, revenu2, situation, enfants, handicapes, isole );
+            attendus[ i ] = SIMULATEUR.calculer( revenu1, revenu2, situation, enfants, handicapes, isole );
+        }
+
+        // Act
+        noyau.calculer( foyers );
+
+        // Assert
+        for ( int i = 0; i < NB_FOYERS; i++ ) {
+            ResultatImpot attendu = attendus[ i ];
+            assertEquals( attendu.getRevenuFiscalReference(), foyers.getRevenuFiscalReference()[ i ], "Foyer " + i );
+            assertEquals( attendu.getImpotAvantDecote(), foyers.getImpotAvantDecote()[ i ], "Foyer " + i );
+            assertEquals( attendu.getDecote(), foyers.getDecote()[ i ], "Foyer " + i );
+            assertEquals( attendu.getContribExceptionnelle(), foyers.getContribExceptionnelle()[ i ], "Foyer " + i );
+            assertEquals( attendu.getImpotNet(), foyers.getImpotNet()[ i ], "Foyer " + i );
+        }
+    }
+
+    @DisplayName("Un foyer invalide rangé directement dans les colonnes est rejeté avec le message du simulateur")
+    @ParameterizedTest( name = "Noyau {0}" )
+    @MethodSource( "noyaux" )
+    public void testRejet( String nom, NoyauColonnes noyau ) {
+
+        // Arrange
+        ColonnesFoyers foyers = new ColonnesFoyers( 16 );
+        for ( int i = 0; i < 10; i++ ) {
+            foyers.ajouter( 30000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+        }
+        foyers.getRevenus2()[ 7 ] = 500;
+
+        // Act
+        IllegalArgumentException exception = assertThrows( IllegalArgumentException.class,
+                () -> noyau.calculer( foyers ) );
+
+        // Assert
+        IllegalArgumentException attendue = assertThrows( IllegalArgumentException.class,
+                () -> SIMULATEUR.calculer( 30000, 500, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+        assertEquals( "Foyer 7 : " + attendue.getMessage(), exception.getMessage() );
+        assertEquals( 0, foyers.getImpotNet()[ 0 ] );
+    }
+
+    @DisplayName("Les combinaisons de profil invalides sont refusées")
+    @Test
+    public void testProfilInvalide() {
+        assertThrows( IllegalArgumentException.class,
+                () -> ColonnesFoyers.profil( SituationFamiliale.MARIE, 1, 0, true ) );
+        assertThrows( IllegalArgumentException.class,
+                () -> ColonnesFoyers.profil( SituationFamiliale.CELIBATAIRE, 2, 3, false ) );
+    }
+}
@@ -0,0 +1,224 @@
+package simulateur;
+
+import com.kerware.simulateur.MotifRejet;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateur.lot.ProcesseurFoyers;
+import com.kerware.simulateur.lot.ResultatFoyer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsProcesseurFoyers {
+
+    /**
+     * Abonné qui demande un résultat à la fois et ralentit périodiquement, comme un consommateur lent.
+     */
+    private static final class AbonneLent implements Flow.Subscriber<ResultatFoyer> {
+
+        final List<ResultatFoyer> recus = new ArrayList<>();
+        final CountDownLatch fin = new CountDownLatch( 1 );
+        final ProcesseurFoyers processeur;
+        final AtomicInteger enCoursMax = new AtomicInteger();
+        volatile Throwable erreur;
+        private Flow.Subscription abonnement;
+
+        AbonneLent( ProcesseurFoyers processeur ) {
+            this.processeur = processeur;
+        }
+
+        @Override
+        public void onSubscribe( Flow.Subscription subscription ) {
+            abonnement = subscription;
+            subscription.request( 1 );
+        }
+
+        @Override
+        public void onNext( ResultatFoyer item ) {
+            recus.add( item );
+            enCoursMax.accumulateAndGet( processeur.getNbEnCours(), Math::max );
+            if ( recus.size() % 1000 == 0 ) {
+                try {
+                    Thread.sleep( 2 );
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            abonnement.request( 1 );
+        }
+
+        @Override
+        public void onError( Throwable throwable ) {
+            erreur = throwable;
+            fin.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            fin.countDown();
+        }
+    }
+
+    /**
+     * Abonné qui demande deux résultats puis ne demande plus rien.
+     */
+    private static final class AbonneBloque implements Flow.Subscriber<ResultatFoyer> {
+
+        final AtomicInteger nbRecus = new AtomicInteger();
+        final CountDownLatch fin = new CountDownLatch( 1 );
+        volatile Throwable erreur;
+
+        @Override
+        public void onSubscribe( Flow.Subscription subscription ) {
+            subscription.request( 2 );
+        }
+
+        @Override
+        public void onNext( ResultatFoyer item ) {
+            nbRecus.incrementAndGet();
+        }
+
+        @Override
+        public void onError( Throwable throwable ) {
+            erreur = throwable;
+            fin.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            fin.countDown();
+        }
+    }
+
+    private static List<FoyerFiscal> genererFoyers( int nombre ) {
+        Random aleatoire = new Random( 24 );
+        List<FoyerFiscal> foyers = new ArrayList<>( nombre );
+        for ( int i = 0; i < nombre; i++ ) {
+            FoyerFiscal foyer = FoyersAleatoires.tirer( aleatoire, 18, 4 );
+            // Un foyer sur cent est invalide : parent isolé en couple
+            boolean couple = foyer.getSituationFamiliale() == SituationFamiliale.MARIE
+                    || foyer.getSituationFamiliale() == SituationFamiliale.PACSE;
+            foyers.add( couple && i % 100 == 0 ? new FoyerFiscal( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(), true ) : foyer );
+        }
+        return foyers;
+    }
+
+    @DisplayName("Les résultats sont publiés dans l'ordre, rejets compris, avec au plus la capacité de foyers en cours")
+    @Test
+    public void testFluxBorne() throws Exception {
+
+        // Arrange
+        Simulateur simulateur = new Simulateur();
+        List<FoyerFiscal> foyers = genererFoyers( 20000 );
+        ProcesseurFoyers processeur = new ProcesseurFoyers( simulateur, 3, 64 );
+        AbonneLent abonne = new AbonneLent( processeur );
+        processeur.subscribe( abonne );
+
+        // Act
+        try ( SubmissionPublisher<FoyerFiscal> source = new SubmissionPublisher<>() ) {
+            source.subscribe( processeur );
+            for ( FoyerFiscal foyer : foyers ) {
+                source.submit( foyer );
+            }
+        }
+
+        // Assert
+        assertTrue( abonne.fin.await( 60, TimeUnit.SECONDS ) );
+        assertNull( abonne.erreur );
+        assertEquals( foyers.size(), abonne.recus.size() );
+        assertTrue( abonne.enCoursMax.get() <= 64, "En cours : " + abonne.enCoursMax.get() );
+        for ( int i = 0; i < foyers.size(); i++ ) {
+            ResultatFoyer resultat = abonne.recus.get( i );
+            FoyerFiscal foyer = foyers.get( i );
+            assertEquals( i, resultat.getNumero() );
+            assertTrue( resultat.getLatenceNanos() >= 0 );
+            MotifRejet motif = MotifRejet.verifier( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                    foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                    foyer.isParentIsole() );
+            assertEquals( motif, resultat.getMotifRejet() );
+            if ( motif == null ) {
+                assertEquals( simulateur.calculer( foyer.getRevenuNet1(), foyer.getRevenuNet2(),
+                        foyer.getSituationFamiliale(), foyer.getNbEnfants(), foyer.getNbEnfantsHandicap(),
+                        foyer.isParentIsole() ).toString(), resultat.getResultat().toString() );
+            }
+        }
+        assertEquals( foyers.size(), processeur.getLatences().getNbMesures() );
+        assertEquals( 0, processeur.getNbEnCours() );
+    }
+
+    @DisplayName("L'erreur de la source est transmise après les résultats des foyers déjà reçus")
+    @Test
+    public void testErreurSource() throws Exception {
+
+        // Arrange
+        ProcesseurFoyers processeur = new ProcesseurFoyers( new Simulateur(), 2, 16 );
+        AbonneLent abonne = new AbonneLent( processeur );
+        processeur.subscribe( abonne );
+        SubmissionPublisher<FoyerFiscal> source = new SubmissionPublisher<>();
+        source.subscribe( processeur );
+        IllegalStateException panne = new IllegalStateException( "Source interrompue" );
+
+        // Act
+        for ( FoyerFiscal foyer : genererFoyers( 500 ) ) {
+            source.submit( foyer );
+        }
+        // La source abandonne ses foyers en attente sur erreur : elle ne l'émet qu'une fois tout remis
+        while ( source.estimateMaximumLag() > 0 ) {
+            Thread.sleep( 1 );
+        }
+        source.closeExceptionally( panne );
+
+        // Assert
+        assertTrue( abonne.fin.await( 60, TimeUnit.SECONDS ) );
+        assertEquals( panne, abonne.erreur );
+        assertEquals( 500, abonne.recus.size() );
+    }
+
+    @DisplayName("L'erreur de la source est transmise sans bloquer, au bout du délai, à un abonné qui ne demande plus")
+    @Test
+    public void testErreurAbonneBloque() throws Exception {
+
+        // Arrange
+        ProcesseurFoyers processeur = new ProcesseurFoyers( new Simulateur(), 2, 16, 200 );
+        AbonneBloque abonne = new AbonneBloque();
+        processeur.subscribe( abonne );
+        SubmissionPublisher<FoyerFiscal> source = new SubmissionPublisher<>();
+        source.subscribe( processeur );
+        for ( FoyerFiscal foyer : genererFoyers( 10 ) ) {
+            source.submit( foyer );
+        }
+        // Les dix résultats sont publiés : deux remis, huit dans le tampon de l'abonné
+        while ( processeur.estimateMaximumLag() < 8 ) {
+            Thread.sleep( 1 );
+        }
+        IllegalStateException panne = new IllegalStateException( "Source interrompue" );
+
+        // Act
+        long debut = System.nanoTime();
+        processeur.onError( panne );
+        long dureeAppel = System.nanoTime() - debut;
+
+        // Assert
+        assertTrue( dureeAppel < TimeUnit.MILLISECONDS.toNanos( 100 ), "Appel bloqué : " + dureeAppel + " ns" );
+        assertTrue( abonne.fin.await( 10, TimeUnit.SECONDS ) );
+        assertTrue( System.nanoTime() - debut >= TimeUnit.MILLISECONDS.toNanos( 200 ) );
+        assertEquals( panne, abonne.erreur );
+        assertEquals( 2, abonne.nbRecus.get() );
+        assertTrue( processeur.isClosed() );
+        source.close();
+    }
+}
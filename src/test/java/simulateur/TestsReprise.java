@@ -0,0 +1,150 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.lot.AccumulateurPopulation;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateur.lot.MoteurLot;
+import com.kerware.simulateur.lot.PointReprise;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsReprise {
+
+    private static final int NB_FOYERS = 20000;
+    // Ligne invalide qui interrompt le premier passage, corrigée en place avant la reprise
+    private static final int LIGNE_INVALIDE = 12001;
+    private static final String FOYER_INVALIDE = "30000,0,CELIBATAIRE,2,3,false";
+    private static final String FOYER_CORRIGE = "30000,0,CELIBATAIRE,3,3,false";
+
+    @TempDir
+    Path repertoire;
+
+    private static List<String> genererLignes() {
+        List<String> lignes = new ArrayList<>();
+        lignes.add( "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole" );
+        for ( FoyerFiscal foyer : FoyersAleatoires.generer( NB_FOYERS, 20 ) ) {
+            StringBuilder ligne = new StringBuilder();
+            foyer.ecrireCsv( ligne );
+            lignes.add( ligne.toString() );
+        }
+        return lignes;
+    }
+
+    private static void ecrire( Path fichier, List<String> lignes, String finDeLigne ) throws Exception {
+        Files.writeString( fichier, String.join( finDeLigne, lignes ) + finDeLigne, StandardCharsets.UTF_8 );
+    }
+
+    @DisplayName("Un traitement interrompu reprend au dernier point sans relire l'entrée ni dupliquer la sortie")
+    @Test
+    public void testRepriseTraitement() throws Exception {
+
+        // Arrange
+        List<String> lignes = genererLignes();
+        lignes.set( LIGNE_INVALIDE - 1, FOYER_CORRIGE );
+        Path entree = repertoire.resolve( "foyers.csv" );
+        Path attendu = repertoire.resolve( "attendu.csv" );
+        Path sortie = repertoire.resolve( "resultats.csv" );
+        Path reprise = repertoire.resolve( "resultats.reprise" );
+        ecrire( entree, lignes, "\n" );
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 3, 500 ) ) {
+            moteur.traiter( entree, attendu );
+        }
+        lignes.set( LIGNE_INVALIDE - 1, FOYER_INVALIDE );
+        ecrire( entree, lignes, "\n" );
+
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 3, 500 ) ) {
+            IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+                    () -> moteur.traiter( entree, sortie, reprise, 0 ) );
+            assertEquals( "Ligne " + LIGNE_INVALIDE + " : Enfants handicapés incohérents", e.getMessage() );
+            PointReprise point = PointReprise.lire( reprise, Bareme.BAREME_2024 );
+            assertTrue( point.getDerniereLigne() > 0 && point.getDerniereLigne() < LIGNE_INVALIDE );
+            assertEquals( point.getDerniereLigne() - 1, point.getNbFoyers() );
+
+            // Résultats écrits après le dernier point, et partie déjà traitée rendue illisible
+            Files.writeString( sortie, "ligne partielle", StandardOpenOption.APPEND );
+            lignes.set( LIGNE_INVALIDE - 1, FOYER_CORRIGE );
+            lignes.set( 1, lignes.get( 1 ).replaceAll( "[0-9]", "x" ) );
+            ecrire( entree, lignes, "\n" );
+
+            // Act
+            long nbFoyers = moteur.traiter( entree, sortie, reprise, 0 );
+
+            // Assert
+            assertEquals( NB_FOYERS, nbFoyers );
+        }
+        assertEquals( Files.readString( attendu ), Files.readString( sortie ) );
+        assertFalse( Files.exists( reprise ) );
+    }
+
+    @DisplayName("Une agrégation interrompue reprend avec ses agrégats partiels")
+    @Test
+    public void testRepriseAgregation() throws Exception {
+
+        // Arrange
+        List<String> lignes = genererLignes();
+        lignes.set( LIGNE_INVALIDE - 1, FOYER_INVALIDE );
+        Path entree = repertoire.resolve( "foyers.csv" );
+        Path reprise = repertoire.resolve( "agregats.reprise" );
+        ecrire( entree, lignes, "\r\n" );
+        Simulateur simulateur = new Simulateur();
+        AccumulateurPopulation attendu = new AccumulateurPopulation( Bareme.BAREME_2024 );
+        for ( String ligne : lignes.subList( 1, lignes.size() ) ) {
+            FoyerFiscal foyer = FoyerFiscal.depuisCsv( ligne.equals( FOYER_INVALIDE ) ? FOYER_CORRIGE : ligne );
+            attendu.ajouter( foyer.getSituationFamiliale(), simulateur.calculer( foyer.getRevenuNet1(),
+                    foyer.getRevenuNet2(), foyer.getSituationFamiliale(), foyer.getNbEnfants(),
+                    foyer.getNbEnfantsHandicap(), foyer.isParentIsole() ) );
+        }
+
+        try ( MoteurLot moteur = new MoteurLot( simulateur, 2, 700 ) ) {
+            assertThrows( IllegalArgumentException.class, () -> moteur.agreger( entree, reprise, 0 ) );
+            assertTrue( PointReprise.lire( reprise, Bareme.BAREME_2024 ).getAccumulateur().getNbFoyers() > 0 );
+            // Mêmes nombres de tranches, bornes revalorisées : les agrégats partiels ne s'y rapportent pas
+            assertThrows( IOException.class, () -> PointReprise.lire( reprise, Bareme.BAREME_2024.indexer( 0.02 ) ) );
+            lignes.set( LIGNE_INVALIDE - 1, FOYER_CORRIGE );
+            ecrire( entree, lignes, "\r\n" );
+
+            // Act
+            AccumulateurPopulation obtenu = moteur.agreger( entree, reprise, 0 );
+
+            // Assert
+            StringBuilder texteAttendu = new StringBuilder();
+            StringBuilder texteObtenu = new StringBuilder();
+            attendu.ecrire( texteAttendu );
+            obtenu.ecrire( texteObtenu );
+            assertEquals( texteAttendu.toString(), texteObtenu.toString() );
+        }
+        assertFalse( Files.exists( reprise ) );
+    }
+
+    @DisplayName("Un point de reprise altéré est refusé")
+    @Test
+    public void testPointAltere() throws Exception {
+
+        // Arrange
+        Path entree = repertoire.resolve( "foyers.csv" );
+        Path reprise = repertoire.resolve( "resultats.reprise" );
+        ecrire( entree, genererLignes(), "\n" );
+        try ( MoteurLot moteur = new MoteurLot( new Simulateur(), 1, 100 ) ) {
+            Files.write( reprise, new byte[] { 0x49, 0x4D, 0x50, 0x52, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0 } );
+
+            // Act & Assert
+            assertThrows( IOException.class,
+                    () -> moteur.traiter( entree, repertoire.resolve( "resultats.csv" ), reprise, 0 ) );
+        }
+    }
+}
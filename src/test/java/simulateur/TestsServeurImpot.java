@@ -0,0 +1,102 @@
+package simulateur;
+
+import com.kerware.simulateur.HistogrammeLatences;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.serveur.ServeurImpot;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsServeurImpot {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+    private static HttpResponse<String> envoyer( HttpRequest requete ) throws Exception {
+        return CLIENT.send( requete, HttpResponse.BodyHandlers.ofString() );
+    }
+
+    private static String derniereColonne( String ligne ) {
+        return ligne.substring( ligne.lastIndexOf( ',' ) + 1 );
+    }
+
+    @DisplayName("Le point d'accès /impot calcule un foyer et rejette une requête invalide")
+    @Test
+    public void testImpot() throws Exception {
+        try ( ServeurImpot serveur = new ServeurImpot( new Simulateur(), new InetSocketAddress( "localhost", 0 ) ) ) {
+
+            // Arrange
+            String base = "http://localhost:" + serveur.getPort();
+            int attendu = new Simulateur().calculImpot( 65000, 0, SituationFamiliale.MARIE, 2, 0, false );
+
+            // Act
+            HttpResponse<String> reponse = envoyer( HttpRequest.newBuilder(
+                    URI.create( base + "/impot?revenuNet1=65000&sitFam=MARIE&nbEnfants=2" ) ).build() );
+            HttpResponse<String> invalide = envoyer( HttpRequest.newBuilder(
+                    URI.create( base + "/impot?revenuNet1=-5&sitFam=MARIE" ) ).build() );
+
+            // Assert
+            assertEquals( 200, reponse.statusCode() );
+            String[] lignes = reponse.body().split( "\n" );
+            assertEquals( String.valueOf( attendu ), derniereColonne( lignes[1] ) );
+            assertEquals( 400, invalide.statusCode() );
+            assertEquals( 2, serveur.getLatencesImpot().getNbMesures() );
+        }
+    }
+
+    @DisplayName("Le point d'accès /lot renvoie une ligne par foyer dans l'ordre, puis les métriques")
+    @Test
+    public void testLotEtMetriques() throws Exception {
+        try ( ServeurImpot serveur = new ServeurImpot( new Simulateur(), new InetSocketAddress( "localhost", 0 ) ) ) {
+
+            // Arrange
+            String base = "http://localhost:" + serveur.getPort();
+            StringBuilder corps = new StringBuilder( "revenutNet1,revenuNet2,sitFam,nbEnfants,nbEnfantsHandicap,isole\n" );
+            for ( int i = 0; i < 10000; i++ ) {
+                corps.append( i * 37 ).append( ",0,CELIBATAIRE,0,0,false\n" );
+            }
+
+            // Act
+            HttpResponse<String> reponse = envoyer( HttpRequest.newBuilder( URI.create( base + "/lot" ) )
+                    .POST( HttpRequest.BodyPublishers.ofString( corps.toString() ) ).build() );
+            HttpResponse<String> metriques = envoyer( HttpRequest.newBuilder( URI.create( base + "/metriques" ) ).build() );
+
+            // Assert
+            String[] lignes = reponse.body().split( "\n" );
+            assertEquals( 10001, lignes.length );
+            for ( int i = 0; i < 10000; i++ ) {
+                int attendu = new Simulateur().calculImpot( i * 37, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+                assertEquals( String.valueOf( attendu ), derniereColonne( lignes[i + 1] ) );
+            }
+            assertTrue( metriques.body().contains( "lot.nombre 1\n" ) );
+            assertTrue( metriques.body().contains( "lot.p99_us " ) );
+        }
+    }
+
+    @DisplayName("Les quantiles de l'histogramme sont exacts à un huitième près")
+    @Test
+    public void testHistogramme() {
+
+        // Arrange
+        HistogrammeLatences histogramme = new HistogrammeLatences();
+
+        // Act
+        for ( long nanos = 1; nanos <= 100000; nanos++ ) {
+            histogramme.enregistrer( nanos * 1000 );
+        }
+
+        // Assert
+        assertEquals( 100000, histogramme.getNbMesures() );
+        assertTrue( Math.abs( histogramme.quantile( 0.5 ) - 50_000_000 ) <= 50_000_000 / 8 );
+        assertTrue( Math.abs( histogramme.quantile( 0.99 ) - 99_000_000 ) <= 99_000_000 / 8 );
+        assertTrue( histogramme.quantile( 1.0 ) >= 100_000_000 );
+    }
+}
@@ -0,0 +1,127 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateurReusine.SimulateurCentimes;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsSimulateurCentimes {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+    private static final SimulateurCentimes CENTIMES = new SimulateurCentimes();
+
+    @DisplayName("Le simulateur en centimes donne les résultats attendus - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}" )
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testCasDuFichier( int revenuNetDeclarant1, int revenuNetDeclarant2,  String situationFamiliale, int nbEnfantsACharge,
+                                  int nbEnfantsSituationHandicap, boolean parentIsole, int impotAttendu ) {
+
+        // Arrange
+        SituationFamiliale situation = SituationFamiliale.valueOf( situationFamiliale );
+
+        // Act
+        int impot = CENTIMES.calculImpot( revenuNetDeclarant1, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole );
+
+        // Assert
+        assertEquals( impotAttendu, impot );
+        assertEquals( SIMULATEUR.calculer( revenuNetDeclarant1, revenuNetDeclarant2, situation, nbEnfantsACharge,
+                nbEnfantsSituationHandicap, parentIsole ).toString(), CENTIMES.calculer( revenuNetDeclarant1,
+                revenuNetDeclarant2, situation, nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole ).toString() );
+    }
+
+    @DisplayName("Sur un échantillon aléatoire, seuls les demi-euros exacts arrondis par défaut en double diffèrent")
+    @Test
+    public void testEchantillonAleatoire() {
+
+        // Arrange
+        Random aleatoire = new Random( 23 );
+        Bareme bareme = Bareme.BAREME_2024;
+        int nbEcarts = 0;
+
+        for ( int i = 0; i < 1_000_000; i++ ) {
+            FoyerFiscal foyer = FoyersAleatoires.tirer( aleatoire, 22, 7 );
+            int revenu1 = foyer.getRevenuNet1();
+            int revenu2 = foyer.getRevenuNet2();
+            SituationFamiliale situation = foyer.getSituationFamiliale();
+            int enfants = foyer.getNbEnfants();
+            int handicapes = foyer.getNbEnfantsHandicap();
+            boolean isole = foyer.isParentIsole();
+            boolean couple = situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+
+            // Act
+            ResultatImpot attendu = SIMULATEUR.calculer( revenu1, revenu2, situation, enfants, handicapes, isole );
+            ResultatImpot obtenu = CENTIMES.calculer( revenu1, revenu2, situation, enfants, handicapes, isole );
+            long centimes = CENTIMES.calculImpotCentimes( revenu1, revenu2, situation, enfants, handicapes, isole );
+
+            // Assert
+            assertEquals( obtenu.getImpotNet() * 100, centimes );
+            assertEquals( obtenu.getImpotNetArrondi(), CENTIMES.calculImpot( revenu1, revenu2, situation, enfants,
+                    handicapes, isole ) );
+            assertEquals( attendu.getAbattement(), obtenu.getAbattement() );
+            assertEquals( attendu.getNbParts(), obtenu.getNbParts() );
+            assertEquals( attendu.getContribExceptionnelle(), obtenu.getContribExceptionnelle() );
+            if ( attendu.getImpotAvantDecote() != obtenu.getImpotAvantDecote() ) {
+                // L'impôt des déclarants ou du foyer tombe exactement sur un demi-euro
+                nbEcarts++;
+                assertEquals( attendu.getImpotAvantDecote() + 1, obtenu.getImpotAvantDecote() );
+                double rFRef = attendu.getRevenuFiscalReference();
+                assertTrue( ArrondisExacts.estDemiEuro( ArrondisExacts.impotExact( bareme, rFRef, attendu.getNbParts() ) )
+                        || ArrondisExacts.estDemiEuro( ArrondisExacts.impotExact( bareme, rFRef,
+                        attendu.getNbPartsDeclarants() ) ), attendu.toString() );
+            } else if ( attendu.getDecote() != obtenu.getDecote() ) {
+                nbEcarts++;
+                assertTrue( ArrondisExacts.estDemiEuro( ArrondisExacts.decoteExacte( bareme, couple,
+                        attendu.getImpotAvantDecote() ) ), attendu.toString() );
+            } else {
+                assertEquals( attendu.toString(), obtenu.toString() );
+            }
+        }
+        assertTrue( nbEcarts < 200, "Écarts : " + nbEcarts );
+    }
+
+    @DisplayName("Un barème qui ne s'exprime pas en points de base est refusé")
+    @Test
+    public void testBaremeNonEntier() throws Exception {
+        String definition = """
+                2024.tranches = 0, 11294, 28797, 82341, 177106
+                2024.taux = 0.0, 0.11, 0.30, 0.41, 0.45
+                2024.tranchesCehr = 0, 250000, 500000, 1000000
+                2024.tauxCehrCelibataire = 0.0, 0.03, 0.04, 0.04
+                2024.tauxCehrCouple = 0.0, 0.0, 0.03, 0.04
+                2024.tauxAbattement = 0.10
+                2024.abattementMin = 495
+                2024.abattementMax = 14171
+                2024.plafondDemiPart = 1759
+                2024.seuilDecoteSeul = 1929
+                2024.seuilDecoteCouple = 3191
+                2024.decoteMaxSeul = 873
+                2024.decoteMaxCouple = 1444
+                2024.tauxDecote = 0.45255
+                """;
+        RegistreBaremes registre = new RegistreBaremes( Bareme.lire( new StringReader( definition ) ) );
+        assertThrows( IllegalArgumentException.class, () -> new SimulateurCentimes( registre ) );
+    }
+
+    @DisplayName("Un foyer invalide est rejeté avec le message du simulateur")
+    @Test
+    public void testRejet() {
+        IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+                () -> CENTIMES.calculImpot( 30000, 0, SituationFamiliale.MARIE, 1, 0, true ) );
+        assertEquals( "Parent isolé incompatible avec couple", e.getMessage() );
+    }
+}
@@ -0,0 +1,134 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.lot.FoyerFiscal;
+import com.kerware.simulateurReusine.SimulateurReusine;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.CsvFileSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsSimulateurReusine {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+    private static final SimulateurReusine REUSINE = new SimulateurReusine();
+
+    private static void assertResultatsIdentiques( ResultatImpot attendu, ResultatImpot obtenu ) {
+        assertEquals( attendu.getRevenuFiscalReference(), obtenu.getRevenuFiscalReference() );
+        assertEquals( attendu.getAbattement(), obtenu.getAbattement() );
+        assertEquals( attendu.getNbParts(), obtenu.getNbParts() );
+        assertEquals( attendu.getNbPartsDeclarants(), obtenu.getNbPartsDeclarants() );
+        assertEquals( attendu.getImpotAvantDecote(), obtenu.getImpotAvantDecote() );
+        assertEquals( attendu.getDecote(), obtenu.getDecote() );
+        assertEquals( attendu.getContribExceptionnelle(), obtenu.getContribExceptionnelle() );
+        assertEquals( attendu.getImpotNet(), obtenu.getImpotNet() );
+    }
+
+    @DisplayName("Le simulateur réusiné donne les mêmes valeurs que le simulateur - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2}" )
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testCasDuFichier( int revenuNetDeclarant1, int revenuNetDeclarant2,  String situationFamiliale, int nbEnfantsACharge,
+                                  int nbEnfantsSituationHandicap, boolean parentIsole, int impotAttendu ) {
+
+        // Arrange
+        SituationFamiliale situation = SituationFamiliale.valueOf( situationFamiliale );
+
+        // Act
+        ResultatImpot resultat = REUSINE.calculer( revenuNetDeclarant1, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole );
+
+        // Assert
+        assertResultatsIdentiques( SIMULATEUR.calculer( revenuNetDeclarant1, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole ), resultat );
+        assertEquals( impotAttendu, REUSINE.calculImpot( revenuNetDeclarant1, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole ) );
+    }
+
+    @DisplayName("Le simulateur réusiné donne les mêmes valeurs sur des foyers tirés au hasard, pour tous les profils")
+    @Test
+    public void testFoyersAleatoires() {
+
+        // Arrange
+        Random aleatoire = new Random( 12 );
+
+        for ( int i = 0; i < 200000; i++ ) {
+            FoyerFiscal foyer = FoyersAleatoires.tirer( aleatoire, 22, 7 );
+            int revenu1 = foyer.getRevenuNet1();
+            int revenu2 = foyer.getRevenuNet2();
+            SituationFamiliale situation = foyer.getSituationFamiliale();
+            int enfants = foyer.getNbEnfants();
+            int handicapes = foyer.getNbEnfantsHandicap();
+            boolean isole = foyer.isParentIsole();
+
+            // Act
+            ResultatImpot resultat = REUSINE.calculer( revenu1, revenu2, situation, enfants, handicapes, isole );
+
+            // Assert
+            assertResultatsIdentiques( SIMULATEUR.calculer( revenu1, revenu2, situation, enfants, handicapes, isole ),
+                    resultat );
+        }
+    }
+
+    public static Stream<Arguments> donneesInvalides() {
+        return Stream.of(
+                Arguments.of( -1, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ),
+                Arguments.of( 1000, 0, null, 0, 0, false ),
+                Arguments.of( 1000, 0, SituationFamiliale.CELIBATAIRE, 8, 0, false ),
+                Arguments.of( 1000, 0, SituationFamiliale.CELIBATAIRE, -1, 0, false ),
+                Arguments.of( 1000, 0, SituationFamiliale.CELIBATAIRE, 2, 3, false ),
+                Arguments.of( 1000, 0, SituationFamiliale.MARIE, 1, 0, true ),
+                Arguments.of( 1000, 500, SituationFamiliale.VEUF, 0, 0, false )
+        );
+    }
+
+    @DisplayName("Les paramètres invalides sont rejetés avec le même message que le simulateur")
+    @ParameterizedTest
+    @MethodSource( "donneesInvalides" )
+    public void testRejets( int revenu1, int revenu2, SituationFamiliale situation, int enfants, int handicapes,
+                            boolean isole ) {
+        IllegalArgumentException attendue = assertThrows( IllegalArgumentException.class,
+                () -> SIMULATEUR.calculer( revenu1, revenu2, situation, enfants, handicapes, isole ) );
+        IllegalArgumentException obtenue = assertThrows( IllegalArgumentException.class,
+                () -> REUSINE.calculer( revenu1, revenu2, situation, enfants, handicapes, isole ) );
+        assertEquals( attendue.getMessage(), obtenue.getMessage() );
+    }
+
+    @DisplayName("La table des profils suit le rechargement du registre")
+    @Test
+    public void testRechargement() throws Exception {
+
+        // Arrange
+        List<Bareme> baremes;
+        try ( Reader lecteur = new InputStreamReader(
+                TestsSimulateurReusine.class.getResourceAsStream( "/baremes.properties" ), StandardCharsets.UTF_8 ) ) {
+            baremes = Bareme.lire( lecteur );
+        }
+        RegistreBaremes registre = new RegistreBaremes( List.of( baremes.get( 0 ) ) );
+        SimulateurReusine reusine = new SimulateurReusine( registre );
+        int impot2023 = new Simulateur( registre, null ).calculImpot( 45000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false );
+        assertEquals( impot2023, reusine.calculImpot( 45000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+
+        // Act
+        registre.remplacer( baremes );
+
+        // Assert
+        assertEquals( SIMULATEUR.calculImpot( 45000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ),
+                reusine.calculImpot( 45000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+    }
+}
@@ -0,0 +1,79 @@
+package simulateur;
+
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvFileSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestsSimulateurSansEtat {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+
+    // -------------------------------------------------------------------------------------------------
+    // Tests du résultat immuable sur les cas du fichier CSV
+    // -------------------------------------------------------------------------------------------------
+
+    @DisplayName("Le résultat immuable donne le même impôt net que calculImpot - ")
+    @ParameterizedTest( name = " avec revenuNetDeclarant1={0}, revenuNetDeclarant2={1}, situationFamiliale={2} - IMPOT NET ATTENDU = {6}")
+    @CsvFileSource( resources={"/datasImposition.csv"} , numLinesToSkip = 1 )
+    public void testResultatImmuable( int revenuNetDeclarant1, int revenuNetDeclarant2,  String situationFamiliale, int nbEnfantsACharge,
+                                      int nbEnfantsSituationHandicap, boolean parentIsole, int impotAttendu) {
+
+        // Act
+        ResultatImpot resultat = SIMULATEUR.calculer( revenuNetDeclarant1, revenuNetDeclarant2,
+                SituationFamiliale.valueOf( situationFamiliale ), nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole );
+
+        // Assert
+        assertEquals( impotAttendu, (int) resultat.getImpotNet() );
+        assertEquals( impotAttendu, resultat.getImpotNetArrondi() );
+    }
+
+    // -------------------------------------------------------------------------------------------------
+    // Partage d'une même instance entre plusieurs threads
+    // -------------------------------------------------------------------------------------------------
+
+    @DisplayName("Une instance partagée entre threads donne les mêmes résultats qu'un calcul séquentiel")
+    @Test
+    public void testInstancePartagee() throws Exception {
+
+        // Arrange
+        int nbCalculs = 20000;
+        int[] attendus = new int[nbCalculs];
+        for ( int i = 0; i < nbCalculs; i++ ) {
+            attendus[i] = new Simulateur().calculImpot( i * 97, i * 13, SituationFamiliale.MARIE, i % 8, ( i % 8 ) / 2, false );
+        }
+        ExecutorService executeur = Executors.newFixedThreadPool( 8 );
+
+        // Act
+        List<Future<int[]>> taches = new ArrayList<>();
+        for ( int t = 0; t < 8; t++ ) {
+            taches.add( executeur.submit( () -> {
+                int[] obtenus = new int[nbCalculs];
+                for ( int i = 0; i < nbCalculs; i++ ) {
+                    obtenus[i] = SIMULATEUR.calculImpot( i * 97, i * 13, SituationFamiliale.MARIE, i % 8, ( i % 8 ) / 2, false );
+                }
+                return obtenus;
+            } ) );
+        }
+
+        // Assert
+        for ( Future<int[]> tache : taches ) {
+            int[] obtenus = tache.get();
+            for ( int i = 0; i < nbCalculs; i++ ) {
+                assertEquals( attendus[i], obtenus[i] );
+            }
+        }
+        executeur.shutdown();
+    }
+}
@@ -0,0 +1,66 @@
+package simulateur;
+
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.SolutionRevenu;
+import com.kerware.simulateur.SolveurRevenu;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsSolveurRevenu {
+
+    private static final Simulateur SIMULATEUR = new Simulateur();
+    private static final SolveurRevenu SOLVEUR = new SolveurRevenu( SIMULATEUR );
+
+    public static Stream<Arguments> donneesImpotCible() {
+        return Stream.of(
+                Arguments.of( 1, 0, "CELIBATAIRE", 0, 0, false ), // sortie de la zone de décote
+                Arguments.of( 199, 0, "CELIBATAIRE", 0, 0, false ), // décote
+                Arguments.of( 2736, 0, "CELIBATAIRE", 0, 0, false ), // 30%
+                Arguments.of( 685, 35000, "MARIE", 3, 0, false ), // plafonnement du quotient familial
+                Arguments.of( 1, 0, "DIVORCE", 3, 0, true ),
+                Arguments.of( 423201, 0, "CELIBATAIRE", 0, 0, false ), // CEHR
+                Arguments.of( 378167, 650000, "MARIE", 2, 0, false )
+        );
+    }
+
+    @DisplayName("Le solveur trouve le plus petit revenu atteignant l'impôt cible en peu d'évaluations")
+    @ParameterizedTest( name = "Impôt cible {0} avec revenuNetDeclarant2={1}, situationFamiliale={2}" )
+    @MethodSource( "donneesImpotCible" )
+    public void testRevenuPourImpot( int impotCible, int revenuNetDeclarant2, String situationFamiliale,
+                                     int nbEnfantsACharge, int nbEnfantsSituationHandicap, boolean parentIsole ) {
+
+        // Arrange
+        SituationFamiliale situation = SituationFamiliale.valueOf( situationFamiliale );
+
+        // Act
+        SolutionRevenu solution = SOLVEUR.revenuPourImpot( impotCible, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole );
+
+        // Assert
+        int revenu = solution.getRevenuNetDeclarant1();
+        assertTrue( SIMULATEUR.calculImpot( revenu, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole ) >= impotCible );
+        assertTrue( SIMULATEUR.calculImpot( revenu - 1, revenuNetDeclarant2, situation,
+                nbEnfantsACharge, nbEnfantsSituationHandicap, parentIsole ) < impotCible );
+        assertTrue( solution.getNbEvaluations() <= 40, "Trop d'évaluations : " + solution.getNbEvaluations() );
+    }
+
+    @DisplayName("Une cible nulle est atteinte sans revenu, une cible excessive est rejetée")
+    @Test
+    public void testCasLimites() {
+        assertEquals( 0, SOLVEUR.revenuPourImpot( 0, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false )
+                .getRevenuNetDeclarant1() );
+        assertThrows( IllegalArgumentException.class,
+                () -> SOLVEUR.revenuPourImpot( 2_000_000_000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false ) );
+    }
+}
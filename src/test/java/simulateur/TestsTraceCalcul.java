@@ -0,0 +1,71 @@
+package simulateur;
+
+import com.kerware.simulateur.AdaptateurSimulateur;
+import com.kerware.simulateur.EtapeCalcul;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.TraceCalcul;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestsTraceCalcul {
+
+    private static void renseigner( AdaptateurSimulateur adaptateur, int revenu, SituationFamiliale situation ) {
+        adaptateur.setRevenusNetDeclarant1( revenu );
+        adaptateur.setRevenusNetDeclarant2( 0 );
+        adaptateur.setSituationFamiliale( situation );
+        adaptateur.setNbEnfantsACharge( 0 );
+        adaptateur.setNbEnfantsSituationHandicap( 0 );
+        adaptateur.setParentIsole( false );
+    }
+
+    @DisplayName("La trace conserve les derniers calculs et la valeur de chaque étape")
+    @Test
+    public void testTamponCirculaire() {
+
+        // Arrange
+        AdaptateurSimulateur adaptateur = new AdaptateurSimulateur();
+        TraceCalcul trace = new TraceCalcul( 2 );
+        adaptateur.activerTrace( trace );
+
+        // Act
+        for ( int revenu : new int[] { 12000, 35000, 95000 } ) {
+            renseigner( adaptateur, revenu, SituationFamiliale.CELIBATAIRE );
+            adaptateur.calculImpotSurRevenuNet();
+        }
+
+        // Assert
+        assertEquals( 3, trace.getNbCalculs() );
+        assertEquals( 2, trace.getNbEnregistrements() );
+        assertEquals( 2736.0, trace.getValeur( 0, EtapeCalcul.IMPOT_NET ) );
+        assertEquals( 19284.0, trace.getValeur( 1, EtapeCalcul.IMPOT_NET ) );
+        assertEquals( 9500.0, trace.getValeur( 1, EtapeCalcul.ABATTEMENT ) );
+        assertNull( trace.getErreur( 1 ) );
+    }
+
+    @DisplayName("Un calcul rejeté est marqué et la trace est écrite sur la sortie d'erreur")
+    @Test
+    public void testTraceSurErreur() {
+
+        // Arrange
+        StringBuilder sortie = new StringBuilder();
+        AdaptateurSimulateur adaptateur = new AdaptateurSimulateur();
+        TraceCalcul trace = new TraceCalcul( 4, sortie );
+        adaptateur.activerTrace( trace );
+        renseigner( adaptateur, 30000, SituationFamiliale.CELIBATAIRE );
+        adaptateur.setRevenusNetDeclarant2( 1000 );
+
+        // Act
+        assertThrows( IllegalArgumentException.class, adaptateur::calculImpotSurRevenuNet );
+
+        // Assert
+        assertEquals( "Revenu déclarant 2 invalide", trace.getErreur( 0 ) );
+        assertTrue( Double.isNaN( trace.getValeur( 0, EtapeCalcul.ABATTEMENT ) ) );
+        assertTrue( sortie.toString().contains( "revenuNetDeclarant2=1000" ) );
+        assertTrue( sortie.toString().contains( "ERREUR=Revenu déclarant 2 invalide" ) );
+    }
+}
@@ -0,0 +1,174 @@
+package simulateur;
+
+import com.kerware.simulateur.Bareme;
+import com.kerware.simulateur.EvenementFoyer;
+import com.kerware.simulateur.ProjectionFoyer;
+import com.kerware.simulateur.RegistreBaremes;
+import com.kerware.simulateur.ResultatImpot;
+import com.kerware.simulateur.Simulateur;
+import com.kerware.simulateur.SimulateurTrajectoire;
+import com.kerware.simulateur.SituationFamiliale;
+import com.kerware.simulateur.Trajectoire;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestsTrajectoire {
+
+    private static final int NB_ANNEES = 25;
+
+    private static boolean estCouple( SituationFamiliale situation ) {
+        return situation == SituationFamiliale.MARIE || situation == SituationFamiliale.PACSE;
+    }
+
+    /**
+     * Trajectoire aléatoire dont le foyer reste valide chaque année.
+     */
+    private static Trajectoire genererTrajectoire( Random aleatoire, int premiereAnnee ) {
+        SituationFamiliale situation = SituationFamiliale.values()[ aleatoire.nextInt( 5 ) ];
+        int revenu1 = aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( 20 ) ) );
+        int revenu2 = estCouple( situation ) ? aleatoire.nextInt( 1 + ( 1 << aleatoire.nextInt( 20 ) ) ) : 0;
+        int enfants = aleatoire.nextInt( 4 );
+        int handicapes = aleatoire.nextInt( enfants + 1 );
+        boolean isole = !estCouple( situation ) && enfants > 0 && aleatoire.nextBoolean();
+        Trajectoire depart = new Trajectoire( revenu1, revenu2, situation, enfants, handicapes, isole,
+                aleatoire.nextInt( 5 ) / 100.0, List.of() );
+
+        List<EvenementFoyer> evenements = new ArrayList<>();
+        for ( int annee = premiereAnnee + 1; annee < premiereAnnee + NB_ANNEES; annee++ ) {
+            switch ( aleatoire.nextInt( 6 ) ) {
+                case 0 -> {
+                    if ( enfants < 7 ) {
+                        boolean handicap = aleatoire.nextInt( 5 ) == 0;
+                        evenements.add( EvenementFoyer.naissance( annee, handicap ) );
+                        enfants++;
+                        handicapes += handicap ? 1 : 0;
+                    }
+                }
+                case 1 -> {
+                    if ( enfants > handicapes ) {
+                        evenements.add( EvenementFoyer.departEnfant( annee, false ) );
+                        enfants--;
+                    }
+                }
+                case 2 -> {
+                    if ( estCouple( situation ) ) {
+                        situation = aleatoire.nextBoolean() ? SituationFamiliale.DIVORCE : SituationFamiliale.VEUF;
+                        evenements.add( EvenementFoyer.situation( annee, situation, 0, enfants > 0 ) );
+                    } else {
+                        situation = aleatoire.nextBoolean() ? SituationFamiliale.MARIE : SituationFamiliale.PACSE;
+                        evenements.add( EvenementFoyer.situation( annee, situation, aleatoire.nextInt( 80000 ), false ) );
+                    }
+                }
+                case 3 -> evenements.add( EvenementFoyer.revenus( annee, aleatoire.nextInt( 300000 ),
+                        estCouple( situation ) ? aleatoire.nextInt( 300000 ) : 0 ) );
+                default -> {
+                    // Année sans événement
+                }
+            }
+        }
+        return new Trajectoire( depart.getRevenuNet1(), depart.getRevenuNet2(), depart.getSituationFamiliale(),
+                depart.getNbEnfants(), depart.getNbEnfantsHandicap(), depart.isParentIsole(),
+                depart.getCroissanceRevenus(), evenements );
+    }
+
+    @DisplayName("Chaque année projetée donne le résultat du simulateur sous le barème indexé de l'année")
+    @ParameterizedTest( name = "Indexation : {0}" )
+    @ValueSource( strings = { "0", "0.02", "0.048" } )
+    public void testResultatsIdentiques( double indexation ) {
+
+        // Arrange
+        SimulateurTrajectoire projecteur = new SimulateurTrajectoire( Bareme.BAREME_2024, indexation, NB_ANNEES );
+        List<Bareme> baremes = new ArrayList<>();
+        for ( int i = 0; i < NB_ANNEES; i++ ) {
+            if ( indexation != 0 || i == 0 ) {
+                baremes.add( projecteur.getBareme( i ) );
+            }
+        }
+        Simulateur simulateur = new Simulateur( new RegistreBaremes( baremes ), null );
+        Random aleatoire = new Random( 22 );
+        int[] impots = new int[ NB_ANNEES ];
+
+        for ( int t = 0; t < 2000; t++ ) {
+            Trajectoire trajectoire = genererTrajectoire( aleatoire, projecteur.getPremiereAnneeRevenus() );
+
+            // Act
+            ProjectionFoyer projection = projecteur.projeter( trajectoire );
+            long total = projecteur.impotsNets( trajectoire, impots );
+
+            // Assert
+            assertEquals( projection.getImpotTotal(), total );
+            for ( int i = 0; i < NB_ANNEES; i++ ) {
+                int anneeRevenus = indexation != 0 ? projection.getAnneeRevenus( i )
+                        : projecteur.getPremiereAnneeRevenus();
+                ResultatImpot attendu = simulateur.calculer( anneeRevenus, projection.getRevenuNet1( i ),
+                        projection.getRevenuNet2( i ), projection.getSituationFamiliale( i ),
+                        projection.getNbEnfants( i ), projection.getNbEnfantsHandicap( i ),
+                        projection.isParentIsole( i ) );
+                assertEquals( attendu.toString(), projection.getResultat( i ).toString() );
+                assertEquals( attendu.getImpotNetArrondi(), impots[ i ] );
+            }
+        }
+    }
+
+    @DisplayName("Les événements et la croissance des revenus s'appliquent au début de leur année")
+    @Test
+    public void testEvenements() {
+
+        // Arrange
+        SimulateurTrajectoire projecteur = new SimulateurTrajectoire( Bareme.BAREME_2024, 0.02, 6 );
+        Trajectoire trajectoire = new Trajectoire( 40000, 0, SituationFamiliale.CELIBATAIRE, 0, 0, false, 0.10,
+                List.of( EvenementFoyer.naissance( 2026, true ),
+                        EvenementFoyer.situation( 2025, SituationFamiliale.PACSE, 30000, false ),
+                        EvenementFoyer.departEnfant( 2028, true ),
+                        EvenementFoyer.situation( 2028, SituationFamiliale.DIVORCE, 0, false ) ) );
+
+        // Act
+        ProjectionFoyer projection = projecteur.projeter( trajectoire );
+
+        // Assert
+        assertEquals( 2023, projection.getAnneeRevenus( 0 ) );
+        assertEquals( 40000, projection.getRevenuNet1( 0 ) );
+        assertEquals( 44000, projection.getRevenuNet1( 1 ) );
+        assertEquals( SituationFamiliale.CELIBATAIRE, projection.getSituationFamiliale( 1 ) );
+        assertEquals( SituationFamiliale.PACSE, projection.getSituationFamiliale( 2 ) );
+        assertEquals( 30000, projection.getRevenuNet2( 2 ) );
+        assertEquals( 33000, projection.getRevenuNet2( 3 ) );
+        assertEquals( 1, projection.getNbEnfantsHandicap( 3 ) );
+        assertEquals( 3.0, projection.getResultat( 3 ).getNbParts() );
+        assertEquals( SituationFamiliale.DIVORCE, projection.getSituationFamiliale( 5 ) );
+        assertEquals( 0, projection.getNbEnfants( 5 ) );
+        assertEquals( 0, projection.getRevenuNet2( 5 ) );
+        assertEquals( 2029, projecteur.getBareme( 5 ).getAnnee() );
+    }
+
+    @DisplayName("Une année identique à la précédente reprend son résultat")
+    @Test
+    public void testAnneeInchangee() {
+        SimulateurTrajectoire projecteur = new SimulateurTrajectoire( Bareme.BAREME_2024, 0, 3 );
+        ProjectionFoyer projection = projecteur.projeter( new Trajectoire( 52000, 0, SituationFamiliale.VEUF,
+                1, 0, false, 0, List.of( EvenementFoyer.naissance( 2025, false ) ) ) );
+        assertSame( projection.getResultat( 0 ), projection.getResultat( 1 ) );
+        assertEquals( projection.getResultat( 1 ).getNbParts() + 0.5, projection.getResultat( 2 ).getNbParts() );
+    }
+
+    @DisplayName("Un foyer devenu invalide est rejeté avec l'année et le message du simulateur")
+    @Test
+    public void testRejet() {
+        SimulateurTrajectoire projecteur = new SimulateurTrajectoire( Bareme.BAREME_2024, 0.02, 10 );
+        Trajectoire trajectoire = new Trajectoire( 30000, 0, SituationFamiliale.CELIBATAIRE, 1, 0, true, 0,
+                List.of( EvenementFoyer.situation( 2027, SituationFamiliale.MARIE, 20000, true ) ) );
+        IllegalArgumentException e = assertThrows( IllegalArgumentException.class,
+                () -> projecteur.projeter( trajectoire ) );
+        assertEquals( "Revenus 2027 : Parent isolé incompatible avec couple", e.getMessage() );
+    }
+}